@@ -71,6 +71,10 @@ public class ShowSatellites extends Activity {
 
 	/** Called when the activity is first created. */
 	private static final int SENSOR_SAMPLE_SIZE = 5;
+	private static final int UPDATE_THREADS = Runtime.getRuntime()
+			.availableProcessors();
+	// satellite positions are interpolated to 100 m (in Gm)
+	private static final double CACHE_ERROR = 1E-7;
 	float heading = 0;
 	float pitch = 0;
 	float roll = 0;
@@ -97,7 +101,6 @@ public class ShowSatellites extends Activity {
 	public static volatile SatelliteTrack satelliteTrack;
 	public static volatile boolean updateSatelliteTrack = false;
 	private Resources droidSatResources = null;
-	private InputStream satFileStream = null;
 	private SatelliteArrayAdapter satPosnsAdapter;
 	private Handler handler = new Handler();
 	public volatile static boolean orientationLocked = false;
@@ -847,7 +850,11 @@ public class ShowSatellites extends Activity {
 					}
 					displayTime = currentSimTime;
 					displayTimeString = df.format(new Date(ShowSatellites.displayTime));
-					Satellite.showAllSats(null, station, satellitePositions);
+					// below the horizon is not drawn in these modes, so
+					// those satellites need not be updated
+					Satellite.showAllSats(null, station, satellitePositions,
+							UPDATE_THREADS,
+							fullSky || !StereoView.displayLowSats);
 
 					// if satellite selection has changed, update the satellite
 					// track
@@ -1124,12 +1131,16 @@ public class ShowSatellites extends Activity {
 		loadingTle = true;
 		try {
 			refreshTleDir();
-			satFileStream = new FileInputStream(new File(tleDir, tle));
+			// the pre-parsed copy lives in the cache, not among the TLEs
+			Satellite.loadAllSats(new File(tleDir, tle), new File(
+					getCacheDir(), tle + ".bin"), station, satellitePositions);
 		} catch (Exception e) {
 			Log.d(this.getClass().getName(), "error reading tle file");
 		}
 
-		Satellite.showAllSats(satFileStream, station, satellitePositions);
+		for (SatellitePosition satPosn : satellitePositions) {
+			satPosn.sat.SetCache(CACHE_ERROR);
+		}
 		Collections.sort(satellitePositions, new SatellitePositionComparator());
 		loadingTle = false;
 		// enable spinner
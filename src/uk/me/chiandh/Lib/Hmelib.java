@@ -767,19 +767,23 @@ out as <code>"&nbsp;&nbsp;-1234.567000"</code>.</p>
 
   final static public String Wfndm(int aWidth, int aPrec, double aNum)
   {
+    DecimalFormat theFormat;
     String theOut;
     int theLen;
 
-    /* Format the number into a string, which necessarily is left justified. */
+    /* Format the number into a string, which necessarily is left justified.
+     * DecimalFormat is not thread-safe, and this is called from several
+     * threads by Satellite.showAllSats. */
 
     switch(aPrec) {
-    case 9:  theOut = f1d9.format(aNum); break;
-    case 6:  theOut = f1d6.format(aNum); break;
-    case 3:  theOut = f1d3.format(aNum); break;
-    case 1:  theOut = f1d1.format(aNum); break;
-    case 0:  theOut = f1d0.format(aNum); break;
-    default: theOut = f1d3.format(aNum); break;
+    case 9:  theFormat = f1d9; break;
+    case 6:  theFormat = f1d6; break;
+    case 3:  theFormat = f1d3; break;
+    case 1:  theFormat = f1d1; break;
+    case 0:  theFormat = f1d0; break;
+    default: theFormat = f1d3; break;
     }
+    synchronized (theFormat) {theOut = theFormat.format(aNum);}
 
     /* If the string is narrower than the requested field length, print a few
      * space characters and then the number.  Else print the number. */
@@ -2,8 +2,6 @@
 package uk.me.chiandh.Lib;
 
 import java.io.*;
-import java.text.*;
-import java.util.Locale;
 
 /**
 <p>The <code>SDP4</code> class is a base class to calculate ephemeris for
@@ -112,6 +110,11 @@ of the orbital elements).  It is unlikely to be for J2000 or B1950.</p>
   <li>Repeat GetPosVel() for different times.</li>
 </ol>
 
+<p>GetPosVel() with an {@link SDP4Workspace SDP4Workspace} as second
+argument returns itsR[] and itsV[] in the workspace instead, and does not
+change the SDP4 instance.  Once the TLE is read, several threads can thus
+calculate the same satellite, each with its own workspace.</p>
+
 <p>Copyright: &copy; 2003 Horst Meyerdierks.</p>
 
 <p>This programme is free software; you can redistribute it and/or
@@ -192,121 +195,110 @@ public class SDP4
   /** Whether period is >= 225 min */
   protected int    itsIsDeep;
 
+  /** The workspace used by GetPosVel(double), made on first use. */
+  protected SDP4Workspace itsWork;
+
+  /** The deep space state, made only for a long-period satellite. */
+  protected Deep itsDeep;
+
 
   /**
-   * A %f format for parsing a floating point number.
-   *
-   * <p>Specifying a hash means that , is not recognised as throusand separator
-   * but taken to be the end of the numeric field.  Note that an "E" is also
-   * taken to be the end of the numeric field, so 123E4 cannot be read
-   * properly. */
+   * The powers of ten that are exact in double precision. */
 
-  final static private DecimalFormat form = new DecimalFormat("#", new DecimalFormatSymbols(Locale.ENGLISH));
+  final static private double POW10[] = {
+    1E0,  1E1,  1E2,  1E3,  1E4,  1E5,  1E6,  1E7,  1E8,  1E9,  1E10, 1E11,
+    1E12, 1E13, 1E14, 1E15, 1E16, 1E17, 1E18, 1E19, 1E20, 1E21, 1E22};
    
 
 
+  /**
+   * The number of integrator steps between checkpoints of the resonance
+   * integrator. */
+
+  protected static final int RESCHECK = 16;
+
   protected double E1_XMO,E1_XNODEO,E1_OMEGAO,E1_EO,E1_XINCL,
-    E1_XNO,E1_XNDT2O,E1_XNDD6O,E1_BSTAR,E1_X,E1_Y,E1_Z,
-    E1_XDOT,E1_YDOT,E1_ZDOT,E1_EPOCH,E1_DS50;
-
-  protected double C1_CK2,C1_CK4,C1_E6A,C1_QOMS2T,C1_S,C1_TOTHRD,
-    C1_XJ3,C1_XKE,C1_XKMPER,C1_XMNPDA,C1_AE;
-
-  protected double C2_DE2RA,C2_PI,C2_PIO2,C2_TWOPI,C2_X3PIO2;
-
-  protected double SGP4_A1,SGP4_A3OVK2,SGP4_AO,SGP4_AODP,SGP4_AYCOF,
-    SGP4_BETAO,SGP4_BETAO2,SGP4_C1,SGP4_C1SQ,
-    SGP4_C2,SGP4_C3,SGP4_C4,SGP4_C5,SGP4_COEF,SGP4_COEF1,
-    SGP4_COSIO,SGP4_D2,SGP4_D3,SGP4_D4,SGP4_DEL1,SGP4_DELMO,
-    SGP4_DELO,SGP4_EETA,
-    SGP4_EOSQ,SGP4_ETA,SGP4_ETASQ,SGP4_OMGCOF,SGP4_OMGDOT,
-    SGP4_PERIGE,SGP4_PINVSQ,SGP4_PSISQ,
-    SGP4_QOMS24,SGP4_S4,SGP4_SINIO,SGP4_SINMO,SGP4_T2COF,
-    SGP4_T3COF,SGP4_T4COF,SGP4_T5COF,SGP4_TEMP,SGP4_TEMP1,
-    SGP4_TEMP2,SGP4_TEMP3,SGP4_THETA2,SGP4_THETA4,SGP4_TSI,
-    SGP4_X1M5TH,SGP4_X1MTH2,SGP4_X3THM1,SGP4_X7THM1,
-    SGP4_XHDOT1,SGP4_XLCOF,SGP4_XMCOF,SGP4_XMDOT,SGP4_XNODCF,
+    E1_XNO,E1_XNDT2O,E1_XNDD6O,E1_BSTAR,E1_EPOCH,E1_DS50;
+
+  /* The constants of /C1/ and /C2/, the same for all satellites. */
+
+  protected static final double C1_E6A = 1.E-6, C1_TOTHRD = .66666667,
+    C1_XJ3 = -.253881E-5, C1_XKE = .743669161E-1, C1_XKMPER = 6378.135,
+    C1_XMNPDA = 1440., C1_AE = 1.;
+
+  protected static final double C1_CK2, C1_CK4, C1_QOMS2T, C1_S;
+
+  static {
+    double QO, SO, XJ2, XJ4, QOMS2T;
+
+    QO = 120.0;
+    SO = 78.0;
+    XJ2 = 1.082616E-3;
+    XJ4 = -1.65597E-6;
+    C1_CK2 = .5 * XJ2 * C1_AE * C1_AE;
+    C1_CK4 = -.375 * XJ4 * C1_AE * C1_AE * C1_AE * C1_AE;
+    QOMS2T  = ((QO - SO) * C1_AE / C1_XKMPER);
+    QOMS2T *= QOMS2T;
+    QOMS2T *= QOMS2T;
+    C1_QOMS2T = QOMS2T;
+    C1_S = C1_AE * (1. + SO / C1_XKMPER);
+  }
+
+  protected static final double C2_DE2RA = .174532925E-1, C2_PI = 3.14159265,
+    C2_PIO2 = 1.57079633, C2_TWOPI = 6.2831853, C2_X3PIO2 = 4.71238898;
+
+  /* The constants of /COMDEEP4/. */
+
+  protected static final double
+    DEEP_ZNS = 1.19459E-5,
+    DEEP_C1SS = 2.9864797E-6,
+    DEEP_ZES = 0.01675,
+    DEEP_ZNL = 1.5835218E-4,
+    DEEP_C1L = 4.7968065E-7,
+    DEEP_ZEL = 0.05490,
+    DEEP_ZCOSIS = 0.91744867,
+    DEEP_ZSINIS = 0.39785416,
+    DEEP_ZSINGS = -0.98088458,
+    DEEP_ZCOSGS = 0.1945905,
+    DEEP_Q22 = 1.7891679E-6,
+    DEEP_Q31 = 2.1460748E-6,
+    DEEP_Q33 = 2.2123015E-7,
+    DEEP_G22 = 5.7686396,
+    DEEP_G32 = 0.95240898,
+    DEEP_G44 = 1.8014998,
+    DEEP_G52 = 1.0508330,
+    DEEP_G54 = 4.4108898,
+    DEEP_ROOT22 = 1.7891679E-6,
+    DEEP_ROOT32 = 3.7393792E-7,
+    DEEP_ROOT44 = 7.3636953E-9,
+    DEEP_ROOT52 = 1.1428639E-7,
+    DEEP_ROOT54 = 2.1765803E-9,
+    DEEP_THDT = 4.3752691E-3;
+
+  protected double SGP4_AODP,SGP4_AYCOF,SGP4_C1,SGP4_C4,SGP4_C5,
+    SGP4_COSIO,SGP4_D2,SGP4_D3,SGP4_D4,SGP4_DELMO,SGP4_ETA,
+    SGP4_OMGCOF,SGP4_OMGDOT,SGP4_SINIO,SGP4_SINMO,SGP4_T2COF,
+    SGP4_T3COF,SGP4_T4COF,SGP4_T5COF,SGP4_X1MTH2,SGP4_X3THM1,
+    SGP4_X7THM1,SGP4_XLCOF,SGP4_XMCOF,SGP4_XMDOT,SGP4_XNODCF,
     SGP4_XNODOT,SGP4_XNODP;
   protected int SGP4_ISIMP;
 
-  protected double SDP4_A1,SDP4_A3OVK2,SDP4_AO,SDP4_AODP,
-    SDP4_AYCOF,SDP4_BETAO,SDP4_BETAO2,SDP4_C1,SDP4_C2,
-    SDP4_C4,SDP4_COEF,SDP4_COEF1,SDP4_COSG,SDP4_COSIO,
-    SDP4_DEL1,SDP4_DELO,SDP4_EETA,SDP4_EOSQ,
-    SDP4_ETA,SDP4_ETASQ,SDP4_OMGDOT,SDP4_PERIGE,SDP4_PINVSQ,
-    SDP4_PSISQ,SDP4_QOMS24,SDP4_S4,SDP4_SING,
-    SDP4_SINIO,SDP4_T2COF,SDP4_TEMP1,SDP4_TEMP2,SDP4_TEMP3,
-    SDP4_THETA2,SDP4_THETA4,SDP4_TSI,SDP4_X1M5TH,
-    SDP4_X1MTH2,SDP4_X3THM1,SDP4_X7THM1,SDP4_XHDOT1,SDP4_XLCOF,
-    SDP4_XMDOT,SDP4_XNODCF,SDP4_XNODOT,SDP4_XNODP;
-
-  protected double DEEP_A1,DEEP_A2,DEEP_A3,DEEP_A4,DEEP_A5,DEEP_A6,
-    DEEP_A7,DEEP_A8,DEEP_A9,DEEP_A10,DEEP_AINV2,DEEP_ALFDP,
-    DEEP_AQNV,DEEP_ATIME,DEEP_BETDP,DEEP_BFACT,DEEP_C,DEEP_CC,
-    DEEP_COSIS,DEEP_COSOK,DEEP_COSQ,DEEP_CTEM,DEEP_D2201,
-    DEEP_D2211,DEEP_D3210,DEEP_D3222,DEEP_D4410,DEEP_D4422,
-    DEEP_D5220,DEEP_D5232,DEEP_D5421,DEEP_D5433,DEEP_DALF,
-    DEEP_DAY,DEEP_DBET,DEEP_DEL1,DEEP_DEL2,DEEP_DEL3,DEEP_DELT,
-    DEEP_DLS,DEEP_E3,DEEP_EE2,DEEP_EOC,DEEP_EQ,DEEP_F2,
-    DEEP_F220,DEEP_F221,DEEP_F3,DEEP_F311,DEEP_F321,DEEP_F322,
-    DEEP_F330,DEEP_F441,DEEP_F442,DEEP_F522,DEEP_F523,
-    DEEP_F542,DEEP_F543,DEEP_FASX2,DEEP_FASX4,DEEP_FASX6,
-    DEEP_FT,DEEP_G200,DEEP_G201,DEEP_G211,DEEP_G300,DEEP_G310,
-    DEEP_G322,DEEP_G410,DEEP_G422,DEEP_G520,DEEP_G521,DEEP_G532,
-    DEEP_G533,DEEP_GAM,DEEP_OMEGAQ,DEEP_PE,DEEP_PGH,DEEP_PH,
-    DEEP_PINC,DEEP_PL,DEEP_PREEP,DEEP_S1,DEEP_S2,
-    DEEP_S3,DEEP_S4,DEEP_S5,DEEP_S6,DEEP_S7,DEEP_SAVTSN,DEEP_SE,
-    DEEP_SE2,DEEP_SE3,DEEP_SEL,DEEP_SES,DEEP_SGH,DEEP_SGH2,
-    DEEP_SGH3,DEEP_SGH4,DEEP_SGHL,DEEP_SGHS,DEEP_SH,DEEP_SH2,
-    DEEP_SH3,DEEP_SH1,DEEP_SHS,DEEP_SI,DEEP_SI2,DEEP_SI3,
-    DEEP_SIL,DEEP_SINI2,DEEP_SINIS,DEEP_SINOK,DEEP_SINQ,
-    DEEP_SINZF,DEEP_SIS,DEEP_SL,DEEP_SL2,DEEP_SL3,DEEP_SL4,
-    DEEP_SLL,DEEP_SLS,DEEP_SSE,DEEP_SSG,DEEP_SSH,DEEP_SSI,
-    DEEP_SSL,DEEP_STEM,DEEP_STEP2,DEEP_STEPN,DEEP_STEPP,
-    DEEP_TEMP,DEEP_TEMP1,DEEP_THGR,DEEP_X1,DEEP_X2,DEEP_X2LI,
-    DEEP_X2OMI,DEEP_X3,DEEP_X4,DEEP_X5,DEEP_X6,DEEP_X7,DEEP_X8,
-    DEEP_XFACT,DEEP_XGH2,DEEP_XGH3,DEEP_XGH4,DEEP_XH2,DEEP_XH3,
-    DEEP_XI2,DEEP_XI3,DEEP_XL,DEEP_XL2,DEEP_XL3,DEEP_XL4,
-    DEEP_XLAMO,DEEP_XLDOT,DEEP_XLI,DEEP_XLS,
-    DEEP_XMAO,DEEP_XNDDT,DEEP_XNDOT,DEEP_XNI,DEEP_XNO2,
-    DEEP_XNODCE,DEEP_XNOI,DEEP_XNQ,DEEP_XOMI,DEEP_XPIDOT,
-    DEEP_XQNCL,DEEP_Z1,DEEP_Z11,DEEP_Z12,DEEP_Z13,DEEP_Z2,
-    DEEP_Z21,DEEP_Z22,DEEP_Z23,DEEP_Z3,DEEP_Z31,DEEP_Z32,
-    DEEP_Z33,DEEP_ZCOSG,DEEP_ZCOSGL,DEEP_ZCOSH,DEEP_ZCOSHL,
-    DEEP_ZCOSI,DEEP_ZCOSIL,DEEP_ZE,DEEP_ZF,DEEP_ZM,DEEP_ZMO,
-    DEEP_ZMOL,DEEP_ZMOS,DEEP_ZN,DEEP_ZSING,DEEP_ZSINGL,
-    DEEP_ZSINH,DEEP_ZSINHL,DEEP_ZSINI,DEEP_ZSINIL,DEEP_ZX,DEEP_ZY;
-  protected int DEEP_IRESFL,DEEP_ISYNFL,DEEP_IRET,DEEP_IRETN,DEEP_LS;
-
-  protected double DEEP_ZNS,DEEP_C1SS,DEEP_ZES,DEEP_ZNL,DEEP_C1L,
-    DEEP_ZEL,DEEP_ZCOSIS,DEEP_ZSINIS,DEEP_ZSINGS,
-    DEEP_ZCOSGS,DEEP_Q22,DEEP_Q31,DEEP_Q33,DEEP_G22,DEEP_G32,
-    DEEP_G44,DEEP_G52,DEEP_G54,
-    DEEP_ROOT22,DEEP_ROOT32,DEEP_ROOT44,DEEP_ROOT52,DEEP_ROOT54,
-    DEEP_THDT;
-
-  protected double DPINI_EQSQ,DPINI_SINIQ,DPINI_COSIQ,
-    DPINI_RTEQSQ,DPINI_AO,DPINI_COSQ2,DPINI_SINOMO,DPINI_COSOMO,
-    DPINI_BSQ,DPINI_XLLDOT,DPINI_OMGDT,DPINI_XNODOT,DPINI_XNODP;
-
-  protected double DPSEC_XLL,DPSEC_OMGASM,DPSEC_XNODES,DPSEC_EM,
-    DPSEC_XINC,DPSEC_XN,DPSEC_T;
-
 
   /**
    * Initialise the SDP4.
    *
    * <p>This initialises the SDP4 object.  Most state variables are set to
-   * zero, some to constants necessary for the calculations. */
+   * zero.  The deep space state is not made until a TLE for a long-period
+   * satellite is read. */
 
   public void Init()
   {
-    double QO, SO, XJ2, XJ4;
-
     //itsR = new double[3];
     //itsV = new double[3];
     itsR[0] = 0.01; itsR[1] = 0.; itsR[2] = 0.;
     itsV[0] = 0.;   itsV[1] = 0.; itsV[2] = 0.;
+    itsWork = null;
+    itsDeep = null;
     itsName       = "Unspecified satellite";
     itsDesignator = "99999Z";
     itsNumber     = 88888;
@@ -323,97 +315,33 @@ public class SDP4
     E1_XNDT2O = 0.;
     E1_XNDD6O = 0.;
     E1_BSTAR = 0.;
-    E1_X = 0.;
-    E1_Y = 0.;
-    E1_Z = 0.;
-    E1_XDOT = 0.;
-    E1_YDOT = 0.;
-    E1_ZDOT = 0.;
     E1_EPOCH = 0.;
     E1_DS50 = 0.;
 
-    /* Initialise /C1/. */
-
-    C1_E6A = 1.E-6;
-    C1_TOTHRD = .66666667;
-    C1_XJ3 = -.253881E-5;
-    C1_XKE = .743669161E-1;
-    C1_XKMPER = 6378.135;
-    C1_XMNPDA = 1440.;
-    C1_AE = 1.;
-
-    QO = 120.0;
-    SO = 78.0;
-    XJ2 = 1.082616E-3;
-    XJ4 = -1.65597E-6;
-    C1_CK2 = .5 * XJ2 * C1_AE * C1_AE;
-    C1_CK4 = -.375 * XJ4 * C1_AE * C1_AE * C1_AE * C1_AE;
-    C1_QOMS2T  = ((QO - SO) * C1_AE / C1_XKMPER);
-    C1_QOMS2T *= C1_QOMS2T;
-    C1_QOMS2T *= C1_QOMS2T;
-    C1_S = C1_AE * (1. + SO / C1_XKMPER);
-
-    /* Initialise /C2/. */
-
-    C2_DE2RA = .174532925E-1;
-    C2_PI = 3.14159265;
-    C2_PIO2 = 1.57079633;
-    C2_TWOPI = 6.2831853;
-    C2_X3PIO2 = 4.71238898;
-
     /* Initialisation of /COMSGP4/. */
 
-    SGP4_A1 = 0.;
-    SGP4_A3OVK2 = 0.;
-    SGP4_AO = 0.;
     SGP4_AODP = 0.;
     SGP4_AYCOF = 0.;
-    SGP4_BETAO = 0.;
-    SGP4_BETAO2 = 0.;
     SGP4_C1 = 0.;
-    SGP4_C1SQ = 0.;
-    SGP4_C2 = 0.;
-    SGP4_C3 = 0.;
     SGP4_C4 = 0.;
     SGP4_C5 = 0.;
-    SGP4_COEF = 0.;
-    SGP4_COEF1 = 0.;
     SGP4_COSIO = 0.;
     SGP4_D2 = 0.;
     SGP4_D3 = 0.;
     SGP4_D4 = 0.;
-    SGP4_DEL1 = 0.;
     SGP4_DELMO = 0.;
-    SGP4_DELO = 0.;
-    SGP4_EETA = 0.;
-    SGP4_EOSQ = 0.;
     SGP4_ETA = 0.;
-    SGP4_ETASQ = 0.;
     SGP4_OMGCOF = 0.;
     SGP4_OMGDOT = 0.;
-    SGP4_PERIGE = 0.;
-    SGP4_PINVSQ = 0.;
-    SGP4_PSISQ = 0.;
-    SGP4_QOMS24 = 0.;
-    SGP4_S4 = 0.;
     SGP4_SINIO = 0.;
     SGP4_SINMO = 0.;
     SGP4_T2COF = 0.;
     SGP4_T3COF = 0.;
     SGP4_T4COF = 0.;
     SGP4_T5COF = 0.;
-    SGP4_TEMP = 0.;
-    SGP4_TEMP1 = 0.;
-    SGP4_TEMP2 = 0.;
-    SGP4_TEMP3 = 0.;
-    SGP4_THETA2 = 0.;
-    SGP4_THETA4 = 0.;
-    SGP4_TSI = 0.;
-    SGP4_X1M5TH = 0.;
     SGP4_X1MTH2 = 0.;
     SGP4_X3THM1 = 0.;
     SGP4_X7THM1 = 0.;
-    SGP4_XHDOT1 = 0.;
     SGP4_XLCOF = 0.;
     SGP4_XMCOF = 0.;
     SGP4_XMDOT = 0.;
@@ -422,298 +350,11 @@ public class SDP4
     SGP4_XNODP = 0.;
     SGP4_ISIMP = 0;
 
-    /* Initialisation of /COMSDP4/. */
-
-    SDP4_A1 = 0.;
-    SDP4_A3OVK2 = 0.;
-    SDP4_AO = 0.;
-    SDP4_AODP = 0.;
-    SDP4_AYCOF = 0.;
-    SDP4_BETAO = 0.;
-    SDP4_BETAO2 = 0.;
-    SDP4_C1 = 0.;
-    SDP4_C2 = 0.;
-    SDP4_C4 = 0.;
-    SDP4_COEF = 0.;
-    SDP4_COEF1 = 0.;
-    SDP4_COSG = 0.;
-    SDP4_COSIO = 0.;
-    SDP4_DEL1 = 0.;
-    SDP4_DELO = 0.;
-    SDP4_EETA = 0.;
-    SDP4_EOSQ = 0.;
-    SDP4_ETA = 0.;
-    SDP4_ETASQ = 0.;
-    SDP4_OMGDOT = 0.;
-    SDP4_PERIGE = 0.;
-    SDP4_PINVSQ = 0.;
-    SDP4_PSISQ = 0.;
-    SDP4_QOMS24 = 0.;
-    SDP4_S4 = 0.;
-    SDP4_SING = 0.;
-    SDP4_SINIO = 0.;
-    SDP4_T2COF = 0.;
-    SDP4_TEMP1 = 0.;
-    SDP4_TEMP2 = 0.;
-    SDP4_TEMP3 = 0.;
-    SDP4_THETA2 = 0.;
-    SDP4_THETA4 = 0.;
-    SDP4_TSI = 0.;
-    SDP4_X1M5TH = 0.;
-    SDP4_X1MTH2 = 0.;
-    SDP4_X3THM1 = 0.;
-    SDP4_X7THM1 = 0.;
-    SDP4_XHDOT1 = 0.;
-    SDP4_XLCOF = 0.;
-    SDP4_XMDOT = 0.;
-    SDP4_XNODCF = 0.;
-    SDP4_XNODOT = 0.;
-    SDP4_XNODP = 0.;
-
     /* Initialisation of /COMDEEP1/. */
 
-    DEEP_A1 = 0.;
-    DEEP_A2 = 0.;
-    DEEP_A3 = 0.;
-    DEEP_A4 = 0.;
-    DEEP_A5 = 0.;
-    DEEP_A6 = 0.;
-    DEEP_A7 = 0.;
-    DEEP_A8 = 0.;
-    DEEP_A9 = 0.;
-    DEEP_A10 = 0.;
-    DEEP_AINV2 = 0.;
-    DEEP_ALFDP = 0.;
-    DEEP_AQNV = 0.;
-    DEEP_ATIME = 0.;
-    DEEP_BETDP = 0.;
-    DEEP_BFACT = 0.;
-    DEEP_C = 0.;
-    DEEP_CC = 0.;
-    DEEP_COSIS = 0.;
-    DEEP_COSOK = 0.;
-    DEEP_COSQ = 0.;
-    DEEP_CTEM = 0.;
-    DEEP_D2201 = 0.;
-    DEEP_D2211 = 0.;
-    DEEP_D3210 = 0.;
-    DEEP_D3222 = 0.;
-    DEEP_D4410 = 0.;
-    DEEP_D4422 = 0.;
-    DEEP_D5220 = 0.;
-    DEEP_D5232 = 0.;
-    DEEP_D5421 = 0.;
-    DEEP_D5433 = 0.;
-    DEEP_DALF = 0.;
-    DEEP_DAY = 0.;
-    DEEP_DBET = 0.;
-    DEEP_DEL1 = 0.;
-    DEEP_DEL2 = 0.;
-    DEEP_DEL3 = 0.;
-    DEEP_DELT = 0.;
-    DEEP_DLS = 0.;
-    DEEP_E3 = 0.;
-    DEEP_EE2 = 0.;
-    DEEP_EOC = 0.;
-    DEEP_EQ = 0.;
-    DEEP_F2 = 0.;
-    DEEP_F220 = 0.;
-    DEEP_F221 = 0.;
-    DEEP_F3 = 0.;
-    DEEP_F311 = 0.;
-    DEEP_F321 = 0.;
-    DEEP_F322 = 0.;
-    DEEP_F330 = 0.;
-    DEEP_F441 = 0.;
-    DEEP_F442 = 0.;
-    DEEP_F522 = 0.;
-    DEEP_F523 = 0.;
-    DEEP_F542 = 0.;
-    DEEP_F543 = 0.;
-    DEEP_FASX2 = 0.;
-    DEEP_FASX4 = 0.;
-    DEEP_FASX6 = 0.;
-    DEEP_FT = 0.;
-    DEEP_G200 = 0.;
-    DEEP_G201 = 0.;
-    DEEP_G211 = 0.;
-    DEEP_G300 = 0.;
-    DEEP_G310 = 0.;
-    DEEP_G322 = 0.;
-    DEEP_G410 = 0.;
-    DEEP_G422 = 0.;
-    DEEP_G520 = 0.;
-    DEEP_G521 = 0.;
-    DEEP_G532 = 0.;
-    DEEP_G533 = 0.;
-    DEEP_GAM = 0.;
-    DEEP_OMEGAQ = 0.;
-    DEEP_PE = 0.;
-    DEEP_PGH = 0.;
-    DEEP_PH = 0.;
-
-    /* Initialisation of /COMDEEP2/. */
-
-    DEEP_PINC = 0.;
-    DEEP_PL = 0.;
-    DEEP_PREEP = 0.;
-    DEEP_S1 = 0.;
-    DEEP_S2 = 0.;
-    DEEP_S3 = 0.;
-    DEEP_S4 = 0.;
-    DEEP_S5 = 0.;
-    DEEP_S6 = 0.;
-    DEEP_S7 = 0.;
-    DEEP_SAVTSN = 0.;
-    DEEP_SE = 0.;
-    DEEP_SE2 = 0.;
-    DEEP_SE3 = 0.;
-    DEEP_SEL = 0.;
-    DEEP_SES = 0.;
-    DEEP_SGH = 0.;
-    DEEP_SGH2 = 0.;
-    DEEP_SGH3 = 0.;
-    DEEP_SGH4 = 0.;
-    DEEP_SGHL = 0.;
-    DEEP_SGHS = 0.;
-    DEEP_SH = 0.;
-    DEEP_SH2 = 0.;
-    DEEP_SH3 = 0.;
-    DEEP_SH1 = 0.;
-    DEEP_SHS = 0.;
-    DEEP_SI = 0.;
-    DEEP_SI2 = 0.;
-    DEEP_SI3 = 0.;
-    DEEP_SIL = 0.;
-    DEEP_SINI2 = 0.;
-    DEEP_SINIS = 0.;
-    DEEP_SINOK = 0.;
-    DEEP_SINQ = 0.;
-    DEEP_SINZF = 0.;
-    DEEP_SIS = 0.;
-    DEEP_SL = 0.;
-    DEEP_SL2 = 0.;
-    DEEP_SL3 = 0.;
-    DEEP_SL4 = 0.;
-    DEEP_SLL = 0.;
-    DEEP_SLS = 0.;
-    DEEP_SSE = 0.;
-    DEEP_SSG = 0.;
-    DEEP_SSH = 0.;
-    DEEP_SSI = 0.;
-    DEEP_SSL = 0.;
-    DEEP_STEM = 0.;
-    DEEP_STEP2 = 0.;
-    DEEP_STEPN = 0.;
-    DEEP_STEPP = 0.;
-    DEEP_TEMP = 0.;
-    DEEP_TEMP1 = 0.;
-    DEEP_THGR = 0.;
-    DEEP_X1 = 0.;
-    DEEP_X2 = 0.;
-    DEEP_X2LI = 0.;
-    DEEP_X2OMI = 0.;
-    DEEP_X3 = 0.;
-    DEEP_X4 = 0.;
-    DEEP_X5 = 0.;
-    DEEP_X6 = 0.;
-    DEEP_X7 = 0.;
-    DEEP_X8 = 0.;
-    DEEP_XFACT = 0.;
-    DEEP_XGH2 = 0.;
-    DEEP_XGH3 = 0.;
-    DEEP_XGH4 = 0.;
-    DEEP_XH2 = 0.;
-    DEEP_XH3 = 0.;
-    DEEP_XI2 = 0.;
-    DEEP_XI3 = 0.;
-    DEEP_XL = 0.;
-    DEEP_XL2 = 0.;
-    DEEP_XL3 = 0.;
-    DEEP_XL4 = 0.;
 
     /* Initialisation of /COMDEEP3/. */
 
-    DEEP_XLAMO = 0.;
-    DEEP_XLDOT = 0.;
-    DEEP_XLI = 0.;
-    DEEP_XLS = 0.;
-    DEEP_XMAO = 0.;
-    DEEP_XNDDT = 0.;
-    DEEP_XNDOT = 0.;
-    DEEP_XNI = 0.;
-    DEEP_XNO2 = 0.;
-    DEEP_XNODCE = 0.;
-    DEEP_XNOI = 0.;
-    DEEP_XNQ = 0.;
-    DEEP_XOMI = 0.;
-    DEEP_XPIDOT = 0.;
-    DEEP_XQNCL = 0.;
-    DEEP_Z1 = 0.;
-    DEEP_Z11 = 0.;
-    DEEP_Z12 = 0.;
-    DEEP_Z13 = 0.;
-    DEEP_Z2 = 0.;
-    DEEP_Z21 = 0.;
-    DEEP_Z22 = 0.;
-    DEEP_Z23 = 0.;
-    DEEP_Z3 = 0.;
-    DEEP_Z31 = 0.;
-    DEEP_Z32 = 0.;
-    DEEP_Z33 = 0.;
-    DEEP_ZCOSG = 0.;
-    DEEP_ZCOSGL = 0.;
-    DEEP_ZCOSH = 0.;
-    DEEP_ZCOSHL = 0.;
-    DEEP_ZCOSI = 0.;
-    DEEP_ZCOSIL = 0.;
-    DEEP_ZE = 0.;
-    DEEP_ZF = 0.;
-    DEEP_ZM = 0.;
-    DEEP_ZMO = 0.;
-    DEEP_ZMOL = 0.;
-    DEEP_ZMOS = 0.;
-    DEEP_ZN = 0.;
-    DEEP_ZSING = 0.;
-    DEEP_ZSINGL = 0.;
-    DEEP_ZSINH = 0.;
-    DEEP_ZSINHL = 0.;
-    DEEP_ZSINI = 0.;
-    DEEP_ZSINIL = 0.;
-    DEEP_ZX = 0.;
-    DEEP_ZY = 0.;
-    DEEP_IRESFL = 0;
-    DEEP_ISYNFL = 0;
-    DEEP_IRET = 0;
-    DEEP_IRETN = 0;
-    DEEP_LS = 0;
-
-    /* Initialisation of /COMDEEP4/. */
-
-    DEEP_ZNS = 1.19459E-5;
-    DEEP_C1SS = 2.9864797E-6;
-    DEEP_ZES = 0.01675;
-    DEEP_ZNL = 1.5835218E-4;
-    DEEP_C1L = 4.7968065E-7;
-    DEEP_ZEL = 0.05490;
-    DEEP_ZCOSIS = 0.91744867;
-    DEEP_ZSINIS = 0.39785416;
-    DEEP_ZSINGS = -0.98088458;
-    DEEP_ZCOSGS = 0.1945905;
-    DEEP_Q22 = 1.7891679E-6;
-    DEEP_Q31 = 2.1460748E-6;
-    DEEP_Q33 = 2.2123015E-7;
-    DEEP_G22 = 5.7686396;
-    DEEP_G32 = 0.95240898;
-    DEEP_G44 = 1.8014998;
-    DEEP_G52 = 1.0508330;
-    DEEP_G54 = 4.4108898;
-    DEEP_ROOT22 = 1.7891679E-6;
-    DEEP_ROOT32 = 3.7393792E-7;
-    DEEP_ROOT44 = 7.3636953E-9;
-    DEEP_ROOT52 = 1.1428639E-7;
-    DEEP_ROOT54 = 2.1765803E-9;
-    DEEP_THDT = 4.3752691E-3;
 
     return;
   }
@@ -1136,22 +777,62 @@ public class SDP4
    *
    * <p>This integrates the satellite orbit read previously
    * and thereby calculates the state variables itsR[] (in Gm) and itsV[]
-   * (in km/s) for the time given.
+   * (in km/s) for the time given.  The model constants are calculated
+   * once when the TLE is read, so this does only the time-dependent part
+   * of the SGP4 or SDP4 model.
    *
    * @param aJulDate
    *   The time for which the calculation should take place.  This must be
    *   given in units of days as the Julian Day minus 2450000 days. */
 
-  static double[] TS = {0.};
-  static int[] IFLAG = {0};
   public final void GetPosVel(double aJulDate)
   {
+    if (null == itsWork) itsWork = new SDP4Workspace();
+    GetPosVel(aJulDate, itsWork);
+
+    itsR[0] = itsWork.itsR[0];
+    itsR[1] = itsWork.itsR[1];
+    itsR[2] = itsWork.itsR[2];
+    itsV[0] = itsWork.itsV[0];
+    itsV[1] = itsWork.itsV[1];
+    itsV[2] = itsWork.itsV[2];
 
-    TS[0] = C1_XMNPDA * (aJulDate - itsEpochJD);
+    return;
+  }
 
-    IFLAG[0] = 1;
-    if (itsIsDeep == 0) {RunSGP4(IFLAG, TS);}
-    else                {RunSDP4(IFLAG, TS);}
+
+  /**
+   * Calculate position and velocity into a workspace.
+   *
+   * <p>This is the same as {@link #GetPosVel(double) GetPosVel(double)},
+   * except that the result is returned in aWork.itsR[] (in Gm) and
+   * aWork.itsV[] (in km/s), and that nothing in this instance is changed.
+   * Several threads can calculate the same satellite at the same time,
+   * provided each uses its own workspace.
+   *
+   * @param aJulDate
+   *   The time for which the calculation should take place.  This must be
+   *   given in units of days as the Julian Day minus 2450000 days.
+   * @param aWork
+   *   The workspace for the calculation, which also receives the result. */
+
+  public final void GetPosVel(double aJulDate, SDP4Workspace aWork)
+  {
+    double TSINCE;
+
+    TSINCE = C1_XMNPDA * (aJulDate - itsEpochJD);
+
+    /* The model was initialised when the TLE was read.  For the deep space
+     * model restart the resonance integrator at the epoch and invalidate
+     * the saved lunar-solar periodics, as the full initialisation would.
+     * The integrator then resumes from its nearest checkpoint. */
+
+    if (itsIsDeep == 0) {RunSGP4(aWork, TSINCE);}
+    else {
+      aWork.DEEP_ATIME  = 0.;
+      aWork.DEEP_SAVTSN = 1.E20;
+      itsDeep.RunSDP4(aWork, TSINCE);
+    }
 
     return;
   }
@@ -1160,9 +841,11 @@ public class SDP4
   /**
    * Read one named NORAD TLE from file.
    *
-   * <p>This method scans the named file for the given satellite name.  It
-   * reads the two-line NORAD element set from the two lines behind the first
-   * occurence of the satellite name.
+   * <p>This method looks up the given satellite name in the
+   * {@link SDP4Index index} of the named file.  It reads the two-line NORAD
+   * element set from the two lines behind the first occurence of the
+   * satellite name.  The file is scanned only the first time and after it
+   * has changed.
    *
    * <p>Although we look for two-line elements there are three lines per
    * satellite.  For the format see the
@@ -1181,46 +864,58 @@ public class SDP4
     throws SDP4NoSatException, SDP4NoLineOneException,
 	   SDP4InvalidNumException, IOException
   {
-    BufferedReader theFile;
-    String  theLine, theName;
-    boolean success = false;
+    long theOffset;
 
-    /* Trim the given name. */
+    theOffset = SDP4Index.Get(aFileName).ByName(aName);
+    if (0L > theOffset) throw new SDP4NoSatException("no such satellite");
+    NoradAt(aFileName, theOffset);
 
-    theName = aName.trim();
-
-    /* Open the file. */
-
-    theFile = new BufferedReader(new FileReader(aFileName));
+    return;
+  }
 
-    /* Forward until the satellite name is found (line 0). */
 
-    for (;;) {
-      if ((theLine = theFile.readLine()) == null) break;
-      theLine = theLine.trim();
-      if (theLine.equals(theName)) {success = true; break;}
-    }
+  /**
+   * Read one NORAD TLE from file by catalogue number.
+   *
+   * <p>This method looks up the given catalogue number in the
+   * {@link SDP4Index index} of the named file and reads the line triplet of
+   * the first satellite with that number.
+   *
+   * @param aFileName
+   *   The name of the file that contains the TLE line triplets.
+   * @param aNumber
+   *   The NORAD catalogue number of the satellite. */
 
-    if (!success) {
-      theFile.close();
-      throw new SDP4NoSatException("no such satellite");
-    }
+  public final void NoradByNumber(String aFileName, int aNumber)
+    throws SDP4NoSatException, SDP4NoLineOneException,
+	   SDP4InvalidNumException, IOException
+  {
+    long theOffset;
 
-    /* Copy name, should be 22 characters exactly.
-     * If the line from file is shorter, we use all of it.
-     * If the line from file is longer. */
+    theOffset = SDP4Index.Get(aFileName).ByNumber(aNumber);
+    if (0L > theOffset) throw new SDP4NoSatException("no such satellite");
+    NoradAt(aFileName, theOffset);
 
-    if (22 >= theLine.length()) {itsName = theLine;}
-    else {itsName = theLine.substring(0, 22);}
-    itsName = itsName.trim();
+    return;
+  }
 
-    /* Read lines 1 and 2. */
 
-    ReadNorad12(theFile);
+  /**
+   * Read the NORAD TLE at a given offset in a file.
+   *
+   * @param aFileName
+   *   The name of the file that contains the TLE line triplets.
+   * @param aOffset
+   *   The byte offset of the line with the satellite name. */
 
-    /* Close the file. */
+  protected final void NoradAt(String aFileName, long aOffset)
+    throws SDP4NoLineOneException, SDP4InvalidNumException, IOException
+  {
+    BufferedReader theFile;
 
-    theFile.close();
+    theFile = SDP4Index.Open(aFileName, aOffset);
+    try {NoradNext(theFile);}
+    finally {theFile.close();}
 
     return;
   }
@@ -1244,6 +939,11 @@ AAAAAAAAAAAAAAAAAAAAAA
    * the satellite.  For the other two lines see the
    * {@link #ReadNorad12 ReadNorad12} method.
    *
+   * <p>At the end of the file an EOFException is thrown.  An entry that
+   * cannot be read, such as one with a check sum error, throws one of the
+   * SDP4 exceptions after its three lines have been read, so that a caller
+   * going through a whole file can skip the entry and read on.
+   *
    * @param aFile
    *   The file that is already open and contains the TLE line triplets. */
 
@@ -1256,6 +956,7 @@ AAAAAAAAAAAAAAAAAAAAAA
     /* Read the line with the satellite name. */
 
     theLine = aFile.readLine();
+    if (null == theLine) throw new EOFException("no further TLE");
     theLine = theLine.trim();
 
     /* Copy name, should be 22 characters exactly.
@@ -1277,7 +978,7 @@ AAAAAAAAAAAAAAAAAAAAAA
   /**
    * A helper routine to calculate the two-dimensional inverse tangens. */
 
-  protected final double ACTAN(double SINX, double COSX)
+  protected static final double ACTAN(double SINX, double COSX)
   {
     double value, TEMP;
 
@@ -1317,707 +1018,1332 @@ AAAAAAAAAAAAAAAAAAAAAA
 
 
   /**
-   * Deep space initialisation. */
+   * A helper routine to calculate the modulo 2 pi. */
+
+  protected static final double FMOD2P(double X)
+  {
+    double value;
+    int    I;
+    value = X;
+    I = (int)(value/C2_TWOPI);
+    value = value - I * C2_TWOPI;
+    if (value < 0) value += C2_TWOPI;
+    return value;
+  }
+
+
+  /**
+   * Initialise the model for the elements read.
+   *
+   * <p>For a long-period satellite the deep space state is made if it does
+   * not exist yet, and the SDP4 model initialised.  For a short-period
+   * satellite the deep space state is dropped and the SGP4 model
+   * initialised. */
 
-  protected final void DEEP1()
+  protected final void InitModel()
   {
-    DEEP_THGR = THETAG(E1_EPOCH);
-    DEEP_EQ = E1_EO;
-    DEEP_XNQ = DPINI_XNODP;
-    DEEP_AQNV = 1./DPINI_AO;
-    DEEP_XQNCL = E1_XINCL;
-    DEEP_XMAO = E1_XMO;
-    DEEP_XPIDOT = DPINI_OMGDT + DPINI_XNODOT;
-    DEEP_SINQ = Math.sin(E1_XNODEO);
-    DEEP_COSQ = Math.cos(E1_XNODEO);
-    DEEP_OMEGAQ = E1_OMEGAO;
-
-    /* Initialise lunar solar terms. */
-
-    DEEP_DAY = E1_DS50 + 18261.5;
-    if (DEEP_DAY != DEEP_PREEP) {
-      DEEP_PREEP = DEEP_DAY;
-      DEEP_XNODCE = 4.5236020 - 9.2422029E-4 * DEEP_DAY;
-      DEEP_STEM = Math.sin(DEEP_XNODCE);
-      DEEP_CTEM = Math.cos(DEEP_XNODCE);
-      DEEP_ZCOSIL = .91375164 - .03568096 * DEEP_CTEM;
-      DEEP_ZSINIL = Math.sqrt(1. - DEEP_ZCOSIL * DEEP_ZCOSIL);
-      DEEP_ZSINHL = .089683511 * DEEP_STEM / DEEP_ZSINIL;
-      DEEP_ZCOSHL = Math.sqrt(1. - DEEP_ZSINHL * DEEP_ZSINHL);
-      DEEP_C = 4.7199672 + .22997150 * DEEP_DAY;
-      DEEP_GAM = 5.8351514 + .0019443680 * DEEP_DAY;
-      DEEP_ZMOL = FMOD2P(DEEP_C - DEEP_GAM);
-      DEEP_ZX = .39785416 * DEEP_STEM / DEEP_ZSINIL;
-      DEEP_ZY = DEEP_ZCOSHL * DEEP_CTEM + 0.91744867 * DEEP_ZSINHL * DEEP_STEM;
-      DEEP_ZX = ACTAN(DEEP_ZX, DEEP_ZY);
-      DEEP_ZX = DEEP_GAM + DEEP_ZX - DEEP_XNODCE;
-      DEEP_ZCOSGL = Math.cos(DEEP_ZX);
-      DEEP_ZSINGL = Math.sin(DEEP_ZX);
-      DEEP_ZMOS = 6.2565837 + .017201977 * DEEP_DAY;
-      DEEP_ZMOS = FMOD2P(DEEP_ZMOS);
+    if (itsIsDeep == 0) {
+      itsDeep = null;
+      InitSGP4();
     }
+    else {
+      if (null == itsDeep) itsDeep = new Deep();
+      itsDeep.InitSDP4();
+    }
+    return;
+  }
+
+
+  /**
+   * The state of the deep space model.
+   *
+   * <p>Only long-period satellites need the SDP4 constants and the deep
+   * space terms.  These and the routines that use them are kept in this
+   * inner class, and an instance is made only when the TLE of a
+   * long-period satellite is read.  For a short-period satellite itsDeep
+   * is null, so that it carries no more than the SGP4 constants. */
 
-    /* Do solar terms. */
-
-    DEEP_SAVTSN = 1.E20;
-    DEEP_ZCOSG = DEEP_ZCOSGS;
-    DEEP_ZSING = DEEP_ZSINGS;
-    DEEP_ZCOSI = DEEP_ZCOSIS;
-    DEEP_ZSINI = DEEP_ZSINIS;
-    DEEP_ZCOSH = DEEP_COSQ;
-    DEEP_ZSINH = DEEP_SINQ;
-    DEEP_CC = DEEP_C1SS;
-    DEEP_ZN = DEEP_ZNS;
-    DEEP_ZE = DEEP_ZES;
-    DEEP_ZMO = DEEP_ZMOS;
-    DEEP_XNOI = 1./DEEP_XNQ;
-
-    /* First pass through label 20. */
-
-    DEEP_A1  =  DEEP_ZCOSG * DEEP_ZCOSH + DEEP_ZSING * DEEP_ZCOSI * DEEP_ZSINH;
-    DEEP_A3  = -DEEP_ZSING * DEEP_ZCOSH + DEEP_ZCOSG * DEEP_ZCOSI * DEEP_ZSINH;
-    DEEP_A7  = -DEEP_ZCOSG * DEEP_ZSINH + DEEP_ZSING * DEEP_ZCOSI * DEEP_ZCOSH;
-    DEEP_A8  =  DEEP_ZSING * DEEP_ZSINI;
-    DEEP_A9  =  DEEP_ZSING * DEEP_ZSINH + DEEP_ZCOSG * DEEP_ZCOSI * DEEP_ZCOSH;
-    DEEP_A10 =  DEEP_ZCOSG * DEEP_ZSINI;
-    DEEP_A2  =  DPINI_COSIQ * DEEP_A7 + DPINI_SINIQ * DEEP_A8;
-    DEEP_A4  =  DPINI_COSIQ * DEEP_A9 + DPINI_SINIQ * DEEP_A10;
-    DEEP_A5  = -DPINI_SINIQ * DEEP_A7 + DPINI_COSIQ * DEEP_A8;
-    DEEP_A6  = -DPINI_SINIQ * DEEP_A9 + DPINI_COSIQ * DEEP_A10;
-
-    DEEP_X1 =  DEEP_A1 * DPINI_COSOMO + DEEP_A2 * DPINI_SINOMO;
-    DEEP_X2 =  DEEP_A3 * DPINI_COSOMO + DEEP_A4 * DPINI_SINOMO;
-    DEEP_X3 = -DEEP_A1 * DPINI_SINOMO + DEEP_A2 * DPINI_COSOMO;
-    DEEP_X4 = -DEEP_A3 * DPINI_SINOMO + DEEP_A4 * DPINI_COSOMO;
-    DEEP_X5 =  DEEP_A5 * DPINI_SINOMO;
-    DEEP_X6 =  DEEP_A6 * DPINI_SINOMO;
-    DEEP_X7 =  DEEP_A5 * DPINI_COSOMO;
-    DEEP_X8 =  DEEP_A6 * DPINI_COSOMO;
-
-    DEEP_Z31 = 12. * DEEP_X1 * DEEP_X1 - 3. * DEEP_X3 * DEEP_X3;
-    DEEP_Z32 = 24. * DEEP_X1 * DEEP_X2 - 6. * DEEP_X3 * DEEP_X4;
-    DEEP_Z33 = 12. * DEEP_X2 * DEEP_X2 - 3. * DEEP_X4 * DEEP_X4;
-    DEEP_Z1  =  3. * (DEEP_A1 * DEEP_A1 + DEEP_A2 * DEEP_A2)
-      + DEEP_Z31 * DPINI_EQSQ;
-    DEEP_Z2  =  6. * (DEEP_A1 * DEEP_A3 + DEEP_A2 * DEEP_A4)
-      + DEEP_Z32 * DPINI_EQSQ;
-    DEEP_Z3  =  3. * (DEEP_A3 * DEEP_A3 + DEEP_A4 * DEEP_A4)
-      + DEEP_Z33 * DPINI_EQSQ;
-    DEEP_Z11 = -6. * DEEP_A1 * DEEP_A5
-      + DPINI_EQSQ * (-24. * DEEP_X1 * DEEP_X7 - 6. * DEEP_X3 * DEEP_X5);
-    DEEP_Z12 = -6. * (DEEP_A1 *DEEP_A6 + DEEP_A3 * DEEP_A5)
-      + DPINI_EQSQ * (-24. * (DEEP_X2 * DEEP_X7 + DEEP_X1 * DEEP_X8)
-		      - 6. * (DEEP_X3 * DEEP_X6 + DEEP_X4 * DEEP_X5));
-    DEEP_Z13 = -6. * DEEP_A3 * DEEP_A6
-      + DPINI_EQSQ * (-24. * DEEP_X2 * DEEP_X8 - 6. * DEEP_X4 * DEEP_X6);
-    DEEP_Z21 =  6. * DEEP_A2 * DEEP_A5
-      + DPINI_EQSQ * ( 24. * DEEP_X1 * DEEP_X5 - 6. * DEEP_X3 * DEEP_X7);
-    DEEP_Z22 =  6. * (DEEP_A4 * DEEP_A5 + DEEP_A2 * DEEP_A6)
-      + DPINI_EQSQ * ( 24. * (DEEP_X2 * DEEP_X5 + DEEP_X1 * DEEP_X6)
-		      - 6. * (DEEP_X4 * DEEP_X7 + DEEP_X3 * DEEP_X8));
-    DEEP_Z23 =  6. * DEEP_A4 * DEEP_A6
-      + DPINI_EQSQ * ( 24. * DEEP_X2 * DEEP_X6 - 6. * DEEP_X4 * DEEP_X8);
-    DEEP_Z1 =  DEEP_Z1 + DEEP_Z1 + DPINI_BSQ * DEEP_Z31;
-    DEEP_Z2 =  DEEP_Z2 + DEEP_Z2 + DPINI_BSQ * DEEP_Z32;
-    DEEP_Z3 =  DEEP_Z3 + DEEP_Z3 + DPINI_BSQ * DEEP_Z33;
-    DEEP_S3 =  DEEP_CC * DEEP_XNOI;
-    DEEP_S2 = -.5 * DEEP_S3 / DPINI_RTEQSQ;
-    DEEP_S4 =  DEEP_S3 * DPINI_RTEQSQ;
-    DEEP_S1 = -15. * DEEP_EQ * DEEP_S4;
-    DEEP_S5 =  DEEP_X1 * DEEP_X3 + DEEP_X2 * DEEP_X4;
-    DEEP_S6 =  DEEP_X2 * DEEP_X3 + DEEP_X1 * DEEP_X4;
-    DEEP_S7 =  DEEP_X2 * DEEP_X4 - DEEP_X1 * DEEP_X3;
-    DEEP_SE =  DEEP_S1 * DEEP_ZN * DEEP_S5;
-    DEEP_SI =  DEEP_S2 * DEEP_ZN * (DEEP_Z11 + DEEP_Z13);
-    DEEP_SL = -DEEP_ZN * DEEP_S3 * (DEEP_Z1  + DEEP_Z3
-				    - 14. - 6. * DPINI_EQSQ);
-    DEEP_SGH =  DEEP_S4 * DEEP_ZN * (DEEP_Z31 + DEEP_Z33 - 6.);
-    DEEP_SH  = -DEEP_ZN * DEEP_S2 * (DEEP_Z21 + DEEP_Z23);
-    if (DEEP_XQNCL < 5.2359877E-2) DEEP_SH = 0.0;
-    DEEP_EE2 =  2. * DEEP_S1 * DEEP_S6;
-    DEEP_E3  =  2. * DEEP_S1 * DEEP_S7;
-    DEEP_XI2 =  2. * DEEP_S2 * DEEP_Z12;
-    DEEP_XI3 =  2. * DEEP_S2 * (DEEP_Z13 - DEEP_Z11);
-    DEEP_XL2 = -2. * DEEP_S3 * DEEP_Z2;
-    DEEP_XL3 = -2. * DEEP_S3 * (DEEP_Z3 - DEEP_Z1);
-    DEEP_XL4 = -2. * DEEP_S3 * (-21. - 9. * DPINI_EQSQ) * DEEP_ZE;
-    DEEP_XGH2 =   2. * DEEP_S4 * DEEP_Z32;
-    DEEP_XGH3 =   2. * DEEP_S4 * (DEEP_Z33 - DEEP_Z31);
-    DEEP_XGH4 = -18. * DEEP_S4 * DEEP_ZE;
-    DEEP_XH2 = -2. * DEEP_S2 * DEEP_Z22;
-    DEEP_XH3 = -2. * DEEP_S2 * (DEEP_Z23 - DEEP_Z21);
-
-    /* Do lunar terms (label 30). */
-
-    DEEP_SSE = DEEP_SE;
-    DEEP_SSI = DEEP_SI;
-    DEEP_SSL = DEEP_SL;
-    DEEP_SSH = DEEP_SH / DPINI_SINIQ;
-    DEEP_SSG = DEEP_SGH - DPINI_COSIQ * DEEP_SSH;
-    DEEP_SE2 = DEEP_EE2;
-    DEEP_SI2 = DEEP_XI2;
-    DEEP_SL2 = DEEP_XL2;
-    DEEP_SGH2 = DEEP_XGH2;
-    DEEP_SH2 = DEEP_XH2;
-    DEEP_SE3 = DEEP_E3;
-    DEEP_SI3 = DEEP_XI3;
-    DEEP_SL3 = DEEP_XL3;
-    DEEP_SGH3 = DEEP_XGH3;
-    DEEP_SH3 = DEEP_XH3;
-    DEEP_SL4 = DEEP_XL4;
-    DEEP_SGH4 = DEEP_XGH4;
-    DEEP_ZCOSG = DEEP_ZCOSGL;
-    DEEP_ZSING = DEEP_ZSINGL;
-    DEEP_ZCOSI = DEEP_ZCOSIL;
-    DEEP_ZSINI = DEEP_ZSINIL;
-    DEEP_ZCOSH = DEEP_ZCOSHL * DEEP_COSQ + DEEP_ZSINHL * DEEP_SINQ;
-    DEEP_ZSINH = DEEP_SINQ * DEEP_ZCOSHL - DEEP_COSQ * DEEP_ZSINHL;
-    DEEP_ZN = DEEP_ZNL;
-    DEEP_CC = DEEP_C1L;
-    DEEP_ZE = DEEP_ZEL;
-    DEEP_ZMO = DEEP_ZMOL;
-
-    /* Second pass through label 20. */
-
-    DEEP_A1  =  DEEP_ZCOSG * DEEP_ZCOSH + DEEP_ZSING * DEEP_ZCOSI * DEEP_ZSINH;
-    DEEP_A3  = -DEEP_ZSING * DEEP_ZCOSH + DEEP_ZCOSG * DEEP_ZCOSI * DEEP_ZSINH;
-    DEEP_A7  = -DEEP_ZCOSG * DEEP_ZSINH + DEEP_ZSING * DEEP_ZCOSI * DEEP_ZCOSH;
-    DEEP_A8  =  DEEP_ZSING * DEEP_ZSINI;
-    DEEP_A9  =  DEEP_ZSING * DEEP_ZSINH + DEEP_ZCOSG * DEEP_ZCOSI * DEEP_ZCOSH;
-    DEEP_A10 =  DEEP_ZCOSG * DEEP_ZSINI;
-    DEEP_A2  =  DPINI_COSIQ * DEEP_A7 + DPINI_SINIQ * DEEP_A8;
-    DEEP_A4  =  DPINI_COSIQ * DEEP_A9 + DPINI_SINIQ * DEEP_A10;
-    DEEP_A5  = -DPINI_SINIQ * DEEP_A7 + DPINI_COSIQ * DEEP_A8;
-    DEEP_A6  = -DPINI_SINIQ * DEEP_A9 + DPINI_COSIQ * DEEP_A10;
-
-    DEEP_X1 =  DEEP_A1 * DPINI_COSOMO + DEEP_A2 * DPINI_SINOMO;
-    DEEP_X2 =  DEEP_A3 * DPINI_COSOMO + DEEP_A4 * DPINI_SINOMO;
-    DEEP_X3 = -DEEP_A1 * DPINI_SINOMO + DEEP_A2 * DPINI_COSOMO;
-    DEEP_X4 = -DEEP_A3 * DPINI_SINOMO + DEEP_A4 * DPINI_COSOMO;
-    DEEP_X5 =  DEEP_A5 * DPINI_SINOMO;
-    DEEP_X6 =  DEEP_A6 * DPINI_SINOMO;
-    DEEP_X7 =  DEEP_A5 * DPINI_COSOMO;
-    DEEP_X8 =  DEEP_A6 * DPINI_COSOMO;
-
-    DEEP_Z31 = 12. * DEEP_X1 * DEEP_X1 - 3. * DEEP_X3 * DEEP_X3;
-    DEEP_Z32 = 24. * DEEP_X1 * DEEP_X2 - 6. * DEEP_X3 * DEEP_X4;
-    DEEP_Z33 = 12. * DEEP_X2 * DEEP_X2 - 3. * DEEP_X4 * DEEP_X4;
-    DEEP_Z1  =  3. * (DEEP_A1 * DEEP_A1 + DEEP_A2 * DEEP_A2)
-      + DEEP_Z31 * DPINI_EQSQ;
-    DEEP_Z2  =  6. * (DEEP_A1 * DEEP_A3 + DEEP_A2 * DEEP_A4)
-      + DEEP_Z32 * DPINI_EQSQ;
-    DEEP_Z3  =  3. * (DEEP_A3 * DEEP_A3 + DEEP_A4 * DEEP_A4)
-      + DEEP_Z33 * DPINI_EQSQ;
-    DEEP_Z11 = -6. * DEEP_A1 * DEEP_A5
-      + DPINI_EQSQ * (-24. * DEEP_X1 * DEEP_X7 - 6. * DEEP_X3 * DEEP_X5);
-    DEEP_Z12 = -6. * (DEEP_A1 *DEEP_A6 + DEEP_A3 * DEEP_A5)
-      + DPINI_EQSQ * (-24. * (DEEP_X2 * DEEP_X7 + DEEP_X1 * DEEP_X8)
-		      - 6. * (DEEP_X3 * DEEP_X6 + DEEP_X4 * DEEP_X5));
-    DEEP_Z13 = -6. * DEEP_A3 * DEEP_A6
-      + DPINI_EQSQ * (-24. * DEEP_X2 * DEEP_X8 - 6. * DEEP_X4 * DEEP_X6);
-    DEEP_Z21 =  6. * DEEP_A2 * DEEP_A5
-      + DPINI_EQSQ * ( 24. * DEEP_X1 * DEEP_X5 - 6. * DEEP_X3 * DEEP_X7);
-    DEEP_Z22 =  6. * (DEEP_A4 * DEEP_A5 + DEEP_A2 * DEEP_A6)
-      + DPINI_EQSQ * ( 24. * (DEEP_X2 * DEEP_X5 + DEEP_X1 * DEEP_X6)
-		      - 6. * (DEEP_X4 * DEEP_X7 + DEEP_X3 * DEEP_X8));
-    DEEP_Z23 =  6. * DEEP_A4 * DEEP_A6
-      + DPINI_EQSQ * ( 24. * DEEP_X2 * DEEP_X6 - 6. * DEEP_X4 * DEEP_X8);
-    DEEP_Z1 =  DEEP_Z1 + DEEP_Z1 + DPINI_BSQ * DEEP_Z31;
-    DEEP_Z2 =  DEEP_Z2 + DEEP_Z2 + DPINI_BSQ * DEEP_Z32;
-    DEEP_Z3 =  DEEP_Z3 + DEEP_Z3 + DPINI_BSQ * DEEP_Z33;
-    DEEP_S3 =  DEEP_CC * DEEP_XNOI;
-    DEEP_S2 = -.5 * DEEP_S3 / DPINI_RTEQSQ;
-    DEEP_S4 =  DEEP_S3 * DPINI_RTEQSQ;
-    DEEP_S1 = -15. * DEEP_EQ * DEEP_S4;
-    DEEP_S5 =  DEEP_X1 * DEEP_X3 + DEEP_X2 * DEEP_X4;
-    DEEP_S6 =  DEEP_X2 * DEEP_X3 + DEEP_X1 * DEEP_X4;
-    DEEP_S7 =  DEEP_X2 * DEEP_X4 - DEEP_X1 * DEEP_X3;
-    DEEP_SE =  DEEP_S1 * DEEP_ZN * DEEP_S5;
-    DEEP_SI =  DEEP_S2 * DEEP_ZN * (DEEP_Z11 + DEEP_Z13);
-    DEEP_SL = -DEEP_ZN * DEEP_S3 * (DEEP_Z1  + DEEP_Z3
-				    - 14. - 6. * DPINI_EQSQ);
-    DEEP_SGH =  DEEP_S4 * DEEP_ZN * (DEEP_Z31 + DEEP_Z33 - 6.);
-    DEEP_SH  = -DEEP_ZN * DEEP_S2 * (DEEP_Z21 + DEEP_Z23);
-    if (DEEP_XQNCL < 5.2359877E-2) DEEP_SH = 0.0;
-    DEEP_EE2 =  2. * DEEP_S1 * DEEP_S6;
-    DEEP_E3  =  2. * DEEP_S1 * DEEP_S7;
-    DEEP_XI2 =  2. * DEEP_S2 * DEEP_Z12;
-    DEEP_XI3 =  2. * DEEP_S2 * (DEEP_Z13 - DEEP_Z11);
-    DEEP_XL2 = -2. * DEEP_S3 * DEEP_Z2;
-    DEEP_XL3 = -2. * DEEP_S3 * (DEEP_Z3 - DEEP_Z1);
-    DEEP_XL4 = -2. * DEEP_S3 * (-21. - 9. * DPINI_EQSQ) * DEEP_ZE;
-    DEEP_XGH2 =   2. * DEEP_S4 * DEEP_Z32;
-    DEEP_XGH3 =   2. * DEEP_S4 * (DEEP_Z33 - DEEP_Z31);
-    DEEP_XGH4 = -18. * DEEP_S4 * DEEP_ZE;
-    DEEP_XH2 = -2. * DEEP_S2 * DEEP_Z22;
-    DEEP_XH3 = -2. * DEEP_S2 * (DEEP_Z23 - DEEP_Z21);
-
-    /* Label 40. */
-
-    DEEP_SSE = DEEP_SSE + DEEP_SE;
-    DEEP_SSI = DEEP_SSI + DEEP_SI;
-    DEEP_SSL = DEEP_SSL + DEEP_SL;
-    DEEP_SSG = DEEP_SSG + DEEP_SGH - DPINI_COSIQ / DPINI_SINIQ * DEEP_SH;
-    DEEP_SSH = DEEP_SSH + DEEP_SH / DPINI_SINIQ;
-
-    /* Geopotential resonance initialisation for 12 hour orbits. */
-
-    DEEP_IRESFL = 0;
-    DEEP_ISYNFL = 0;
-    if (DEEP_XNQ >= .0052359877 || DEEP_XNQ <= .0034906585) {
-      if (DEEP_XNQ < 8.26E-3  || DEEP_XNQ > 9.24E-3) return;
-      if (DEEP_EQ  < 0.5) return;
-      DEEP_IRESFL = 1;
-      DEEP_EOC = DEEP_EQ * DPINI_EQSQ;
-      DEEP_G201 = -.306 - (DEEP_EQ - .64) * .440;
-
-      if (DEEP_EQ <= .65) {
-	DEEP_G211 =     3.616  -    13.247  * DEEP_EQ
-	          +    16.290  * DPINI_EQSQ;
-	DEEP_G310 =   -19.302  +   117.390  * DEEP_EQ
-	          -   228.419  * DPINI_EQSQ +   156.591  * DEEP_EOC;
-	DEEP_G322 =   -18.9068 +   109.7927 * DEEP_EQ
-	          -   214.6334 * DPINI_EQSQ +   146.5816 * DEEP_EOC;
-	DEEP_G410 =   -41.122  +   242.694  * DEEP_EQ
-	          -   471.094  * DPINI_EQSQ +   313.953  * DEEP_EOC;
-	DEEP_G422 =  -146.407  +   841.880  * DEEP_EQ
-	          -  1629.014  * DPINI_EQSQ +  1083.435  * DEEP_EOC;
-	DEEP_G520 =  -532.114  +  3017.977  * DEEP_EQ
-	          -  5740.     * DPINI_EQSQ +  3708.276  * DEEP_EOC;
+  protected final class Deep
+  {
+    protected double SDP4_A1,SDP4_A3OVK2,SDP4_AO,SDP4_AODP,
+      SDP4_AYCOF,SDP4_BETAO,SDP4_BETAO2,SDP4_C1,SDP4_C2,
+      SDP4_C4,SDP4_COEF,SDP4_COEF1,SDP4_COSG,SDP4_COSIO,
+      SDP4_DEL1,SDP4_DELO,SDP4_EETA,SDP4_EOSQ,
+      SDP4_ETA,SDP4_ETASQ,SDP4_OMGDOT,SDP4_PERIGE,SDP4_PINVSQ,
+      SDP4_PSISQ,SDP4_QOMS24,SDP4_S4,SDP4_SING,
+      SDP4_SINIO,SDP4_T2COF,SDP4_TEMP1,SDP4_TEMP2,SDP4_TEMP3,
+      SDP4_THETA2,SDP4_THETA4,SDP4_TSI,SDP4_X1M5TH,
+      SDP4_X1MTH2,SDP4_X3THM1,SDP4_X7THM1,SDP4_XHDOT1,SDP4_XLCOF,
+      SDP4_XMDOT,SDP4_XNODCF,SDP4_XNODOT,SDP4_XNODP;
+
+    protected double DEEP_A1,DEEP_A2,DEEP_A3,DEEP_A4,DEEP_A5,
+      DEEP_A6,DEEP_A7,DEEP_A8,DEEP_A9,DEEP_A10,DEEP_AINV2,DEEP_AQNV,
+      DEEP_BFACT,DEEP_C,DEEP_CC,DEEP_COSQ,DEEP_CTEM,DEEP_D2201,
+      DEEP_D2211,DEEP_D3210,DEEP_D3222,DEEP_D4410,DEEP_D4422,
+      DEEP_D5220,DEEP_D5232,DEEP_D5421,DEEP_D5433,DEEP_DAY,
+      DEEP_DEL1,DEEP_DEL2,DEEP_DEL3,DEEP_E3,DEEP_EE2,DEEP_EOC,
+      DEEP_EQ,DEEP_F220,DEEP_F221,DEEP_F311,DEEP_F321,DEEP_F322,
+      DEEP_F330,DEEP_F441,DEEP_F442,DEEP_F522,DEEP_F523,DEEP_F542,
+      DEEP_F543,DEEP_FASX2,DEEP_FASX4,DEEP_FASX6,DEEP_G200,
+      DEEP_G201,DEEP_G211,DEEP_G300,DEEP_G310,DEEP_G322,DEEP_G410,
+      DEEP_G422,DEEP_G520,DEEP_G521,DEEP_G532,DEEP_G533,DEEP_GAM,
+      DEEP_OMEGAQ,DEEP_PREEP,DEEP_S1,DEEP_S2,DEEP_S3,DEEP_S4,
+      DEEP_S5,DEEP_S6,DEEP_S7,DEEP_SE,DEEP_SE2,DEEP_SE3,DEEP_SGH,
+      DEEP_SGH2,DEEP_SGH3,DEEP_SGH4,DEEP_SH,DEEP_SH2,DEEP_SH3,
+      DEEP_SI,DEEP_SI2,DEEP_SI3,DEEP_SINI2,DEEP_SINQ,DEEP_SL,
+      DEEP_SL2,DEEP_SL3,DEEP_SL4,DEEP_SSE,DEEP_SSG,DEEP_SSH,
+      DEEP_SSI,DEEP_SSL,DEEP_STEM,DEEP_STEP2,DEEP_STEPN,DEEP_STEPP,
+      DEEP_TEMP,DEEP_TEMP1,DEEP_THGR,DEEP_X1,DEEP_X2,DEEP_X3,
+      DEEP_X4,DEEP_X5,DEEP_X6,DEEP_X7,DEEP_X8,DEEP_XFACT,DEEP_XGH2,
+      DEEP_XGH3,DEEP_XGH4,DEEP_XH2,DEEP_XH3,DEEP_XI2,DEEP_XI3,
+      DEEP_XL2,DEEP_XL3,DEEP_XL4,DEEP_XLAMO,DEEP_XMAO,DEEP_XNO2,
+      DEEP_XNODCE,DEEP_XNOI,DEEP_XNQ,DEEP_XPIDOT,DEEP_XQNCL,DEEP_Z1,
+      DEEP_Z11,DEEP_Z12,DEEP_Z13,DEEP_Z2,DEEP_Z21,DEEP_Z22,DEEP_Z23,
+      DEEP_Z3,DEEP_Z31,DEEP_Z32,DEEP_Z33,DEEP_ZCOSG,DEEP_ZCOSGL,
+      DEEP_ZCOSH,DEEP_ZCOSHL,DEEP_ZCOSI,DEEP_ZCOSIL,DEEP_ZE,
+      DEEP_ZMO,DEEP_ZMOL,DEEP_ZMOS,DEEP_ZN,DEEP_ZSING,DEEP_ZSINGL,
+      DEEP_ZSINH,DEEP_ZSINHL,DEEP_ZSINI,DEEP_ZSINIL,DEEP_ZX,DEEP_ZY;
+    protected int DEEP_IRESFL,DEEP_ISYNFL,DEEP_LS;
+
+    protected double DPINI_EQSQ,DPINI_SINIQ,DPINI_COSIQ,
+      DPINI_RTEQSQ,DPINI_AO,DPINI_COSQ2,DPINI_SINOMO,DPINI_COSOMO,
+      DPINI_BSQ,DPINI_XLLDOT,DPINI_OMGDT,DPINI_XNODOT,DPINI_XNODP;
+
+    /**
+     * Checkpoints of the resonance integrator.
+     *
+     * <p>For times after [0] and before [1] the epoch, entry k holds DEEP_XLI
+     * and DEEP_XNI at 2 k and 2 k + 1 for DEEP_ATIME at (k + 1) RESCHECK
+     * integrator steps from the epoch.  Only the first itsResCount[] entries
+     * are valid.  These are filled in as the integrator passes them and used
+     * only while holding the lock of this instance. */
+
+    protected double itsResCheck[][] = {null, null};
+    protected int    itsResCount[]   = {0, 0};
+
+
+    /**
+     * Deep space initialisation. */
+
+    protected final void DEEP1()
+    {
+      DEEP_THGR = THETAG(E1_EPOCH);
+      DEEP_EQ = E1_EO;
+      DEEP_XNQ = DPINI_XNODP;
+      DEEP_AQNV = 1./DPINI_AO;
+      DEEP_XQNCL = E1_XINCL;
+      DEEP_XMAO = E1_XMO;
+      DEEP_XPIDOT = DPINI_OMGDT + DPINI_XNODOT;
+      DEEP_SINQ = Math.sin(E1_XNODEO);
+      DEEP_COSQ = Math.cos(E1_XNODEO);
+      DEEP_OMEGAQ = E1_OMEGAO;
+
+      /* Initialise lunar solar terms. */
+
+      DEEP_DAY = E1_DS50 + 18261.5;
+      if (DEEP_DAY != DEEP_PREEP) {
+	DEEP_PREEP = DEEP_DAY;
+	DEEP_XNODCE = 4.5236020 - 9.2422029E-4 * DEEP_DAY;
+	DEEP_STEM = Math.sin(DEEP_XNODCE);
+	DEEP_CTEM = Math.cos(DEEP_XNODCE);
+	DEEP_ZCOSIL = .91375164 - .03568096 * DEEP_CTEM;
+	DEEP_ZSINIL = Math.sqrt(1. - DEEP_ZCOSIL * DEEP_ZCOSIL);
+	DEEP_ZSINHL = .089683511 * DEEP_STEM / DEEP_ZSINIL;
+	DEEP_ZCOSHL = Math.sqrt(1. - DEEP_ZSINHL * DEEP_ZSINHL);
+	DEEP_C = 4.7199672 + .22997150 * DEEP_DAY;
+	DEEP_GAM = 5.8351514 + .0019443680 * DEEP_DAY;
+	DEEP_ZMOL = FMOD2P(DEEP_C - DEEP_GAM);
+	DEEP_ZX = .39785416 * DEEP_STEM / DEEP_ZSINIL;
+	DEEP_ZY = DEEP_ZCOSHL * DEEP_CTEM + 0.91744867 * DEEP_ZSINHL * DEEP_STEM;
+	DEEP_ZX = ACTAN(DEEP_ZX, DEEP_ZY);
+	DEEP_ZX = DEEP_GAM + DEEP_ZX - DEEP_XNODCE;
+	DEEP_ZCOSGL = Math.cos(DEEP_ZX);
+	DEEP_ZSINGL = Math.sin(DEEP_ZX);
+	DEEP_ZMOS = 6.2565837 + .017201977 * DEEP_DAY;
+	DEEP_ZMOS = FMOD2P(DEEP_ZMOS);
       }
-      else {
-	DEEP_G211 =   -72.099  +   331.819  * DEEP_EQ
-                  -   508.738  * DPINI_EQSQ +   266.724  * DEEP_EOC;
-	DEEP_G310 =  -346.844  +  1582.851  * DEEP_EQ
-                  -  2415.925  * DPINI_EQSQ +  1246.113  * DEEP_EOC;
-	DEEP_G322 =  -342.585  +  1554.908  * DEEP_EQ
-                  -  2366.899  * DPINI_EQSQ +  1215.972  * DEEP_EOC;
-	DEEP_G410 = -1052.797  +  4758.686  * DEEP_EQ
-                  -  7193.992  * DPINI_EQSQ +  3651.957  * DEEP_EOC;
-	DEEP_G422 = -3581.69   + 16178.11   * DEEP_EQ
-                  - 24462.77   * DPINI_EQSQ + 12422.52   * DEEP_EOC;
-	if (DEEP_EQ <= .715) {
-	  DEEP_G520 =  1464.74 -  4664.75 * DEEP_EQ +  3763.64 * DPINI_EQSQ;
+
+      /* Do solar terms. */
+
+      DEEP_ZCOSG = DEEP_ZCOSGS;
+      DEEP_ZSING = DEEP_ZSINGS;
+      DEEP_ZCOSI = DEEP_ZCOSIS;
+      DEEP_ZSINI = DEEP_ZSINIS;
+      DEEP_ZCOSH = DEEP_COSQ;
+      DEEP_ZSINH = DEEP_SINQ;
+      DEEP_CC = DEEP_C1SS;
+      DEEP_ZN = DEEP_ZNS;
+      DEEP_ZE = DEEP_ZES;
+      DEEP_ZMO = DEEP_ZMOS;
+      DEEP_XNOI = 1./DEEP_XNQ;
+
+      /* First pass through label 20. */
+
+      DEEP_A1  =  DEEP_ZCOSG * DEEP_ZCOSH + DEEP_ZSING * DEEP_ZCOSI * DEEP_ZSINH;
+      DEEP_A3  = -DEEP_ZSING * DEEP_ZCOSH + DEEP_ZCOSG * DEEP_ZCOSI * DEEP_ZSINH;
+      DEEP_A7  = -DEEP_ZCOSG * DEEP_ZSINH + DEEP_ZSING * DEEP_ZCOSI * DEEP_ZCOSH;
+      DEEP_A8  =  DEEP_ZSING * DEEP_ZSINI;
+      DEEP_A9  =  DEEP_ZSING * DEEP_ZSINH + DEEP_ZCOSG * DEEP_ZCOSI * DEEP_ZCOSH;
+      DEEP_A10 =  DEEP_ZCOSG * DEEP_ZSINI;
+      DEEP_A2  =  DPINI_COSIQ * DEEP_A7 + DPINI_SINIQ * DEEP_A8;
+      DEEP_A4  =  DPINI_COSIQ * DEEP_A9 + DPINI_SINIQ * DEEP_A10;
+      DEEP_A5  = -DPINI_SINIQ * DEEP_A7 + DPINI_COSIQ * DEEP_A8;
+      DEEP_A6  = -DPINI_SINIQ * DEEP_A9 + DPINI_COSIQ * DEEP_A10;
+
+      DEEP_X1 =  DEEP_A1 * DPINI_COSOMO + DEEP_A2 * DPINI_SINOMO;
+      DEEP_X2 =  DEEP_A3 * DPINI_COSOMO + DEEP_A4 * DPINI_SINOMO;
+      DEEP_X3 = -DEEP_A1 * DPINI_SINOMO + DEEP_A2 * DPINI_COSOMO;
+      DEEP_X4 = -DEEP_A3 * DPINI_SINOMO + DEEP_A4 * DPINI_COSOMO;
+      DEEP_X5 =  DEEP_A5 * DPINI_SINOMO;
+      DEEP_X6 =  DEEP_A6 * DPINI_SINOMO;
+      DEEP_X7 =  DEEP_A5 * DPINI_COSOMO;
+      DEEP_X8 =  DEEP_A6 * DPINI_COSOMO;
+
+      DEEP_Z31 = 12. * DEEP_X1 * DEEP_X1 - 3. * DEEP_X3 * DEEP_X3;
+      DEEP_Z32 = 24. * DEEP_X1 * DEEP_X2 - 6. * DEEP_X3 * DEEP_X4;
+      DEEP_Z33 = 12. * DEEP_X2 * DEEP_X2 - 3. * DEEP_X4 * DEEP_X4;
+      DEEP_Z1  =  3. * (DEEP_A1 * DEEP_A1 + DEEP_A2 * DEEP_A2)
+	+ DEEP_Z31 * DPINI_EQSQ;
+      DEEP_Z2  =  6. * (DEEP_A1 * DEEP_A3 + DEEP_A2 * DEEP_A4)
+	+ DEEP_Z32 * DPINI_EQSQ;
+      DEEP_Z3  =  3. * (DEEP_A3 * DEEP_A3 + DEEP_A4 * DEEP_A4)
+	+ DEEP_Z33 * DPINI_EQSQ;
+      DEEP_Z11 = -6. * DEEP_A1 * DEEP_A5
+	+ DPINI_EQSQ * (-24. * DEEP_X1 * DEEP_X7 - 6. * DEEP_X3 * DEEP_X5);
+      DEEP_Z12 = -6. * (DEEP_A1 *DEEP_A6 + DEEP_A3 * DEEP_A5)
+	+ DPINI_EQSQ * (-24. * (DEEP_X2 * DEEP_X7 + DEEP_X1 * DEEP_X8)
+			- 6. * (DEEP_X3 * DEEP_X6 + DEEP_X4 * DEEP_X5));
+      DEEP_Z13 = -6. * DEEP_A3 * DEEP_A6
+	+ DPINI_EQSQ * (-24. * DEEP_X2 * DEEP_X8 - 6. * DEEP_X4 * DEEP_X6);
+      DEEP_Z21 =  6. * DEEP_A2 * DEEP_A5
+	+ DPINI_EQSQ * ( 24. * DEEP_X1 * DEEP_X5 - 6. * DEEP_X3 * DEEP_X7);
+      DEEP_Z22 =  6. * (DEEP_A4 * DEEP_A5 + DEEP_A2 * DEEP_A6)
+	+ DPINI_EQSQ * ( 24. * (DEEP_X2 * DEEP_X5 + DEEP_X1 * DEEP_X6)
+			- 6. * (DEEP_X4 * DEEP_X7 + DEEP_X3 * DEEP_X8));
+      DEEP_Z23 =  6. * DEEP_A4 * DEEP_A6
+	+ DPINI_EQSQ * ( 24. * DEEP_X2 * DEEP_X6 - 6. * DEEP_X4 * DEEP_X8);
+      DEEP_Z1 =  DEEP_Z1 + DEEP_Z1 + DPINI_BSQ * DEEP_Z31;
+      DEEP_Z2 =  DEEP_Z2 + DEEP_Z2 + DPINI_BSQ * DEEP_Z32;
+      DEEP_Z3 =  DEEP_Z3 + DEEP_Z3 + DPINI_BSQ * DEEP_Z33;
+      DEEP_S3 =  DEEP_CC * DEEP_XNOI;
+      DEEP_S2 = -.5 * DEEP_S3 / DPINI_RTEQSQ;
+      DEEP_S4 =  DEEP_S3 * DPINI_RTEQSQ;
+      DEEP_S1 = -15. * DEEP_EQ * DEEP_S4;
+      DEEP_S5 =  DEEP_X1 * DEEP_X3 + DEEP_X2 * DEEP_X4;
+      DEEP_S6 =  DEEP_X2 * DEEP_X3 + DEEP_X1 * DEEP_X4;
+      DEEP_S7 =  DEEP_X2 * DEEP_X4 - DEEP_X1 * DEEP_X3;
+      DEEP_SE =  DEEP_S1 * DEEP_ZN * DEEP_S5;
+      DEEP_SI =  DEEP_S2 * DEEP_ZN * (DEEP_Z11 + DEEP_Z13);
+      DEEP_SL = -DEEP_ZN * DEEP_S3 * (DEEP_Z1  + DEEP_Z3
+				      - 14. - 6. * DPINI_EQSQ);
+      DEEP_SGH =  DEEP_S4 * DEEP_ZN * (DEEP_Z31 + DEEP_Z33 - 6.);
+      DEEP_SH  = -DEEP_ZN * DEEP_S2 * (DEEP_Z21 + DEEP_Z23);
+      if (DEEP_XQNCL < 5.2359877E-2) DEEP_SH = 0.0;
+      DEEP_EE2 =  2. * DEEP_S1 * DEEP_S6;
+      DEEP_E3  =  2. * DEEP_S1 * DEEP_S7;
+      DEEP_XI2 =  2. * DEEP_S2 * DEEP_Z12;
+      DEEP_XI3 =  2. * DEEP_S2 * (DEEP_Z13 - DEEP_Z11);
+      DEEP_XL2 = -2. * DEEP_S3 * DEEP_Z2;
+      DEEP_XL3 = -2. * DEEP_S3 * (DEEP_Z3 - DEEP_Z1);
+      DEEP_XL4 = -2. * DEEP_S3 * (-21. - 9. * DPINI_EQSQ) * DEEP_ZE;
+      DEEP_XGH2 =   2. * DEEP_S4 * DEEP_Z32;
+      DEEP_XGH3 =   2. * DEEP_S4 * (DEEP_Z33 - DEEP_Z31);
+      DEEP_XGH4 = -18. * DEEP_S4 * DEEP_ZE;
+      DEEP_XH2 = -2. * DEEP_S2 * DEEP_Z22;
+      DEEP_XH3 = -2. * DEEP_S2 * (DEEP_Z23 - DEEP_Z21);
+
+      /* Do lunar terms (label 30). */
+
+      DEEP_SSE = DEEP_SE;
+      DEEP_SSI = DEEP_SI;
+      DEEP_SSL = DEEP_SL;
+      DEEP_SSH = DEEP_SH / DPINI_SINIQ;
+      DEEP_SSG = DEEP_SGH - DPINI_COSIQ * DEEP_SSH;
+      DEEP_SE2 = DEEP_EE2;
+      DEEP_SI2 = DEEP_XI2;
+      DEEP_SL2 = DEEP_XL2;
+      DEEP_SGH2 = DEEP_XGH2;
+      DEEP_SH2 = DEEP_XH2;
+      DEEP_SE3 = DEEP_E3;
+      DEEP_SI3 = DEEP_XI3;
+      DEEP_SL3 = DEEP_XL3;
+      DEEP_SGH3 = DEEP_XGH3;
+      DEEP_SH3 = DEEP_XH3;
+      DEEP_SL4 = DEEP_XL4;
+      DEEP_SGH4 = DEEP_XGH4;
+      DEEP_ZCOSG = DEEP_ZCOSGL;
+      DEEP_ZSING = DEEP_ZSINGL;
+      DEEP_ZCOSI = DEEP_ZCOSIL;
+      DEEP_ZSINI = DEEP_ZSINIL;
+      DEEP_ZCOSH = DEEP_ZCOSHL * DEEP_COSQ + DEEP_ZSINHL * DEEP_SINQ;
+      DEEP_ZSINH = DEEP_SINQ * DEEP_ZCOSHL - DEEP_COSQ * DEEP_ZSINHL;
+      DEEP_ZN = DEEP_ZNL;
+      DEEP_CC = DEEP_C1L;
+      DEEP_ZE = DEEP_ZEL;
+      DEEP_ZMO = DEEP_ZMOL;
+
+      /* Second pass through label 20. */
+
+      DEEP_A1  =  DEEP_ZCOSG * DEEP_ZCOSH + DEEP_ZSING * DEEP_ZCOSI * DEEP_ZSINH;
+      DEEP_A3  = -DEEP_ZSING * DEEP_ZCOSH + DEEP_ZCOSG * DEEP_ZCOSI * DEEP_ZSINH;
+      DEEP_A7  = -DEEP_ZCOSG * DEEP_ZSINH + DEEP_ZSING * DEEP_ZCOSI * DEEP_ZCOSH;
+      DEEP_A8  =  DEEP_ZSING * DEEP_ZSINI;
+      DEEP_A9  =  DEEP_ZSING * DEEP_ZSINH + DEEP_ZCOSG * DEEP_ZCOSI * DEEP_ZCOSH;
+      DEEP_A10 =  DEEP_ZCOSG * DEEP_ZSINI;
+      DEEP_A2  =  DPINI_COSIQ * DEEP_A7 + DPINI_SINIQ * DEEP_A8;
+      DEEP_A4  =  DPINI_COSIQ * DEEP_A9 + DPINI_SINIQ * DEEP_A10;
+      DEEP_A5  = -DPINI_SINIQ * DEEP_A7 + DPINI_COSIQ * DEEP_A8;
+      DEEP_A6  = -DPINI_SINIQ * DEEP_A9 + DPINI_COSIQ * DEEP_A10;
+
+      DEEP_X1 =  DEEP_A1 * DPINI_COSOMO + DEEP_A2 * DPINI_SINOMO;
+      DEEP_X2 =  DEEP_A3 * DPINI_COSOMO + DEEP_A4 * DPINI_SINOMO;
+      DEEP_X3 = -DEEP_A1 * DPINI_SINOMO + DEEP_A2 * DPINI_COSOMO;
+      DEEP_X4 = -DEEP_A3 * DPINI_SINOMO + DEEP_A4 * DPINI_COSOMO;
+      DEEP_X5 =  DEEP_A5 * DPINI_SINOMO;
+      DEEP_X6 =  DEEP_A6 * DPINI_SINOMO;
+      DEEP_X7 =  DEEP_A5 * DPINI_COSOMO;
+      DEEP_X8 =  DEEP_A6 * DPINI_COSOMO;
+
+      DEEP_Z31 = 12. * DEEP_X1 * DEEP_X1 - 3. * DEEP_X3 * DEEP_X3;
+      DEEP_Z32 = 24. * DEEP_X1 * DEEP_X2 - 6. * DEEP_X3 * DEEP_X4;
+      DEEP_Z33 = 12. * DEEP_X2 * DEEP_X2 - 3. * DEEP_X4 * DEEP_X4;
+      DEEP_Z1  =  3. * (DEEP_A1 * DEEP_A1 + DEEP_A2 * DEEP_A2)
+	+ DEEP_Z31 * DPINI_EQSQ;
+      DEEP_Z2  =  6. * (DEEP_A1 * DEEP_A3 + DEEP_A2 * DEEP_A4)
+	+ DEEP_Z32 * DPINI_EQSQ;
+      DEEP_Z3  =  3. * (DEEP_A3 * DEEP_A3 + DEEP_A4 * DEEP_A4)
+	+ DEEP_Z33 * DPINI_EQSQ;
+      DEEP_Z11 = -6. * DEEP_A1 * DEEP_A5
+	+ DPINI_EQSQ * (-24. * DEEP_X1 * DEEP_X7 - 6. * DEEP_X3 * DEEP_X5);
+      DEEP_Z12 = -6. * (DEEP_A1 *DEEP_A6 + DEEP_A3 * DEEP_A5)
+	+ DPINI_EQSQ * (-24. * (DEEP_X2 * DEEP_X7 + DEEP_X1 * DEEP_X8)
+			- 6. * (DEEP_X3 * DEEP_X6 + DEEP_X4 * DEEP_X5));
+      DEEP_Z13 = -6. * DEEP_A3 * DEEP_A6
+	+ DPINI_EQSQ * (-24. * DEEP_X2 * DEEP_X8 - 6. * DEEP_X4 * DEEP_X6);
+      DEEP_Z21 =  6. * DEEP_A2 * DEEP_A5
+	+ DPINI_EQSQ * ( 24. * DEEP_X1 * DEEP_X5 - 6. * DEEP_X3 * DEEP_X7);
+      DEEP_Z22 =  6. * (DEEP_A4 * DEEP_A5 + DEEP_A2 * DEEP_A6)
+	+ DPINI_EQSQ * ( 24. * (DEEP_X2 * DEEP_X5 + DEEP_X1 * DEEP_X6)
+			- 6. * (DEEP_X4 * DEEP_X7 + DEEP_X3 * DEEP_X8));
+      DEEP_Z23 =  6. * DEEP_A4 * DEEP_A6
+	+ DPINI_EQSQ * ( 24. * DEEP_X2 * DEEP_X6 - 6. * DEEP_X4 * DEEP_X8);
+      DEEP_Z1 =  DEEP_Z1 + DEEP_Z1 + DPINI_BSQ * DEEP_Z31;
+      DEEP_Z2 =  DEEP_Z2 + DEEP_Z2 + DPINI_BSQ * DEEP_Z32;
+      DEEP_Z3 =  DEEP_Z3 + DEEP_Z3 + DPINI_BSQ * DEEP_Z33;
+      DEEP_S3 =  DEEP_CC * DEEP_XNOI;
+      DEEP_S2 = -.5 * DEEP_S3 / DPINI_RTEQSQ;
+      DEEP_S4 =  DEEP_S3 * DPINI_RTEQSQ;
+      DEEP_S1 = -15. * DEEP_EQ * DEEP_S4;
+      DEEP_S5 =  DEEP_X1 * DEEP_X3 + DEEP_X2 * DEEP_X4;
+      DEEP_S6 =  DEEP_X2 * DEEP_X3 + DEEP_X1 * DEEP_X4;
+      DEEP_S7 =  DEEP_X2 * DEEP_X4 - DEEP_X1 * DEEP_X3;
+      DEEP_SE =  DEEP_S1 * DEEP_ZN * DEEP_S5;
+      DEEP_SI =  DEEP_S2 * DEEP_ZN * (DEEP_Z11 + DEEP_Z13);
+      DEEP_SL = -DEEP_ZN * DEEP_S3 * (DEEP_Z1  + DEEP_Z3
+				      - 14. - 6. * DPINI_EQSQ);
+      DEEP_SGH =  DEEP_S4 * DEEP_ZN * (DEEP_Z31 + DEEP_Z33 - 6.);
+      DEEP_SH  = -DEEP_ZN * DEEP_S2 * (DEEP_Z21 + DEEP_Z23);
+      if (DEEP_XQNCL < 5.2359877E-2) DEEP_SH = 0.0;
+      DEEP_EE2 =  2. * DEEP_S1 * DEEP_S6;
+      DEEP_E3  =  2. * DEEP_S1 * DEEP_S7;
+      DEEP_XI2 =  2. * DEEP_S2 * DEEP_Z12;
+      DEEP_XI3 =  2. * DEEP_S2 * (DEEP_Z13 - DEEP_Z11);
+      DEEP_XL2 = -2. * DEEP_S3 * DEEP_Z2;
+      DEEP_XL3 = -2. * DEEP_S3 * (DEEP_Z3 - DEEP_Z1);
+      DEEP_XL4 = -2. * DEEP_S3 * (-21. - 9. * DPINI_EQSQ) * DEEP_ZE;
+      DEEP_XGH2 =   2. * DEEP_S4 * DEEP_Z32;
+      DEEP_XGH3 =   2. * DEEP_S4 * (DEEP_Z33 - DEEP_Z31);
+      DEEP_XGH4 = -18. * DEEP_S4 * DEEP_ZE;
+      DEEP_XH2 = -2. * DEEP_S2 * DEEP_Z22;
+      DEEP_XH3 = -2. * DEEP_S2 * (DEEP_Z23 - DEEP_Z21);
+
+      /* Label 40. */
+
+      DEEP_SSE = DEEP_SSE + DEEP_SE;
+      DEEP_SSI = DEEP_SSI + DEEP_SI;
+      DEEP_SSL = DEEP_SSL + DEEP_SL;
+      DEEP_SSG = DEEP_SSG + DEEP_SGH - DPINI_COSIQ / DPINI_SINIQ * DEEP_SH;
+      DEEP_SSH = DEEP_SSH + DEEP_SH / DPINI_SINIQ;
+
+      /* Geopotential resonance initialisation for 12 hour orbits. */
+
+      DEEP_IRESFL = 0;
+      DEEP_ISYNFL = 0;
+      if (DEEP_XNQ >= .0052359877 || DEEP_XNQ <= .0034906585) {
+	if (DEEP_XNQ < 8.26E-3  || DEEP_XNQ > 9.24E-3) return;
+	if (DEEP_EQ  < 0.5) return;
+	DEEP_IRESFL = 1;
+	DEEP_EOC = DEEP_EQ * DPINI_EQSQ;
+	DEEP_G201 = -.306 - (DEEP_EQ - .64) * .440;
+
+	if (DEEP_EQ <= .65) {
+	  DEEP_G211 =     3.616  -    13.247  * DEEP_EQ
+		    +    16.290  * DPINI_EQSQ;
+	  DEEP_G310 =   -19.302  +   117.390  * DEEP_EQ
+		    -   228.419  * DPINI_EQSQ +   156.591  * DEEP_EOC;
+	  DEEP_G322 =   -18.9068 +   109.7927 * DEEP_EQ
+		    -   214.6334 * DPINI_EQSQ +   146.5816 * DEEP_EOC;
+	  DEEP_G410 =   -41.122  +   242.694  * DEEP_EQ
+		    -   471.094  * DPINI_EQSQ +   313.953  * DEEP_EOC;
+	  DEEP_G422 =  -146.407  +   841.880  * DEEP_EQ
+		    -  1629.014  * DPINI_EQSQ +  1083.435  * DEEP_EOC;
+	  DEEP_G520 =  -532.114  +  3017.977  * DEEP_EQ
+		    -  5740.     * DPINI_EQSQ +  3708.276  * DEEP_EOC;
 	}
 	else {
-	  DEEP_G520 = -5149.66 + 29936.92 * DEEP_EQ - 54087.36 * DPINI_EQSQ
-                    + 31324.56 * DEEP_EOC;
+	  DEEP_G211 =   -72.099  +   331.819  * DEEP_EQ
+		    -   508.738  * DPINI_EQSQ +   266.724  * DEEP_EOC;
+	  DEEP_G310 =  -346.844  +  1582.851  * DEEP_EQ
+		    -  2415.925  * DPINI_EQSQ +  1246.113  * DEEP_EOC;
+	  DEEP_G322 =  -342.585  +  1554.908  * DEEP_EQ
+		    -  2366.899  * DPINI_EQSQ +  1215.972  * DEEP_EOC;
+	  DEEP_G410 = -1052.797  +  4758.686  * DEEP_EQ
+		    -  7193.992  * DPINI_EQSQ +  3651.957  * DEEP_EOC;
+	  DEEP_G422 = -3581.69   + 16178.11   * DEEP_EQ
+		    - 24462.77   * DPINI_EQSQ + 12422.52   * DEEP_EOC;
+	  if (DEEP_EQ <= .715) {
+	    DEEP_G520 =  1464.74 -  4664.75 * DEEP_EQ +  3763.64 * DPINI_EQSQ;
+	  }
+	  else {
+	    DEEP_G520 = -5149.66 + 29936.92 * DEEP_EQ - 54087.36 * DPINI_EQSQ
+		      + 31324.56 * DEEP_EOC;
+	  }
 	}
-      }
 
-      if (DEEP_EQ < .7) {
-	DEEP_G533 = -919.2277  + 4988.61   * DEEP_EQ
-                  - 9064.77   * DPINI_EQSQ + 5542.21  * DEEP_EOC;
-	DEEP_G521 = -822.71072 + 4568.6173 * DEEP_EQ
-                  - 8491.4146 * DPINI_EQSQ + 5337.524 * DEEP_EOC;
-	DEEP_G532 = -853.666   + 4690.25   * DEEP_EQ
-                  - 8624.77   * DPINI_EQSQ + 5341.4   * DEEP_EOC;
+	if (DEEP_EQ < .7) {
+	  DEEP_G533 = -919.2277  + 4988.61   * DEEP_EQ
+		    - 9064.77   * DPINI_EQSQ + 5542.21  * DEEP_EOC;
+	  DEEP_G521 = -822.71072 + 4568.6173 * DEEP_EQ
+		    - 8491.4146 * DPINI_EQSQ + 5337.524 * DEEP_EOC;
+	  DEEP_G532 = -853.666   + 4690.25   * DEEP_EQ
+		    - 8624.77   * DPINI_EQSQ + 5341.4   * DEEP_EOC;
+	}
+	else {
+	  DEEP_G533 = -37995.78  + 161616.52 * DEEP_EQ
+		    - 229838.2  * DPINI_EQSQ + 109377.94 * DEEP_EOC;
+	  DEEP_G521 = -51752.104 + 218913.95 * DEEP_EQ
+		    - 309468.16 * DPINI_EQSQ + 146349.42 * DEEP_EOC;
+	  DEEP_G532 = -40023.88  + 170470.89 * DEEP_EQ
+		    - 242699.48 * DPINI_EQSQ + 115605.82 * DEEP_EOC;
+	}
+
+	DEEP_SINI2 = DPINI_SINIQ * DPINI_SINIQ;
+	DEEP_F220 =   .75 * (1. + 2. * DPINI_COSIQ + DPINI_COSQ2);
+	DEEP_F221 =  1.5     * DEEP_SINI2;
+	DEEP_F321 =  1.875   * DPINI_SINIQ * (1. - 2. * DPINI_COSIQ
+					    - 3. * DPINI_COSQ2);
+	DEEP_F322 = -1.875   * DPINI_SINIQ * (1. + 2. * DPINI_COSIQ
+					    - 3. * DPINI_COSQ2);
+	DEEP_F441 = 35.      * DEEP_SINI2 * DEEP_F220;
+	DEEP_F442 = 39.3750  * DEEP_SINI2 * DEEP_SINI2;
+	DEEP_F522 =  9.84375   * DPINI_SINIQ * (DEEP_SINI2 * ( 1.
+	  - 2. * DPINI_COSIQ -  5. * DPINI_COSQ2)
+	  +  .33333333 * (-2. + 4. * DPINI_COSIQ + 6. * DPINI_COSQ2));
+	DEEP_F523 = DPINI_SINIQ * (4.92187512 * DEEP_SINI2
+	  * (-2. - 4. * DPINI_COSIQ
+	  + 10. * DPINI_COSQ2) + 6.56250012 * ( 1. + 2. * DPINI_COSIQ
+						- 3. * DPINI_COSQ2));
+	DEEP_F542 = 29.53125 * DPINI_SINIQ * ( 2. - 8. * DPINI_COSIQ
+	  + DPINI_COSQ2 * (-12. + 8. * DPINI_COSIQ + 10. * DPINI_COSQ2));
+	DEEP_F543 = 29.53125 * DPINI_SINIQ * (-2. - 8. * DPINI_COSIQ
+	  + DPINI_COSQ2 * ( 12. + 8. * DPINI_COSIQ - 10. * DPINI_COSQ2));
+	DEEP_XNO2 = DEEP_XNQ * DEEP_XNQ;
+	DEEP_AINV2 = DEEP_AQNV * DEEP_AQNV;
+	DEEP_TEMP1 = 3. * DEEP_XNO2 * DEEP_AINV2;
+	DEEP_TEMP = DEEP_TEMP1 * DEEP_ROOT22;
+	DEEP_D2201 = DEEP_TEMP * DEEP_F220*DEEP_G201;
+	DEEP_D2211 = DEEP_TEMP * DEEP_F221*DEEP_G211;
+	DEEP_TEMP1 = DEEP_TEMP1 * DEEP_AQNV;
+	DEEP_TEMP = DEEP_TEMP1 * DEEP_ROOT32;
+	DEEP_D3210 = DEEP_TEMP * DEEP_F321 * DEEP_G310;
+	DEEP_D3222 = DEEP_TEMP * DEEP_F322 * DEEP_G322;
+	DEEP_TEMP1 = DEEP_TEMP1 * DEEP_AQNV;
+	DEEP_TEMP = 2. * DEEP_TEMP1 * DEEP_ROOT44;
+	DEEP_D4410 = DEEP_TEMP * DEEP_F441 * DEEP_G410;
+	DEEP_D4422 = DEEP_TEMP * DEEP_F442 * DEEP_G422;
+	DEEP_TEMP1 = DEEP_TEMP1 * DEEP_AQNV;
+	DEEP_TEMP = DEEP_TEMP1 * DEEP_ROOT52;
+	DEEP_D5220 = DEEP_TEMP * DEEP_F522 * DEEP_G520;
+	DEEP_D5232 = DEEP_TEMP * DEEP_F523 * DEEP_G532;
+	DEEP_TEMP = 2. * DEEP_TEMP1 * DEEP_ROOT54;
+	DEEP_D5421 = DEEP_TEMP * DEEP_F542 * DEEP_G521;
+	DEEP_D5433 = DEEP_TEMP * DEEP_F543 * DEEP_G533;
+	DEEP_XLAMO = DEEP_XMAO + E1_XNODEO + E1_XNODEO - DEEP_THGR - DEEP_THGR;
+	DEEP_BFACT = DPINI_XLLDOT + DPINI_XNODOT + DPINI_XNODOT
+	  - DEEP_THDT - DEEP_THDT;
+	DEEP_BFACT = DEEP_BFACT + DEEP_SSL + DEEP_SSH + DEEP_SSH;
       }
+
+      /* Synchronous resonance terms initialisation. */
+
       else {
-	DEEP_G533 = -37995.78  + 161616.52 * DEEP_EQ
-                  - 229838.2  * DPINI_EQSQ + 109377.94 * DEEP_EOC;
-	DEEP_G521 = -51752.104 + 218913.95 * DEEP_EQ
-                  - 309468.16 * DPINI_EQSQ + 146349.42 * DEEP_EOC;
-	DEEP_G532 = -40023.88  + 170470.89 * DEEP_EQ
-                  - 242699.48 * DPINI_EQSQ + 115605.82 * DEEP_EOC;
+	DEEP_IRESFL = 1;
+	DEEP_ISYNFL = 1;
+	DEEP_G200 = 1.0 + DPINI_EQSQ * (-2.5 + .8125 * DPINI_EQSQ);
+	DEEP_G310 = 1.0 + 2.0 * DPINI_EQSQ;
+	DEEP_G300 = 1.0 + DPINI_EQSQ * (-6.0 + 6.60937 * DPINI_EQSQ);
+	DEEP_F220 = .75 * (1. + DPINI_COSIQ) * (1. + DPINI_COSIQ);
+	DEEP_F311 = .9375 * DPINI_SINIQ * DPINI_SINIQ * (1. + 3. * DPINI_COSIQ)
+	  - .75 * (1. + DPINI_COSIQ);
+	DEEP_F330 = 1. + DPINI_COSIQ;
+	DEEP_F330 = 1.875 * DEEP_F330 * DEEP_F330 * DEEP_F330;
+	DEEP_DEL1 = 3. * DEEP_XNQ  * DEEP_XNQ  * DEEP_AQNV * DEEP_AQNV;
+	DEEP_DEL2 = 2. * DEEP_DEL1 * DEEP_F220 * DEEP_G200 * DEEP_Q22;
+	DEEP_DEL3 = 3. * DEEP_DEL1 * DEEP_F330 * DEEP_G300 * DEEP_Q33 * DEEP_AQNV;
+	DEEP_DEL1 = DEEP_DEL1 * DEEP_F311 * DEEP_G310 * DEEP_Q31 * DEEP_AQNV;
+	DEEP_FASX2 = .13130908;
+	DEEP_FASX4 = 2.8843198;
+	DEEP_FASX6 = .37448087;
+	DEEP_XLAMO = DEEP_XMAO + E1_XNODEO + E1_OMEGAO - DEEP_THGR;
+	DEEP_BFACT = DPINI_XLLDOT + DEEP_XPIDOT - DEEP_THDT;
+	DEEP_BFACT = DEEP_BFACT + DEEP_SSL + DEEP_SSG + DEEP_SSH;
       }
 
-      DEEP_SINI2 = DPINI_SINIQ * DPINI_SINIQ;
-      DEEP_F220 =   .75 * (1. + 2. * DPINI_COSIQ + DPINI_COSQ2);
-      DEEP_F221 =  1.5     * DEEP_SINI2;
-      DEEP_F321 =  1.875   * DPINI_SINIQ * (1. - 2. * DPINI_COSIQ
-					  - 3. * DPINI_COSQ2);
-      DEEP_F322 = -1.875   * DPINI_SINIQ * (1. + 2. * DPINI_COSIQ
-					  - 3. * DPINI_COSQ2);
-      DEEP_F441 = 35.      * DEEP_SINI2 * DEEP_F220;
-      DEEP_F442 = 39.3750  * DEEP_SINI2 * DEEP_SINI2;
-      DEEP_F522 =  9.84375   * DPINI_SINIQ * (DEEP_SINI2 * ( 1.
-	- 2. * DPINI_COSIQ -  5. * DPINI_COSQ2)
-	+  .33333333 * (-2. + 4. * DPINI_COSIQ + 6. * DPINI_COSQ2));
-      DEEP_F523 = DPINI_SINIQ * (4.92187512 * DEEP_SINI2
-	* (-2. - 4. * DPINI_COSIQ
-	+ 10. * DPINI_COSQ2) + 6.56250012 * ( 1. + 2. * DPINI_COSIQ
-					      - 3. * DPINI_COSQ2));
-      DEEP_F542 = 29.53125 * DPINI_SINIQ * ( 2. - 8. * DPINI_COSIQ
-	+ DPINI_COSQ2 * (-12. + 8. * DPINI_COSIQ + 10. * DPINI_COSQ2));
-      DEEP_F543 = 29.53125 * DPINI_SINIQ * (-2. - 8. * DPINI_COSIQ
-	+ DPINI_COSQ2 * ( 12. + 8. * DPINI_COSIQ - 10. * DPINI_COSQ2));
-      DEEP_XNO2 = DEEP_XNQ * DEEP_XNQ;
-      DEEP_AINV2 = DEEP_AQNV * DEEP_AQNV;
-      DEEP_TEMP1 = 3. * DEEP_XNO2 * DEEP_AINV2;
-      DEEP_TEMP = DEEP_TEMP1 * DEEP_ROOT22;
-      DEEP_D2201 = DEEP_TEMP * DEEP_F220*DEEP_G201;
-      DEEP_D2211 = DEEP_TEMP * DEEP_F221*DEEP_G211;
-      DEEP_TEMP1 = DEEP_TEMP1 * DEEP_AQNV;
-      DEEP_TEMP = DEEP_TEMP1 * DEEP_ROOT32;
-      DEEP_D3210 = DEEP_TEMP * DEEP_F321 * DEEP_G310;
-      DEEP_D3222 = DEEP_TEMP * DEEP_F322 * DEEP_G322;
-      DEEP_TEMP1 = DEEP_TEMP1 * DEEP_AQNV;
-      DEEP_TEMP = 2. * DEEP_TEMP1 * DEEP_ROOT44;
-      DEEP_D4410 = DEEP_TEMP * DEEP_F441 * DEEP_G410;
-      DEEP_D4422 = DEEP_TEMP * DEEP_F442 * DEEP_G422;
-      DEEP_TEMP1 = DEEP_TEMP1 * DEEP_AQNV;
-      DEEP_TEMP = DEEP_TEMP1 * DEEP_ROOT52;
-      DEEP_D5220 = DEEP_TEMP * DEEP_F522 * DEEP_G520;
-      DEEP_D5232 = DEEP_TEMP * DEEP_F523 * DEEP_G532;
-      DEEP_TEMP = 2. * DEEP_TEMP1 * DEEP_ROOT54;
-      DEEP_D5421 = DEEP_TEMP * DEEP_F542 * DEEP_G521;
-      DEEP_D5433 = DEEP_TEMP * DEEP_F543 * DEEP_G533;
-      DEEP_XLAMO = DEEP_XMAO + E1_XNODEO + E1_XNODEO - DEEP_THGR - DEEP_THGR;
-      DEEP_BFACT = DPINI_XLLDOT + DPINI_XNODOT + DPINI_XNODOT
-	- DEEP_THDT - DEEP_THDT;
-      DEEP_BFACT = DEEP_BFACT + DEEP_SSL + DEEP_SSH + DEEP_SSH;
-    }
+      DEEP_XFACT = DEEP_BFACT - DEEP_XNQ;
 
-    /* Synchronous resonance terms initialisation. */
+      /* Initialise integrator.  Its state is in the workspace and is reset
+       * to the epoch on each call of GetPosVel. */
 
-    else {
-      DEEP_IRESFL = 1;
-      DEEP_ISYNFL = 1;
-      DEEP_G200 = 1.0 + DPINI_EQSQ * (-2.5 + .8125 * DPINI_EQSQ);
-      DEEP_G310 = 1.0 + 2.0 * DPINI_EQSQ;
-      DEEP_G300 = 1.0 + DPINI_EQSQ * (-6.0 + 6.60937 * DPINI_EQSQ);
-      DEEP_F220 = .75 * (1. + DPINI_COSIQ) * (1. + DPINI_COSIQ);
-      DEEP_F311 = .9375 * DPINI_SINIQ * DPINI_SINIQ * (1. + 3. * DPINI_COSIQ)
-	- .75 * (1. + DPINI_COSIQ);
-      DEEP_F330 = 1. + DPINI_COSIQ;
-      DEEP_F330 = 1.875 * DEEP_F330 * DEEP_F330 * DEEP_F330;
-      DEEP_DEL1 = 3. * DEEP_XNQ  * DEEP_XNQ  * DEEP_AQNV * DEEP_AQNV;
-      DEEP_DEL2 = 2. * DEEP_DEL1 * DEEP_F220 * DEEP_G200 * DEEP_Q22;
-      DEEP_DEL3 = 3. * DEEP_DEL1 * DEEP_F330 * DEEP_G300 * DEEP_Q33 * DEEP_AQNV;
-      DEEP_DEL1 = DEEP_DEL1 * DEEP_F311 * DEEP_G310 * DEEP_Q31 * DEEP_AQNV;
-      DEEP_FASX2 = .13130908;
-      DEEP_FASX4 = 2.8843198;
-      DEEP_FASX6 = .37448087;
-      DEEP_XLAMO = DEEP_XMAO + E1_XNODEO + E1_OMEGAO - DEEP_THGR;
-      DEEP_BFACT = DPINI_XLLDOT + DEEP_XPIDOT - DEEP_THDT;
-      DEEP_BFACT = DEEP_BFACT + DEEP_SSL + DEEP_SSG + DEEP_SSH;
+      DEEP_STEPP =  720.;
+      DEEP_STEPN = -720.;
+      DEEP_STEP2 = 259200.;
+      ClearResonance();
+      return;
     }
 
-    DEEP_XFACT = DEEP_BFACT - DEEP_XNQ;
 
-    /* Initialise integrator. */
+    /**
+     * Deep space secular effects. */
 
-    DEEP_XLI = DEEP_XLAMO;
-    DEEP_XNI = DEEP_XNQ;
-    DEEP_ATIME =    0.;
-    DEEP_STEPP =  720.;
-    DEEP_STEPN = -720.;
-    DEEP_STEP2 = 259200.;
-    return;
-  }
+    protected final void DEEP2(SDP4Workspace aWork)
+    {
+      double DELT, FT, TEMP, X2LI, X2OMI, XL, XLDOT, XNDDT, XNDOT, XOMI;
+      int IRET, IRETN;
 
+      /* The Java compiler requires these initialisations. */
 
-  /**
-   * Deep space secular effects. */
+      DELT  = 0.;
+      FT    = 0.;
+      IRET  = 0;
+      IRETN = 0;
 
-  protected final void DEEP2()
-  {
-    DPSEC_XLL    = DPSEC_XLL    + DEEP_SSL * DPSEC_T;
-    DPSEC_OMGASM = DPSEC_OMGASM + DEEP_SSG * DPSEC_T;
-    DPSEC_XNODES = DPSEC_XNODES + DEEP_SSH * DPSEC_T;
-    DPSEC_EM   = E1_EO    + DEEP_SSE * DPSEC_T;
-    DPSEC_XINC = E1_XINCL + DEEP_SSI * DPSEC_T;
-    if (DPSEC_XINC < 0.) {
-      DPSEC_XINC   = -DPSEC_XINC;
-      DPSEC_XNODES =  DPSEC_XNODES + C2_PI;
-      DPSEC_OMGASM =  DPSEC_OMGASM - C2_PI;
-    }
-    if (DEEP_IRESFL == 0) return;
+      aWork.DPSEC_XLL    = aWork.DPSEC_XLL    + DEEP_SSL * aWork.DPSEC_T;
+      aWork.DPSEC_OMGASM = aWork.DPSEC_OMGASM + DEEP_SSG * aWork.DPSEC_T;
+      aWork.DPSEC_XNODES = aWork.DPSEC_XNODES + DEEP_SSH * aWork.DPSEC_T;
+      aWork.DPSEC_EM   = E1_EO    + DEEP_SSE * aWork.DPSEC_T;
+      aWork.DPSEC_XINC = E1_XINCL + DEEP_SSI * aWork.DPSEC_T;
+      if (aWork.DPSEC_XINC < 0.) {
+	aWork.DPSEC_XINC   = -aWork.DPSEC_XINC;
+	aWork.DPSEC_XNODES =  aWork.DPSEC_XNODES + C2_PI;
+	aWork.DPSEC_OMGASM =  aWork.DPSEC_OMGASM - C2_PI;
+      }
+      if (DEEP_IRESFL == 0) return;
 
-    /* Label 100. */
+      /* Label 100. */
 
-    for (;;) {
+      for (;;) {
 
-      if (DEEP_ATIME == 0. ||
-	  (DPSEC_T >= 0. && DEEP_ATIME <  0.) ||
-	  (DPSEC_T <  0. && DEEP_ATIME >= 0.)) {
-	if (DPSEC_T < 0.) {
-          DEEP_DELT = DEEP_STEPN;
-	}
-	else {
-	  DEEP_DELT = DEEP_STEPP;
+	if (aWork.DEEP_ATIME == 0. ||
+	    (aWork.DPSEC_T >= 0. && aWork.DEEP_ATIME <  0.) ||
+	    (aWork.DPSEC_T <  0. && aWork.DEEP_ATIME >= 0.)) {
+	  if (aWork.DPSEC_T < 0.) {
+	    DELT = DEEP_STEPN;
+	  }
+	  else {
+	    DELT = DEEP_STEPP;
+	  }
+	  aWork.DEEP_ATIME = 0.;
+	  aWork.DEEP_XNI = DEEP_XNQ;
+	  aWork.DEEP_XLI = DEEP_XLAMO;
+	  GetResonance(aWork);
+	  if (Math.abs(aWork.DPSEC_T - aWork.DEEP_ATIME) >= DEEP_STEPP) {
+	    IRET  = 125;
+	    IRETN = 165;
+	  }
+	  else {
+	    FT = aWork.DPSEC_T - aWork.DEEP_ATIME;
+	    IRETN = 140;
+	  }
 	}
-	DEEP_ATIME = 0.;
-	DEEP_XNI = DEEP_XNQ;
-	DEEP_XLI = DEEP_XLAMO;
-	if (Math.abs(DPSEC_T - DEEP_ATIME) >= DEEP_STEPP) {
-          DEEP_IRET  = 125;
-	  DEEP_IRETN = 165;
+	else if (Math.abs(aWork.DPSEC_T) >= Math.abs(aWork.DEEP_ATIME)) {
+	  DELT = DEEP_STEPN;
+	  if (aWork.DPSEC_T > 0.) DELT = DEEP_STEPP;
+	  if (Math.abs(aWork.DPSEC_T - aWork.DEEP_ATIME) >= DEEP_STEPP) {
+	    IRET  = 125;
+	    IRETN = 165;
+	  }
+	  else {
+	    FT = aWork.DPSEC_T-aWork.DEEP_ATIME;
+	    IRETN = 140;
+	  }
 	}
 	else {
-          DEEP_FT = DPSEC_T - DEEP_ATIME;
-	  DEEP_IRETN = 140;
+	  DELT = DEEP_STEPP;
+	  if (aWork.DPSEC_T >= 0.) DELT = DEEP_STEPN;
+	  IRET  = 100;
+	  IRETN = 165;
+	}
+
+	/* Dot terms calculated (label 150).
+	 * Label 125 return point moved here by duplicating some code above. */
+
+	for (;;) {
+
+	  if (DEEP_ISYNFL != 0) {
+	    XNDOT = DEEP_DEL1 * Math.sin(aWork.DEEP_XLI - DEEP_FASX2)
+	      + DEEP_DEL2 * Math.sin(2. * (aWork.DEEP_XLI - DEEP_FASX4))
+	      + DEEP_DEL3 * Math.sin(3. * (aWork.DEEP_XLI - DEEP_FASX6));
+	    XNDDT = DEEP_DEL1 * Math.cos(aWork.DEEP_XLI - DEEP_FASX2)
+	      + 2. * DEEP_DEL2 * Math.cos(2. * (aWork.DEEP_XLI - DEEP_FASX4))
+	      + 3. * DEEP_DEL3 * Math.cos(3. * (aWork.DEEP_XLI - DEEP_FASX6));
+	  }
+	  else {
+	    XOMI  = DEEP_OMEGAQ + DPINI_OMGDT * aWork.DEEP_ATIME;
+	    X2OMI = XOMI + XOMI;
+	    X2LI  = aWork.DEEP_XLI + aWork.DEEP_XLI;
+	    XNDOT = DEEP_D2201 * Math.sin(X2OMI + aWork.DEEP_XLI - DEEP_G22)
+	      + DEEP_D2211 * Math.sin( aWork.DEEP_XLI   - DEEP_G22)
+	      + DEEP_D3210 * Math.sin( XOMI  + aWork.DEEP_XLI  - DEEP_G32)
+	      + DEEP_D3222 * Math.sin(-XOMI  + aWork.DEEP_XLI  - DEEP_G32)
+	      + DEEP_D4410 * Math.sin( X2OMI + X2LI - DEEP_G44)
+	      + DEEP_D4422 * Math.sin( X2LI  - DEEP_G44)
+	      + DEEP_D5220 * Math.sin( XOMI  + aWork.DEEP_XLI  - DEEP_G52)
+	      + DEEP_D5232 * Math.sin(-XOMI  + aWork.DEEP_XLI  - DEEP_G52)
+	      + DEEP_D5421 * Math.sin( XOMI  + X2LI - DEEP_G54)
+	      + DEEP_D5433 * Math.sin(-XOMI  + X2LI - DEEP_G54);
+	   XNDDT = DEEP_D2201 * Math.cos(X2OMI + aWork.DEEP_XLI - DEEP_G22)
+	      + DEEP_D2211 * Math.cos( aWork.DEEP_XLI   - DEEP_G22)
+	      + DEEP_D3210 * Math.cos( XOMI  + aWork.DEEP_XLI  - DEEP_G32)
+	      + DEEP_D3222 * Math.cos(-XOMI  + aWork.DEEP_XLI  - DEEP_G32)
+	      + DEEP_D5220 * Math.cos( XOMI  + aWork.DEEP_XLI  - DEEP_G52)
+	      + DEEP_D5232 * Math.cos(-XOMI  + aWork.DEEP_XLI  - DEEP_G52)
+	      + 2. * (DEEP_D4410 * Math.cos(X2OMI + X2LI - DEEP_G44)
+	      + DEEP_D4422 * Math.cos( X2LI  - DEEP_G44)
+	      + DEEP_D5421 * Math.cos( XOMI  + X2LI - DEEP_G54)
+	      + DEEP_D5433 * Math.cos(-XOMI  + X2LI - DEEP_G54));
+	  }
+	  XLDOT = aWork.DEEP_XNI + DEEP_XFACT;
+	  XNDDT = XNDDT * XLDOT;
+	  if (IRETN == 140) {
+	    aWork.DPSEC_XN = aWork.DEEP_XNI + XNDOT * FT
+	      + XNDDT * FT * FT * 0.5;
+	    XL = aWork.DEEP_XLI + XLDOT * FT
+	      + XNDOT * FT * FT * 0.5;
+	    TEMP = -aWork.DPSEC_XNODES + DEEP_THGR + aWork.DPSEC_T * DEEP_THDT;
+	    aWork.DPSEC_XLL = XL - aWork.DPSEC_OMGASM + TEMP;
+	    if (DEEP_ISYNFL == 0) aWork.DPSEC_XLL = XL + TEMP + TEMP;
+	    return;
+	  }
+	  if (IRETN == 165) {
+	    aWork.DEEP_XLI = aWork.DEEP_XLI + XLDOT * DELT
+	      + XNDOT * DEEP_STEP2;
+	    aWork.DEEP_XNI = aWork.DEEP_XNI + XNDOT * DELT
+	      + XNDDT * DEEP_STEP2;
+	    aWork.DEEP_ATIME = aWork.DEEP_ATIME + DELT;
+	    if (IRET == 125) PutResonance(aWork);
+	  }
+	  if (IRET == 125) {
+	    if (Math.abs(aWork.DPSEC_T - aWork.DEEP_ATIME) >= DEEP_STEPP) {
+	      IRET  = 125;
+	      IRETN = 165;
+	    }
+	    else {
+	      FT = aWork.DPSEC_T - aWork.DEEP_ATIME;
+	      IRETN = 140;
+	    }
+	  }
+	  if (IRET != 125) break;
 	}
       }
-      else if (Math.abs(DPSEC_T) >= Math.abs(DEEP_ATIME)) {
-	DEEP_DELT = DEEP_STEPN;
-	if (DPSEC_T > 0.) DEEP_DELT = DEEP_STEPP;
-	if (Math.abs(DPSEC_T - DEEP_ATIME) >= DEEP_STEPP) {
-          DEEP_IRET  = 125;
-	  DEEP_IRETN = 165;
+    }
+
+
+    /**
+     * Forget the checkpoints of the resonance integrator. */
+
+    protected final synchronized void ClearResonance()
+    {
+      itsResCheck[0] = null; itsResCheck[1] = null;
+      itsResCount[0] = 0;    itsResCount[1] = 0;
+      return;
+    }
+
+
+    /**
+     * Move the resonance integrator to the nearest checkpoint.
+     *
+     * <p>The integrator must be at the epoch.  It is moved to the furthest
+     * checkpoint that lies between the epoch and DPSEC_T, if any.  As the
+     * integrator steps away from the epoch in the same way each time, it will
+     * from there arrive at the same state as from the epoch.
+     *
+     * @param aWork
+     *   The workspace with the integrator. */
+
+    protected final synchronized void GetResonance(SDP4Workspace aWork)
+    {
+      int theSide, k;
+
+      theSide = (aWork.DPSEC_T < 0.) ? 1 : 0;
+      k = (int) Math.min((double) itsResCount[theSide],
+			 Math.floor(Math.abs(aWork.DPSEC_T) / DEEP_STEPP)
+			 / RESCHECK);
+      if (0 == k) return;
+
+      aWork.DEEP_ATIME = (double) (k * RESCHECK) * DEEP_STEPP;
+      if (1 == theSide) aWork.DEEP_ATIME = -aWork.DEEP_ATIME;
+      aWork.DEEP_XLI = itsResCheck[theSide][2 * k - 2];
+      aWork.DEEP_XNI = itsResCheck[theSide][2 * k - 1];
+
+      return;
+    }
+
+
+    /**
+     * Store a checkpoint of the resonance integrator.
+     *
+     * <p>This is called after each step away from the epoch.  If the step
+     * ends on a checkpoint that follows the stored ones, it is stored.
+     *
+     * @param aWork
+     *   The workspace with the integrator. */
+
+    protected final void PutResonance(SDP4Workspace aWork)
+    {
+      double theSteps;
+      int    theSide, k;
+
+      theSteps = Math.abs(aWork.DEEP_ATIME) / DEEP_STEPP;
+      if (0. != theSteps % RESCHECK) return;
+
+      theSide = (aWork.DEEP_ATIME < 0.) ? 1 : 0;
+      k = (int) (theSteps / RESCHECK);
+
+      synchronized (this) {
+	if (k != itsResCount[theSide] + 1) return;
+	if (null == itsResCheck[theSide]) {
+	  itsResCheck[theSide] = new double[32];
 	}
-	else {
-          DEEP_FT = DPSEC_T-DEEP_ATIME;
-	  DEEP_IRETN = 140;
+	else if (2 * k > itsResCheck[theSide].length) {
+	  double theCheck[] = new double[2 * itsResCheck[theSide].length];
+	  System.arraycopy(itsResCheck[theSide], 0, theCheck, 0,
+			   itsResCheck[theSide].length);
+	  itsResCheck[theSide] = theCheck;
 	}
-      }
-      else {
-	DEEP_DELT = DEEP_STEPP;
-        if (DPSEC_T >= 0.) DEEP_DELT = DEEP_STEPN;
-	DEEP_IRET  = 100;
-	DEEP_IRETN = 165;
+	itsResCheck[theSide][2 * k - 2] = aWork.DEEP_XLI;
+	itsResCheck[theSide][2 * k - 1] = aWork.DEEP_XNI;
+	itsResCount[theSide] = k;
       }
 
-      /* Dot terms calculated (label 150).
-       * Label 125 return point moved here by duplicating some code above. */
+      return;
+    }
 
-      for (;;) {
 
-	if (DEEP_ISYNFL != 0) {
-	  DEEP_XNDOT = DEEP_DEL1 * Math.sin(DEEP_XLI - DEEP_FASX2)
-	    + DEEP_DEL2 * Math.sin(2. * (DEEP_XLI - DEEP_FASX4))
-	    + DEEP_DEL3 * Math.sin(3. * (DEEP_XLI - DEEP_FASX6));
-	  DEEP_XNDDT = DEEP_DEL1 * Math.cos(DEEP_XLI - DEEP_FASX2)
-	    + 2. * DEEP_DEL2 * Math.cos(2. * (DEEP_XLI - DEEP_FASX4))
-	    + 3. * DEEP_DEL3 * Math.cos(3. * (DEEP_XLI - DEEP_FASX6));
+    /**
+     * Deep space lunar-solar periodics. */
+
+    protected final void DEEP3(SDP4Workspace aWork)
+    {
+      double ALFDP, BETDP, COSIS, COSOK, DALF, DBET, DLS, F2, F3,
+	PGH, PH, SINIS, SINOK, SINZF, XLS, ZF, ZM;
+      SDP4LunarSolar LS;
+
+      SINIS = Math.sin(aWork.DPSEC_XINC);
+      COSIS = Math.cos(aWork.DPSEC_XINC);
+      if (null != aWork.itsLunarSolar ||
+	  Math.abs(aWork.DEEP_SAVTSN - aWork.DPSEC_T) >= 30.) {
+	aWork.DEEP_SAVTSN = aWork.DPSEC_T;
+	LS = aWork.itsLunarSolar;
+
+	/* With shared terms, correct them to first order in the difference
+	 * between this satellite's anomaly and the shared one. */
+
+	if (null != LS) {
+	  ZM  = DEEP_ZMOS + DEEP_ZNS * aWork.DPSEC_T - LS.ZMS;
+	  ZM -= 2. * Math.PI * Math.rint(ZM / (2. * Math.PI));
+	  SINZF = LS.SINZFS + ZM * LS.DSINZFS;
+	  F2    = LS.F2S    + ZM * LS.DF2S;
+	  F3    = LS.F3S    + ZM * LS.DF3S;
 	}
 	else {
-	  DEEP_XOMI  = DEEP_OMEGAQ + DPINI_OMGDT * DEEP_ATIME;
-	  DEEP_X2OMI = DEEP_XOMI + DEEP_XOMI;
-	  DEEP_X2LI  = DEEP_XLI + DEEP_XLI;
-	  DEEP_XNDOT = DEEP_D2201 * Math.sin(DEEP_X2OMI + DEEP_XLI - DEEP_G22)
-            + DEEP_D2211 * Math.sin( DEEP_XLI   - DEEP_G22)
-	    + DEEP_D3210 * Math.sin( DEEP_XOMI  + DEEP_XLI  - DEEP_G32)
-            + DEEP_D3222 * Math.sin(-DEEP_XOMI  + DEEP_XLI  - DEEP_G32)
-            + DEEP_D4410 * Math.sin( DEEP_X2OMI + DEEP_X2LI - DEEP_G44)
-            + DEEP_D4422 * Math.sin( DEEP_X2LI  - DEEP_G44)
-            + DEEP_D5220 * Math.sin( DEEP_XOMI  + DEEP_XLI  - DEEP_G52)
-            + DEEP_D5232 * Math.sin(-DEEP_XOMI  + DEEP_XLI  - DEEP_G52)
-            + DEEP_D5421 * Math.sin( DEEP_XOMI  + DEEP_X2LI - DEEP_G54)
-	    + DEEP_D5433 * Math.sin(-DEEP_XOMI  + DEEP_X2LI - DEEP_G54);
-         DEEP_XNDDT = DEEP_D2201 * Math.cos(DEEP_X2OMI + DEEP_XLI - DEEP_G22)
-            + DEEP_D2211 * Math.cos( DEEP_XLI   - DEEP_G22)
-            + DEEP_D3210 * Math.cos( DEEP_XOMI  + DEEP_XLI  - DEEP_G32)
-            + DEEP_D3222 * Math.cos(-DEEP_XOMI  + DEEP_XLI  - DEEP_G32)
-            + DEEP_D5220 * Math.cos( DEEP_XOMI  + DEEP_XLI  - DEEP_G52)
-            + DEEP_D5232 * Math.cos(-DEEP_XOMI  + DEEP_XLI  - DEEP_G52)
-            + 2. * (DEEP_D4410 * Math.cos(DEEP_X2OMI + DEEP_X2LI - DEEP_G44)
-            + DEEP_D4422 * Math.cos( DEEP_X2LI  - DEEP_G44)
-            + DEEP_D5421 * Math.cos( DEEP_XOMI  + DEEP_X2LI - DEEP_G54)
-	    + DEEP_D5433 * Math.cos(-DEEP_XOMI  + DEEP_X2LI - DEEP_G54));
+	  ZM = DEEP_ZMOS +    DEEP_ZNS * aWork.DPSEC_T;
+	  ZF = ZM + 2. * DEEP_ZES * Math.sin(ZM);
+	  SINZF = Math.sin(ZF);
+	  F2 =  .5 * SINZF * SINZF - .25;
+	  F3 = -.5 * SINZF * Math.cos(ZF);
 	}
-	DEEP_XLDOT = DEEP_XNI + DEEP_XFACT;
-	DEEP_XNDDT = DEEP_XNDDT * DEEP_XLDOT;
-	if (DEEP_IRETN == 140) {
-	  DPSEC_XN = DEEP_XNI + DEEP_XNDOT * DEEP_FT
-	    + DEEP_XNDDT * DEEP_FT * DEEP_FT * 0.5;
-	  DEEP_XL = DEEP_XLI + DEEP_XLDOT * DEEP_FT
-            + DEEP_XNDOT * DEEP_FT * DEEP_FT * 0.5;
-	  DEEP_TEMP = -DPSEC_XNODES + DEEP_THGR + DPSEC_T * DEEP_THDT;
-	  DPSEC_XLL = DEEP_XL - DPSEC_OMGASM + DEEP_TEMP;
-	  if (DEEP_ISYNFL == 0) DPSEC_XLL = DEEP_XL + DEEP_TEMP + DEEP_TEMP;
-	  return;
+	aWork.DEEP_SES  = DEEP_SE2  * F2 + DEEP_SE3  * F3;
+	aWork.DEEP_SIS  = DEEP_SI2  * F2 + DEEP_SI3  * F3;
+	aWork.DEEP_SLS  = DEEP_SL2  * F2 + DEEP_SL3  * F3
+	  + DEEP_SL4  * SINZF;
+	aWork.DEEP_SGHS = DEEP_SGH2 * F2 + DEEP_SGH3 * F3
+	  + DEEP_SGH4 * SINZF;
+	aWork.DEEP_SHS  = DEEP_SH2  * F2 + DEEP_SH3  * F3;
+	if (null != LS) {
+	  ZM  = DEEP_ZMOL + DEEP_ZNL * aWork.DPSEC_T - LS.ZML;
+	  ZM -= 2. * Math.PI * Math.rint(ZM / (2. * Math.PI));
+	  SINZF = LS.SINZFL + ZM * LS.DSINZFL;
+	  F2    = LS.F2L    + ZM * LS.DF2L;
+	  F3    = LS.F3L    + ZM * LS.DF3L;
 	}
-	if (DEEP_IRETN == 165) {
-	  DEEP_XLI = DEEP_XLI + DEEP_XLDOT * DEEP_DELT
-	    + DEEP_XNDOT * DEEP_STEP2;
-	  DEEP_XNI = DEEP_XNI + DEEP_XNDOT * DEEP_DELT
-	    + DEEP_XNDDT * DEEP_STEP2;
-	  DEEP_ATIME = DEEP_ATIME + DEEP_DELT;
-	}
-	if (DEEP_IRET == 125) {
-	  if (Math.abs(DPSEC_T - DEEP_ATIME) >= DEEP_STEPP) {
-	    DEEP_IRET  = 125;
-            DEEP_IRETN = 165;
-	  }
-	  else {
-	    DEEP_FT = DPSEC_T - DEEP_ATIME;
-            DEEP_IRETN = 140;
-	  }
+	else {
+	  ZM = DEEP_ZMOL + DEEP_ZNL * aWork.DPSEC_T;
+	  ZF = ZM + 2. * DEEP_ZEL * Math.sin(ZM);
+	  SINZF = Math.sin(ZF);
+	  F2 =  .5 * SINZF * SINZF - .25;
+	  F3 = -.5 * SINZF * Math.cos(ZF);
 	}
-	if (DEEP_IRET != 125) break;
+	aWork.DEEP_SEL  = DEEP_EE2  * F2 + DEEP_E3   * F3;
+	aWork.DEEP_SIL  = DEEP_XI2  * F2 + DEEP_XI3  * F3;
+	aWork.DEEP_SLL  = DEEP_XL2  * F2 + DEEP_XL3  * F3
+	  + DEEP_XL4  * SINZF;
+	aWork.DEEP_SGHL = DEEP_XGH2 * F2 + DEEP_XGH3 * F3
+	  + DEEP_XGH4 * SINZF;
+	aWork.DEEP_SH1 = DEEP_XH2 * F2 + DEEP_XH3 * F3;
+	aWork.DEEP_PE   = aWork.DEEP_SES + aWork.DEEP_SEL;
+	aWork.DEEP_PINC = aWork.DEEP_SIS + aWork.DEEP_SIL;
+	aWork.DEEP_PL   = aWork.DEEP_SLS + aWork.DEEP_SLL;
+      }
+      PGH = aWork.DEEP_SGHS + aWork.DEEP_SGHL;
+      PH  = aWork.DEEP_SHS  + aWork.DEEP_SH1;
+      aWork.DPSEC_XINC = aWork.DPSEC_XINC + aWork.DEEP_PINC;
+      aWork.DPSEC_EM = aWork.DPSEC_EM + aWork.DEEP_PE;
+
+      /* Apply periodics directly. */
+
+      if (DEEP_XQNCL >= .2) {
+	PH = PH / DPINI_SINIQ;
+	PGH = PGH - DPINI_COSIQ * PH;
+	aWork.DPSEC_OMGASM = aWork.DPSEC_OMGASM + PGH;
+	aWork.DPSEC_XNODES = aWork.DPSEC_XNODES + PH;
+	aWork.DPSEC_XLL = aWork.DPSEC_XLL + aWork.DEEP_PL;
       }
-    }
-  }
 
+      /* Apply periodics with Lyddane modification. */
 
-  /**
-   * Deep space lunar-solar periodics. */
+      else {
+	SINOK = Math.sin(aWork.DPSEC_XNODES);
+	COSOK = Math.cos(aWork.DPSEC_XNODES);
+	ALFDP = SINIS*SINOK;
+	BETDP = SINIS*COSOK;
+	DALF  =  PH * COSOK + aWork.DEEP_PINC * COSIS * SINOK;
+	DBET  = -PH * SINOK + aWork.DEEP_PINC * COSIS * COSOK;
+	ALFDP = ALFDP + DALF;
+	BETDP = BETDP + DBET;
+	XLS   = aWork.DPSEC_XLL + aWork.DPSEC_OMGASM
+	  + COSIS * aWork.DPSEC_XNODES;
+	DLS   = aWork.DEEP_PL + PGH
+	  - aWork.DEEP_PINC * aWork.DPSEC_XNODES * SINIS;
+	XLS   = XLS + DLS;
+	aWork.DPSEC_XNODES =ACTAN(ALFDP, BETDP);
+	aWork.DPSEC_XLL    = aWork.DPSEC_XLL + aWork.DEEP_PL;
+	aWork.DPSEC_OMGASM = XLS - aWork.DPSEC_XLL
+	  - Math.cos(aWork.DPSEC_XINC) * aWork.DPSEC_XNODES;
+      }
 
-  protected final void DEEP3()
-  {
-    DEEP_SINIS = Math.sin(DPSEC_XINC);
-    DEEP_COSIS = Math.cos(DPSEC_XINC);
-    if (Math.abs(DEEP_SAVTSN - DPSEC_T) >= 30.) {
-      DEEP_SAVTSN = DPSEC_T;
-      DEEP_ZM = DEEP_ZMOS +    DEEP_ZNS * DPSEC_T;
-      DEEP_ZF = DEEP_ZM + 2. * DEEP_ZES * Math.sin(DEEP_ZM);
-      DEEP_SINZF = Math.sin(DEEP_ZF);
-      DEEP_F2 =  .5 * DEEP_SINZF * DEEP_SINZF - .25;
-      DEEP_F3 = -.5 * DEEP_SINZF * Math.cos(DEEP_ZF);
-      DEEP_SES  = DEEP_SE2  * DEEP_F2 + DEEP_SE3  * DEEP_F3;
-      DEEP_SIS  = DEEP_SI2  * DEEP_F2 + DEEP_SI3  * DEEP_F3;
-      DEEP_SLS  = DEEP_SL2  * DEEP_F2 + DEEP_SL3  * DEEP_F3
-	+ DEEP_SL4  * DEEP_SINZF;
-      DEEP_SGHS = DEEP_SGH2 * DEEP_F2 + DEEP_SGH3 * DEEP_F3
-	+ DEEP_SGH4 * DEEP_SINZF;
-      DEEP_SHS  = DEEP_SH2  * DEEP_F2 + DEEP_SH3  * DEEP_F3;
-      DEEP_ZM = DEEP_ZMOL + DEEP_ZNL * DPSEC_T;
-      DEEP_ZF = DEEP_ZM + 2. * DEEP_ZEL * Math.sin(DEEP_ZM);
-      DEEP_SINZF = Math.sin(DEEP_ZF);
-      DEEP_F2 =  .5 * DEEP_SINZF * DEEP_SINZF - .25;
-      DEEP_F3 = -.5 * DEEP_SINZF * Math.cos(DEEP_ZF);
-      DEEP_SEL  = DEEP_EE2  * DEEP_F2 + DEEP_E3   * DEEP_F3;
-      DEEP_SIL  = DEEP_XI2  * DEEP_F2 + DEEP_XI3  * DEEP_F3;
-      DEEP_SLL  = DEEP_XL2  * DEEP_F2 + DEEP_XL3  * DEEP_F3
-	+ DEEP_XL4  * DEEP_SINZF;
-      DEEP_SGHL = DEEP_XGH2 * DEEP_F2 + DEEP_XGH3 * DEEP_F3
-	+ DEEP_XGH4 * DEEP_SINZF;
-      DEEP_SH1 = DEEP_XH2 * DEEP_F2 + DEEP_XH3 * DEEP_F3;
-      DEEP_PE   = DEEP_SES + DEEP_SEL;
-      DEEP_PINC = DEEP_SIS + DEEP_SIL;
-      DEEP_PL   = DEEP_SLS + DEEP_SLL;
+      return;
     }
-    DEEP_PGH = DEEP_SGHS + DEEP_SGHL;
-    DEEP_PH  = DEEP_SHS  + DEEP_SH1;
-    DPSEC_XINC = DPSEC_XINC + DEEP_PINC;
-    DPSEC_EM = DPSEC_EM + DEEP_PE;
-
-    /* Apply periodics directly. */
-
-    if (DEEP_XQNCL >= .2) {
-      DEEP_PH = DEEP_PH / DPINI_SINIQ;
-      DEEP_PGH = DEEP_PGH - DPINI_COSIQ * DEEP_PH;
-      DPSEC_OMGASM = DPSEC_OMGASM + DEEP_PGH;
-      DPSEC_XNODES = DPSEC_XNODES + DEEP_PH;
-      DPSEC_XLL = DPSEC_XLL + DEEP_PL;
+
+
+    /**
+     * Wrapper for deep space initialisation. */
+
+    protected final void DPINIT(double EOSQ, double SINIO, double COSIO,
+      double BETAO, double AODP, double THETA2, double SING, double COSG,
+      double BETAO2, double XMDOT, double OMGDOT, double XNODOTT, double XNODPP)
+    {
+      /* Although this is a ported Fortran subroutine, it is in fact called
+       * only with arguments that are instance variables.  So the problem
+       * of returning values does not arise even if the call is by value only.
+       * It also is probably the case that this routine does not have returned
+       * arguments anyway. */
+
+      DPINI_EQSQ = EOSQ;
+      DPINI_SINIQ = SINIO;
+      DPINI_COSIQ = COSIO;
+      DPINI_RTEQSQ = BETAO;
+      DPINI_AO = AODP;
+      DPINI_COSQ2 = THETA2;
+      DPINI_SINOMO = SING;
+      DPINI_COSOMO = COSG;
+      DPINI_BSQ = BETAO2;
+      DPINI_XLLDOT = XMDOT;
+      DPINI_OMGDT = OMGDOT;
+      DPINI_XNODOT = XNODOTT;
+      DPINI_XNODP = XNODPP;
+      DEEP1();
+      EOSQ = DPINI_EQSQ;
+      SINIO = DPINI_SINIQ;
+      COSIO = DPINI_COSIQ;
+      BETAO = DPINI_RTEQSQ;
+      AODP = DPINI_AO;
+      THETA2 = DPINI_COSQ2;
+      SING = DPINI_SINOMO;
+      COSG = DPINI_COSOMO;
+      BETAO2 = DPINI_BSQ;
+      XMDOT = DPINI_XLLDOT;
+      OMGDOT = DPINI_OMGDT;
+      XNODOTT = DPINI_XNODOT;
+      XNODPP = DPINI_XNODP;
+      return;
     }
 
-    /* Apply periodics with Lyddane modification. */
 
-    else {
-      DEEP_SINOK = Math.sin(DPSEC_XNODES);
-      DEEP_COSOK = Math.cos(DPSEC_XNODES);
-      DEEP_ALFDP = DEEP_SINIS*DEEP_SINOK;
-      DEEP_BETDP = DEEP_SINIS*DEEP_COSOK;
-      DEEP_DALF  =  DEEP_PH * DEEP_COSOK + DEEP_PINC * DEEP_COSIS * DEEP_SINOK;
-      DEEP_DBET  = -DEEP_PH * DEEP_SINOK + DEEP_PINC * DEEP_COSIS * DEEP_COSOK;
-      DEEP_ALFDP = DEEP_ALFDP + DEEP_DALF;
-      DEEP_BETDP = DEEP_BETDP + DEEP_DBET;
-      DEEP_XLS   = DPSEC_XLL + DPSEC_OMGASM + DEEP_COSIS * DPSEC_XNODES;
-      DEEP_DLS   = DEEP_PL + DEEP_PGH - DEEP_PINC * DPSEC_XNODES * DEEP_SINIS;
-      DEEP_XLS   = DEEP_XLS + DEEP_DLS;
-      DPSEC_XNODES =ACTAN(DEEP_ALFDP, DEEP_BETDP);
-      DPSEC_XLL    = DPSEC_XLL + DEEP_PL;
-      DPSEC_OMGASM = DEEP_XLS - DPSEC_XLL
-	- Math.cos(DPSEC_XINC) * DPSEC_XNODES;
+    /**
+     * Wrapper for deep space lunar-solar periodics. */
+
+    protected final void DPPER(SDP4Workspace aWork)
+    {
+      aWork.DPSEC_EM     = aWork.dpper_args[0];
+      aWork.DPSEC_XINC   = aWork.dpper_args[1];
+      aWork.DPSEC_OMGASM = aWork.dpper_args[2];
+      aWork.DPSEC_XNODES = aWork.dpper_args[3];
+      aWork.DPSEC_XLL    = aWork.dpper_args[4];
+      DEEP3(aWork);
+      aWork.dpper_args[0] = aWork.DPSEC_EM;
+      aWork.dpper_args[1] = aWork.DPSEC_XINC;
+      aWork.dpper_args[2] = aWork.DPSEC_OMGASM;
+      aWork.dpper_args[3] = aWork.DPSEC_XNODES;
+      aWork.dpper_args[4] = aWork.DPSEC_XLL;
+      return;
     }
 
-    return;
-  }
 
+    /**
+     * Wrapper for deep space secular effects. */
+
+    protected final void DPSEC(SDP4Workspace aWork, double TSINCE)
+    {
+      aWork.DPSEC_XLL    = aWork.dpsec_args[0];
+      aWork.DPSEC_OMGASM = aWork.dpsec_args[1];
+      aWork.DPSEC_XNODES = aWork.dpsec_args[2];
+      /* aWork.DPSEC_EM = EMM
+       * aWork.DPSEC_XINC = XINCC */
+      aWork.DPSEC_XN = aWork.dpsec_args[5];
+      aWork.DPSEC_T = TSINCE;
+      DEEP2(aWork);
+      aWork.dpsec_args[0] = aWork.DPSEC_XLL;
+      aWork.dpsec_args[1] = aWork.DPSEC_OMGASM;
+      aWork.dpsec_args[2] = aWork.DPSEC_XNODES;
+      aWork.dpsec_args[3] = aWork.DPSEC_EM;
+      aWork.dpsec_args[4] = aWork.DPSEC_XINC;
+      aWork.dpsec_args[5] = aWork.DPSEC_XN;
+      return;
+    }
 
-  /**
-   * Wrapper for deep space initialisation. */
 
-  protected final void DPINIT(double EOSQ, double SINIO, double COSIO,
-    double BETAO, double AODP, double THETA2, double SING, double COSG,
-    double BETAO2, double XMDOT, double OMGDOT, double XNODOTT, double XNODPP)
-  {
-    /* Although this is a ported Fortran subroutine, it is in fact called
-     * only with arguments that are instance variables.  So the problem
-     * of returning values does not arise even if the call is by value only.
-     * It also is probably the case that this routine does not have returned
-     * arguments anyway. */
-
-    DPINI_EQSQ = EOSQ;
-    DPINI_SINIQ = SINIO;
-    DPINI_COSIQ = COSIO;
-    DPINI_RTEQSQ = BETAO;
-    DPINI_AO = AODP;
-    DPINI_COSQ2 = THETA2;
-    DPINI_SINOMO = SING;
-    DPINI_COSOMO = COSG;
-    DPINI_BSQ = BETAO2;
-    DPINI_XLLDOT = XMDOT;
-    DPINI_OMGDT = OMGDOT;
-    DPINI_XNODOT = XNODOTT;
-    DPINI_XNODP = XNODPP;
-    DEEP1();
-    EOSQ = DPINI_EQSQ;
-    SINIO = DPINI_SINIQ;
-    COSIO = DPINI_COSIQ;
-    BETAO = DPINI_RTEQSQ;
-    AODP = DPINI_AO;
-    THETA2 = DPINI_COSQ2;
-    SING = DPINI_SINOMO;
-    COSG = DPINI_COSOMO;
-    BETAO2 = DPINI_BSQ;
-    XMDOT = DPINI_XLLDOT;
-    OMGDOT = DPINI_OMGDT;
-    XNODOTT = DPINI_XNODOT;
-    XNODPP = DPINI_XNODP;
-    return;
-  }
+    /**
+     * Initialise the SDP4 model.
+     *
+     * <p>This calculates from the elements read all the constants that the
+     * SDP4 model needs, including the deep space initialisation.  It need
+     * be called only once after reading a TLE for a long-period satellite;
+     * thereafter RunSDP4 can be called any number of times.</p> */
 
+    protected final void InitSDP4()
+    {
+      /* RECOVER ORIGINAL MEAN MOTION (SDP4_XNODP) AND SEMIMAJOR AXIS
+       * (SDP4_AODP) FROM INPUT ELEMENTS */
 
-  /**
-   * Wrapper for deep space lunar-solar periodics. */
+      SDP4_A1 = Math.pow(C1_XKE / E1_XNO, C1_TOTHRD);
+      SDP4_COSIO = Math.cos(E1_XINCL);
+      SDP4_THETA2 = SDP4_COSIO * SDP4_COSIO;
+      SDP4_X3THM1 = 3. * SDP4_THETA2 - 1.;
+      SDP4_EOSQ = E1_EO * E1_EO;
+      SDP4_BETAO2 = 1. - SDP4_EOSQ;
+      SDP4_BETAO = Math.sqrt(SDP4_BETAO2);
+      SDP4_DEL1 = 1.5 * C1_CK2 * SDP4_X3THM1
+	/ (SDP4_A1 * SDP4_A1 * SDP4_BETAO * SDP4_BETAO2);
+      SDP4_AO = SDP4_A1 * (1. - SDP4_DEL1 * (.5 * C1_TOTHRD + SDP4_DEL1
+	* (1. + 134./81. * SDP4_DEL1)));
+      SDP4_DELO = 1.5 * C1_CK2 * SDP4_X3THM1
+	/ (SDP4_AO * SDP4_AO * SDP4_BETAO * SDP4_BETAO2);
+      SDP4_XNODP = E1_XNO / (1. + SDP4_DELO);
+      SDP4_AODP = SDP4_AO / (1. - SDP4_DELO);
 
-  protected final void DPPER(double[] dpper_args)
-  {
-    DPSEC_EM     = dpper_args[0];
-    DPSEC_XINC   = dpper_args[1];
-    DPSEC_OMGASM = dpper_args[2];
-    DPSEC_XNODES = dpper_args[3];
-    DPSEC_XLL    = dpper_args[4];
-    DEEP3();
-    dpper_args[0] = DPSEC_EM;
-    dpper_args[1] = DPSEC_XINC;
-    dpper_args[2] = DPSEC_OMGASM;
-    dpper_args[3] = DPSEC_XNODES;
-    dpper_args[4] = DPSEC_XLL;
-    return;
-  }
+      /* INITIALIZATION
+       *
+       * FOR PERIGEE BELOW 156 KM, THE VALUES OF
+       * S AND QOMS2T ARE ALTERED */
+
+      SDP4_S4 = C1_S;
+      SDP4_QOMS24 = C1_QOMS2T;
+      SDP4_PERIGE = (SDP4_AODP * (1. - E1_EO) - C1_AE) * C1_XKMPER;
+      if (SDP4_PERIGE < 156.) {
+	SDP4_S4 = SDP4_PERIGE - 78.;
+	if (SDP4_PERIGE <= 98.) {
+	  SDP4_S4 = 20.;
+	}
+	SDP4_QOMS24 = ((120. - SDP4_S4) * C1_AE / C1_XKMPER);
+	SDP4_QOMS24 *= SDP4_QOMS24;
+	SDP4_QOMS24 *= SDP4_QOMS24;
+	SDP4_S4 = SDP4_S4 / C1_XKMPER + C1_AE;
+      }
+      SDP4_PINVSQ = 1. / (SDP4_AODP * SDP4_AODP * SDP4_BETAO2 * SDP4_BETAO2);
+      SDP4_SING = Math.sin(E1_OMEGAO);
+      SDP4_COSG = Math.cos(E1_OMEGAO);
+      SDP4_TSI = 1. / (SDP4_AODP - SDP4_S4);
+      SDP4_ETA = SDP4_AODP * E1_EO * SDP4_TSI;
+      SDP4_ETASQ = SDP4_ETA * SDP4_ETA;
+      SDP4_EETA = E1_EO * SDP4_ETA;
+      SDP4_PSISQ = Math.abs(1. - SDP4_ETASQ);
+      SDP4_COEF = SDP4_QOMS24 * SDP4_TSI * SDP4_TSI * SDP4_TSI * SDP4_TSI;
+      SDP4_COEF1 = SDP4_COEF / Math.pow(SDP4_PSISQ, 3.5);
+      SDP4_C2 = SDP4_COEF1 * SDP4_XNODP * (SDP4_AODP * (1. + 1.5 * SDP4_ETASQ
+	+ SDP4_EETA * (4. + SDP4_ETASQ))
+	+ .75 * C1_CK2 * SDP4_TSI / SDP4_PSISQ * SDP4_X3THM1
+	* (8. + 3. * SDP4_ETASQ * (8. + SDP4_ETASQ)));
+      SDP4_C1 = E1_BSTAR * SDP4_C2;
+      SDP4_SINIO = Math.sin(E1_XINCL);
+      SDP4_A3OVK2 = -C1_XJ3 / C1_CK2 * C1_AE * C1_AE * C1_AE;
+      SDP4_X1MTH2 = 1. - SDP4_THETA2;
+      SDP4_C4 = 2. * SDP4_XNODP * SDP4_COEF1 * SDP4_AODP * SDP4_BETAO2
+	* (SDP4_ETA * (2. + .5 * SDP4_ETASQ) + E1_EO * (.5 + 2. * SDP4_ETASQ)
+	- 2. * C1_CK2 * SDP4_TSI / (SDP4_AODP * SDP4_PSISQ)
+	* (-3. * SDP4_X3THM1 * (1. - 2. * SDP4_EETA + SDP4_ETASQ
+	* (1.5 - .5 * SDP4_EETA)) + .75 * SDP4_X1MTH2
+	* (2. * SDP4_ETASQ - SDP4_EETA * (1. + SDP4_ETASQ))
+	* Math.cos(2. * E1_OMEGAO)));
+      SDP4_THETA4 = SDP4_THETA2 * SDP4_THETA2;
+      SDP4_TEMP1 = 3. * C1_CK2 * SDP4_PINVSQ * SDP4_XNODP;
+      SDP4_TEMP2 = SDP4_TEMP1 * C1_CK2 * SDP4_PINVSQ;
+      SDP4_TEMP3 = 1.25 * C1_CK4 * SDP4_PINVSQ * SDP4_PINVSQ * SDP4_XNODP;
+      SDP4_XMDOT = SDP4_XNODP + .5 * SDP4_TEMP1 * SDP4_BETAO * SDP4_X3THM1
+	+ .0625 * SDP4_TEMP2 * SDP4_BETAO
+	* (13. - 78. * SDP4_THETA2 + 137. * SDP4_THETA4);
+      SDP4_X1M5TH = 1. - 5. * SDP4_THETA2;
+      SDP4_OMGDOT = -.5 * SDP4_TEMP1 * SDP4_X1M5TH
+	+ .0625 * SDP4_TEMP2 * (7. - 114. * SDP4_THETA2 + 395. * SDP4_THETA4)
+	+ SDP4_TEMP3 * (3. - 36. * SDP4_THETA2 + 49. * SDP4_THETA4);
+      SDP4_XHDOT1 = -SDP4_TEMP1 * SDP4_COSIO;
+      SDP4_XNODOT = SDP4_XHDOT1 + (.5 * SDP4_TEMP2 * (4. - 19. * SDP4_THETA2)
+	+ 2. * SDP4_TEMP3 * (3. - 7. * SDP4_THETA2)) * SDP4_COSIO;
+      SDP4_XNODCF = 3.5 * SDP4_BETAO2 * SDP4_XHDOT1 * SDP4_C1;
+      SDP4_T2COF = 1.5 * SDP4_C1;
+      SDP4_XLCOF = .125 * SDP4_A3OVK2 * SDP4_SINIO
+	* (3. + 5. * SDP4_COSIO) / (1. + SDP4_COSIO);
+      SDP4_AYCOF = .25 * SDP4_A3OVK2 * SDP4_SINIO;
+      SDP4_X7THM1 = 7. * SDP4_THETA2 - 1.;
+      DPINIT(SDP4_EOSQ, SDP4_SINIO, SDP4_COSIO, SDP4_BETAO, SDP4_AODP,
+	SDP4_THETA2, SDP4_SING, SDP4_COSG, SDP4_BETAO2, SDP4_XMDOT,
+	SDP4_OMGDOT, SDP4_XNODOT, SDP4_XNODP);
+      return;
+    }
 
 
-  /**
-   * Wrapper for deep space secular effects. */
+    /**
+     * Run the SDP4 model.
+     *
+     * <p>This should be run for long-period satellites.  The criterion is
+     * evaluated on reading the orbital data from the TLE and stored in the
+     * state variable itsIsDeep (should be 1 for calling this routine).
+     *
+     * <p>The model must have been initialised, which ReadNorad12 does.
+     * Nothing in this instance is changed, all scratch variables and the
+     * result are in the given workspace.
+     *
+     * @param aWork
+     *   The workspace for the calculation, which also receives the result in
+     *   aWork.itsR[] and aWork.itsV[].
+     * @param TSINCE
+     *   TSINCE is the time difference between the time of interest and the
+     *   epoch of the TLE.  It must be given in minutes. */
+
+    protected final void RunSDP4(SDP4Workspace aWork, double TSINCE)
+    {
+      double A, AXN, AYN, AYNL, BETA, BETAL, CAPU, COS2U, COSEPW,
+	COSIK, COSNOK, COSU, COSUK, E, ECOSE, ELSQ, EM, EPW, ESINE, OMGADF,
+	PL, R, RDOT, RDOTK, RFDOT, RFDOTK, RK, SIN2U, SINEPW, SINIK,
+	SINNOK, SINU, SINUK, TEMP, TEMP1, TEMP2, TEMP3, TEMP4, TEMP5, TEMP6,
+	TEMPA, TEMPE, TEMPL, TSQ, U, UK, UX, UY, UZ, VX, VY, VZ, X, XDOT, XINC,
+	XINCK, XL, XLL, XLT, XMAM, XMDF, XMX, XMY, XN, XNODDF, XNODE, XNODEK,
+	Y, YDOT, Z, ZDOT;
+      int I;
+
+      /* The Java compiler requires these initialisations. */
+
+      TEMP3 = 0.;
+      TEMP4 = 0.;
+      TEMP5 = 0.;
+      TEMP6 = 0.;
+      COSEPW = 0.;
+      SINEPW = 0.;
+      EM = 0.;
+      XINC = 0.;
+
+      /* UPDATE FOR SECULAR GRAVITY AND ATMOSPHERIC DRAG */
+
+      XMDF   = E1_XMO    + SDP4_XMDOT  * TSINCE;
+      OMGADF = E1_OMEGAO + SDP4_OMGDOT * TSINCE;
+      XNODDF = E1_XNODEO + SDP4_XNODOT * TSINCE;
+      TSQ = TSINCE * TSINCE;
+      XNODE = XNODDF + SDP4_XNODCF * TSQ;
+      TEMPA = 1. - SDP4_C1 * TSINCE;
+      TEMPE = E1_BSTAR * SDP4_C4 * TSINCE;
+      TEMPL = SDP4_T2COF * TSQ;
+      XN = SDP4_XNODP;
+
+      aWork.dpsec_args[0] = XMDF;
+      aWork.dpsec_args[1] = OMGADF;
+      aWork.dpsec_args[2] = XNODE;
+      aWork.dpsec_args[3] = EM;
+      aWork.dpsec_args[4] = XINC;
+      aWork.dpsec_args[5] = XN;
+      DPSEC(aWork, TSINCE);
+      XMDF   = aWork.dpsec_args[0];
+      OMGADF = aWork.dpsec_args[1];
+      XNODE  = aWork.dpsec_args[2];
+      EM     = aWork.dpsec_args[3];
+      XINC   = aWork.dpsec_args[4];
+      XN     = aWork.dpsec_args[5];
+
+      A = Math.pow(C1_XKE / XN, C1_TOTHRD) * TEMPA * TEMPA;
+      E = EM - TEMPE;
+      XMAM = XMDF + SDP4_XNODP * TEMPL;
+
+      aWork.dpper_args[0] = E;
+      aWork.dpper_args[1] = XINC;
+      aWork.dpper_args[2] = OMGADF;
+      aWork.dpper_args[3] = XNODE;
+      aWork.dpper_args[4] = XMAM;
+      DPPER(aWork);
+      E      = aWork.dpper_args[0];
+      XINC   = aWork.dpper_args[1];
+      OMGADF = aWork.dpper_args[2];
+      XNODE  = aWork.dpper_args[3];
+      XMAM   = aWork.dpper_args[4];
+
+      XL = XMAM + OMGADF + XNODE;
+      BETA = Math.sqrt(1. - E * E);
+      XN = C1_XKE / Math.pow(A, 1.5);
+
+      /* LONG PERIOD PERIODICS */
+
+      AXN = E * Math.cos(OMGADF);
+      TEMP = 1. / (A * BETA * BETA);
+      XLL = TEMP * SDP4_XLCOF * AXN;
+      AYNL = TEMP * SDP4_AYCOF;
+      XLT = XL + XLL;
+      AYN = E * Math.sin(OMGADF) + AYNL;
+
+      /* SOLVE KEPLERS EQUATION */
+
+      CAPU = FMOD2P(XLT - XNODE);
+      TEMP2 = CAPU;
+      for (I = 1; I < 11; I++) {
+	SINEPW = Math.sin(TEMP2);
+	COSEPW = Math.cos(TEMP2);
+	TEMP3 = AXN * SINEPW;
+	TEMP4 = AYN * COSEPW;
+	TEMP5 = AXN * COSEPW;
+	TEMP6 = AYN * SINEPW;
+	EPW = (CAPU - TEMP4 + TEMP3 - TEMP2)
+	  / (1. - TEMP5 - TEMP6) + TEMP2;
+	if (Math.abs(EPW-TEMP2) <= C1_E6A) break;
+	TEMP2 = EPW;
+      }
 
-  protected final void DPSEC(double[] dpsec_args, double[] TSINCE)
-  {
-    DPSEC_XLL    = dpsec_args[0];
-    DPSEC_OMGASM = dpsec_args[1];
-    DPSEC_XNODES = dpsec_args[2];
-    /* DPSEC_EM = EMM
-     * DPSEC_XINC = XINCC */
-    DPSEC_XN = dpsec_args[5];
-    DPSEC_T = TSINCE[0];
-    DEEP2();
-    dpsec_args[0] = DPSEC_XLL;
-    dpsec_args[1] = DPSEC_OMGASM;
-    dpsec_args[2] = DPSEC_XNODES;
-    dpsec_args[3] = DPSEC_EM;
-    dpsec_args[4] = DPSEC_XINC;
-    dpsec_args[5] = DPSEC_XN;
-    TSINCE[0] = DPSEC_T;
-    return;
+      /* SHORT PERIOD PRELIMINARY QUANTITIES */
+
+      ECOSE = TEMP5 + TEMP6;
+      ESINE = TEMP3 - TEMP4;
+      ELSQ = AXN * AXN + AYN * AYN;
+      TEMP = 1. - ELSQ;
+      PL = A * TEMP;
+      R = A * (1. - ECOSE);
+      TEMP1 = 1. / R;
+      RDOT = C1_XKE * Math.sqrt(A) * ESINE * TEMP1;
+      RFDOT = C1_XKE * Math.sqrt(PL) * TEMP1;
+      TEMP2 = A * TEMP1;
+      BETAL = Math.sqrt(TEMP);
+      TEMP3 = 1. / (1. + BETAL);
+      COSU = TEMP2 * (COSEPW - AXN + AYN * ESINE * TEMP3);
+      SINU = TEMP2 * (SINEPW - AYN - AXN * ESINE * TEMP3);
+      U = ACTAN(SINU, COSU);
+      SIN2U =2. * SINU * COSU;
+      COS2U =2. * COSU * COSU - 1.;
+      TEMP = 1. / PL;
+      TEMP1 = C1_CK2 * TEMP;
+      TEMP2 = TEMP1 * TEMP;
+
+      /* UPDATE FOR SHORT PERIODICS */
+
+      RK = R * (1. - 1.5 * TEMP2 * BETAL * SDP4_X3THM1)
+	+ .5 * TEMP1 * SDP4_X1MTH2 * COS2U;
+      UK = U - .25 * TEMP2 * SDP4_X7THM1 * SIN2U;
+      XNODEK = XNODE + 1.5 * TEMP2 * SDP4_COSIO * SIN2U;
+      XINCK = XINC + 1.5 * TEMP2 * SDP4_COSIO * SDP4_SINIO * COS2U;
+      RDOTK = RDOT - XN * TEMP1 * SDP4_X1MTH2 * SIN2U;
+      RFDOTK = RFDOT + XN * TEMP1
+	* (SDP4_X1MTH2 * COS2U + 1.5 * SDP4_X3THM1);
+
+      /* ORIENTATION VECTORS */
+
+      SINUK = Math.sin(UK);
+      COSUK = Math.cos(UK);
+      SINIK = Math.sin(XINCK);
+      COSIK = Math.cos(XINCK);
+      SINNOK = Math.sin(XNODEK);
+      COSNOK = Math.cos(XNODEK);
+      XMX = -SINNOK * COSIK;
+      XMY =  COSNOK * COSIK;
+      UX = XMX * SINUK + COSNOK * COSUK;
+      UY = XMY * SINUK + SINNOK * COSUK;
+      UZ = SINIK * SINUK;
+      VX = XMX * COSUK - COSNOK * SINUK;
+      VY = XMY * COSUK - SINNOK * SINUK;
+      VZ = SINIK * COSUK;
+
+      /* POSITION AND VELOCITY */
+
+      X = RK * UX;
+      Y = RK * UY;
+      Z = RK * UZ;
+      XDOT = RDOTK * UX + RFDOTK * VX;
+      YDOT = RDOTK * UY + RFDOTK * VY;
+      ZDOT = RDOTK * UZ + RFDOTK * VZ;
+
+      aWork.itsR[0] = X    * C1_XKMPER / C1_AE / 1E6;
+      aWork.itsR[1] = Y    * C1_XKMPER / C1_AE / 1E6;
+      aWork.itsR[2] = Z    * C1_XKMPER / C1_AE / 1E6;
+      aWork.itsV[0] = XDOT * C1_XKMPER / C1_AE * C1_XMNPDA / 86400.;
+      aWork.itsV[1] = YDOT * C1_XKMPER / C1_AE * C1_XMNPDA / 86400.;
+      aWork.itsV[2] = ZDOT * C1_XKMPER / C1_AE * C1_XMNPDA / 86400.;
+
+      return;
+    }
   }
 
 
   /**
-   * A helper routine to calculate the modulo 2 pi. */
+   * Initialise the SGP4 model.
+   *
+   * <p>This calculates from the elements read all the constants that the
+   * SGP4 model needs.  It need be called only once after reading a TLE
+   * for a short-period satellite; thereafter RunSGP4 can be called any
+   * number of times.  Only the constants that RunSGP4 uses are kept in
+   * this instance, the intermediate terms are local.</p> */
 
-  protected final double FMOD2P(double X)
+  protected final void InitSGP4()
   {
-    double value;
-    int    I;
-    value = X;
-    I = (int)(value/C2_TWOPI);
-    value = value - I * C2_TWOPI;
-    if (value < 0) value += C2_TWOPI;
-    return value;
+    double SGP4_A1, SGP4_A3OVK2, SGP4_AO, SGP4_BETAO, SGP4_BETAO2,
+      SGP4_C1SQ, SGP4_C2, SGP4_C3, SGP4_COEF, SGP4_COEF1, SGP4_DEL1,
+      SGP4_DELO, SGP4_EETA, SGP4_EOSQ, SGP4_ETASQ, SGP4_PERIGE, SGP4_PINVSQ,
+      SGP4_PSISQ, SGP4_QOMS24, SGP4_S4, SGP4_TEMP, SGP4_TEMP1, SGP4_TEMP2,
+      SGP4_TEMP3, SGP4_THETA2, SGP4_THETA4, SGP4_TSI, SGP4_X1M5TH,
+      SGP4_XHDOT1;
+
+    /* RECOVER ORIGINAL MEAN MOTION (SGP4_XNODP) AND SEMIMAJOR AXIS
+     * (SGP4_AODP) FROM INPUT ELEMENTS */
+
+    SGP4_A1 = Math.pow(C1_XKE / E1_XNO, C1_TOTHRD);
+    SGP4_COSIO = Math.cos(E1_XINCL);
+    SGP4_THETA2 = SGP4_COSIO * SGP4_COSIO;
+    SGP4_X3THM1 = 3. * SGP4_THETA2 - 1.;
+    SGP4_EOSQ = E1_EO * E1_EO;
+    SGP4_BETAO2 = 1. - SGP4_EOSQ;
+    SGP4_BETAO = Math.sqrt(SGP4_BETAO2);
+    SGP4_DEL1 = 1.5 * C1_CK2 * SGP4_X3THM1
+      / (SGP4_A1 * SGP4_A1 * SGP4_BETAO * SGP4_BETAO2);
+    SGP4_AO = SGP4_A1 * (1. - SGP4_DEL1
+      * (.5 * C1_TOTHRD + SGP4_DEL1 * (1. + 134./81. * SGP4_DEL1)));
+    SGP4_DELO = 1.5 * C1_CK2 * SGP4_X3THM1
+      / (SGP4_AO * SGP4_AO * SGP4_BETAO * SGP4_BETAO2);
+    SGP4_XNODP = E1_XNO / (1. + SGP4_DELO);
+    SGP4_AODP = SGP4_AO / (1. - SGP4_DELO);
+
+    /* INITIALIZATION
+     *
+     * FOR PERIGEE LESS THAN 220 KILOMETERS, THE SGP4_ISIMP FLAG IS SET AND
+     * THE EQUATIONS ARE TRUNCATED TO LINEAR VARIATION IN SQRT A AND
+     * QUADRATIC VARIATION IN MEAN ANOMALY.  ALSO, THE SGP4_C3 TERM, THE
+     * DELTA OMEGA TERM, AND THE DELTA M TERM ARE DROPPED. */
+
+    SGP4_ISIMP = 0;
+    if ((SGP4_AODP * (1. - E1_EO) / C1_AE) < (220. / C1_XKMPER + C1_AE)) {
+      SGP4_ISIMP = 1;
+    }
+
+    /* FOR PERIGEE BELOW 156 KM, THE VALUES OF
+     * S AND QOMS2T ARE ALTERED */
+
+    SGP4_S4 = C1_S;
+    SGP4_QOMS24 = C1_QOMS2T;
+    SGP4_PERIGE = (SGP4_AODP * (1. - E1_EO) - C1_AE) * C1_XKMPER;
+    if (SGP4_PERIGE < 156.) {
+      SGP4_S4 = SGP4_PERIGE - 78.;
+      if (SGP4_PERIGE <= 98.) {SGP4_S4 = 20.;}
+      SGP4_QOMS24 = (120. - SGP4_S4) * C1_AE / C1_XKMPER;
+      SGP4_QOMS24 *= SGP4_QOMS24;
+      SGP4_QOMS24 *= SGP4_QOMS24;
+      SGP4_S4 = SGP4_S4 / C1_XKMPER + C1_AE;
+    }
+    SGP4_PINVSQ = 1. / (SGP4_AODP * SGP4_AODP * SGP4_BETAO2 * SGP4_BETAO2);
+    SGP4_TSI = 1. / (SGP4_AODP - SGP4_S4);
+    SGP4_ETA = SGP4_AODP * E1_EO * SGP4_TSI;
+    SGP4_ETASQ = SGP4_ETA * SGP4_ETA;
+    SGP4_EETA = E1_EO * SGP4_ETA;
+    SGP4_PSISQ = Math.abs(1. - SGP4_ETASQ);
+    SGP4_COEF = SGP4_QOMS24 * SGP4_TSI * SGP4_TSI * SGP4_TSI * SGP4_TSI;
+    SGP4_COEF1 = SGP4_COEF / Math.pow(SGP4_PSISQ, 3.5);
+    SGP4_C2 = SGP4_COEF1 * SGP4_XNODP * (SGP4_AODP * (1. + 1.5 * SGP4_ETASQ
+      + SGP4_EETA * (4. + SGP4_ETASQ)) + .75 * C1_CK2 * SGP4_TSI / SGP4_PSISQ
+      * SGP4_X3THM1 * (8. + 3. * SGP4_ETASQ * (8. + SGP4_ETASQ)));
+    SGP4_C1 = E1_BSTAR * SGP4_C2;
+    SGP4_SINIO = Math.sin(E1_XINCL);
+    SGP4_A3OVK2 = -C1_XJ3 / C1_CK2 * C1_AE * C1_AE * C1_AE;
+    SGP4_C3 = SGP4_COEF * SGP4_TSI * SGP4_A3OVK2 * SGP4_XNODP * C1_AE
+      * SGP4_SINIO / E1_EO;
+    SGP4_X1MTH2 = 1. - SGP4_THETA2;
+    SGP4_C4 = 2. * SGP4_XNODP * SGP4_COEF1 * SGP4_AODP * SGP4_BETAO2
+      * (SGP4_ETA * (2. + .5 * SGP4_ETASQ) + E1_EO * (.5 + 2. * SGP4_ETASQ)
+      - 2. * C1_CK2 * SGP4_TSI / (SGP4_AODP * SGP4_PSISQ)
+      * (-3. * SGP4_X3THM1 * (1. - 2. * SGP4_EETA + SGP4_ETASQ
+      * (1.5 - .5 * SGP4_EETA)) + .75 * SGP4_X1MTH2
+      * (2. * SGP4_ETASQ - SGP4_EETA * (1. + SGP4_ETASQ))
+      * Math.cos(2. * E1_OMEGAO)));
+    SGP4_C5 = 2. * SGP4_COEF1 * SGP4_AODP * SGP4_BETAO2
+      * (1. + 2.75 * (SGP4_ETASQ + SGP4_EETA) + SGP4_EETA * SGP4_ETASQ);
+    SGP4_THETA4 = SGP4_THETA2 * SGP4_THETA2;
+    SGP4_TEMP1 = 3. * C1_CK2 * SGP4_PINVSQ * SGP4_XNODP;
+    SGP4_TEMP2 = SGP4_TEMP1 * C1_CK2 * SGP4_PINVSQ;
+    SGP4_TEMP3 = 1.25 * C1_CK4 * SGP4_PINVSQ * SGP4_PINVSQ * SGP4_XNODP;
+    SGP4_XMDOT = SGP4_XNODP + .5 * SGP4_TEMP1 * SGP4_BETAO * SGP4_X3THM1
+      + .0625 * SGP4_TEMP2 * SGP4_BETAO * (13. - 78. * SGP4_THETA2
+      + 137. * SGP4_THETA4);
+    SGP4_X1M5TH = 1. - 5. * SGP4_THETA2;
+    SGP4_OMGDOT = -.5 * SGP4_TEMP1 * SGP4_X1M5TH
+      + .0625 * SGP4_TEMP2 * (7. - 114. * SGP4_THETA2 + 395. * SGP4_THETA4)
+      + SGP4_TEMP3 * (3. - 36. * SGP4_THETA2 + 49. * SGP4_THETA4);
+    SGP4_XHDOT1 = -SGP4_TEMP1 * SGP4_COSIO;
+    SGP4_XNODOT = SGP4_XHDOT1 + (.5 * SGP4_TEMP2 * (4. - 19. * SGP4_THETA2)
+      + 2. * SGP4_TEMP3 * (3. - 7. * SGP4_THETA2)) * SGP4_COSIO;
+    SGP4_OMGCOF = E1_BSTAR * SGP4_C3 * Math.cos(E1_OMEGAO);
+    SGP4_XMCOF = -C1_TOTHRD * SGP4_COEF * E1_BSTAR * C1_AE / SGP4_EETA;
+    SGP4_XNODCF = 3.5 * SGP4_BETAO2 * SGP4_XHDOT1 * SGP4_C1;
+    SGP4_T2COF = 1.5 * SGP4_C1;
+    SGP4_XLCOF = .125 * SGP4_A3OVK2 * SGP4_SINIO 
+	* (3. + 5. * SGP4_COSIO) / (1. + SGP4_COSIO);
+    SGP4_AYCOF = .25 * SGP4_A3OVK2 * SGP4_SINIO;
+    SGP4_DELMO = (1. + SGP4_ETA * Math.cos(E1_XMO));
+    SGP4_DELMO *= (SGP4_DELMO * SGP4_DELMO);
+    SGP4_SINMO = Math.sin(E1_XMO);
+    SGP4_X7THM1 = 7. * SGP4_THETA2 - 1.;
+    if (SGP4_ISIMP != 1) {
+      SGP4_C1SQ = SGP4_C1 * SGP4_C1;
+      SGP4_D2 = 4. * SGP4_AODP * SGP4_TSI * SGP4_C1SQ;
+      SGP4_TEMP = SGP4_D2 * SGP4_TSI * SGP4_C1 / 3.;
+      SGP4_D3 = (17. * SGP4_AODP + SGP4_S4) * SGP4_TEMP;
+      SGP4_D4 = .5 * SGP4_TEMP * SGP4_AODP * SGP4_TSI
+	* (221. * SGP4_AODP + 31. * SGP4_S4) * SGP4_C1;
+      SGP4_T3COF = SGP4_D2 + 2. * SGP4_C1SQ;
+      SGP4_T4COF = .25 * (3. * SGP4_D3 + SGP4_C1
+	* (12. * SGP4_D2 + 10. * SGP4_C1SQ));
+      SGP4_T5COF = .2 * (3. * SGP4_D4 + 12. * SGP4_C1 * SGP4_D3
+	+ 6. * SGP4_D2 * SGP4_D2
+	+ 15. * SGP4_C1SQ * (2. * SGP4_D2 + SGP4_C1SQ));
+    }
+    return;
   }
 
 
@@ -2086,6 +2412,10 @@ AAAAAAAAAAAAAAAAAAAAAA
    rev.no.                                                     |---|
    check sum                                                        |
 </pre>
+   *
+   * <p>The lines are handed on to
+   * {@link #ParseNorad12 ParseNorad12}, which reads the fields straight from
+   * their columns and verifies the check sums.
    *
    * @param aFile
    *   The open file. */
@@ -2093,47 +2423,95 @@ AAAAAAAAAAAAAAAAAAAAAA
   protected final void ReadNorad12(BufferedReader aFile)
     throws SDP4NoLineOneException, SDP4InvalidNumException, IOException
   {
-    String theLine;
+    String theLine1, theLine2;
+
+    /* Read the two lines of elements. */
+
+    theLine1 = aFile.readLine();
+    if (null == theLine1 || !theLine1.startsWith("1 "))
+      throw new SDP4NoLineOneException("TLE line 1 not found");
+    theLine2 = aFile.readLine();
+    if (null == theLine2 || !theLine2.startsWith("2 "))
+      throw new SDP4NoLineOneException("TLE line 2 not found");
+
+    ParseNorad12(theLine1.toCharArray(), theLine1.length(),
+		 theLine2.toCharArray(), theLine2.length());
+
+    return;
+  }
+
+
+  /**
+   * Read TLE from two lines of characters.
+   *
+   * <p>This method reads the satellite elements from the two lines of a TLE
+   * set in the format described for {@link #ReadNorad12 ReadNorad12}.  Each
+   * field is read from its fixed columns, without making strings of the
+   * fields.  Within its columns a field is read as a DecimalFormat with
+   * pattern "#" would read it, so that the elements are the same to the last
+   * bit as when the fields were parsed as strings.
+   *
+   * <p>If a line is at least 69 characters long, its last column is the check
+   * sum, which is verified.  The check sum is the sum of all digits in the
+   * line, with a minus sign counting as 1, modulo 10.
+   *
+   * @param aLine1
+   *   The first line of elements.
+   * @param aLen1
+   *   The number of characters in the first line.
+   * @param aLine2
+   *   The second line of elements.
+   * @param aLen2
+   *   The number of characters in the second line. */
+
+  public final void ParseNorad12(char aLine1[], int aLen1,
+				 char aLine2[], int aLen2)
+    throws SDP4NoLineOneException, SDP4InvalidNumException
+  {
     double year, day, t, A1, DEL1, AO, DELO, XNODP;
+    int    i;
 
     /* Read the first line of elements.
      * We read its_n0dot and its_n0dd, but the values are unused.
      * SGPConst and SDPConst will work out their own values. */
 
-    theLine = aFile.readLine();
-    if (!theLine.startsWith("1 "))
+    if (aLen1 < 2 || '1' != aLine1[0] || ' ' != aLine1[1])
       throw new SDP4NoLineOneException("TLE line 1 not found");
+    if (!Checksum(aLine1, aLen1))
+      throw new SDP4InvalidNumException("TLE line 1 check sum error");
 
-    itsNumber     = (int)Rfndm(theLine.substring(2));
-    itsDesignator = theLine.substring(9, 17);
+    itsNumber     = (int)Rfcol(aLine1, aLen1, 2, 7);
+    itsDesignator = new String(aLine1, 9, Math.max(0, Math.min(aLen1, 17) - 9));
 
-    E1_EPOCH  = Rfndm(theLine.substring(18, 32));
-    E1_XNDT2O = Rfndm(theLine.substring(33));
-    if ((theLine.substring(44,52)).equals("        ")) {
+    E1_EPOCH  = Rfcol(aLine1, aLen1, 18, 32);
+    E1_XNDT2O = Rfcol(aLine1, aLen1, 33, 43);
+    for (i = 44; i < 52 && i < aLen1; i++) if (' ' != aLine1[i]) break;
+    if (i == 52) {
       E1_XNDD6O = 0.;
     }
     else {
-      E1_XNDD6O  = Rfndm(theLine.substring(44)) / 1E5;
-      t          = Rfndm(theLine.substring(50));
+      E1_XNDD6O  = Rfcol(aLine1, aLen1, 44, 50) / 1E5;
+      t          = Rfcol(aLine1, aLen1, 50, 52);
       E1_XNDD6O *= Math.pow(10, t);
     }
-    E1_BSTAR  = Rfndm(theLine.substring(53)) / 1E5;
-    t         = Rfndm(theLine.substring(59));
+    E1_BSTAR  = Rfcol(aLine1, aLen1, 53, 59) / 1E5;
+    t         = Rfcol(aLine1, aLen1, 59, 61);
     E1_BSTAR *= Math.pow(10, t) / C1_AE;
 
     /* Read the second line of elements. */
 
-    theLine = aFile.readLine();
-    if (!theLine.startsWith("2 "))
+    if (aLen2 < 2 || '2' != aLine2[0] || ' ' != aLine2[1])
       throw new SDP4NoLineOneException("TLE line 2 not found");
+    if (!Checksum(aLine2, aLen2))
+      throw new SDP4InvalidNumException("TLE line 2 check sum error");
 
-    E1_XINCL  = Rfndm(theLine.substring(8));
+    E1_XINCL  = Rfcol(aLine2, aLen2,  8, 16);
     this.inclination = E1_XINCL;
-    E1_XNODEO = Rfndm(theLine.substring(17));
-    E1_EO     = Rfndm(theLine.substring(26)) / 1e7;
-    E1_OMEGAO = Rfndm(theLine.substring(34));
-    E1_XMO    = Rfndm(theLine.substring(43));
-    E1_XNO    = Rfndm(theLine.substring(52,63));
+    E1_XNODEO = Rfcol(aLine2, aLen2, 17, 25);
+    E1_EO     = Rfcol(aLine2, aLen2, 26, 33) / 1e7;
+    E1_OMEGAO = Rfcol(aLine2, aLen2, 34, 42);
+    E1_XMO    = Rfcol(aLine2, aLen2, 43, 51);
+    E1_XNO    = Rfcol(aLine2, aLen2, 52, 63);
     
     this.period = 1440/E1_XNO;
     double semiMajorAxis = Math.pow((8681663.653 / E1_XNO), (2.0/3.0));
@@ -2176,306 +2554,105 @@ AAAAAAAAAAAAAAAAAAAAAA
 	+ Math.floor(year/400.)
 	+ 306.;
 
+    /* Initialise the model once for these elements, so that GetPosVel
+     * need only do the time-dependent work. */
+
+    InitModel();
+
     return;
   }
 
 
   /**
-   * A helper routine to read a floating point number.
+   * Verify the check sum of a TLE line.
    *
-   * <p>This is (or should be) a copy of the same method in the Hmelib class.
-   * It is copied here merely to make the SDP4 class self-contained, in case
-   * other programmers want to use it without the sticky lump of the Hmelib
-   * class. */
+   * <p>Lines shorter than 69 characters, or with no digit in column 69,
+   * carry no check sum and are accepted.
+   *
+   * @param aLine
+   *   The line.
+   * @param aLen
+   *   The number of characters in the line. */
 
-  protected final double Rfndm(String aString)
-    throws SDP4InvalidNumException
+  protected static final boolean Checksum(char aLine[], int aLen)
   {
-    ParsePosition where = new ParsePosition(0);
-    String theString;
-    Number theNumber;
-
-    /* Trim off white space and a leading plus sign. */
-
-    theString = aString.trim();
-    if (theString.startsWith("+")) theString = theString.substring(1);
+    int theSum, i;
 
-    /* Parse the number up to the next invalid character or end of string.
-     * Valid characters would be -.0123456789 or something like that. */
+    if (aLen < 69 || '0' > aLine[68] || '9' < aLine[68]) return true;
 
-    theNumber = form.parse(theString, where);
-    if (null == theNumber) throw new SDP4InvalidNumException("invalid number");
+    theSum = 0;
+    for (i = 0; i < 68; i++) {
+      if      ('0' <= aLine[i] && '9' >= aLine[i]) theSum += aLine[i] - '0';
+      else if ('-' == aLine[i])                    theSum++;
+    }
 
-    return theNumber.doubleValue();
+    return (theSum % 10 == aLine[68] - '0');
   }
 
 
   /**
-   * Run the SDP4 model.
+   * Read a floating point number from fixed columns.
    *
-   * <p>This should be run for long-period satellites.  The criterion is
-   * evaluated on reading the orbital data from the TLE and stored in the
-   * state variable itsIsDeep (should be 1 for calling this routine).
+   * <p>This reads the number in the same way as a DecimalFormat with pattern
+   * "#" reads a trimmed string: Blanks and a plus sign are skipped, then an optional minus sign, digits and a
+   * decimal point are read up to the first other character or the end of
+   * the columns.  The digits are accumulated as an integer and divided once
+   * by the power of ten.  While the integer is below 2<sup>53</sup> this
+   * gives the nearest double precision number, as parsing a string does.
+   * Longer numbers are parsed as a string.
    *
-   * @param IFLAG
-   *   IFLAG[0] must be given as 1 for the first call for any given satellite.
-   *   It is then returned as 0 and can be given as 0 for further calls.
-   * @param TSINCE
-   *   TSINCE[0] is the time difference between the time of interest and the
-   *   epoch of the TLE.  It must be given in minutes. */
-
-  static double[] dpsec_args = {0.,0.,0.,0.,0.,0.};
-  static double[] dpper_args = {0.,0.,0.,0.,0.};
-  protected final void RunSDP4(int[] IFLAG, double[] TSINCE)
+   * @param aLine
+   *   The line.
+   * @param aLen
+   *   The number of characters in the line.
+   * @param aStart
+   *   The first column of the field, counting from 0.
+   * @param aEnd
+   *   The column behind the field. */
+
+  protected static final double Rfcol(char aLine[], int aLen,
+				      int aStart, int aEnd)
+    throws SDP4InvalidNumException
   {
-    double A, AXN, AYN, AYNL, BETA, BETAL, CAPU, COS2U, COSEPW,
-      COSIK, COSNOK, COSU, COSUK, E, ECOSE, ELSQ, EM, EPW, ESINE, OMGADF,
-      PL, R, RDOT, RDOTK, RFDOT, RFDOTK, RK, SIN2U, SINEPW, SINIK,
-      SINNOK, SINU, SINUK, TEMP, TEMP4, TEMP5, TEMP6, TEMPA,
-      TEMPE, TEMPL, TSQ, U, UK, UX, UY, UZ, VX, VY, VZ, XINC, XINCK,
-      XL, XLL, XLT, XMAM, XMDF, XMX, XMY, XN, XNODDF, XNODE, XNODEK;
-    int I;
-
-    /* The Java compiler requires these initialisations. */
-
-    TEMP4 = 0.;
-    TEMP5 = 0.;
-    TEMP6 = 0.;
-    COSEPW = 0.;
-    SINEPW = 0.;
-    EM = 0.;
-    XINC = 0.;
+    long    theMantissa;
+    int     theDigits, theDecimals, theFirst, i;
+    boolean isNegative, isFraction;
 
-    if (IFLAG[0] != 0) {
+    if (aEnd > aLen) aEnd = aLen;
 
-      /* RECOVER ORIGINAL MEAN MOTION (SDP4_XNODP) AND SEMIMAJOR AXIS
-       * (SDP4_AODP) FROM INPUT ELEMENTS */
+    /* Skip white space and a leading plus sign. */
 
-      SDP4_A1 = Math.pow(C1_XKE / E1_XNO, C1_TOTHRD);
-      SDP4_COSIO = Math.cos(E1_XINCL);
-      SDP4_THETA2 = SDP4_COSIO * SDP4_COSIO;
-      SDP4_X3THM1 = 3. * SDP4_THETA2 - 1.;
-      SDP4_EOSQ = E1_EO * E1_EO;
-      SDP4_BETAO2 = 1. - SDP4_EOSQ;
-      SDP4_BETAO = Math.sqrt(SDP4_BETAO2);
-      SDP4_DEL1 = 1.5 * C1_CK2 * SDP4_X3THM1
-	/ (SDP4_A1 * SDP4_A1 * SDP4_BETAO * SDP4_BETAO2);
-      SDP4_AO = SDP4_A1 * (1. - SDP4_DEL1 * (.5 * C1_TOTHRD + SDP4_DEL1
-	* (1. + 134./81. * SDP4_DEL1)));
-      SDP4_DELO = 1.5 * C1_CK2 * SDP4_X3THM1
-	/ (SDP4_AO * SDP4_AO * SDP4_BETAO * SDP4_BETAO2);
-      SDP4_XNODP = E1_XNO / (1. + SDP4_DELO);
-      SDP4_AODP = SDP4_AO / (1. - SDP4_DELO);
+    i = aStart;
+    while (i < aEnd && ' ' >= aLine[i]) i++;
+    if (i < aEnd && '+' == aLine[i]) i++;
+    isNegative = false;
+    if (i < aEnd && '-' == aLine[i]) {isNegative = true; i++;}
+    theFirst = i;
 
-      /* INITIALIZATION
-       *
-       * FOR PERIGEE BELOW 156 KM, THE VALUES OF
-       * S AND QOMS2T ARE ALTERED */
+    /* Accumulate the digits, counting those behind the decimal point. */
 
-      SDP4_S4 = C1_S;
-      SDP4_QOMS24 = C1_QOMS2T;
-      SDP4_PERIGE = (SDP4_AODP * (1. - E1_EO) - C1_AE) * C1_XKMPER;
-      if (SDP4_PERIGE < 156.) {
-	SDP4_S4 = SDP4_PERIGE - 78.;
-	if (SDP4_PERIGE <= 98.) {
-	  SDP4_S4 = 20.;
-        }
-	SDP4_QOMS24 = ((120. - SDP4_S4) * C1_AE / C1_XKMPER);
-	SDP4_QOMS24 *= SDP4_QOMS24;
-	SDP4_QOMS24 *= SDP4_QOMS24;
-	SDP4_S4 = SDP4_S4 / C1_XKMPER + C1_AE;
+    theMantissa = 0L; theDigits = 0; theDecimals = 0; isFraction = false;
+    for (; i < aEnd; i++) {
+      if ('0' <= aLine[i] && '9' >= aLine[i]) {
+	theMantissa = 10L * theMantissa + (aLine[i] - '0');
+	theDigits++;
+	if (isFraction) theDecimals++;
       }
-      SDP4_PINVSQ = 1. / (SDP4_AODP * SDP4_AODP * SDP4_BETAO2 * SDP4_BETAO2);
-      SDP4_SING = Math.sin(E1_OMEGAO);
-      SDP4_COSG = Math.cos(E1_OMEGAO);
-      SDP4_TSI = 1. / (SDP4_AODP - SDP4_S4);
-      SDP4_ETA = SDP4_AODP * E1_EO * SDP4_TSI;
-      SDP4_ETASQ = SDP4_ETA * SDP4_ETA;
-      SDP4_EETA = E1_EO * SDP4_ETA;
-      SDP4_PSISQ = Math.abs(1. - SDP4_ETASQ);
-      SDP4_COEF = SDP4_QOMS24 * SDP4_TSI * SDP4_TSI * SDP4_TSI * SDP4_TSI;
-      SDP4_COEF1 = SDP4_COEF / Math.pow(SDP4_PSISQ, 3.5);
-      SDP4_C2 = SDP4_COEF1 * SDP4_XNODP * (SDP4_AODP * (1. + 1.5 * SDP4_ETASQ
-	+ SDP4_EETA * (4. + SDP4_ETASQ))
-	+ .75 * C1_CK2 * SDP4_TSI / SDP4_PSISQ * SDP4_X3THM1
-	* (8. + 3. * SDP4_ETASQ * (8. + SDP4_ETASQ)));
-      SDP4_C1 = E1_BSTAR * SDP4_C2;
-      SDP4_SINIO = Math.sin(E1_XINCL);
-      SDP4_A3OVK2 = -C1_XJ3 / C1_CK2 * C1_AE * C1_AE * C1_AE;
-      SDP4_X1MTH2 = 1. - SDP4_THETA2;
-      SDP4_C4 = 2. * SDP4_XNODP * SDP4_COEF1 * SDP4_AODP * SDP4_BETAO2
-	* (SDP4_ETA * (2. + .5 * SDP4_ETASQ) + E1_EO * (.5 + 2. * SDP4_ETASQ)
-	- 2. * C1_CK2 * SDP4_TSI / (SDP4_AODP * SDP4_PSISQ)
-	* (-3. * SDP4_X3THM1 * (1. - 2. * SDP4_EETA + SDP4_ETASQ
-	* (1.5 - .5 * SDP4_EETA)) + .75 * SDP4_X1MTH2
-	* (2. * SDP4_ETASQ - SDP4_EETA * (1. + SDP4_ETASQ))
-	* Math.cos(2. * E1_OMEGAO)));
-      SDP4_THETA4 = SDP4_THETA2 * SDP4_THETA2;
-      SDP4_TEMP1 = 3. * C1_CK2 * SDP4_PINVSQ * SDP4_XNODP;
-      SDP4_TEMP2 = SDP4_TEMP1 * C1_CK2 * SDP4_PINVSQ;
-      SDP4_TEMP3 = 1.25 * C1_CK4 * SDP4_PINVSQ * SDP4_PINVSQ * SDP4_XNODP;
-      SDP4_XMDOT = SDP4_XNODP + .5 * SDP4_TEMP1 * SDP4_BETAO * SDP4_X3THM1
-	+ .0625 * SDP4_TEMP2 * SDP4_BETAO
-	* (13. - 78. * SDP4_THETA2 + 137. * SDP4_THETA4);
-      SDP4_X1M5TH = 1. - 5. * SDP4_THETA2;
-      SDP4_OMGDOT = -.5 * SDP4_TEMP1 * SDP4_X1M5TH
-	+ .0625 * SDP4_TEMP2 * (7. - 114. * SDP4_THETA2 + 395. * SDP4_THETA4)
-	+ SDP4_TEMP3 * (3. - 36. * SDP4_THETA2 + 49. * SDP4_THETA4);
-      SDP4_XHDOT1 = -SDP4_TEMP1 * SDP4_COSIO;
-      SDP4_XNODOT = SDP4_XHDOT1 + (.5 * SDP4_TEMP2 * (4. - 19. * SDP4_THETA2)
-	+ 2. * SDP4_TEMP3 * (3. - 7. * SDP4_THETA2)) * SDP4_COSIO;
-      SDP4_XNODCF = 3.5 * SDP4_BETAO2 * SDP4_XHDOT1 * SDP4_C1;
-      SDP4_T2COF = 1.5 * SDP4_C1;
-      SDP4_XLCOF = .125 * SDP4_A3OVK2 * SDP4_SINIO
-	* (3. + 5. * SDP4_COSIO) / (1. + SDP4_COSIO);
-      SDP4_AYCOF = .25 * SDP4_A3OVK2 * SDP4_SINIO;
-      SDP4_X7THM1 = 7. * SDP4_THETA2 - 1.;
-      IFLAG[0] = 0;
-      DPINIT(SDP4_EOSQ, SDP4_SINIO, SDP4_COSIO, SDP4_BETAO, SDP4_AODP,
-	SDP4_THETA2, SDP4_SING, SDP4_COSG, SDP4_BETAO2, SDP4_XMDOT,
-	SDP4_OMGDOT, SDP4_XNODOT, SDP4_XNODP);
+      else if ('.' == aLine[i] && !isFraction) {
+	isFraction = true;
+      }
+      else break;
     }
 
-    /* UPDATE FOR SECULAR GRAVITY AND ATMOSPHERIC DRAG */
-
-    XMDF   = E1_XMO    + SDP4_XMDOT  * TSINCE[0];
-    OMGADF = E1_OMEGAO + SDP4_OMGDOT * TSINCE[0];
-    XNODDF = E1_XNODEO + SDP4_XNODOT * TSINCE[0];
-    TSQ = TSINCE[0] * TSINCE[0];
-    XNODE = XNODDF + SDP4_XNODCF * TSQ;
-    TEMPA = 1. - SDP4_C1 * TSINCE[0];
-    TEMPE = E1_BSTAR * SDP4_C4 * TSINCE[0];
-    TEMPL = SDP4_T2COF * TSQ;
-    XN = SDP4_XNODP;
-
-    dpsec_args[0] = XMDF;
-    dpsec_args[1] = OMGADF;
-    dpsec_args[2] = XNODE;
-    dpsec_args[3] = EM;
-    dpsec_args[4] = XINC;
-    dpsec_args[5] = XN;
-    DPSEC(dpsec_args, TSINCE);
-    XMDF   = dpsec_args[0];
-    OMGADF = dpsec_args[1];
-    XNODE  = dpsec_args[2];
-    EM     = dpsec_args[3];
-    XINC   = dpsec_args[4];
-    XN     = dpsec_args[5];
-
-    A = Math.pow(C1_XKE / XN, C1_TOTHRD) * TEMPA * TEMPA;
-    E = EM - TEMPE;
-    XMAM = XMDF + SDP4_XNODP * TEMPL;
-
-    dpper_args[0] = E;
-    dpper_args[1] = XINC;
-    dpper_args[2] = OMGADF;
-    dpper_args[3] = XNODE;
-    dpper_args[4] = XMAM;
-    DPPER(dpper_args);
-    E      = dpper_args[0];
-    XINC   = dpper_args[1];
-    OMGADF = dpper_args[2];
-    XNODE  = dpper_args[3];
-    XMAM   = dpper_args[4];
-
-    XL = XMAM + OMGADF + XNODE;
-    BETA = Math.sqrt(1. - E * E);
-    XN = C1_XKE / Math.pow(A, 1.5);
-
-    /* LONG PERIOD PERIODICS */
-
-    AXN = E * Math.cos(OMGADF);
-    TEMP = 1. / (A * BETA * BETA);
-    XLL = TEMP * SDP4_XLCOF * AXN;
-    AYNL = TEMP * SDP4_AYCOF;
-    XLT = XL + XLL;
-    AYN = E * Math.sin(OMGADF) + AYNL;
-
-    /* SOLVE KEPLERS EQUATION */
+    if (0 == theDigits) throw new SDP4InvalidNumException("invalid number");
 
-    CAPU = FMOD2P(XLT - XNODE);
-    SDP4_TEMP2 = CAPU;
-    for (I = 1; I < 11; I++) {
-      SINEPW = Math.sin(SDP4_TEMP2);
-      COSEPW = Math.cos(SDP4_TEMP2);
-      SDP4_TEMP3 = AXN * SINEPW;
-      TEMP4 = AYN * COSEPW;
-      TEMP5 = AXN * COSEPW;
-      TEMP6 = AYN * SINEPW;
-      EPW = (CAPU - TEMP4 + SDP4_TEMP3 - SDP4_TEMP2)
-	/ (1. - TEMP5 - TEMP6) + SDP4_TEMP2;
-      if (Math.abs(EPW-SDP4_TEMP2) <= C1_E6A) break;
-      SDP4_TEMP2 = EPW;
+    if (theDigits > 18 || theMantissa >= 1L << 53 || theDecimals > 22) {
+      return (isNegative ? -1. : 1.)
+	* Double.parseDouble(new String(aLine, theFirst, i - theFirst));
     }
 
-    /* SHORT PERIOD PRELIMINARY QUANTITIES */
-
-    ECOSE = TEMP5 + TEMP6;
-    ESINE = SDP4_TEMP3 - TEMP4;
-    ELSQ = AXN * AXN + AYN * AYN;
-    TEMP = 1. - ELSQ;
-    PL = A * TEMP;
-    R = A * (1. - ECOSE);
-    SDP4_TEMP1 = 1. / R;
-    RDOT = C1_XKE * Math.sqrt(A) * ESINE * SDP4_TEMP1;
-    RFDOT = C1_XKE * Math.sqrt(PL) * SDP4_TEMP1;
-    SDP4_TEMP2 = A * SDP4_TEMP1;
-    BETAL = Math.sqrt(TEMP);
-    SDP4_TEMP3 = 1. / (1. + BETAL);
-    COSU = SDP4_TEMP2 * (COSEPW - AXN + AYN * ESINE * SDP4_TEMP3);
-    SINU = SDP4_TEMP2 * (SINEPW - AYN - AXN * ESINE * SDP4_TEMP3);
-    U = ACTAN(SINU, COSU);
-    SIN2U =2. * SINU * COSU;
-    COS2U =2. * COSU * COSU - 1.;
-    TEMP = 1. / PL;
-    SDP4_TEMP1 = C1_CK2 * TEMP;
-    SDP4_TEMP2 = SDP4_TEMP1 * TEMP;
-
-    /* UPDATE FOR SHORT PERIODICS */
-
-    RK = R * (1. - 1.5 * SDP4_TEMP2 * BETAL * SDP4_X3THM1)
-      + .5 * SDP4_TEMP1 * SDP4_X1MTH2 * COS2U;
-    UK = U - .25 * SDP4_TEMP2 * SDP4_X7THM1 * SIN2U;
-    XNODEK = XNODE + 1.5 * SDP4_TEMP2 * SDP4_COSIO * SIN2U;
-    XINCK = XINC + 1.5 * SDP4_TEMP2 * SDP4_COSIO * SDP4_SINIO * COS2U;
-    RDOTK = RDOT - XN * SDP4_TEMP1 * SDP4_X1MTH2 * SIN2U;
-    RFDOTK = RFDOT + XN * SDP4_TEMP1
-      * (SDP4_X1MTH2 * COS2U + 1.5 * SDP4_X3THM1);
-
-    /* ORIENTATION VECTORS */
-
-    SINUK = Math.sin(UK);
-    COSUK = Math.cos(UK);
-    SINIK = Math.sin(XINCK);
-    COSIK = Math.cos(XINCK);
-    SINNOK = Math.sin(XNODEK);
-    COSNOK = Math.cos(XNODEK);
-    XMX = -SINNOK * COSIK;
-    XMY =  COSNOK * COSIK;
-    UX = XMX * SINUK + COSNOK * COSUK;
-    UY = XMY * SINUK + SINNOK * COSUK;
-    UZ = SINIK * SINUK;
-    VX = XMX * COSUK - COSNOK * SINUK;
-    VY = XMY * COSUK - SINNOK * SINUK;
-    VZ = SINIK * COSUK;
-
-    /* POSITION AND VELOCITY */
-
-    E1_X = RK * UX;
-    E1_Y = RK * UY;
-    E1_Z = RK * UZ;
-    E1_XDOT = RDOTK * UX + RFDOTK * VX;
-    E1_YDOT = RDOTK * UY + RFDOTK * VY;
-    E1_ZDOT = RDOTK * UZ + RFDOTK * VZ;
-
-    itsR[0] = E1_X    * C1_XKMPER / C1_AE / 1E6;
-    itsR[1] = E1_Y    * C1_XKMPER / C1_AE / 1E6;
-    itsR[2] = E1_Z    * C1_XKMPER / C1_AE / 1E6;
-    itsV[0] = E1_XDOT * C1_XKMPER / C1_AE * C1_XMNPDA / 86400.;
-    itsV[1] = E1_YDOT * C1_XKMPER / C1_AE * C1_XMNPDA / 86400.;
-    itsV[2] = E1_ZDOT * C1_XKMPER / C1_AE * C1_XMNPDA / 86400.;
-
-    return;
+    if (isNegative) {return -(theMantissa / POW10[theDecimals]);}
+    else            {return   theMantissa / POW10[theDecimals];}
   }
 
 
@@ -2486,14 +2663,18 @@ AAAAAAAAAAAAAAAAAAAAAA
    * evaluated on reading the orbital data from the TLE and stored in the
    * state variable itsIsDeep (should be 0 for calling this routine).
    *
-   * @param IFLAG
-   *   IFLAG[0] must be given as 1 for the first call for any given satellite.
-   *   It is then returned as 0 and can be given as 0 for further calls.
+   * <p>The model must have been initialised, which ReadNorad12 does.
+   * Nothing in this instance is changed, all scratch variables and the
+   * result are in the given workspace.
+   *
+   * @param aWork
+   *   The workspace for the calculation, which also receives the result in
+   *   aWork.itsR[] and aWork.itsV[].
    * @param TSINCE
-   *   TSINCE[0] is the time difference between the time of interest and the
+   *   TSINCE is the time difference between the time of interest and the
    *   epoch of the TLE.  It must be given in minutes. */
 
-  protected final void RunSGP4(int[] IFLAG, double[] TSINCE)
+  protected final void RunSGP4(SDP4Workspace aWork, double TSINCE)
   {
     double COSUK, SINUK, RFDOTK, VX, VY, VZ, UX, UY, UZ, XMY, XMX,
       COSNOK, SINNOK, COSIK, SINIK, RDOTK, XINCK, XNODEK, UK, RK,
@@ -2501,157 +2682,44 @@ AAAAAAAAAAAAAAAAAAAAAA
       ESINE, ECOSE, EPW, TEMP6, TEMP5, TEMP4, COSEPW, SINEPW,
       CAPU, AYN, XLT, AYNL, XLL, AXN, XN, BETA, XL, E, A, TFOUR,
       TCUBE, DELM, DELOMG, TEMPL, TEMPE, TEMPA, XNODE, TSQ, XMP,
-      OMEGA, XNODDF, OMGADF, XMDF;
+      OMEGA, XNODDF, OMGADF, XMDF, TEMP, TEMP1, TEMP2, TEMP3,
+      X, Y, Z, XDOT, YDOT, ZDOT;
     int I;
 
     /* The Java compiler requires these initialisations. */
 
+    TEMP3 = 0.;
     TEMP4 = 0.;
     TEMP5 = 0.;
     TEMP6 = 0.;
     COSEPW = 0.;
     SINEPW = 0.;
 
-    if (IFLAG[0] != 0) {
-
-      /* RECOVER ORIGINAL MEAN MOTION (SGP4_XNODP) AND SEMIMAJOR AXIS
-       * (SGP4_AODP) FROM INPUT ELEMENTS */
-
-      SGP4_A1 = Math.pow(C1_XKE / E1_XNO, C1_TOTHRD);
-      SGP4_COSIO = Math.cos(E1_XINCL);
-      SGP4_THETA2 = SGP4_COSIO * SGP4_COSIO;
-      SGP4_X3THM1 = 3. * SGP4_THETA2 - 1.;
-      SGP4_EOSQ = E1_EO * E1_EO;
-      SGP4_BETAO2 = 1. - SGP4_EOSQ;
-      SGP4_BETAO = Math.sqrt(SGP4_BETAO2);
-      SGP4_DEL1 = 1.5 * C1_CK2 * SGP4_X3THM1
-	/ (SGP4_A1 * SGP4_A1 * SGP4_BETAO * SGP4_BETAO2);
-      SGP4_AO = SGP4_A1 * (1. - SGP4_DEL1
-	* (.5 * C1_TOTHRD + SGP4_DEL1 * (1. + 134./81. * SGP4_DEL1)));
-      SGP4_DELO = 1.5 * C1_CK2 * SGP4_X3THM1
-	/ (SGP4_AO * SGP4_AO * SGP4_BETAO * SGP4_BETAO2);
-      SGP4_XNODP = E1_XNO / (1. + SGP4_DELO);
-      SGP4_AODP = SGP4_AO / (1. - SGP4_DELO);
-
-      /* INITIALIZATION
-       *
-       * FOR PERIGEE LESS THAN 220 KILOMETERS, THE SGP4_ISIMP FLAG IS SET AND
-       * THE EQUATIONS ARE TRUNCATED TO LINEAR VARIATION IN SQRT A AND
-       * QUADRATIC VARIATION IN MEAN ANOMALY.  ALSO, THE SGP4_C3 TERM, THE
-       * DELTA OMEGA TERM, AND THE DELTA M TERM ARE DROPPED. */
-
-      SGP4_ISIMP = 0;
-      if ((SGP4_AODP * (1. - E1_EO) / C1_AE) < (220. / C1_XKMPER + C1_AE)) {
-	SGP4_ISIMP = 1;
-      }
-
-      /* FOR PERIGEE BELOW 156 KM, THE VALUES OF
-       * S AND QOMS2T ARE ALTERED */
-
-      SGP4_S4 = C1_S;
-      SGP4_QOMS24 = C1_QOMS2T;
-      SGP4_PERIGE = (SGP4_AODP * (1. - E1_EO) - C1_AE) * C1_XKMPER;
-      if (SGP4_PERIGE < 156.) {
-        SGP4_S4 = SGP4_PERIGE - 78.;
-	if (SGP4_PERIGE <= 98.) {SGP4_S4 = 20.;}
-	SGP4_QOMS24 = (120. - SGP4_S4) * C1_AE / C1_XKMPER;
-	SGP4_QOMS24 *= SGP4_QOMS24;
-	SGP4_QOMS24 *= SGP4_QOMS24;
-	SGP4_S4 = SGP4_S4 / C1_XKMPER + C1_AE;
-      }
-      SGP4_PINVSQ = 1. / (SGP4_AODP * SGP4_AODP * SGP4_BETAO2 * SGP4_BETAO2);
-      SGP4_TSI = 1. / (SGP4_AODP - SGP4_S4);
-      SGP4_ETA = SGP4_AODP * E1_EO * SGP4_TSI;
-      SGP4_ETASQ = SGP4_ETA * SGP4_ETA;
-      SGP4_EETA = E1_EO * SGP4_ETA;
-      SGP4_PSISQ = Math.abs(1. - SGP4_ETASQ);
-      SGP4_COEF = SGP4_QOMS24 * SGP4_TSI * SGP4_TSI * SGP4_TSI * SGP4_TSI;
-      SGP4_COEF1 = SGP4_COEF / Math.pow(SGP4_PSISQ, 3.5);
-      SGP4_C2 = SGP4_COEF1 * SGP4_XNODP * (SGP4_AODP * (1. + 1.5 * SGP4_ETASQ
-	+ SGP4_EETA * (4. + SGP4_ETASQ)) + .75 * C1_CK2 * SGP4_TSI / SGP4_PSISQ
-	* SGP4_X3THM1 * (8. + 3. * SGP4_ETASQ * (8. + SGP4_ETASQ)));
-      SGP4_C1 = E1_BSTAR * SGP4_C2;
-      SGP4_SINIO = Math.sin(E1_XINCL);
-      SGP4_A3OVK2 = -C1_XJ3 / C1_CK2 * C1_AE * C1_AE * C1_AE;
-      SGP4_C3 = SGP4_COEF * SGP4_TSI * SGP4_A3OVK2 * SGP4_XNODP * C1_AE
-	* SGP4_SINIO / E1_EO;
-      SGP4_X1MTH2 = 1. - SGP4_THETA2;
-      SGP4_C4 = 2. * SGP4_XNODP * SGP4_COEF1 * SGP4_AODP * SGP4_BETAO2
-	* (SGP4_ETA * (2. + .5 * SGP4_ETASQ) + E1_EO * (.5 + 2. * SGP4_ETASQ)
-	- 2. * C1_CK2 * SGP4_TSI / (SGP4_AODP * SGP4_PSISQ)
-	* (-3. * SGP4_X3THM1 * (1. - 2. * SGP4_EETA + SGP4_ETASQ
-	* (1.5 - .5 * SGP4_EETA)) + .75 * SGP4_X1MTH2
-	* (2. * SGP4_ETASQ - SGP4_EETA * (1. + SGP4_ETASQ))
-	* Math.cos(2. * E1_OMEGAO)));
-      SGP4_C5 = 2. * SGP4_COEF1 * SGP4_AODP * SGP4_BETAO2
-	* (1. + 2.75 * (SGP4_ETASQ + SGP4_EETA) + SGP4_EETA * SGP4_ETASQ);
-      SGP4_THETA4 = SGP4_THETA2 * SGP4_THETA2;
-      SGP4_TEMP1 = 3. * C1_CK2 * SGP4_PINVSQ * SGP4_XNODP;
-      SGP4_TEMP2 = SGP4_TEMP1 * C1_CK2 * SGP4_PINVSQ;
-      SGP4_TEMP3 = 1.25 * C1_CK4 * SGP4_PINVSQ * SGP4_PINVSQ * SGP4_XNODP;
-      SGP4_XMDOT = SGP4_XNODP + .5 * SGP4_TEMP1 * SGP4_BETAO * SGP4_X3THM1
-	+ .0625 * SGP4_TEMP2 * SGP4_BETAO * (13. - 78. * SGP4_THETA2
-	+ 137. * SGP4_THETA4);
-      SGP4_X1M5TH = 1. - 5. * SGP4_THETA2;
-      SGP4_OMGDOT = -.5 * SGP4_TEMP1 * SGP4_X1M5TH
-	+ .0625 * SGP4_TEMP2 * (7. - 114. * SGP4_THETA2 + 395. * SGP4_THETA4)
-	+ SGP4_TEMP3 * (3. - 36. * SGP4_THETA2 + 49. * SGP4_THETA4);
-      SGP4_XHDOT1 = -SGP4_TEMP1 * SGP4_COSIO;
-      SGP4_XNODOT = SGP4_XHDOT1 + (.5 * SGP4_TEMP2 * (4. - 19. * SGP4_THETA2)
-	+ 2. * SGP4_TEMP3 * (3. - 7. * SGP4_THETA2)) * SGP4_COSIO;
-      SGP4_OMGCOF = E1_BSTAR * SGP4_C3 * Math.cos(E1_OMEGAO);
-      SGP4_XMCOF = -C1_TOTHRD * SGP4_COEF * E1_BSTAR * C1_AE / SGP4_EETA;
-      SGP4_XNODCF = 3.5 * SGP4_BETAO2 * SGP4_XHDOT1 * SGP4_C1;
-      SGP4_T2COF = 1.5 * SGP4_C1;
-      SGP4_XLCOF = .125 * SGP4_A3OVK2 * SGP4_SINIO 
-	  * (3. + 5. * SGP4_COSIO) / (1. + SGP4_COSIO);
-      SGP4_AYCOF = .25 * SGP4_A3OVK2 * SGP4_SINIO;
-      SGP4_DELMO = (1. + SGP4_ETA * Math.cos(E1_XMO));
-      SGP4_DELMO *= (SGP4_DELMO * SGP4_DELMO);
-      SGP4_SINMO = Math.sin(E1_XMO);
-      SGP4_X7THM1 = 7. * SGP4_THETA2 - 1.;
-      if (SGP4_ISIMP != 1) {
-	SGP4_C1SQ = SGP4_C1 * SGP4_C1;
-	SGP4_D2 = 4. * SGP4_AODP * SGP4_TSI * SGP4_C1SQ;
-	SGP4_TEMP = SGP4_D2 * SGP4_TSI * SGP4_C1 / 3.;
-	SGP4_D3 = (17. * SGP4_AODP + SGP4_S4) * SGP4_TEMP;
-	SGP4_D4 = .5 * SGP4_TEMP * SGP4_AODP * SGP4_TSI
-	  * (221. * SGP4_AODP + 31. * SGP4_S4) * SGP4_C1;
-	SGP4_T3COF = SGP4_D2 + 2. * SGP4_C1SQ;
-	SGP4_T4COF = .25 * (3. * SGP4_D3 + SGP4_C1
-	  * (12. * SGP4_D2 + 10. * SGP4_C1SQ));
-	SGP4_T5COF = .2 * (3. * SGP4_D4 + 12. * SGP4_C1 * SGP4_D3
-	  + 6. * SGP4_D2 * SGP4_D2
-	  + 15. * SGP4_C1SQ * (2. * SGP4_D2 + SGP4_C1SQ));
-      }
-      IFLAG[0] = 0;
-    }
-
     /* UPDATE FOR SECULAR GRAVITY AND ATMOSPHERIC DRAG */
 
-    XMDF   = E1_XMO    + SGP4_XMDOT  * TSINCE[0];
-    OMGADF = E1_OMEGAO + SGP4_OMGDOT * TSINCE[0];
-    XNODDF = E1_XNODEO + SGP4_XNODOT * TSINCE[0];
+    XMDF   = E1_XMO    + SGP4_XMDOT  * TSINCE;
+    OMGADF = E1_OMEGAO + SGP4_OMGDOT * TSINCE;
+    XNODDF = E1_XNODEO + SGP4_XNODOT * TSINCE;
     OMEGA = OMGADF;
     XMP = XMDF;
-    TSQ = TSINCE[0] * TSINCE[0];
+    TSQ = TSINCE * TSINCE;
     XNODE = XNODDF + SGP4_XNODCF * TSQ;
-    TEMPA = 1. - SGP4_C1 * TSINCE[0];
-    TEMPE = E1_BSTAR * SGP4_C4 * TSINCE[0];
+    TEMPA = 1. - SGP4_C1 * TSINCE;
+    TEMPE = E1_BSTAR * SGP4_C4 * TSINCE;
     TEMPL = SGP4_T2COF * TSQ;
     if (SGP4_ISIMP != 1) {
-      DELOMG = SGP4_OMGCOF * TSINCE[0];
+      DELOMG = SGP4_OMGCOF * TSINCE;
       DELM = SGP4_XMCOF * (Math.pow(1. + SGP4_ETA * Math.cos(XMDF), 3.)
 	- SGP4_DELMO);
-      SGP4_TEMP = DELOMG + DELM;
-      XMP = XMDF + SGP4_TEMP;
-      OMEGA = OMGADF - SGP4_TEMP;
-      TCUBE = TSQ * TSINCE[0];
-      TFOUR = TSINCE[0] * TCUBE;
+      TEMP = DELOMG + DELM;
+      XMP = XMDF + TEMP;
+      OMEGA = OMGADF - TEMP;
+      TCUBE = TSQ * TSINCE;
+      TFOUR = TSINCE * TCUBE;
       TEMPA = TEMPA - SGP4_D2 * TSQ - SGP4_D3 * TCUBE - SGP4_D4 * TFOUR;
       TEMPE = TEMPE + E1_BSTAR * SGP4_C5 * (Math.sin(XMP) - SGP4_SINMO);
       TEMPL = TEMPL + SGP4_T3COF * TCUBE
-	+ TFOUR * (SGP4_T4COF + TSINCE[0] * SGP4_T5COF);
+	+ TFOUR * (SGP4_T4COF + TSINCE * SGP4_T5COF);
     }
     A = SGP4_AODP * TEMPA * TEMPA;
     E = E1_EO - TEMPE;
@@ -2662,61 +2730,61 @@ AAAAAAAAAAAAAAAAAAAAAA
     /* LONG PERIOD PERIODICS */
 
     AXN = E * Math.cos(OMEGA);
-    SGP4_TEMP = 1. / (A * BETA * BETA);
-    XLL = SGP4_TEMP * SGP4_XLCOF * AXN;
-    AYNL = SGP4_TEMP * SGP4_AYCOF;
+    TEMP = 1. / (A * BETA * BETA);
+    XLL = TEMP * SGP4_XLCOF * AXN;
+    AYNL = TEMP * SGP4_AYCOF;
     XLT = XL + XLL;
     AYN = E * Math.sin(OMEGA) + AYNL;
 
     /* SOLVE KEPLERS EQUATION */
 
     CAPU = FMOD2P(XLT - XNODE);
-    SGP4_TEMP2 = CAPU;
+    TEMP2 = CAPU;
     for (I = 1; I < 11; I++) {
-      SINEPW = Math.sin(SGP4_TEMP2);
-      COSEPW = Math.cos(SGP4_TEMP2);
-      SGP4_TEMP3 = AXN * SINEPW;
+      SINEPW = Math.sin(TEMP2);
+      COSEPW = Math.cos(TEMP2);
+      TEMP3 = AXN * SINEPW;
       TEMP4 = AYN * COSEPW;
       TEMP5 = AXN * COSEPW;
       TEMP6 = AYN * SINEPW;
-      EPW = (CAPU - TEMP4 + SGP4_TEMP3 - SGP4_TEMP2) 
-	/ (1. - TEMP5 - TEMP6) + SGP4_TEMP2;
-      if (Math.abs(EPW - SGP4_TEMP2) <= C1_E6A) break;
-      SGP4_TEMP2 = EPW;
+      EPW = (CAPU - TEMP4 + TEMP3 - TEMP2) 
+	/ (1. - TEMP5 - TEMP6) + TEMP2;
+      if (Math.abs(EPW - TEMP2) <= C1_E6A) break;
+      TEMP2 = EPW;
     }
 
     /* SHORT PERIOD PRELIMINARY QUANTITIES */
 
     ECOSE = TEMP5 + TEMP6;
-    ESINE = SGP4_TEMP3 - TEMP4;
+    ESINE = TEMP3 - TEMP4;
     ELSQ = AXN * AXN + AYN * AYN;
-    SGP4_TEMP = 1. - ELSQ;
-    PL = A * SGP4_TEMP;
+    TEMP = 1. - ELSQ;
+    PL = A * TEMP;
     R = A * (1. - ECOSE);
-    SGP4_TEMP1 = 1. / R;
-    RDOT = C1_XKE * Math.sqrt(A) * ESINE * SGP4_TEMP1;
-    RFDOT = C1_XKE * Math.sqrt(PL) * SGP4_TEMP1;
-    SGP4_TEMP2 = A * SGP4_TEMP1;
-    BETAL = Math.sqrt(SGP4_TEMP);
-    SGP4_TEMP3 = 1. / (1. + BETAL);
-    COSU = SGP4_TEMP2 * (COSEPW - AXN + AYN * ESINE * SGP4_TEMP3);
-    SINU = SGP4_TEMP2 * (SINEPW - AYN - AXN * ESINE * SGP4_TEMP3);
+    TEMP1 = 1. / R;
+    RDOT = C1_XKE * Math.sqrt(A) * ESINE * TEMP1;
+    RFDOT = C1_XKE * Math.sqrt(PL) * TEMP1;
+    TEMP2 = A * TEMP1;
+    BETAL = Math.sqrt(TEMP);
+    TEMP3 = 1. / (1. + BETAL);
+    COSU = TEMP2 * (COSEPW - AXN + AYN * ESINE * TEMP3);
+    SINU = TEMP2 * (SINEPW - AYN - AXN * ESINE * TEMP3);
     U = ACTAN(SINU, COSU);
     SIN2U = 2. * SINU * COSU;
     COS2U = 2. * COSU * COSU - 1.;
-    SGP4_TEMP = 1. / PL;
-    SGP4_TEMP1 = C1_CK2 * SGP4_TEMP;
-    SGP4_TEMP2 = SGP4_TEMP1 * SGP4_TEMP;
+    TEMP = 1. / PL;
+    TEMP1 = C1_CK2 * TEMP;
+    TEMP2 = TEMP1 * TEMP;
 
     /* UPDATE FOR SHORT PERIODICS */
 
-    RK = R * (1. - 1.5 * SGP4_TEMP2 * BETAL * SGP4_X3THM1)
-      + .5 * SGP4_TEMP1 * SGP4_X1MTH2 * COS2U;
-    UK = U - .25 * SGP4_TEMP2 * SGP4_X7THM1 * SIN2U;
-    XNODEK = XNODE + 1.5 * SGP4_TEMP2 * SGP4_COSIO * SIN2U;
-    XINCK = E1_XINCL + 1.5 * SGP4_TEMP2 * SGP4_COSIO * SGP4_SINIO*COS2U;
-    RDOTK = RDOT - XN * SGP4_TEMP1 * SGP4_X1MTH2 * SIN2U;
-    RFDOTK = RFDOT + XN * SGP4_TEMP1
+    RK = R * (1. - 1.5 * TEMP2 * BETAL * SGP4_X3THM1)
+      + .5 * TEMP1 * SGP4_X1MTH2 * COS2U;
+    UK = U - .25 * TEMP2 * SGP4_X7THM1 * SIN2U;
+    XNODEK = XNODE + 1.5 * TEMP2 * SGP4_COSIO * SIN2U;
+    XINCK = E1_XINCL + 1.5 * TEMP2 * SGP4_COSIO * SGP4_SINIO*COS2U;
+    RDOTK = RDOT - XN * TEMP1 * SGP4_X1MTH2 * SIN2U;
+    RFDOTK = RFDOT + XN * TEMP1
       * (SGP4_X1MTH2 * COS2U + 1.5 * SGP4_X3THM1);
 
     /* ORIENTATION VECTORS */
@@ -2738,19 +2806,19 @@ AAAAAAAAAAAAAAAAAAAAAA
 
     /* POSITION AND VELOCITY */
 
-    E1_X = RK * UX;
-    E1_Y = RK * UY;
-    E1_Z = RK * UZ;
-    E1_XDOT = RDOTK * UX + RFDOTK * VX;
-    E1_YDOT = RDOTK * UY + RFDOTK * VY;
-    E1_ZDOT = RDOTK * UZ + RFDOTK * VZ;
-
-    itsR[0] = E1_X    * C1_XKMPER / C1_AE / 1E6;
-    itsR[1] = E1_Y    * C1_XKMPER / C1_AE / 1E6;
-    itsR[2] = E1_Z    * C1_XKMPER / C1_AE / 1E6;
-    itsV[0] = E1_XDOT * C1_XKMPER / C1_AE * C1_XMNPDA / 86400.;
-    itsV[1] = E1_YDOT * C1_XKMPER / C1_AE * C1_XMNPDA / 86400.;
-    itsV[2] = E1_ZDOT * C1_XKMPER / C1_AE * C1_XMNPDA / 86400.;
+    X = RK * UX;
+    Y = RK * UY;
+    Z = RK * UZ;
+    XDOT = RDOTK * UX + RFDOTK * VX;
+    YDOT = RDOTK * UY + RFDOTK * VY;
+    ZDOT = RDOTK * UZ + RFDOTK * VZ;
+
+    aWork.itsR[0] = X    * C1_XKMPER / C1_AE / 1E6;
+    aWork.itsR[1] = Y    * C1_XKMPER / C1_AE / 1E6;
+    aWork.itsR[2] = Z    * C1_XKMPER / C1_AE / 1E6;
+    aWork.itsV[0] = XDOT * C1_XKMPER / C1_AE * C1_XMNPDA / 86400.;
+    aWork.itsV[1] = YDOT * C1_XKMPER / C1_AE * C1_XMNPDA / 86400.;
+    aWork.itsV[2] = ZDOT * C1_XKMPER / C1_AE * C1_XMNPDA / 86400.;
 
     return;
   }
@@ -0,0 +1,768 @@
+package uk.me.chiandh.Lib;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>The <code>SDP4Batch</code> class calculates the positions and velocities
+ * of many satellites for one time.</p>
+ *
+ * <p>The satellites are first read into {@link SDP4 SDP4} instances, which
+ * are then added to the batch.  For short-period satellites the batch copies
+ * the SGP4 model constants into one array per constant, so that
+ * GetPosVel can run the SGP4 model for all of them in a single loop over
+ * contiguous memory.  Long-period satellites are calculated by their SDP4
+ * instance, using a workspace owned by the batch.  The results are
+ * bit-identical to those from
+ * {@link SDP4#GetPosVel(double) SDP4.GetPosVel}.</p>
+ *
+ * <p>Optionally the long-period satellites can share one set of lunar and
+ * solar terms for each time, see
+ * {@link SDP4LunarSolar SDP4LunarSolar}.  Their results then differ from
+ * those of SDP4.GetPosVel by millimetres for TLEs up to two years old.</p>
+ *
+ * <p>A large batch can be shared among several threads, see SetThreads().
+ * Each thread then calculates a contiguous part of the batch with its own
+ * workspace, and the results are the same as with a single thread.  The
+ * batch itself is not to be used by several threads at the same time.  The
+ * SDP4 instances added are not changed by the batch.</p>
+ *
+ * <p>To use this class:</p>
+ *
+ * <ol>
+ *   <li>Create an instance of the class.</li>
+ *   <li>Invoke its Init() method with the expected number of
+ *   satellites.</li>
+ *   <li>Invoke its Add() method for each satellite, after the satellite's
+ *   TLE has been read.</li>
+ *   <li>Invoke its GetPosVel() method with the Julian Date of interest and
+ *   arrays of 3 N elements to receive the positions and velocities.</li>
+ * </ol>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class SDP4Batch
+{
+  /** The number of satellites in the batch. */
+  protected int itsN;
+
+  /** The satellites, needed for those that use the SDP4 model. */
+  protected SDP4[] itsSat;
+
+  /** Whether period is >= 225 min, per satellite. */
+  protected int[] itsIsDeep;
+
+  /** Whether the SGP4 model is truncated for low perigee, per satellite. */
+  protected int[] itsISIMP;
+
+  /** The TLE epoch expressed in JD minus 2450000 days, per satellite. */
+  protected double[] itsEpochJD;
+
+  /* The elements and SGP4 constants, per satellite. */
+
+  protected double[] itsXMO, itsXNODEO, itsOMEGAO, itsEO, itsXINCL,
+    itsBSTAR, itsAODP, itsAYCOF, itsC1, itsC4, itsC5, itsCOSIO, itsD2,
+    itsD3, itsD4, itsDELMO, itsETA, itsOMGCOF, itsOMGDOT, itsSINIO,
+    itsSINMO, itsT2COF, itsT3COF, itsT4COF, itsT5COF, itsX1MTH2, itsX3THM1,
+    itsX7THM1, itsXLCOF, itsXMCOF, itsXMDOT, itsXNODCF, itsXNODOT, itsXNODP;
+
+  /** The workspace for the SDP4 model. */
+  protected SDP4Workspace itsWork;
+
+  /** The number of threads to use. */
+  protected int itsNthreads;
+
+  /** The workspaces for the SDP4 model, one per thread. */
+  protected SDP4Workspace[] itsWorks;
+
+  /** The lunar-solar terms shared by long-period satellites, or null. */
+  protected SDP4LunarSolar itsLunarSolar;
+
+  /** The least number of satellites per thread, below which a single
+   * thread is used. */
+  protected static final int MINPART = 256;
+
+  /** The threads, one per processor, created when first needed. */
+  private static ExecutorService thePool;
+
+
+  /**
+   * Initialise the batch.
+   *
+   * <p>This empties the batch and allocates space for the given number of
+   * satellites.  More satellites can be added later, at the expense of
+   * re-allocating the arrays.
+   *
+   * @param aSize
+   *   The expected number of satellites. */
+
+  public void Init(int aSize)
+  {
+    if (aSize < 1) aSize = 1;
+
+    itsN = 0;
+    itsSat     = new SDP4[aSize];
+    itsIsDeep  = new int[aSize];
+    itsISIMP   = new int[aSize];
+    itsEpochJD = new double[aSize];
+    itsXMO    = new double[aSize];
+    itsXNODEO = new double[aSize];
+    itsOMEGAO = new double[aSize];
+    itsEO     = new double[aSize];
+    itsXINCL  = new double[aSize];
+    itsBSTAR  = new double[aSize];
+    itsAODP   = new double[aSize];
+    itsAYCOF  = new double[aSize];
+    itsC1     = new double[aSize];
+    itsC4     = new double[aSize];
+    itsC5     = new double[aSize];
+    itsCOSIO  = new double[aSize];
+    itsD2     = new double[aSize];
+    itsD3     = new double[aSize];
+    itsD4     = new double[aSize];
+    itsDELMO  = new double[aSize];
+    itsETA    = new double[aSize];
+    itsOMGCOF = new double[aSize];
+    itsOMGDOT = new double[aSize];
+    itsSINIO  = new double[aSize];
+    itsSINMO  = new double[aSize];
+    itsT2COF  = new double[aSize];
+    itsT3COF  = new double[aSize];
+    itsT4COF  = new double[aSize];
+    itsT5COF  = new double[aSize];
+    itsX1MTH2 = new double[aSize];
+    itsX3THM1 = new double[aSize];
+    itsX7THM1 = new double[aSize];
+    itsXLCOF  = new double[aSize];
+    itsXMCOF  = new double[aSize];
+    itsXMDOT  = new double[aSize];
+    itsXNODCF = new double[aSize];
+    itsXNODOT = new double[aSize];
+    itsXNODP  = new double[aSize];
+
+    itsWork  = new SDP4Workspace();
+    itsNthreads   = 1;
+    itsWorks      = null;
+    itsLunarSolar = null;
+
+    return;
+  }
+
+
+  /**
+   * Add a satellite to the batch.
+   *
+   * <p>The satellite must have read its TLE already.  The batch keeps a
+   * reference to the satellite, so it must not read another TLE while it
+   * is in the batch.
+   *
+   * @param aSatellite
+   *   The satellite to add.
+   * @return
+   *   The index of the satellite in the batch, which is also its position
+   *   in the arrays returned by GetPosVel. */
+
+  public final int Add(SDP4 aSatellite)
+  {
+    if (itsN == itsSat.length) Grow();
+
+    itsSat[itsN]     = aSatellite;
+    itsIsDeep[itsN]  = aSatellite.itsIsDeep;
+    itsEpochJD[itsN] = aSatellite.itsEpochJD;
+    itsXMO[itsN] = aSatellite.E1_XMO;
+    itsXNODEO[itsN] = aSatellite.E1_XNODEO;
+    itsOMEGAO[itsN] = aSatellite.E1_OMEGAO;
+    itsEO[itsN] = aSatellite.E1_EO;
+    itsXINCL[itsN] = aSatellite.E1_XINCL;
+    itsBSTAR[itsN] = aSatellite.E1_BSTAR;
+    if (aSatellite.itsIsDeep == 0) {
+      itsISIMP[itsN] = aSatellite.SGP4_ISIMP;
+      itsAODP[itsN] = aSatellite.SGP4_AODP;
+      itsAYCOF[itsN] = aSatellite.SGP4_AYCOF;
+      itsC1[itsN] = aSatellite.SGP4_C1;
+      itsC4[itsN] = aSatellite.SGP4_C4;
+      itsC5[itsN] = aSatellite.SGP4_C5;
+      itsCOSIO[itsN] = aSatellite.SGP4_COSIO;
+      itsD2[itsN] = aSatellite.SGP4_D2;
+      itsD3[itsN] = aSatellite.SGP4_D3;
+      itsD4[itsN] = aSatellite.SGP4_D4;
+      itsDELMO[itsN] = aSatellite.SGP4_DELMO;
+      itsETA[itsN] = aSatellite.SGP4_ETA;
+      itsOMGCOF[itsN] = aSatellite.SGP4_OMGCOF;
+      itsOMGDOT[itsN] = aSatellite.SGP4_OMGDOT;
+      itsSINIO[itsN] = aSatellite.SGP4_SINIO;
+      itsSINMO[itsN] = aSatellite.SGP4_SINMO;
+      itsT2COF[itsN] = aSatellite.SGP4_T2COF;
+      itsT3COF[itsN] = aSatellite.SGP4_T3COF;
+      itsT4COF[itsN] = aSatellite.SGP4_T4COF;
+      itsT5COF[itsN] = aSatellite.SGP4_T5COF;
+      itsX1MTH2[itsN] = aSatellite.SGP4_X1MTH2;
+      itsX3THM1[itsN] = aSatellite.SGP4_X3THM1;
+      itsX7THM1[itsN] = aSatellite.SGP4_X7THM1;
+      itsXLCOF[itsN] = aSatellite.SGP4_XLCOF;
+      itsXMCOF[itsN] = aSatellite.SGP4_XMCOF;
+      itsXMDOT[itsN] = aSatellite.SGP4_XMDOT;
+      itsXNODCF[itsN] = aSatellite.SGP4_XNODCF;
+      itsXNODOT[itsN] = aSatellite.SGP4_XNODOT;
+      itsXNODP[itsN] = aSatellite.SGP4_XNODP;
+    }
+
+    return itsN++;
+  }
+
+
+  /**
+   * Share the lunar and solar terms between long-period satellites.
+   *
+   * <p>If sharing, GetPosVel calculates the lunar and solar terms once for
+   * each time and uses them for all long-period satellites in the batch.
+   * By default they are not shared.
+   *
+   * @param aShare
+   *   Whether to share the terms. */
+
+  public final void ShareLunarSolar(boolean aShare)
+  {
+    int i;
+
+    if (!aShare) {
+      itsLunarSolar = null;
+    }
+    else if (null == itsLunarSolar) {
+      itsLunarSolar = new SDP4LunarSolar();
+      itsLunarSolar.Init();
+    }
+
+    itsWork.itsLunarSolar = itsLunarSolar;
+    if (null != itsWorks) {
+      for (i = 0; i < itsWorks.length; i++)
+	itsWorks[i].itsLunarSolar = itsLunarSolar;
+    }
+
+    return;
+  }
+
+
+  /**
+   * Set the number of threads for GetPosVel.
+   *
+   * <p>GetPosVel splits the batch into this many contiguous parts and
+   * calculates them in parallel.  The parts run on a pool of one thread
+   * per processor that all batches share; more parts than processors wait
+   * their turn.  A single thread is used nevertheless while the batch has
+   * fewer than MINPART satellites per part, as the threads would then cost
+   * more than they save.  By default a single thread is used.
+   *
+   * @param aNthreads
+   *   The number of parts to split the batch into. */
+
+  public final void SetThreads(int aNthreads)
+  {
+    int i;
+
+    if (aNthreads < 1) aNthreads = 1;
+    itsNthreads = aNthreads;
+    itsWorks = new SDP4Workspace[aNthreads];
+    for (i = 0; i < aNthreads; i++) {
+      itsWorks[i] = new SDP4Workspace();
+      itsWorks[i].itsLunarSolar = itsLunarSolar;
+    }
+
+    return;
+  }
+
+
+  /**
+   * Return the number of satellites in the batch. */
+
+  public final int GetN() {return itsN;}
+
+
+  /**
+   * Calculate positions and velocities.
+   *
+   * <p>This calculates the positions (in Gm) and velocities (in km/s) of all
+   * satellites in the batch for the given time.  Satellite i is returned in
+   * elements 3i to 3i+2 of the arrays.
+   *
+   * <p>With several threads the call returns only when all parts have
+   * finished, even if the calling thread is interrupted.
+   *
+   * @param aJulDate
+   *   The time for which the calculation should take place.  This must be
+   *   given in units of days as the Julian Day minus 2450000 days.
+   * @param aR
+   *   The array to receive the positions, at least 3 N elements long.
+   * @param aV
+   *   The array to receive the velocities, at least 3 N elements long. */
+
+  public final void GetPosVel(final double aJulDate, final double[] aR,
+			      final double[] aV)
+  {
+    ExecutorService theThreads;
+    Future<?>       theJobs[];
+    int             i;
+
+    if (null != itsLunarSolar) itsLunarSolar.SetTime(aJulDate);
+
+    if (1 >= itsNthreads || itsN < MINPART * itsNthreads) {
+      GetPosVel(aJulDate, aR, aV, 0, itsN, itsWork);
+      return;
+    }
+
+    /* Split the batch into one part per thread and wait for all. */
+
+    theThreads = GetPool();
+    theJobs    = new Future<?>[itsNthreads];
+    for (i = 0; i < itsNthreads; i++) {
+      final int theFrom = (int) ((long) itsN * i / itsNthreads);
+      final int theTo   = (int) ((long) itsN * (i + 1) / itsNthreads);
+      final SDP4Workspace theWork = itsWorks[i];
+      theJobs[i] = theThreads.submit(new Runnable() {
+	public void run() {
+	  GetPosVel(aJulDate, aR, aV, theFrom, theTo, theWork);
+	}
+      });
+    }
+    WaitAll(theJobs);
+
+    return;
+  }
+
+
+  /**
+   * Calculate positions and velocities for part of the batch.
+   *
+   * @param aJulDate
+   *   The time for which the calculation should take place.  This must be
+   *   given in units of days as the Julian Day minus 2450000 days.
+   * @param aR
+   *   The array to receive the positions, at least 3 N elements long.
+   * @param aV
+   *   The array to receive the velocities, at least 3 N elements long.
+   * @param aFrom
+   *   The first satellite to calculate.
+   * @param aTo
+   *   The satellite after the last one to calculate.
+   * @param aWork
+   *   The workspace for the long-period satellites. */
+
+  protected final void GetPosVel(double aJulDate, double[] aR, double[] aV,
+				 int aFrom, int aTo, SDP4Workspace aWork)
+  {
+    double TSINCE;
+    double XMO, XNODEO, OMEGAO, EO, XINCL, BSTAR, AODP, AYCOF, C1, C4, C5,
+      COSIO, D2, D3, D4, DELMO, ETA, OMGCOF, OMGDOT, SINIO, SINMO, T2COF,
+      T3COF, T4COF, T5COF, X1MTH2, X3THM1, X7THM1, XLCOF, XMCOF, XMDOT,
+      XNODCF, XNODOT, XNODP;
+    int    ISIMP;
+    int    i, j;
+
+    for (i = aFrom; i < aTo; i++) {
+      j = 3 * i;
+
+      /* Long-period satellites are left to their SDP4 instance. */
+
+      if (itsIsDeep[i] != 0) {
+	itsSat[i].GetPosVel(aJulDate, aWork);
+	aR[j]   = aWork.itsR[0];
+	aR[j+1] = aWork.itsR[1];
+	aR[j+2] = aWork.itsR[2];
+	aV[j]   = aWork.itsV[0];
+	aV[j+1] = aWork.itsV[1];
+	aV[j+2] = aWork.itsV[2];
+	continue;
+      }
+
+      /* Fetch the elements and constants of this satellite. */
+
+      TSINCE = SDP4.C1_XMNPDA * (aJulDate - itsEpochJD[i]);
+      ISIMP  = itsISIMP[i];
+      XMO    = itsXMO[i];
+      XNODEO = itsXNODEO[i];
+      OMEGAO = itsOMEGAO[i];
+      EO     = itsEO[i];
+      XINCL  = itsXINCL[i];
+      BSTAR  = itsBSTAR[i];
+      AODP   = itsAODP[i];
+      AYCOF  = itsAYCOF[i];
+      C1     = itsC1[i];
+      C4     = itsC4[i];
+      C5     = itsC5[i];
+      COSIO  = itsCOSIO[i];
+      D2     = itsD2[i];
+      D3     = itsD3[i];
+      D4     = itsD4[i];
+      DELMO  = itsDELMO[i];
+      ETA    = itsETA[i];
+      OMGCOF = itsOMGCOF[i];
+      OMGDOT = itsOMGDOT[i];
+      SINIO  = itsSINIO[i];
+      SINMO  = itsSINMO[i];
+      T2COF  = itsT2COF[i];
+      T3COF  = itsT3COF[i];
+      T4COF  = itsT4COF[i];
+      T5COF  = itsT5COF[i];
+      X1MTH2 = itsX1MTH2[i];
+      X3THM1 = itsX3THM1[i];
+      X7THM1 = itsX7THM1[i];
+      XLCOF  = itsXLCOF[i];
+      XMCOF  = itsXMCOF[i];
+      XMDOT  = itsXMDOT[i];
+      XNODCF = itsXNODCF[i];
+      XNODOT = itsXNODOT[i];
+      XNODP  = itsXNODP[i];
+
+      /* Run the model. */
+
+      RunSGP4(TSINCE, ISIMP, XMO, XNODEO, OMEGAO, EO, XINCL, BSTAR, AODP,
+	AYCOF, C1, C4, C5, COSIO, D2, D3, D4, DELMO, ETA, OMGCOF, OMGDOT, SINIO,
+	SINMO, T2COF, T3COF, T4COF, T5COF, X1MTH2, X3THM1, X7THM1, XLCOF, XMCOF,
+	XMDOT, XNODCF, XNODOT, XNODP, aR, aV, j);
+    }
+
+    return;
+  }
+
+
+  /**
+   * Run the SGP4 model for one satellite.
+   *
+   * <p>This is the time-dependent part of
+   * {@link SDP4#RunSGP4 SDP4.RunSGP4}, with the elements and model constants
+   * of the satellite given as arguments rather than taken from an SDP4
+   * instance.  Thus the constants can be kept in whatever form suits many
+   * satellites.
+   *
+   * @param TSINCE
+   *   The time since the epoch of the TLE [min].
+   * @param ISIMP
+   *   This and the following arguments up to XNODP are the elements and
+   *   SGP4 constants of the satellite, named as in SDP4.
+   * @param aR
+   *   The array to receive the position [Gm] in elements j to j+2.
+   * @param aV
+   *   The array to receive the velocity [km/s] in elements j to j+2.
+   * @param j
+   *   The index in aR and aV of the x component. */
+
+  protected static final void RunSGP4(double TSINCE, int ISIMP,
+    double XMO, double XNODEO, double OMEGAO, double EO, double XINCL,
+    double BSTAR, double AODP, double AYCOF, double C1, double C4, double C5,
+    double COSIO, double D2, double D3, double D4, double DELMO, double ETA,
+    double OMGCOF, double OMGDOT, double SINIO, double SINMO, double T2COF,
+    double T3COF, double T4COF, double T5COF, double X1MTH2, double X3THM1,
+    double X7THM1, double XLCOF, double XMCOF, double XMDOT, double XNODCF,
+    double XNODOT, double XNODP, double[] aR, double[] aV, int j)
+  {
+    double A, AXN, AYN, AYNL, BETA, BETAL, CAPU, COS2U, COSEPW, COSIK,
+      COSNOK, COSU, COSUK, DELM, DELOMG, E, ECOSE, ELSQ, EPW, ESINE, OMEGA,
+      OMGADF, PL, R, RDOT, RDOTK, RFDOT, RFDOTK, RK, SIN2U, SINEPW, SINIK,
+      SINNOK, SINU, SINUK, TCUBE, TEMP, TEMP1, TEMP2, TEMP3, TEMP4, TEMP5,
+      TEMP6, TEMPA, TEMPE, TEMPL, TFOUR, TSQ, U, UK, UX, UY, UZ, VX,
+      VY, VZ, X, XDOT, XINCK, XL, XLL, XLT, XMDF, XMP, XMX, XMY, XN, XNODDF,
+      XNODE, XNODEK, Y, YDOT, Z, ZDOT;
+    double XKE, E6A, CK2, XKMPER, AE, XMNPDA;
+    int    I;
+
+    /* The Java compiler requires these initialisations. */
+
+    TEMP3 = 0.;
+    TEMP4 = 0.;
+    TEMP5 = 0.;
+    TEMP6 = 0.;
+    COSEPW = 0.;
+    SINEPW = 0.;
+
+    XKE    = SDP4.C1_XKE;
+    E6A    = SDP4.C1_E6A;
+    CK2    = SDP4.C1_CK2;
+    XKMPER = SDP4.C1_XKMPER;
+    AE     = SDP4.C1_AE;
+    XMNPDA = SDP4.C1_XMNPDA;
+
+    /* UPDATE FOR SECULAR GRAVITY AND ATMOSPHERIC DRAG */
+
+    XMDF   = XMO    + XMDOT  * TSINCE;
+    OMGADF = OMEGAO + OMGDOT * TSINCE;
+    XNODDF = XNODEO + XNODOT * TSINCE;
+    OMEGA = OMGADF;
+    XMP = XMDF;
+    TSQ = TSINCE * TSINCE;
+    XNODE = XNODDF + XNODCF * TSQ;
+    TEMPA = 1. - C1 * TSINCE;
+    TEMPE = BSTAR * C4 * TSINCE;
+    TEMPL = T2COF * TSQ;
+    if (ISIMP != 1) {
+      DELOMG = OMGCOF * TSINCE;
+      DELM = XMCOF * (Math.pow(1. + ETA * Math.cos(XMDF), 3.)
+	- DELMO);
+      TEMP = DELOMG + DELM;
+      XMP = XMDF + TEMP;
+      OMEGA = OMGADF - TEMP;
+      TCUBE = TSQ * TSINCE;
+      TFOUR = TSINCE * TCUBE;
+      TEMPA = TEMPA - D2 * TSQ - D3 * TCUBE - D4 * TFOUR;
+      TEMPE = TEMPE + BSTAR * C5 * (Math.sin(XMP) - SINMO);
+      TEMPL = TEMPL + T3COF * TCUBE
+	+ TFOUR * (T4COF + TSINCE * T5COF);
+    }
+    A = AODP * TEMPA * TEMPA;
+    E = EO - TEMPE;
+    XL = XMP + OMEGA + XNODE + XNODP * TEMPL;
+    BETA = Math.sqrt(1. - E * E);
+    XN = XKE / Math.pow(A, 1.5);
+
+    /* LONG PERIOD PERIODICS */
+
+    AXN = E * Math.cos(OMEGA);
+    TEMP = 1. / (A * BETA * BETA);
+    XLL = TEMP * XLCOF * AXN;
+    AYNL = TEMP * AYCOF;
+    XLT = XL + XLL;
+    AYN = E * Math.sin(OMEGA) + AYNL;
+
+    /* SOLVE KEPLERS EQUATION */
+
+    CAPU = SDP4.FMOD2P(XLT - XNODE);
+    TEMP2 = CAPU;
+    for (I = 1; I < 11; I++) {
+      SINEPW = Math.sin(TEMP2);
+      COSEPW = Math.cos(TEMP2);
+      TEMP3 = AXN * SINEPW;
+      TEMP4 = AYN * COSEPW;
+      TEMP5 = AXN * COSEPW;
+      TEMP6 = AYN * SINEPW;
+      EPW = (CAPU - TEMP4 + TEMP3 - TEMP2)
+	/ (1. - TEMP5 - TEMP6) + TEMP2;
+      if (Math.abs(EPW - TEMP2) <= E6A) break;
+      TEMP2 = EPW;
+    }
+
+    /* SHORT PERIOD PRELIMINARY QUANTITIES */
+
+    ECOSE = TEMP5 + TEMP6;
+    ESINE = TEMP3 - TEMP4;
+    ELSQ = AXN * AXN + AYN * AYN;
+    TEMP = 1. - ELSQ;
+    PL = A * TEMP;
+    R = A * (1. - ECOSE);
+    TEMP1 = 1. / R;
+    RDOT = XKE * Math.sqrt(A) * ESINE * TEMP1;
+    RFDOT = XKE * Math.sqrt(PL) * TEMP1;
+    TEMP2 = A * TEMP1;
+    BETAL = Math.sqrt(TEMP);
+    TEMP3 = 1. / (1. + BETAL);
+    COSU = TEMP2 * (COSEPW - AXN + AYN * ESINE * TEMP3);
+    SINU = TEMP2 * (SINEPW - AYN - AXN * ESINE * TEMP3);
+    U = SDP4.ACTAN(SINU, COSU);
+    SIN2U = 2. * SINU * COSU;
+    COS2U = 2. * COSU * COSU - 1.;
+    TEMP = 1. / PL;
+    TEMP1 = CK2 * TEMP;
+    TEMP2 = TEMP1 * TEMP;
+
+    /* UPDATE FOR SHORT PERIODICS */
+
+    RK = R * (1. - 1.5 * TEMP2 * BETAL * X3THM1)
+      + .5 * TEMP1 * X1MTH2 * COS2U;
+    UK = U - .25 * TEMP2 * X7THM1 * SIN2U;
+    XNODEK = XNODE + 1.5 * TEMP2 * COSIO * SIN2U;
+    XINCK = XINCL + 1.5 * TEMP2 * COSIO * SINIO*COS2U;
+    RDOTK = RDOT - XN * TEMP1 * X1MTH2 * SIN2U;
+    RFDOTK = RFDOT + XN * TEMP1
+      * (X1MTH2 * COS2U + 1.5 * X3THM1);
+
+    /* ORIENTATION VECTORS */
+
+    SINUK = Math.sin(UK);
+    COSUK = Math.cos(UK);
+    SINIK = Math.sin(XINCK);
+    COSIK = Math.cos(XINCK);
+    SINNOK = Math.sin(XNODEK);
+    COSNOK = Math.cos(XNODEK);
+    XMX = -SINNOK * COSIK;
+    XMY =  COSNOK * COSIK;
+    UX = XMX * SINUK + COSNOK * COSUK;
+    UY = XMY * SINUK + SINNOK * COSUK;
+    UZ = SINIK * SINUK;
+    VX = XMX * COSUK - COSNOK * SINUK;
+    VY = XMY * COSUK - SINNOK * SINUK;
+    VZ = SINIK * COSUK;
+
+    /* POSITION AND VELOCITY */
+
+    X = RK * UX;
+    Y = RK * UY;
+    Z = RK * UZ;
+    XDOT = RDOTK * UX + RFDOTK * VX;
+    YDOT = RDOTK * UY + RFDOTK * VY;
+    ZDOT = RDOTK * UZ + RFDOTK * VZ;
+
+    aR[j] = X    * XKMPER / AE / 1E6;
+    aR[j+1] = Y    * XKMPER / AE / 1E6;
+    aR[j+2] = Z    * XKMPER / AE / 1E6;
+    aV[j] = XDOT * XKMPER / AE * XMNPDA / 86400.;
+    aV[j+1] = YDOT * XKMPER / AE * XMNPDA / 86400.;
+    aV[j+2] = ZDOT * XKMPER / AE * XMNPDA / 86400.;
+
+    return;
+  }
+
+  /**
+   * Return the threads for GetPosVel.
+   *
+   * <p>The pool is made once with one thread per processor and is never
+   * shut down, as other batches may be using it.  It is also the pool for
+   * other work of the application that is split by processor, such as the
+   * updates and eclipse searches of many satellites, so that there is one
+   * such pool in all.  A job must not itself wait for other jobs in the
+   * pool, as all threads could then be waiting.  The threads are daemon
+   * threads, so that they do not keep the application alive. */
+
+  public static synchronized ExecutorService GetPool()
+  {
+    if (null == thePool) {
+      thePool = Executors.newFixedThreadPool(
+	Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+	  public Thread newThread(Runnable aRunnable) {
+	    Thread theThread = new Thread(aRunnable, "SDP4Batch");
+	    theThread.setDaemon(true);
+	    return theThread;
+	  }
+	});
+    }
+    return thePool;
+  }
+
+
+  /**
+   * Wait for all jobs submitted to the pool.
+   *
+   * <p>The jobs write to the caller's data, so this does not return while
+   * any of them is still running.  If the calling thread is interrupted,
+   * it keeps waiting and sets its interrupt status again before returning.
+   * If a job failed, the first failure is thrown once all have finished.
+   *
+   * @param aJobs
+   *   The jobs. */
+
+  public static void WaitAll(Future<?> aJobs[])
+  {
+    Throwable theFailure = null;
+    boolean   theInterrupted = false;
+    int i;
+
+    for (i = 0; i < aJobs.length; i++) {
+      for (;;) {
+	try {
+	  aJobs[i].get();
+	  break;
+	}
+	catch (InterruptedException e) {
+	  theInterrupted = true;
+	}
+	catch (ExecutionException e) {
+	  if (null == theFailure) theFailure = e.getCause();
+	  break;
+	}
+      }
+    }
+
+    if (theInterrupted) Thread.currentThread().interrupt();
+    if (null != theFailure) throw new RuntimeException(theFailure);
+
+    return;
+  }
+
+
+  /**
+   * Double the space in all arrays. */
+
+  protected final void Grow()
+  {
+    int    theSize;
+    SDP4[] theSat;
+    int[]  theInt;
+
+    theSize = 2 * itsSat.length;
+
+    theSat = new SDP4[theSize];
+    System.arraycopy(itsSat, 0, theSat, 0, itsN);
+    itsSat = theSat;
+    theInt = new int[theSize];
+    System.arraycopy(itsIsDeep, 0, theInt, 0, itsN);
+    itsIsDeep = theInt;
+    theInt = new int[theSize];
+    System.arraycopy(itsISIMP, 0, theInt, 0, itsN);
+    itsISIMP = theInt;
+    itsEpochJD = Grow(itsEpochJD, theSize);
+    itsXMO    = Grow(itsXMO, theSize);
+    itsXNODEO = Grow(itsXNODEO, theSize);
+    itsOMEGAO = Grow(itsOMEGAO, theSize);
+    itsEO     = Grow(itsEO, theSize);
+    itsXINCL  = Grow(itsXINCL, theSize);
+    itsBSTAR  = Grow(itsBSTAR, theSize);
+    itsAODP   = Grow(itsAODP, theSize);
+    itsAYCOF  = Grow(itsAYCOF, theSize);
+    itsC1     = Grow(itsC1, theSize);
+    itsC4     = Grow(itsC4, theSize);
+    itsC5     = Grow(itsC5, theSize);
+    itsCOSIO  = Grow(itsCOSIO, theSize);
+    itsD2     = Grow(itsD2, theSize);
+    itsD3     = Grow(itsD3, theSize);
+    itsD4     = Grow(itsD4, theSize);
+    itsDELMO  = Grow(itsDELMO, theSize);
+    itsETA    = Grow(itsETA, theSize);
+    itsOMGCOF = Grow(itsOMGCOF, theSize);
+    itsOMGDOT = Grow(itsOMGDOT, theSize);
+    itsSINIO  = Grow(itsSINIO, theSize);
+    itsSINMO  = Grow(itsSINMO, theSize);
+    itsT2COF  = Grow(itsT2COF, theSize);
+    itsT3COF  = Grow(itsT3COF, theSize);
+    itsT4COF  = Grow(itsT4COF, theSize);
+    itsT5COF  = Grow(itsT5COF, theSize);
+    itsX1MTH2 = Grow(itsX1MTH2, theSize);
+    itsX3THM1 = Grow(itsX3THM1, theSize);
+    itsX7THM1 = Grow(itsX7THM1, theSize);
+    itsXLCOF  = Grow(itsXLCOF, theSize);
+    itsXMCOF  = Grow(itsXMCOF, theSize);
+    itsXMDOT  = Grow(itsXMDOT, theSize);
+    itsXNODCF = Grow(itsXNODCF, theSize);
+    itsXNODOT = Grow(itsXNODOT, theSize);
+    itsXNODP  = Grow(itsXNODP, theSize);
+
+    return;
+  }
+
+
+  /**
+   * Return a copy of an array with a new size.
+   *
+   * @param anArray
+   *   The array to copy.
+   * @param aSize
+   *   The size of the new array. */
+
+  protected final double[] Grow(double[] anArray, int aSize)
+  {
+    double[] theArray = new double[aSize];
+    System.arraycopy(anArray, 0, theArray, 0, itsN);
+    return theArray;
+  }
+}
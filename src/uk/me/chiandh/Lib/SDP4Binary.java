@@ -0,0 +1,576 @@
+package uk.me.chiandh.Lib;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * <p>The <code>SDP4Binary</code> class keeps a binary copy of a TLE file,
+ * with the elements already read and converted.</p>
+ *
+ * <p>Reading a large TLE file takes long mostly because of the text
+ * parsing.  After a TLE file has been read, the elements of all its
+ * satellites can be written to a binary file.  They are stored as held by
+ * {@link SDP4 SDP4} after
+ * {@link SDP4#ReadNorad12 ReadNorad12}, i.e. in radians and per minute,
+ * together with the epoch as JD, the deep-space flag, the name, number and
+ * designator.  The next time the binary file is mapped into memory and each
+ * satellite set up from its record, without any parsing.  Only the
+ * initialisation of the model for the elements remains to be done.</p>
+ *
+ * <p>For short-period satellites the records also hold the SGP4 model
+ * constants, so that the time-dependent part of the model can run straight
+ * from a mapped file without any SDP4 instance, see
+ * {@link SDP4Catalog SDP4Catalog}.</p>
+ *
+ * <p>The text file remains the source of the elements.  The binary file
+ * records the modification time and length of the text file it was made
+ * from, and is current only while the text file has the same time and
+ * length.  Otherwise it must be written again after reading the text
+ * file.</p>
+ *
+ * <p>The binary file has a header followed by fixed-length records, one per
+ * satellite, so that any satellite can be set up from it without reading
+ * those before it.</p>
+ *
+ * <p>A single buffer addresses at most 2 GiB, i.e. {@link #MAXCOUNT
+ * MAXCOUNT} records.  Map() and Make() are limited to that.  Larger files,
+ * such as a long history of TLEs, are mapped in windows with MapWindows(),
+ * as {@link SDP4Catalog SDP4Catalog} does.</p>
+ *
+ * <p>To use this class:</p>
+ *
+ * <ol>
+ *   <li>Invoke IsCurrent() with the text and binary files.</li>
+ *   <li>If the binary file is current, invoke Map() and for each record
+ *   from 0 to GetCount() - 1 invoke Read() with a fresh SDP4 instance.</li>
+ *   <li>Otherwise take the modification time and length of the text file,
+ *   read the text file, and invoke Write() with the satellites read.</li>
+ * </ol>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class SDP4Binary
+{
+  /** The first four bytes of the file, "SDP4". */
+  public static final int MAGIC = 0x53445034;
+
+  /** The version of the format. */
+  public static final int VERSION = 2;
+
+  /** The number of characters stored for the name. */
+  public static final int NAMELEN = 24;
+
+  /** The number of characters stored for the designator. */
+  public static final int DESIGLEN = 8;
+
+  /**
+   * The length of the header [byte].
+   *
+   * <p>The header has the magic number, the version, the modification time
+   * and length of the text file, the number of records and the record
+   * length. */
+
+  public static final int HEADLEN = 4 + 4 + 8 + 8 + 4 + 4;
+
+  /** The number of SGP4 model constants in each record. */
+  public static final int NSGP4 = 28;
+
+  /**
+   * The offset of the SGP4 model constants in each record [byte].
+   *
+   * <p>The record begins with the catalogue number, the deep-space flag,
+   * the SGP4 truncation flag ISIMP and an unused integer.  Then follow 15
+   * double precision numbers, the epoch and the elements as held by SDP4
+   * after reading the TLE. */
+
+  public static final int SGP4OFF = 4 + 4 + 4 + 4 + 15 * 8;
+
+  /**
+   * The length of each record [byte].
+   *
+   * <p>After the elements the record has the NSGP4 model constants, zero for
+   * long-period satellites, then the name and the designator.  The
+   * constants are AODP, AYCOF, C1, C4, C5, COSIO, D2, D3, D4, DELMO, ETA,
+   * OMGCOF, OMGDOT, SINIO, SINMO, T2COF, T3COF, T4COF, T5COF, X1MTH2,
+   * X3THM1, X7THM1, XLCOF, XMCOF, XMDOT, XNODCF, XNODOT and XNODP. */
+
+  public static final int RECLEN = SGP4OFF + NSGP4 * 8
+    + 2 * NAMELEN + 2 * DESIGLEN;
+
+  /** The most records that fit into a single buffer with the header. */
+  public static final int MAXCOUNT = (Integer.MAX_VALUE - HEADLEN) / RECLEN;
+
+  /** The number of records per window of MapWindows() is 2 to this
+   * power. */
+  public static final int WINBITS = 16;
+
+
+  /**
+   * Whether a binary file is current.
+   *
+   * <p>The binary file is current if it exists, has a valid header, and was
+   * made from the text file at its present modification time and length.
+   *
+   * @param aText
+   *   The TLE file.
+   * @param aBinary
+   *   The binary file. */
+
+  public static final boolean IsCurrent(File aText, File aBinary)
+  {
+    DataInputStream theStream;
+    boolean         isCurrent;
+
+    if (!aBinary.isFile() || HEADLEN > aBinary.length()) return false;
+
+    try {
+      theStream = new DataInputStream(new FileInputStream(aBinary));
+      try {
+	isCurrent = (MAGIC   == theStream.readInt()
+		  && VERSION == theStream.readInt()
+		  && aText.lastModified() == theStream.readLong()
+		  && aText.length()       == theStream.readLong()
+		  && HEADLEN + (long) theStream.readInt() * RECLEN
+		     == aBinary.length()
+		  && RECLEN  == theStream.readInt());
+      }
+      finally {theStream.close();}
+    }
+    catch (IOException e) {return false;}
+
+    return isCurrent;
+  }
+
+
+  /**
+   * Map a binary file into memory.
+   *
+   * <p>The returned buffer is positioned at the first record.  It must not
+   * be used by two threads at the same time.  A file of more than
+   * {@link #MAXCOUNT MAXCOUNT} records cannot be mapped in one buffer and
+   * throws an IOException; see MapWindows().
+   *
+   * @param aBinary
+   *   The binary file, which must be current, or at least of the current
+   *   version. */
+
+  public static final ByteBuffer Map(File aBinary)
+    throws IOException
+  {
+    FileInputStream theStream;
+    FileChannel     theChannel;
+    ByteBuffer      theBuffer;
+
+    theStream  = new FileInputStream(aBinary);
+    try {
+      theChannel = theStream.getChannel();
+      if (Integer.MAX_VALUE < theChannel.size())
+	throw new IOException("binary TLE file over 2 GiB");
+      theBuffer  = theChannel.map(FileChannel.MapMode.READ_ONLY,
+				  0L, theChannel.size());
+    }
+    finally {theStream.close();}
+
+    if (HEADLEN > theBuffer.limit() || MAGIC != theBuffer.getInt(0)
+	|| VERSION != theBuffer.getInt(4))
+      throw new IOException("not a binary TLE file");
+    theBuffer.position(HEADLEN);
+
+    return theBuffer;
+  }
+
+
+  /**
+   * Map the records of a file into memory in windows.
+   *
+   * <p>Each window is a separate read-only mapping of 2<sup>WINBITS</sup>
+   * records, the last one of the remainder.  Record i is at byte
+   * (i mod 2<sup>WINBITS</sup>) RECLEN of window i / 2<sup>WINBITS</sup>.
+   * The file offsets are long, so that the file can be larger than 2 GiB.
+   *
+   * @param aFile
+   *   The file.
+   * @param aStart
+   *   The offset of the first record in the file [byte].
+   * @param aCount
+   *   The number of records. */
+
+  public static final ByteBuffer[] MapWindows(File aFile, long aStart,
+					      int aCount)
+    throws IOException
+  {
+    FileInputStream theStream;
+    FileChannel     theChannel;
+    ByteBuffer      theWindows[];
+    int             theN, w;
+
+    theN = aCount >>> WINBITS;
+    if (0 != (aCount & ((1 << WINBITS) - 1))) theN++;
+    theWindows = new ByteBuffer[theN];
+
+    theStream = new FileInputStream(aFile);
+    try {
+      theChannel = theStream.getChannel();
+      if (aStart + (long) aCount * RECLEN > theChannel.size())
+	throw new IOException("binary TLE file too short");
+      for (w = 0; w < theWindows.length; w++) {
+	theN = Math.min(1 << WINBITS, aCount - (w << WINBITS));
+	theWindows[w] = theChannel.map(FileChannel.MapMode.READ_ONLY,
+	  aStart + ((long) w << WINBITS) * RECLEN, (long) theN * RECLEN);
+      }
+    }
+    finally {theStream.close();}
+
+    return theWindows;
+  }
+
+
+  /**
+   * Return the number of records in a binary file.
+   *
+   * <p>Only the header is read, which is checked to be of the current
+   * version.
+   *
+   * @param aBinary
+   *   The binary file. */
+
+  public static final int GetCount(File aBinary)
+    throws IOException
+  {
+    DataInputStream theStream;
+    int             theCount;
+
+    theStream = new DataInputStream(new FileInputStream(aBinary));
+    try {
+      if (MAGIC != theStream.readInt() || VERSION != theStream.readInt())
+	throw new IOException("not a binary TLE file");
+      theStream.readLong();
+      theStream.readLong();
+      theCount = theStream.readInt();
+      if (RECLEN != theStream.readInt() || 0 > theCount)
+	throw new IOException("not a binary TLE file");
+    }
+    finally {theStream.close();}
+
+    return theCount;
+  }
+
+
+  /**
+   * Return the number of records in a mapped binary file.
+   *
+   * @param aBuffer
+   *   The buffer returned by Map(). */
+
+  public static final int GetCount(ByteBuffer aBuffer)
+  {
+    return aBuffer.getInt(HEADLEN - 8);
+  }
+
+
+  /**
+   * Set up a satellite from a record.
+   *
+   * <p>The satellite's elements, name, number and designator are set from
+   * the record, and the SGP4 or SDP4 model is initialised for them.  The
+   * satellite is then as if its TLE had been read from the text file.
+   *
+   * @param aBuffer
+   *   The buffer returned by Map().
+   * @param aIndex
+   *   The number of the record, counting from 0.
+   * @param aSDP4
+   *   The satellite, which must have been initialised. */
+
+  public static final void Read(ByteBuffer aBuffer, int aIndex, SDP4 aSDP4)
+  {
+    ReadAt(aBuffer, HEADLEN + aIndex * RECLEN, aSDP4);
+    return;
+  }
+
+
+  /**
+   * Set up a satellite from the record at a given offset.
+   *
+   * @param aBuffer
+   *   The buffer that holds the record.
+   * @param aOffset
+   *   The offset of the record in the buffer [byte].
+   * @param aSDP4
+   *   The satellite, which must have been initialised. */
+
+  protected static final void ReadAt(ByteBuffer aBuffer, int aOffset,
+				     SDP4 aSDP4)
+  {
+    aBuffer.position(aOffset);
+
+    aSDP4.itsNumber   = aBuffer.getInt();
+    aSDP4.itsIsDeep   = aBuffer.getInt();
+    aBuffer.getInt();
+    aBuffer.getInt();
+    aSDP4.itsEpochJD  = aBuffer.getDouble();
+    aSDP4.E1_XMO      = aBuffer.getDouble();
+    aSDP4.E1_XNODEO   = aBuffer.getDouble();
+    aSDP4.E1_OMEGAO   = aBuffer.getDouble();
+    aSDP4.E1_EO       = aBuffer.getDouble();
+    aSDP4.E1_XINCL    = aBuffer.getDouble();
+    aSDP4.E1_XNO      = aBuffer.getDouble();
+    aSDP4.E1_XNDT2O   = aBuffer.getDouble();
+    aSDP4.E1_XNDD6O   = aBuffer.getDouble();
+    aSDP4.E1_BSTAR    = aBuffer.getDouble();
+    aSDP4.E1_EPOCH    = aBuffer.getDouble();
+    aSDP4.apogee      = aBuffer.getDouble();
+    aSDP4.perigee     = aBuffer.getDouble();
+    aSDP4.inclination = aBuffer.getDouble();
+    aSDP4.period      = aBuffer.getDouble();
+    aBuffer.position(aOffset + SGP4OFF + NSGP4 * 8);
+    aSDP4.itsName       = GetString(aBuffer, NAMELEN);
+    aSDP4.itsDesignator = GetString(aBuffer, DESIGLEN);
+
+    aSDP4.InitModel();
+
+    return;
+  }
+
+
+  /**
+   * Write a binary file.
+   *
+   * <p>The file is first written under a temporary name and then renamed,
+   * so that an interrupted write leaves no partial binary file behind.  The
+   * temporary file is made unique in the directory of the binary file, so
+   * that two writers do not share it and the rename stays on one disk.  The
+   * rename replaces an existing binary file in one step, so that readers see
+   * either the old or the new file.  Only where the platform cannot rename
+   * over an existing file is the old file deleted first.
+   *
+   * @param aBinary
+   *   The binary file.
+   * @param aModified
+   *   The modification time of the text file before it was read.
+   * @param aLength
+   *   The length of the text file before it was read.
+   * @param aSatellites
+   *   The satellites read from the text file, in the order of the file. */
+
+  public static final void Write(File aBinary, long aModified, long aLength,
+				 List<SDP4> aSatellites)
+    throws IOException
+  {
+    File         theTemp;
+    OutputStream theStream;
+    ByteBuffer   theBuffer;
+
+    theBuffer = Make(aModified, aLength, aSatellites, false);
+
+    theTemp = File.createTempFile(aBinary.getName() + ".tmp", "",
+				  aBinary.getAbsoluteFile().getParentFile());
+    try {
+      theStream = new FileOutputStream(theTemp);
+      try {theStream.write(theBuffer.array());}
+      finally {theStream.close();}
+    }
+    catch (IOException e) {theTemp.delete(); throw e;}
+
+    if (!theTemp.renameTo(aBinary)) {
+      aBinary.delete();
+      if (!theTemp.renameTo(aBinary)) {
+	theTemp.delete();
+	throw new IOException("cannot rename " + theTemp.getPath());
+      }
+    }
+
+    return;
+  }
+
+
+  /**
+   * Make the contents of a binary file in memory.
+   *
+   * <p>The returned buffer is positioned at the first record, as if
+   * returned by Map().  At most {@link #MAXCOUNT MAXCOUNT} satellites fit.
+   *
+   * @param aModified
+   *   The modification time of the text file before it was read.
+   * @param aLength
+   *   The length of the text file before it was read.
+   * @param aSatellites
+   *   The satellites read from the text file, in the order of the file.
+   * @param isDirect
+   *   Whether to allocate the buffer outside the Java heap. */
+
+  public static final ByteBuffer Make(long aModified, long aLength,
+				      List<SDP4> aSatellites, boolean isDirect)
+  {
+    ByteBuffer theBuffer;
+    int        theSize, i;
+
+    if (MAXCOUNT < aSatellites.size())
+      throw new IllegalArgumentException("too many satellites for a buffer");
+    theSize = HEADLEN + aSatellites.size() * RECLEN;
+    if (isDirect) {theBuffer = ByteBuffer.allocateDirect(theSize);}
+    else          {theBuffer = ByteBuffer.allocate(theSize);}
+    PutHeader(theBuffer, aModified, aLength, aSatellites.size());
+
+    for (i = 0; i < aSatellites.size(); i++) {
+      Put(theBuffer, aSatellites.get(i));
+    }
+
+    theBuffer.position(HEADLEN);
+
+    return theBuffer;
+  }
+
+
+  /**
+   * Write the header.
+   *
+   * @param aBuffer
+   *   The buffer positioned at the start of the file.
+   * @param aModified
+   *   The modification time of the text file before it was read.
+   * @param aLength
+   *   The length of the text file before it was read.
+   * @param aCount
+   *   The number of records that follow. */
+
+  protected static final void PutHeader(ByteBuffer aBuffer, long aModified,
+					long aLength, int aCount)
+  {
+    aBuffer.putInt(MAGIC);
+    aBuffer.putInt(VERSION);
+    aBuffer.putLong(aModified);
+    aBuffer.putLong(aLength);
+    aBuffer.putInt(aCount);
+    aBuffer.putInt(RECLEN);
+    return;
+  }
+
+
+  /**
+   * Write one record.
+   *
+   * @param aBuffer
+   *   The buffer positioned where the record goes.
+   * @param aSDP4
+   *   The satellite, which must have read its TLE. */
+
+  protected static final void Put(ByteBuffer aBuffer, SDP4 aSDP4)
+  {
+    aBuffer.putInt(aSDP4.itsNumber);
+    aBuffer.putInt(aSDP4.itsIsDeep);
+    aBuffer.putInt(aSDP4.SGP4_ISIMP);
+    aBuffer.putInt(0);
+    aBuffer.putDouble(aSDP4.itsEpochJD);
+    aBuffer.putDouble(aSDP4.E1_XMO);
+    aBuffer.putDouble(aSDP4.E1_XNODEO);
+    aBuffer.putDouble(aSDP4.E1_OMEGAO);
+    aBuffer.putDouble(aSDP4.E1_EO);
+    aBuffer.putDouble(aSDP4.E1_XINCL);
+    aBuffer.putDouble(aSDP4.E1_XNO);
+    aBuffer.putDouble(aSDP4.E1_XNDT2O);
+    aBuffer.putDouble(aSDP4.E1_XNDD6O);
+    aBuffer.putDouble(aSDP4.E1_BSTAR);
+    aBuffer.putDouble(aSDP4.E1_EPOCH);
+    aBuffer.putDouble(aSDP4.apogee);
+    aBuffer.putDouble(aSDP4.perigee);
+    aBuffer.putDouble(aSDP4.inclination);
+    aBuffer.putDouble(aSDP4.period);
+    aBuffer.putDouble(aSDP4.SGP4_AODP);
+    aBuffer.putDouble(aSDP4.SGP4_AYCOF);
+    aBuffer.putDouble(aSDP4.SGP4_C1);
+    aBuffer.putDouble(aSDP4.SGP4_C4);
+    aBuffer.putDouble(aSDP4.SGP4_C5);
+    aBuffer.putDouble(aSDP4.SGP4_COSIO);
+    aBuffer.putDouble(aSDP4.SGP4_D2);
+    aBuffer.putDouble(aSDP4.SGP4_D3);
+    aBuffer.putDouble(aSDP4.SGP4_D4);
+    aBuffer.putDouble(aSDP4.SGP4_DELMO);
+    aBuffer.putDouble(aSDP4.SGP4_ETA);
+    aBuffer.putDouble(aSDP4.SGP4_OMGCOF);
+    aBuffer.putDouble(aSDP4.SGP4_OMGDOT);
+    aBuffer.putDouble(aSDP4.SGP4_SINIO);
+    aBuffer.putDouble(aSDP4.SGP4_SINMO);
+    aBuffer.putDouble(aSDP4.SGP4_T2COF);
+    aBuffer.putDouble(aSDP4.SGP4_T3COF);
+    aBuffer.putDouble(aSDP4.SGP4_T4COF);
+    aBuffer.putDouble(aSDP4.SGP4_T5COF);
+    aBuffer.putDouble(aSDP4.SGP4_X1MTH2);
+    aBuffer.putDouble(aSDP4.SGP4_X3THM1);
+    aBuffer.putDouble(aSDP4.SGP4_X7THM1);
+    aBuffer.putDouble(aSDP4.SGP4_XLCOF);
+    aBuffer.putDouble(aSDP4.SGP4_XMCOF);
+    aBuffer.putDouble(aSDP4.SGP4_XMDOT);
+    aBuffer.putDouble(aSDP4.SGP4_XNODCF);
+    aBuffer.putDouble(aSDP4.SGP4_XNODOT);
+    aBuffer.putDouble(aSDP4.SGP4_XNODP);
+    PutString(aBuffer, aSDP4.itsName, NAMELEN);
+    PutString(aBuffer, aSDP4.itsDesignator, DESIGLEN);
+    return;
+  }
+
+
+  /**
+   * Read a string of fixed length, padded with null characters.
+   *
+   * @param aBuffer
+   *   The buffer positioned at the string.
+   * @param aLength
+   *   The number of characters stored. */
+
+  protected static final String GetString(ByteBuffer aBuffer, int aLength)
+  {
+    char theChars[] = new char[aLength];
+    int  theLength, i;
+
+    theLength = aLength;
+    for (i = 0; i < aLength; i++) {
+      theChars[i] = aBuffer.getChar();
+      if (0 == theChars[i] && theLength == aLength) theLength = i;
+    }
+
+    return new String(theChars, 0, theLength);
+  }
+
+
+  /**
+   * Write a string of fixed length, padded with null characters.
+   *
+   * <p>A longer string is truncated.
+   *
+   * @param aBuffer
+   *   The buffer positioned where the string goes.
+   * @param aString
+   *   The string.
+   * @param aLength
+   *   The number of characters to store. */
+
+  protected static final void PutString(ByteBuffer aBuffer, String aString,
+					int aLength)
+  {
+    int i;
+
+    for (i = 0; i < aLength; i++) {
+      if (null != aString && i < aString.length())
+	{aBuffer.putChar(aString.charAt(i));}
+      else
+	{aBuffer.putChar((char) 0);}
+    }
+
+    return;
+  }
+}
@@ -0,0 +1,301 @@
+package uk.me.chiandh.Lib;
+
+/**
+ * <p>The <code>SDP4Cache</code> class interpolates the position and velocity
+ * of a satellite between evaluations of the SGP4 or SDP4 model.</p>
+ *
+ * <p>For display purposes a satellite position needs to be accurate only to
+ * a fraction of a pixel, while the full model is expensive, particularly for
+ * long-period satellites.  This class therefore evaluates the model of an
+ * {@link SDP4 SDP4} instance only at the ends of time segments, and
+ * interpolates within each segment with the cubic Hermite polynomial that
+ * matches position and velocity at both ends.  Segments are aligned to
+ * multiples of their length, and when the requested time moves into the
+ * neighbouring segment, the common end is re-used.  Playing time forward or
+ * backward at any speed thus needs two model evaluations per segment, one
+ * for the new end and one for the check in the middle.  A segment that has
+ * to be halved costs three more evaluations for each halving, since
+ * neither of its ends can be re-used.</p>
+ *
+ * <p>For a smooth orbit the error of the interpolation is largest near the
+ * middle of a segment.  Each new segment is checked there against the
+ * model.  If the deviation is above the given bound, the segment length is
+ * halved and the segment re-made.  If the deviation is well below the
+ * bound, the next segment will be twice as long.  Segments are between one
+ * second and a quarter revolution long.</p>
+ *
+ * <p>The bound is thus an estimate from the middle of each segment, not a
+ * guarantee for every time in it.  Where the curvature of the orbit changes
+ * quickly within a segment, near the perigee of an eccentric orbit, the
+ * largest error lies off the middle and can exceed the bound.  For a
+ * transfer orbit to geostationary altitude and a bound of 1E-7&nbsp;Gm,
+ * errors up to 1.5E-7&nbsp;Gm were seen.  Callers who need a strict bound
+ * should pass about half the error they can accept.</p>
+ *
+ * <p>To use this class:</p>
+ *
+ * <ol>
+ *   <li>Read the TLE into an SDP4 instance.</li>
+ *   <li>Create an instance of this class.</li>
+ *   <li>Invoke its Init() method with the SDP4 instance and the error
+ *   bound.</li>
+ *   <li>Invoke its GetPosVel() method for each time of interest and take
+ *   the position and velocity from itsR and itsV.</li>
+ *   <li>After the SDP4 instance has read another TLE, invoke Reset().</li>
+ * </ol>
+ *
+ * <p>The SDP4 instance is calculated with a workspace owned by the cache,
+ * so that its own itsR and itsV are not changed.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class SDP4Cache
+{
+  /** Position vector [Gm] */
+  public double[] itsR = {0.,0.,0.};
+  /** Velocity vector [km/s] */
+  public double[] itsV = {0.,0.,0.};
+
+  /** Velocity in Gm/d per km/s. */
+  protected static final double KMS2GMD = 86400. / 1E6;
+
+  /** The shortest segment [d]. */
+  protected static final double MINSTEP = 1. / 86400.;
+
+  /** The satellite. */
+  protected SDP4 itsSDP4;
+
+  /** The workspace for the satellite's model. */
+  protected SDP4Workspace itsWork;
+
+  /** The maximum position error [Gm]. */
+  protected double itsMaxError;
+
+  /** The segment length for the next new segment [d]. */
+  protected double itsStep;
+
+  /** The longest segment [d]. */
+  protected double itsMaxStep;
+
+  /** Start and end time of the current segment. */
+  protected double itsT0, itsT1;
+
+  /* Position [Gm] and velocity [Gm/d] at start and end of the segment. */
+
+  protected double[] itsR0, itsV0, itsR1, itsV1;
+
+
+  /**
+   * Initialise the cache.
+   *
+   * @param aSatellite
+   *   The satellite, which must have read its TLE already.
+   * @param aMaxError
+   *   The maximum position error [Gm], as checked in the middle of each
+   *   segment. */
+
+  public void Init(SDP4 aSatellite, double aMaxError)
+  {
+    itsSDP4     = aSatellite;
+    itsMaxError = aMaxError;
+    itsWork = new SDP4Workspace();
+    itsR0 = new double[3]; itsV0 = new double[3];
+    itsR1 = new double[3]; itsV1 = new double[3];
+    Reset();
+    return;
+  }
+
+
+  /**
+   * Calculate position and velocity.
+   *
+   * <p>This interpolates the position and velocity for the given time, and
+   * stores them in itsR and itsV.  If the time is outside the current
+   * segment, a new segment is made first.
+   *
+   * @param aJulDate
+   *   The time for which the calculation should take place.  This must be
+   *   given in units of days as the Julian Day minus 2450000 days. */
+
+  public final void GetPosVel(double aJulDate)
+  {
+    int i;
+
+    if (!(itsT0 <= aJulDate && aJulDate <= itsT1)) NewSegment(aJulDate);
+    Hermite(aJulDate, itsR, itsV);
+    for (i = 0; i < 3; i++) itsV[i] /= KMS2GMD;
+    return;
+  }
+
+
+  /**
+   * Discard the current segment.
+   *
+   * <p>This must be called after the satellite has read another TLE.  It
+   * also sets the segment length to 1/32 revolution, from where it adapts
+   * to the error bound. */
+
+  public final void Reset()
+  {
+    itsT0 = Double.NaN; itsT1 = Double.NaN;
+    itsMaxStep = itsSDP4.period / 1440. / 4.;
+    itsStep    = itsMaxStep / 8.;
+    if (MINSTEP > itsMaxStep) itsMaxStep = MINSTEP;
+    if (MINSTEP > itsStep)    itsStep    = MINSTEP;
+    return;
+  }
+
+
+  /**
+   * Evaluate the model.
+   *
+   * @param aJulDate
+   *   The time.
+   * @param aR
+   *   The returned position [Gm].
+   * @param aV
+   *   The returned velocity [Gm/d]. */
+
+  protected final void Eval(double aJulDate, double aR[], double aV[])
+  {
+    int i;
+
+    itsSDP4.GetPosVel(aJulDate, itsWork);
+    for (i = 0; i < 3; i++) {
+      aR[i] = itsWork.itsR[i];
+      aV[i] = itsWork.itsV[i] * KMS2GMD;
+    }
+    return;
+  }
+
+
+  /**
+   * Interpolate in the current segment.
+   *
+   * <p>With s = (t - t0) / h the interpolation is
+   *
+   * <p>r = (2s<sup>3</sup> - 3s<sup>2</sup> + 1) r0
+   *      + (s<sup>3</sup> - 2s<sup>2</sup> + s) h v0
+   *      + (-2s<sup>3</sup> + 3s<sup>2</sup>) r1
+   *      + (s<sup>3</sup> - s<sup>2</sup>) h v1
+   *
+   * <p>and the velocity is its derivative.
+   *
+   * @param aJulDate
+   *   The time.
+   * @param aR
+   *   The returned position [Gm].
+   * @param aV
+   *   The returned velocity [Gm/d]. */
+
+  protected final void Hermite(double aJulDate, double aR[], double aV[])
+  {
+    double h, s, s2, s3;
+    double h00, h10, h01, h11, d00, d10, d01, d11;
+    int    i;
+
+    h  = itsT1 - itsT0;
+    s  = (aJulDate - itsT0) / h;
+    s2 = s * s;
+    s3 = s2 * s;
+
+    h00 =  2. * s3 - 3. * s2 + 1.;
+    h10 =       s3 - 2. * s2 + s;
+    h01 = -2. * s3 + 3. * s2;
+    h11 =       s3 -      s2;
+    d00 =  6. * s2 - 6. * s;
+    d10 =  3. * s2 - 4. * s  + 1.;
+    d01 = -6. * s2 + 6. * s;
+    d11 =  3. * s2 - 2. * s;
+
+    for (i = 0; i < 3; i++) {
+      aR[i] = h00 * itsR0[i] + h10 * h * itsV0[i]
+            + h01 * itsR1[i] + h11 * h * itsV1[i];
+      aV[i] = (d00 * itsR0[i] + d01 * itsR1[i]) / h
+            +  d10 * itsV0[i] + d11 * itsV1[i];
+    }
+
+    return;
+  }
+
+
+  /**
+   * Make the segment that contains the given time.
+   *
+   * @param aJulDate
+   *   The time. */
+
+  protected final void NewSegment(double aJulDate)
+  {
+    double theR[] = new double[3];
+    double theV[] = new double[3];
+    double theRmid[] = new double[3];
+    double theVmid[] = new double[3];
+    double t0, t1, theError;
+    int    i;
+
+    for (;;) {
+
+      /* The segment of the current length that contains the time.  If it
+       * borders on the current segment, re-use the common end. */
+
+      t0 = itsStep * Math.floor(aJulDate / itsStep);
+      t1 = t0 + itsStep;
+      if (t0 == itsT1) {
+	for (i = 0; i < 3; i++) {itsR0[i] = itsR1[i]; itsV0[i] = itsV1[i];}
+	Eval(t1, itsR1, itsV1);
+      }
+      else if (t1 == itsT0) {
+	for (i = 0; i < 3; i++) {itsR1[i] = itsR0[i]; itsV1[i] = itsV0[i];}
+	Eval(t0, itsR0, itsV0);
+      }
+      else {
+	Eval(t0, itsR0, itsV0);
+	Eval(t1, itsR1, itsV1);
+      }
+      itsT0 = t0; itsT1 = t1;
+
+      /* Compare with the model in the middle. */
+
+      Eval(0.5 * (t0 + t1), theRmid, theVmid);
+      Hermite(0.5 * (t0 + t1), theR, theV);
+      theError = Math.sqrt(
+	  (theR[0] - theRmid[0]) * (theR[0] - theRmid[0])
+	+ (theR[1] - theRmid[1]) * (theR[1] - theRmid[1])
+	+ (theR[2] - theRmid[2]) * (theR[2] - theRmid[2]));
+
+      /* Too large an error, halve the step and try again.  This
+       * segment is no longer needed. */
+
+      if (theError > itsMaxError && itsStep > MINSTEP) {
+	itsStep /= 2.;
+	if (MINSTEP > itsStep) itsStep = MINSTEP;
+	itsT0 = Double.NaN; itsT1 = Double.NaN;
+	continue;
+      }
+
+      /* The error goes with the fourth power of the step.  If it is well
+       * below the bound, the next segment can be twice as long. */
+
+      if (theError < itsMaxError / 32. && 2. * itsStep <= itsMaxStep) {
+	itsStep *= 2.;
+      }
+
+      break;
+    }
+
+    return;
+  }
+}
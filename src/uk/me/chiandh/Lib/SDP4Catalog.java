@@ -0,0 +1,344 @@
+package uk.me.chiandh.Lib;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * <p>The <code>SDP4Catalog</code> class calculates satellites straight from
+ * their records in a buffer outside the Java heap.</p>
+ *
+ * <p>A large catalogue, such as a full catalogue or a historical collection
+ * of TLEs, takes much heap space and garbage collection time if each
+ * satellite is held in an {@link SDP4 SDP4} instance.  This class instead
+ * keeps the satellites in the records of the
+ * {@link SDP4Binary SDP4Binary} format, either in a binary file mapped
+ * into memory or in a direct buffer.  The records are held in windows of
+ * 2<sup>{@link SDP4Binary#WINBITS WINBITS}</sup> records, each a buffer of
+ * its own, so that a file can be larger than the 2 GiB a single buffer can
+ * address.  For short-period satellites the
+ * records hold the SGP4 model constants, and the SGP4 model runs with the
+ * constants read from the record, without any object being made.  For
+ * long-period satellites an SDP4 instance is made from the record when the
+ * satellite is first calculated, and is kept for later use.  The results
+ * are bit-identical to those from
+ * {@link SDP4#GetPosVel(double) SDP4.GetPosVel}.</p>
+ *
+ * <p>Several threads can calculate satellites at the same time, each with
+ * its own workspace.</p>
+ *
+ * <p>To use this class:</p>
+ *
+ * <ol>
+ *   <li>Create an instance of the class.</li>
+ *   <li>Invoke its Init() method with a current binary file, or with the
+ *   satellites after reading their TLEs.</li>
+ *   <li>Invoke one of its GetPosVel() methods with the Julian Date of
+ *   interest.</li>
+ * </ol>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class SDP4Catalog
+{
+  /* The offsets within a record of the fields read here [byte]. */
+
+  protected static final int NUMBER = 0, ISDEEP = 4, ISIMP = 8,
+    EPOCHJD = 16, XMO = 24, XNODEO = 32, OMEGAO = 40, EO = 48, XINCL = 56,
+    BSTAR = 88;
+
+  /** The records in windows of 2<sup>WINBITS</sup>, read only with
+   * absolute positions. */
+  protected ByteBuffer itsWindows[];
+
+  /** The number of satellites. */
+  protected int itsN;
+
+  /** The SDP4 instances of long-period satellites, made on first use. */
+  protected SDP4 itsDeep[];
+
+
+  /**
+   * Initialise from a binary file.
+   *
+   * <p>The file is mapped into memory, so that only the parts used take up
+   * memory, and that memory is outside the Java heap.  It is mapped in
+   * windows, so that it can hold up to 2<sup>31</sup> - 1 records.
+   *
+   * @param aBinary
+   *   The binary file, as written by
+   *   {@link SDP4Binary#Write SDP4Binary.Write}. */
+
+  public void Init(File aBinary)
+    throws IOException
+  {
+    itsN       = SDP4Binary.GetCount(aBinary);
+    itsWindows = SDP4Binary.MapWindows(aBinary, SDP4Binary.HEADLEN, itsN);
+    itsDeep    = new SDP4[itsN];
+    return;
+  }
+
+
+  /**
+   * Initialise from satellites.
+   *
+   * <p>The satellites are copied into a direct buffer, outside the Java
+   * heap.  They are not used any further and can be discarded.
+   *
+   * @param aSatellites
+   *   The satellites, which must have read their TLEs. */
+
+  public void Init(List<SDP4> aSatellites)
+  {
+    ByteBuffer theBuffer;
+    int        theFrom, theTo, w;
+
+    theBuffer  = SDP4Binary.Make(0L, 0L, aSatellites, true);
+    itsN       = aSatellites.size();
+    itsDeep    = new SDP4[itsN];
+
+    /* Cut the buffer into windows. */
+
+    itsWindows = new ByteBuffer[(itsN + (1 << SDP4Binary.WINBITS) - 1)
+				>>> SDP4Binary.WINBITS];
+    for (w = 0; w < itsWindows.length; w++) {
+      theFrom = w << SDP4Binary.WINBITS;
+      theTo   = Math.min(itsN, theFrom + (1 << SDP4Binary.WINBITS));
+      theBuffer.limit(SDP4Binary.HEADLEN + theTo * SDP4Binary.RECLEN);
+      theBuffer.position(SDP4Binary.HEADLEN + theFrom * SDP4Binary.RECLEN);
+      itsWindows[w] = theBuffer.slice();
+    }
+
+    return;
+  }
+
+
+  /**
+   * Return the number of satellites. */
+
+  public final int GetN() {return itsN;}
+
+
+  /**
+   * Return the catalogue number of a satellite.
+   *
+   * @param aIndex
+   *   The number of the satellite, counting from 0. */
+
+  public final int GetNumber(int aIndex)
+  {
+    return Window(aIndex).getInt(Offset(aIndex) + NUMBER);
+  }
+
+
+  /**
+   * Return the epoch of the elements of a satellite.
+   *
+   * @param aIndex
+   *   The number of the satellite, counting from 0.
+   * @return
+   *   The epoch, as the Julian Day minus 2450000 days. */
+
+  public final double GetEpochJD(int aIndex)
+  {
+    return Window(aIndex).getDouble(Offset(aIndex) + EPOCHJD);
+  }
+
+
+  /**
+   * Return the name of a satellite.
+   *
+   * @param aIndex
+   *   The number of the satellite, counting from 0. */
+
+  public final String GetName(int aIndex)
+  {
+    ByteBuffer theBuffer = Window(aIndex).duplicate();
+    theBuffer.position(Offset(aIndex) + SDP4Binary.SGP4OFF
+		       + SDP4Binary.NSGP4 * 8);
+    return SDP4Binary.GetString(theBuffer, SDP4Binary.NAMELEN);
+  }
+
+
+  /**
+   * Return a satellite as an SDP4 instance.
+   *
+   * <p>A new instance is made from the record each time.
+   *
+   * @param aIndex
+   *   The number of the satellite, counting from 0. */
+
+  public final SDP4 GetSDP4(int aIndex)
+  {
+    SDP4 theSDP4;
+
+    theSDP4 = new SDP4();
+    theSDP4.Init();
+    SDP4Binary.ReadAt(Window(aIndex).duplicate(), Offset(aIndex), theSDP4);
+
+    return theSDP4;
+  }
+
+
+  /**
+   * Calculate position and velocity of one satellite.
+   *
+   * @param aIndex
+   *   The number of the satellite, counting from 0.
+   * @param aJulDate
+   *   The time for which the calculation should take place.  This must be
+   *   given in units of days as the Julian Day minus 2450000 days.
+   * @param aWork
+   *   The workspace for the calculation, which also receives the position
+   *   and velocity in aWork.itsR[] and aWork.itsV[]. */
+
+  public final void GetPosVel(int aIndex, double aJulDate,
+			      SDP4Workspace aWork)
+  {
+    GetPosVel(aIndex, aJulDate, aWork.itsR, aWork.itsV, 0, aWork);
+    return;
+  }
+
+
+  /**
+   * Calculate positions and velocities of all satellites.
+   *
+   * <p>Satellite i is returned in elements 3i to 3i+2 of the arrays.
+   *
+   * @param aJulDate
+   *   The time for which the calculation should take place.  This must be
+   *   given in units of days as the Julian Day minus 2450000 days.
+   * @param aR
+   *   The array to receive the positions [Gm], at least 3 N elements long.
+   * @param aV
+   *   The array to receive the velocities [km/s], at least 3 N elements
+   *   long.
+   * @param aWork
+   *   The workspace for the long-period satellites. */
+
+  public final void GetPosVel(double aJulDate, double aR[], double aV[],
+			      SDP4Workspace aWork)
+  {
+    int i;
+
+    for (i = 0; i < itsN; i++) GetPosVel(i, aJulDate, aR, aV, 3 * i, aWork);
+
+    return;
+  }
+
+
+  /**
+   * Calculate position and velocity of one satellite into arrays.
+   *
+   * @param aIndex
+   *   The number of the satellite, counting from 0.
+   * @param aJulDate
+   *   The time, as the Julian Day minus 2450000 days.
+   * @param aR
+   *   The array to receive the position [Gm] in elements j to j+2.
+   * @param aV
+   *   The array to receive the velocity [km/s] in elements j to j+2.
+   * @param j
+   *   The index in aR and aV of the x component.
+   * @param aWork
+   *   The workspace for a long-period satellite. */
+
+  protected final void GetPosVel(int aIndex, double aJulDate,
+				 double aR[], double aV[], int j,
+				 SDP4Workspace aWork)
+  {
+    ByteBuffer b;
+    int        k, c;
+
+    b = Window(aIndex);
+    k = Offset(aIndex);
+
+    /* Long-period satellites are left to their SDP4 instance. */
+
+    if (0 != b.getInt(k + ISDEEP)) {
+      GetDeep(aIndex).GetPosVel(aJulDate, aWork);
+      aR[j]   = aWork.itsR[0];
+      aR[j+1] = aWork.itsR[1];
+      aR[j+2] = aWork.itsR[2];
+      aV[j]   = aWork.itsV[0];
+      aV[j+1] = aWork.itsV[1];
+      aV[j+2] = aWork.itsV[2];
+      return;
+    }
+
+    /* Short-period satellites run from the record.  The constants follow
+     * in the order of the arguments. */
+
+    c = k + SDP4Binary.SGP4OFF;
+    SDP4Batch.RunSGP4(SDP4.C1_XMNPDA * (aJulDate - b.getDouble(k + EPOCHJD)),
+      b.getInt(k + ISIMP), b.getDouble(k + XMO), b.getDouble(k + XNODEO),
+      b.getDouble(k + OMEGAO), b.getDouble(k + EO), b.getDouble(k + XINCL),
+      b.getDouble(k + BSTAR),
+      b.getDouble(c),       b.getDouble(c + 8),   b.getDouble(c + 16),
+      b.getDouble(c + 24),  b.getDouble(c + 32),  b.getDouble(c + 40),
+      b.getDouble(c + 48),  b.getDouble(c + 56),  b.getDouble(c + 64),
+      b.getDouble(c + 72),  b.getDouble(c + 80),  b.getDouble(c + 88),
+      b.getDouble(c + 96),  b.getDouble(c + 104), b.getDouble(c + 112),
+      b.getDouble(c + 120), b.getDouble(c + 128), b.getDouble(c + 136),
+      b.getDouble(c + 144), b.getDouble(c + 152), b.getDouble(c + 160),
+      b.getDouble(c + 168), b.getDouble(c + 176), b.getDouble(c + 184),
+      b.getDouble(c + 192), b.getDouble(c + 200), b.getDouble(c + 208),
+      b.getDouble(c + 216),
+      aR, aV, j);
+
+    return;
+  }
+
+
+  /**
+   * Return the SDP4 instance of a long-period satellite.
+   *
+   * <p>The instance is made from the record on first use.
+   *
+   * @param aIndex
+   *   The number of the satellite, counting from 0. */
+
+  protected final synchronized SDP4 GetDeep(int aIndex)
+  {
+    if (null == itsDeep[aIndex]) itsDeep[aIndex] = GetSDP4(aIndex);
+    return itsDeep[aIndex];
+  }
+
+
+  /**
+   * Return the window that holds a record.
+   *
+   * @param aIndex
+   *   The number of the satellite, counting from 0. */
+
+  protected final ByteBuffer Window(int aIndex)
+  {
+    if (0 > aIndex || itsN <= aIndex)
+      throw new IndexOutOfBoundsException("no satellite " + aIndex);
+    return itsWindows[aIndex >>> SDP4Binary.WINBITS];
+  }
+
+
+  /**
+   * Return the offset of a record in its window.
+   *
+   * @param aIndex
+   *   The number of the satellite, counting from 0. */
+
+  protected final int Offset(int aIndex)
+  {
+    return (aIndex & ((1 << SDP4Binary.WINBITS) - 1)) * SDP4Binary.RECLEN;
+  }
+}
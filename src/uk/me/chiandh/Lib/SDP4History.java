@@ -0,0 +1,380 @@
+package uk.me.chiandh.Lib;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>The <code>SDP4History</code> class calculates satellites for past
+ * times from a history of their TLEs.</p>
+ *
+ * <p>An {@link SDP4 SDP4} instance holds a single TLE, and its accuracy
+ * falls off with the time from the epoch of that TLE.  For times well in
+ * the past it is better to use the TLE whose epoch is nearest that time.
+ * This class keeps many TLEs for each satellite and for each calculation
+ * selects the TLE with the nearest epoch.</p>
+ *
+ * <p>The history is a binary file in the format of
+ * {@link SDP4Binary SDP4Binary}, with the records sorted by catalogue
+ * number and, for each satellite, by epoch.  The file is made once from
+ * TLE archives with Import().  It is then used through an
+ * {@link SDP4Catalog SDP4Catalog}, so that the records stay outside the
+ * Java heap.  Only the catalogue numbers and epochs are held in arrays on
+ * the heap, 12 bytes per TLE, and the nearest epoch is found by binary
+ * search in them.</p>
+ *
+ * <p>To use this class:</p>
+ *
+ * <ol>
+ *   <li>Invoke the static Import() method once to make the history file
+ *   from the TLE archives.</li>
+ *   <li>Create an instance of the class.</li>
+ *   <li>Invoke its Init() method with the history file.</li>
+ *   <li>Invoke its GetPosVel() method with the catalogue number and the
+ *   Julian Date of interest.</li>
+ * </ol>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class SDP4History
+{
+  /** The records. */
+  protected SDP4Catalog itsCatalog;
+
+  /** The catalogue number of each record, in ascending order. */
+  protected int itsNumber[];
+
+  /** The epoch of each record, ascending for each catalogue number
+   * [JD - 2450000 d]. */
+  protected double itsEpoch[];
+
+
+  /**
+   * Initialise from a history file.
+   *
+   * @param aBinary
+   *   The history file, as written by Import(). */
+
+  public void Init(File aBinary)
+    throws IOException
+  {
+    int i, n;
+
+    itsCatalog = new SDP4Catalog();
+    itsCatalog.Init(aBinary);
+
+    n = itsCatalog.GetN();
+    itsNumber = new int[n];
+    itsEpoch  = new double[n];
+    for (i = 0; i < n; i++) {
+      itsNumber[i] = itsCatalog.GetNumber(i);
+      itsEpoch[i]  = itsCatalog.GetEpochJD(i);
+      if (0 < i && (itsNumber[i-1] > itsNumber[i]
+		    || (itsNumber[i-1] == itsNumber[i]
+			&& itsEpoch[i-1] > itsEpoch[i])))
+	throw new IOException("binary TLE file not sorted");
+    }
+
+    return;
+  }
+
+
+  /**
+   * Return the records. */
+
+  public final SDP4Catalog GetCatalog() {return itsCatalog;}
+
+
+  /**
+   * Return the record with the nearest epoch.
+   *
+   * <p>Of two records equally near the time, the earlier one is returned.
+   *
+   * @param aNumber
+   *   The NORAD catalogue number of the satellite.
+   * @param aJulDate
+   *   The time, as the Julian Day minus 2450000 days.
+   * @return
+   *   The number of the record, counting from 0, or -1 if the satellite is
+   *   not in the history. */
+
+  public final int Find(int aNumber, double aJulDate)
+  {
+    int lo, hi, mid, first;
+
+    /* The first record of the satellite. */
+
+    lo = 0; hi = itsNumber.length;
+    while (lo < hi) {
+      mid = (lo + hi) >>> 1;
+      if (itsNumber[mid] < aNumber) {lo = mid + 1;}
+      else                          {hi = mid;}
+    }
+    if (lo == itsNumber.length || itsNumber[lo] != aNumber) return -1;
+    first = lo;
+
+    /* The first record of the satellite at or after the time. */
+
+    hi = itsNumber.length;
+    while (lo < hi) {
+      mid = (lo + hi) >>> 1;
+      if (itsNumber[mid] < aNumber
+	  || (itsNumber[mid] == aNumber && itsEpoch[mid] < aJulDate)) {
+	lo = mid + 1;
+      }
+      else {
+	hi = mid;
+      }
+    }
+
+    /* That record or the one before it. */
+
+    if (lo == first) return lo;
+    if (lo == itsNumber.length || itsNumber[lo] != aNumber) return lo - 1;
+    if (aJulDate - itsEpoch[lo-1] <= itsEpoch[lo] - aJulDate) return lo - 1;
+    return lo;
+  }
+
+
+  /**
+   * Calculate position and velocity of a satellite.
+   *
+   * <p>The TLE with the epoch nearest the given time is used.
+   *
+   * @param aNumber
+   *   The NORAD catalogue number of the satellite.
+   * @param aJulDate
+   *   The time for which the calculation should take place.  This must be
+   *   given in units of days as the Julian Day minus 2450000 days.
+   * @param aWork
+   *   The workspace for the calculation, which also receives the position
+   *   and velocity in aWork.itsR[] and aWork.itsV[]. */
+
+  public final void GetPosVel(int aNumber, double aJulDate,
+			      SDP4Workspace aWork)
+    throws SDP4NoSatException
+  {
+    int theIndex;
+
+    theIndex = Find(aNumber, aJulDate);
+    if (0 > theIndex)
+      throw new SDP4NoSatException("satellite " + aNumber
+				   + " not in history");
+    itsCatalog.GetPosVel(theIndex, aJulDate, aWork);
+
+    return;
+  }
+
+
+  /**
+   * Make a history file from TLE archives.
+   *
+   * <p>The archives are text files of TLEs one after the other, as TLE
+   * files or as the concatenation of several of them.  The lines of
+   * elements may each be preceded by a name line or not.  Other lines are
+   * ignored unless line 1 follows them, and so are TLEs that cannot be
+   * read, such as those with check sum errors.  A TLE
+   * without a name takes its designator as name.  Where a satellite has
+   * several TLEs with the same epoch, only the first one is kept.
+   *
+   * <p>The records are first written to a temporary file in the order read,
+   * then sorted and copied to the history file.  The temporary file is
+   * mapped in windows, so that it may be larger than 2 GiB.  The history
+   * file is written under a temporary name and then renamed over the old
+   * one, which is deleted first only if the rename fails.
+   *
+   * @param aBinary
+   *   The history file to write.
+   * @param aArchives
+   *   The TLE archives.
+   * @return
+   *   The number of TLEs in the history. */
+
+  public static final int Import(File aBinary, List<File> aArchives)
+    throws IOException
+  {
+    BufferedReader theReader;
+    OutputStream   theStream;
+    ByteBuffer     theRecord, theWindows[];
+    File           theTemp, theSorted;
+    SDP4           theSDP4;
+    String         theName, theLine, theLine2;
+    long           theKeys[];
+    int            theNumbers[], theOrder[], n, m, i, k;
+    double         theEpochs[], theRanks[];
+
+    theSDP4 = new SDP4();
+    theSDP4.Init();
+    theRecord  = ByteBuffer.allocate(SDP4Binary.RECLEN);
+    theNumbers = new int[1024];
+    theEpochs  = new double[1024];
+    n = 0;
+
+    /* Read the archives and write their records in that order. */
+
+    theTemp = new File(aBinary.getPath() + ".unsorted");
+    theStream = new BufferedOutputStream(new FileOutputStream(theTemp), 65536);
+    try {
+      for (File theArchive : aArchives) {
+	theReader = new BufferedReader(new InputStreamReader(
+	  new FileInputStream(theArchive), SDP4Index.CHARSET), 65536);
+	try {
+	  theName = null;
+	  theLine = theReader.readLine();
+	  while (null != theLine) {
+	    if (!theLine.startsWith("1 ")) {
+	      theName = theLine.trim();
+	      theLine = theReader.readLine();
+	      continue;
+	    }
+	    theLine2 = theReader.readLine();
+	    if (null == theLine2 || !theLine2.startsWith("2 ")) {
+	      theName = null;
+	      theLine = theLine2;
+	      continue;
+	    }
+	    try {
+	      theSDP4.ParseNorad12(theLine.toCharArray(), theLine.length(),
+				   theLine2.toCharArray(), theLine2.length());
+	    }
+	    catch (SDP4Exception e) {
+	      theName = null;
+	      theLine = theReader.readLine();
+	      continue;
+	    }
+	    if (null == theName || 0 == theName.length()) {
+	      theSDP4.itsName = theSDP4.itsDesignator.trim();
+	    }
+	    else if (22 < theName.length()) {
+	      theSDP4.itsName = theName.substring(0, 22).trim();
+	    }
+	    else {
+	      theSDP4.itsName = theName;
+	    }
+
+	    theRecord.clear();
+	    SDP4Binary.Put(theRecord, theSDP4);
+	    theStream.write(theRecord.array(), 0, SDP4Binary.RECLEN);
+
+	    if (n == theNumbers.length) {
+	      theNumbers = Arrays.copyOf(theNumbers, 2 * n);
+	      theEpochs  = Arrays.copyOf(theEpochs,  2 * n);
+	    }
+	    theNumbers[n] = theSDP4.itsNumber;
+	    theEpochs[n]  = theSDP4.itsEpochJD;
+	    n++;
+
+	    theName = null;
+	    theLine = theReader.readLine();
+	  }
+	}
+	finally {theReader.close();}
+      }
+    }
+    catch (IOException e) {theStream.close(); theTemp.delete(); throw e;}
+    theStream.close();
+
+    /* Sort by number and epoch, with equal records in the order read.
+     * The epochs are replaced by their rank among all epochs, and the
+     * records are sorted as packed keys of rank and index.  Then they are
+     * sorted again as keys of number and position in that order. */
+
+    theRanks = Arrays.copyOf(theEpochs, n);
+    Arrays.sort(theRanks);
+    theKeys = new long[n];
+    for (i = 0; i < n; i++)
+      theKeys[i] = (long) Arrays.binarySearch(theRanks, theEpochs[i]) << 32
+		 | i;
+    Arrays.sort(theKeys);
+    theRanks = null;
+
+    theOrder = new int[n];
+    for (i = 0; i < n; i++) {
+      theOrder[i] = (int) theKeys[i];
+      theKeys[i]  = (long) theNumbers[theOrder[i]] << 32 | i;
+    }
+    Arrays.sort(theKeys);
+    for (i = 0; i < n; i++) theKeys[i] = theOrder[(int) theKeys[i]];
+    for (i = 0; i < n; i++) theOrder[i] = (int) theKeys[i];
+    theKeys = null;
+
+    /* Count the records without duplicates. */
+
+    m = 0;
+    for (i = 0; i < n; i++) if (!IsDuplicate(theOrder, i, theNumbers,
+					      theEpochs)) m++;
+
+    /* Copy the records in sorted order into the history file. */
+
+    theSorted = new File(aBinary.getPath() + ".tmp");
+    try {
+      theWindows = SDP4Binary.MapWindows(theTemp, 0L, n);
+      theStream = new BufferedOutputStream(new FileOutputStream(theSorted),
+					   65536);
+      try {
+	theRecord.clear();
+	SDP4Binary.PutHeader(theRecord, 0L, 0L, m);
+	theStream.write(theRecord.array(), 0, SDP4Binary.HEADLEN);
+	for (i = 0; i < n; i++) {
+	  if (IsDuplicate(theOrder, i, theNumbers, theEpochs)) continue;
+	  k = theOrder[i];
+	  theWindows[k >>> SDP4Binary.WINBITS].position(
+	    (k & ((1 << SDP4Binary.WINBITS) - 1)) * SDP4Binary.RECLEN);
+	  theWindows[k >>> SDP4Binary.WINBITS].get(theRecord.array(), 0,
+						   SDP4Binary.RECLEN);
+	  theStream.write(theRecord.array(), 0, SDP4Binary.RECLEN);
+	}
+      }
+      finally {theStream.close();}
+    }
+    catch (IOException e) {theSorted.delete(); throw e;}
+    finally {theTemp.delete();}
+
+    if (!theSorted.renameTo(aBinary)) {
+      aBinary.delete();
+      if (!theSorted.renameTo(aBinary)) {
+	theSorted.delete();
+	throw new IOException("cannot rename " + theSorted.getPath());
+      }
+    }
+
+    return m;
+  }
+
+
+  /**
+   * Whether a record in sorted order has the number and epoch of the one
+   * before it.
+   *
+   * @param aOrder
+   *   The sorted order of the records.
+   * @param i
+   *   The position in sorted order.
+   * @param aNumbers
+   *   The catalogue numbers of the records in the order read.
+   * @param aEpochs
+   *   The epochs of the records in the order read. */
+
+  private static final boolean IsDuplicate(int aOrder[], int i,
+					   int aNumbers[], double aEpochs[])
+  {
+    int j, k;
+
+    if (0 == i) return false;
+    j = aOrder[i-1]; k = aOrder[i];
+    return aNumbers[j] == aNumbers[k] && aEpochs[j] == aEpochs[k];
+  }
+}
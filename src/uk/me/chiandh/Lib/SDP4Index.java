@@ -0,0 +1,295 @@
+package uk.me.chiandh.Lib;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>The <code>SDP4Index</code> class locates the TLE of a satellite in a
+ * file by name or by catalogue number without scanning the file.</p>
+ *
+ * <p>The file is scanned once, and for each satellite the byte offset of
+ * its line triplet is remembered under the name and under the catalogue
+ * number.  As with
+ * {@link SDP4#NoradByName(String, String) SDP4.NoradByName}, a name is
+ * the trimmed line that precedes line 1 of the elements, and only the first
+ * occurence of a name or number is indexed.  The number is read from line 1
+ * and not verified any further.</p>
+ *
+ * <p>Indices are kept for the {@link #MAXFILES MAXFILES} files used most
+ * recently, under the canonical path of each file.  An index is used again
+ * only while the file has the same modification time and length as when it
+ * was scanned; otherwise the file is scanned again.</p>
+ *
+ * <p>The file is taken to be in the ISO-8859-1 encoding, both when it is
+ * scanned and when it is read by {@link #Open Open}, so that the names in
+ * the index are the names that NoradNext reads.  TLE files are plain ASCII,
+ * of which this is a superset.</p>
+ *
+ * <p>To use this class:</p>
+ *
+ * <ol>
+ *   <li>Invoke the static Get() method with the file name.</li>
+ *   <li>Invoke ByName() or ByNumber() of the returned index to obtain the
+ *   offset of the satellite's lines.</li>
+ *   <li>Open the file, skip to that offset and read the TLE with
+ *   {@link SDP4#NoradNext SDP4.NoradNext}.</li>
+ * </ol>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class SDP4Index
+{
+  /** The modification time of the file when it was scanned. */
+  protected long itsModified;
+
+  /** The length of the file when it was scanned. */
+  protected long itsLength;
+
+  /** The offset of each satellite by trimmed name. */
+  protected HashMap<String, Long> itsByName;
+
+  /** The offset of each satellite by catalogue number. */
+  protected HashMap<Integer, Long> itsByNumber;
+
+  /** The number of files whose indices are kept. */
+  public static final int MAXFILES = 8;
+
+  /** The encoding of TLE files. */
+  public static final String CHARSET = "ISO-8859-1";
+
+  /** The indices of the files used most recently, by canonical path, the
+   * least recently used first. */
+  protected static final LinkedHashMap<String, SDP4Index> theIndices
+    = new LinkedHashMap<String, SDP4Index>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<String, SDP4Index> aE) {
+	return size() > MAXFILES;
+      }
+    };
+
+
+  /**
+   * Return the index of a file.
+   *
+   * <p>The index made earlier is returned if the file has not changed since.
+   * Otherwise the file is scanned and a new index made, and if that makes
+   * more than {@link #MAXFILES MAXFILES} indices, the least recently used
+   * is dropped.
+   *
+   * @param aFileName
+   *   The name of the file that contains the TLE line triplets. */
+
+  public static final SDP4Index Get(String aFileName)
+    throws IOException
+  {
+    File      theFile;
+    String    thePath;
+    SDP4Index theIndex;
+
+    theFile = new File(aFileName);
+    thePath = theFile.getCanonicalPath();
+
+    synchronized (theIndices) {
+      theIndex = theIndices.get(thePath);
+      if (null == theIndex
+	  || theIndex.itsModified != theFile.lastModified()
+	  || theIndex.itsLength   != theFile.length()) {
+	theIndex = new SDP4Index();
+	theIndex.Init(theFile);
+	theIndices.put(thePath, theIndex);
+      }
+    }
+
+    return theIndex;
+  }
+
+
+  /**
+   * Scan a file and index its satellites.
+   *
+   * <p>The modification time and length are taken before the scan, so that
+   * a change during the scan will cause another scan on the next use.
+   *
+   * @param aFile
+   *   The file that contains the TLE line triplets. */
+
+  public void Init(File aFile)
+    throws IOException
+  {
+    InputStream theStream;
+    String  thePrevious, theLine;
+    long    thePrevOffset, theOffset;
+    int     theNumber, i;
+
+    itsModified = aFile.lastModified();
+    itsLength   = aFile.length();
+    itsByName   = new HashMap<String, Long>();
+    itsByNumber = new HashMap<Integer, Long>();
+
+    theStream = new BufferedInputStream(new FileInputStream(aFile), 65536);
+
+    /* For each line that begins like line 1 of the elements, the line before
+     * it has the name.  The catalogue number is in columns 3 to 7. */
+
+    try {
+      thePrevious = null; thePrevOffset = 0L; theOffset = 0L;
+      itsLineLength = 0;
+      for (;;) {
+	theOffset += ReadLine(theStream);
+	if (0 > itsLineLength) break;
+	theLine = new String(itsLine, 0, itsLineLength);
+	if (null != thePrevious && theLine.startsWith("1 ")) {
+	  thePrevious = thePrevious.trim();
+	  if (!itsByName.containsKey(thePrevious))
+	    itsByName.put(thePrevious, thePrevOffset);
+	  theNumber = 0;
+	  for (i = 2; i < 7 && i < itsLineLength; i++) {
+	    if (' ' == itsLine[i]) continue;
+	    if ('0' > itsLine[i] || '9' < itsLine[i]) {theNumber = -1; break;}
+	    theNumber = 10 * theNumber + (itsLine[i] - '0');
+	  }
+	  if (0 <= theNumber && !itsByNumber.containsKey(theNumber))
+	    itsByNumber.put(theNumber, thePrevOffset);
+	}
+	thePrevious   = theLine;
+	thePrevOffset = theOffset - itsLineBytes;
+      }
+    }
+    finally {
+      theStream.close();
+      itsLine = null;
+    }
+
+    return;
+  }
+
+
+  /**
+   * Return the offset of a satellite by name.
+   *
+   * @param aName
+   *   The name of the satellite.  It is trimmed of leading and trailing
+   *   blanks and must then equal the trimmed name line in the file.
+   * @return
+   *   The byte offset of the name line in the file, or -1 if the name is not
+   *   in the file. */
+
+  public final long ByName(String aName)
+  {
+    Long theOffset = itsByName.get(aName.trim());
+    if (null == theOffset) return -1L;
+    return theOffset.longValue();
+  }
+
+
+  /**
+   * Return the offset of a satellite by catalogue number.
+   *
+   * @param aNumber
+   *   The NORAD catalogue number of the satellite.
+   * @return
+   *   The byte offset of the name line in the file, or -1 if the number is
+   *   not in the file. */
+
+  public final long ByNumber(int aNumber)
+  {
+    Long theOffset = itsByNumber.get(aNumber);
+    if (null == theOffset) return -1L;
+    return theOffset.longValue();
+  }
+
+
+  /**
+   * Open a file positioned at the given offset.
+   *
+   * <p>The reader decodes the file as ISO-8859-1, like the scan.
+   *
+   * @param aFileName
+   *   The name of the file.
+   * @param aOffset
+   *   The byte offset from the start of the file. */
+
+  public static final BufferedReader Open(String aFileName, long aOffset)
+    throws IOException
+  {
+    InputStream theStream;
+    long        theSkipped;
+
+    theStream = new FileInputStream(aFileName);
+    try {
+      while (0L < aOffset) {
+	theSkipped = theStream.skip(aOffset);
+	if (0L >= theSkipped) throw new EOFException("TLE file too short");
+	aOffset -= theSkipped;
+      }
+      return new BufferedReader(new InputStreamReader(theStream, CHARSET));
+    }
+    catch (IOException e) {theStream.close(); throw e;}
+  }
+
+
+  /* The line being scanned, its length in characters (-1 at the end of the
+   * file) and the number of bytes taken up in the file. */
+
+  private char itsLine[] = new char[128];
+  private int  itsLineLength, itsLineBytes;
+
+
+  /**
+   * Read one line of bytes.
+   *
+   * <p>Like BufferedReader.readLine a line ends with a line feed, a carriage
+   * return, or both.  The line is kept in itsLine[] and itsLineLength without
+   * the end of line.  Each byte is taken as one ISO-8859-1 character.
+   *
+   * @param aStream
+   *   The file.
+   * @return
+   *   The number of bytes taken up by the line, including the end of
+   *   line. */
+
+  private final int ReadLine(InputStream aStream)
+    throws IOException
+  {
+    int theByte;
+
+    itsLineLength = 0; itsLineBytes = 0;
+
+    for (;;) {
+      theByte = aStream.read();
+      if (0 > theByte) {
+	if (0 == itsLineBytes) itsLineLength = -1;
+	break;
+      }
+      itsLineBytes++;
+      if ('\n' == theByte) break;
+      if ('\r' == theByte) {
+	aStream.mark(1);
+	if ('\n' == aStream.read()) {itsLineBytes++;}
+	else                        {aStream.reset();}
+	break;
+      }
+      if (itsLineLength == itsLine.length) {
+	char theLine[] = new char[2 * itsLine.length];
+	System.arraycopy(itsLine, 0, theLine, 0, itsLineLength);
+	itsLine = theLine;
+      }
+      itsLine[itsLineLength++] = (char) theByte;
+    }
+
+    return itsLineBytes;
+  }
+}
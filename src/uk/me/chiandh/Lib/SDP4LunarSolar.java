@@ -0,0 +1,124 @@
+package uk.me.chiandh.Lib;
+
+/**
+ * <p>The <code>SDP4LunarSolar</code> class holds the lunar and solar
+ * arguments of the SDP4 periodics for one time, to be shared by many
+ * deep-space satellites.</p>
+ *
+ * <p>For each deep-space satellite and time the SDP4 model works out the
+ * mean anomalies of Sun and Moon, and from them a few trigonometric terms
+ * that are then combined with coefficients of the satellite.  The model
+ * extrapolates the anomalies from the satellite's epoch with slightly
+ * different rates than it uses to calculate them for the epoch, and it
+ * reduces them at the epoch with a truncated 2&pi;.  The anomalies
+ * therefore depend a little on the epoch, by up to 10<sup>-4</sup> rad for
+ * a TLE two years old.</p>
+ *
+ * <p>An instance of this class calculates the anomalies for the given time
+ * with the expressions and the reduction the model uses for the epoch, and
+ * from them the terms and their derivatives with respect to the anomaly.
+ * Each satellite then takes the difference between its own anomaly and the
+ * shared one, and corrects the shared terms to first order.  That needs no
+ * trigonometric functions, and at the epoch the difference and the
+ * correction are zero, so that the terms equal the model's own.</p>
+ *
+ * <p>The neglected second order leaves a small difference to the results
+ * without sharing.  For 186 deep-space TLEs, including geostationary,
+ * Molniya and transfer orbits, it was zero at the epoch, below 0.1 mm up
+ * to 35 days from the epoch, 3 mm up to a year and 15 mm up to 800 days.
+ * As results are not bit-identical, sharing is used only when asked for, see
+ * {@link SDP4Workspace#itsLunarSolar SDP4Workspace.itsLunarSolar}.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class SDP4LunarSolar
+{
+  /** Days from 1900 January 0.5 to JD 2450000. */
+  protected static final double DAY0 = 34980.;
+
+  /** The time for which the terms are valid [JD - 2450000 d]. */
+  protected double itsJD;
+
+  /* The mean anomaly, the sine of the true anomaly and the factors F2 and
+   * F3, for the Sun and for the Moon. */
+
+  double ZMS, SINZFS, F2S, F3S, ZML, SINZFL, F2L, F3L;
+
+  /* The derivatives of the sine of the true anomaly, F2 and F3 with
+   * respect to the mean anomaly. */
+
+  double DSINZFS, DF2S, DF3S, DSINZFL, DF2L, DF3L;
+
+
+  /**
+   * Initialise.
+   *
+   * <p>No time is set, the terms must be calculated with SetTime() before
+   * use. */
+
+  public void Init()
+  {
+    itsJD = Double.NaN;
+    return;
+  }
+
+
+  /**
+   * Calculate the terms for a time.
+   *
+   * <p>Nothing is done if the terms are already for this time.
+   *
+   * @param aJulDate
+   *   The time, given as the Julian Day minus 2450000 days. */
+
+  public final void SetTime(double aJulDate)
+  {
+    double DAY, ZF, DZF, COSZF;
+
+    if (aJulDate == itsJD) return;
+    itsJD = aJulDate;
+
+    DAY = aJulDate + DAY0;
+
+    /* The Sun. */
+
+    ZMS = SDP4.FMOD2P(6.2565837 + .017201977 * DAY);
+    ZF  = ZMS + 2. * .01675 * Math.sin(ZMS);
+    DZF = 1.    + 2. * .01675 * Math.cos(ZMS);
+    SINZFS = Math.sin(ZF);
+    COSZF  = Math.cos(ZF);
+    F2S =  .5 * SINZFS * SINZFS - .25;
+    F3S = -.5 * SINZFS * COSZF;
+    DSINZFS = COSZF * DZF;
+    DF2S    = SINZFS * COSZF * DZF;
+    DF3S    = -.5 * (COSZF * COSZF - SINZFS * SINZFS) * DZF;
+
+    /* The Moon. */
+
+    ZML = SDP4.FMOD2P((4.7199672 + .22997150 * DAY)
+		    - (5.8351514 + .0019443680 * DAY));
+    ZF  = ZML + 2. * .05490 * Math.sin(ZML);
+    DZF = 1.    + 2. * .05490 * Math.cos(ZML);
+    SINZFL = Math.sin(ZF);
+    COSZF  = Math.cos(ZF);
+    F2L =  .5 * SINZFL * SINZFL - .25;
+    F3L = -.5 * SINZFL * COSZF;
+    DSINZFL = COSZF * DZF;
+    DF2L    = SINZFL * COSZF * DZF;
+    DF3L    = -.5 * (COSZF * COSZF - SINZFL * SINZFL) * DZF;
+
+    return;
+  }
+}
@@ -0,0 +1,66 @@
+package uk.me.chiandh.Lib;
+
+/**
+ * <p>The <code>SDP4Workspace</code> class holds the scratch state that the
+ * SGP4 and SDP4 models need while they calculate the position and velocity
+ * of a satellite for one time.</p>
+ *
+ * <p>Once an {@link SDP4 SDP4} instance has read its TLE, its state is not
+ * changed by
+ * {@link SDP4#GetPosVel(double, SDP4Workspace) GetPosVel(double, SDP4Workspace)}.
+ * The same satellite can then be calculated concurrently by several
+ * threads, provided each thread uses its own workspace.  One workspace can be
+ * used in turn for any number of satellites.  Apart from itsR[] and itsV[]
+ * the contents of the workspace are of no interest to the caller.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class SDP4Workspace
+{
+  /** Position vector [Gm] */
+  public double[] itsR = {0.,0.,0.};
+  /** Velocity vector [km/s] */
+  public double[] itsV = {0.,0.,0.};
+
+  /**
+   * Lunar and solar terms shared with other satellites, or null.
+   *
+   * <p>If set, the deep-space model takes the lunar and solar terms from
+   * here instead of calculating them for the satellite.  The terms must
+   * have been set for the time of the calculation.  See
+   * {@link SDP4LunarSolar SDP4LunarSolar}. */
+
+  public SDP4LunarSolar itsLunarSolar;
+
+  /* Arguments passed to and returned from DPSEC and DPPER. */
+
+  double[] dpsec_args = {0.,0.,0.,0.,0.,0.};
+  double[] dpper_args = {0.,0.,0.,0.,0.};
+
+  /* The state of the resonance integrator. */
+
+  double DEEP_ATIME, DEEP_XLI, DEEP_XNI;
+
+  /* The lunar-solar periodics, saved for 30 minutes of TSINCE. */
+
+  double DEEP_SAVTSN, DEEP_PE, DEEP_PINC, DEEP_PL,
+    DEEP_SEL, DEEP_SES, DEEP_SGHL, DEEP_SGHS, DEEP_SH1, DEEP_SHS,
+    DEEP_SIL, DEEP_SIS, DEEP_SLL, DEEP_SLS;
+
+  /* The arguments of the DEEP entry points. */
+
+  double DPSEC_XLL, DPSEC_OMGASM, DPSEC_XNODES, DPSEC_EM,
+    DPSEC_XINC, DPSEC_XN, DPSEC_T;
+}
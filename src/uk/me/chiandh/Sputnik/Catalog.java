@@ -331,6 +331,27 @@ public class Catalog
   protected double itsR[];
 
 
+  /**
+   * The workspaces for the transforms that are not given one.
+   *
+   * <p>Each thread has its own workspace, made when the thread first needs
+   * it, so that those transforms can be used by several threads at the same
+   * time. */
+
+  static final ThreadLocal<CatalogWorkspace> theWorks
+    = new ThreadLocal<CatalogWorkspace>() {
+	protected CatalogWorkspace initialValue() {
+	  return new CatalogWorkspace();
+	}
+      };
+
+
+  /**
+   * Return the workspace of the calling thread. */
+
+  static final CatalogWorkspace DefaultWork() {return theWorks.get();}
+
+
   /**
    * Initialise the object.
    *
@@ -503,42 +524,55 @@ public class Catalog
    *
    * <p>See also {@link #Mean2Ecl Mean2Ecl}. */
 
-  static double matEcl2Mean[] = {0.,0.,0.,0.,0.,0.,0.,0.,0.};
   protected final void Ecl2Mean(int aNpos, Times aEquinox,
     double inTriplets[], double outTriplets[])
   {
+    Ecl2Mean(aNpos, aEquinox, inTriplets, outTriplets, DefaultWork());
+  }
+
+
+  /**
+   * Ecl2Mean with a given workspace.
+   *
+   * <p>This does the same as {@link #Ecl2Mean Ecl2Mean}, but uses the given
+   * workspace instead of the one kept for the calling thread.
+   *
+   * @param aNpos
+   *   So many triplets of xyz are given and to be returned.
+   * @param aEquinox
+   *   The equinox to which the coordinates refer.
+   * @param inTriplets
+   *   Array of 3*aNpos given numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param outTriplets
+   *   Array of 3*aNpos returned numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected final void Ecl2Mean(int aNpos, Times aEquinox,
+    double inTriplets[], double outTriplets[], CatalogWorkspace aWork)
+  {
+    double mat[] = aWork.matEcl;
     double eps;
     int    i;
 
     eps = Obliquity(aEquinox);
 
-//    double mat[] = {
-//      1.,     0.,            0.,
-//      0.,  Math.cos(eps), Math.sin(eps),
-//      0., -Math.sin(eps), Math.cos(eps)
-//    };
-    
-    matEcl2Mean[0] = 1.;
-    matEcl2Mean[1] = 0.;
-    matEcl2Mean[2] = 0.;
-    matEcl2Mean[3] = 0.;
-    matEcl2Mean[4] = Math.cos(eps);
-    matEcl2Mean[5] = Math.sin(eps);
-    matEcl2Mean[6] = 0.;
-    matEcl2Mean[7] = -Math.sin(eps);
-    matEcl2Mean[8] = Math.cos(eps);
-   
+    mat[0] = 1.;     mat[1] =  0.;            mat[2] = 0.;
+    mat[3] = 0.;     mat[4] =  Math.cos(eps); mat[5] = Math.sin(eps);
+    mat[6] = 0.;     mat[7] = -Math.sin(eps); mat[8] = Math.cos(eps);
 
     for (i = 0; i < aNpos; i++) {
-      outTriplets[3*i+0] = matEcl2Mean[0] * inTriplets[3*i+0]
-                         + matEcl2Mean[3] * inTriplets[3*i+1]
-                         + matEcl2Mean[6] * inTriplets[3*i+2];
-      outTriplets[3*i+1] = matEcl2Mean[1] * inTriplets[3*i+0]
-                         + matEcl2Mean[4] * inTriplets[3*i+1]
-                         + matEcl2Mean[7] * inTriplets[3*i+2];
-      outTriplets[3*i+2] = matEcl2Mean[2] * inTriplets[3*i+0]
-                         + matEcl2Mean[5] * inTriplets[3*i+1]
-                         + matEcl2Mean[8] * inTriplets[3*i+2];
+      outTriplets[3*i+0] = mat[0] * inTriplets[3*i+0]
+                         + mat[3] * inTriplets[3*i+1]
+                         + mat[6] * inTriplets[3*i+2];
+      outTriplets[3*i+1] = mat[1] * inTriplets[3*i+0]
+                         + mat[4] * inTriplets[3*i+1]
+                         + mat[7] * inTriplets[3*i+2];
+      outTriplets[3*i+2] = mat[2] * inTriplets[3*i+0]
+                         + mat[5] * inTriplets[3*i+1]
+                         + mat[8] * inTriplets[3*i+2];
     }
   }
 
@@ -582,23 +616,103 @@ public class Catalog
    *   zero, East 90&deg;, etc.), the elevation in radian and the
    *   topocentric distance in Gm. */
 
-  static double t1GetHori[] = {0.,0.,0.};
-  static double t2GetHori[] = {0.,0.,0.};
-
   protected void GetHori(int aIndex, Station aStation, double aTriplet[])
+  {
+    GetHori(aIndex, aStation, aTriplet, DefaultWork());
+  }
+
+
+  /**
+   * GetHori with a given workspace.
+   *
+   * <p>This does the same as {@link #GetHori GetHori}, but uses the given
+   * workspace instead of the one kept for the calling thread.
+   *
+   * @param aIndex
+   *   Determines which of the itsNpos triplets is to be retrieved.
+   * @param aStation
+   *   The time and location of the observatory.  The station clock is also
+   *   the date of the equinox.
+   * @param aTriplet
+   *   The azimuth, elevation and topocentric distance.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected void GetHori(int aIndex, Station aStation, double aTriplet[],
+    CatalogWorkspace aWork)
   {
     
     int    i;
 
-    for (i = 0; i < 3; i++) t1GetHori[i] = itsR[3*aIndex+i];
-    J20002Mean(1, aStation, t1GetHori, t2GetHori);
-    Mean2Topo(1,  aStation, t2GetHori, t1GetHori);
-    Topo2Hori(1,  aStation, t1GetHori, t2GetHori);
-    Hmelib.Spher(t2GetHori, aTriplet);
+    for (i = 0; i < 3; i++) aWork.t1[i] = itsR[3*aIndex+i];
+    J20002Mean(1, aStation, aWork.t1, aWork.t2, aWork);
+    Mean2Topo(1,  aStation, aWork.t2, aWork.t1, aWork);
+    Topo2Hori(1,  aStation, aWork.t1, aWork.t2, aWork);
+    Hmelib.Spher(aWork.t2, aTriplet);
+    aTriplet[0] = Hmelib.NormAngle180(aTriplet[0]);
+  }
+
+
+  /**
+   * GetHori with a given frame.
+   *
+   * <p>This does the same as {@link #GetHori GetHori}, but takes the
+   * precession, sidereal time and station from the given frame instead of
+   * working them out again.  The frame can be shared by several threads,
+   * but each thread needs its own workspace.
+   *
+   * @param aIndex
+   *   Determines which of the itsNpos triplets is to be retrieved.
+   * @param aFrame
+   *   The frame for the time and location of the observatory.
+   * @param aTriplet
+   *   The azimuth, elevation and topocentric distance.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected void GetHori(int aIndex, CatalogFrame aFrame, double aTriplet[],
+    CatalogWorkspace aWork)
+  {
+    int    i;
+
+    for (i = 0; i < 3; i++) aWork.t1[i] = itsR[3*aIndex+i];
+    J20002Mean(1, aFrame, aWork.t1, aWork.t2);
+    Mean2Topo(1,  aFrame, aWork.t2, aWork.t1);
+    Topo2Hori(1,  aFrame, aWork.t1, aWork.t2);
+    Hmelib.Spher(aWork.t2, aTriplet);
     aTriplet[0] = Hmelib.NormAngle180(aTriplet[0]);
   }
 
 
+  /**
+   * GetHori for all positions with a given frame.
+   *
+   * <p>This does the same as {@link #GetHori GetHori} with the frame for
+   * each of the itsNpos positions, and returns the same numbers, but runs
+   * all positions through each transform before going on to the next.  Each
+   * pass thus applies one matrix of the frame to a packed array, rather
+   * than each position fetching all matrices in turn.  This is the faster
+   * way to convert a large catalogue.
+   *
+   * @param aFrame
+   *   The frame for the time and location of the observatory.
+   * @param outTriplets
+   *   Array of at least 3*itsNpos numbers to receive the azimuth, elevation
+   *   and topocentric distance of each position, in the order of the
+   *   positions.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected final void GetHoriAll(CatalogFrame aFrame, double outTriplets[],
+    CatalogWorkspace aWork)
+  {
+    J20002Mean(itsNpos, aFrame, itsR, outTriplets);
+    Mean2Topo(itsNpos,  aFrame, outTriplets, outTriplets);
+    Topo2Hori(itsNpos,  aFrame, outTriplets, outTriplets);
+    Hori2Spher(itsNpos, outTriplets, outTriplets, aWork);
+  }
+
+
   /**
    * Get the topocentric spherical coordinates.
    *
@@ -615,22 +729,78 @@ public class Catalog
    *   (South is zero, West 6&nbsp;h, etc.), the declination in radian and the
    *   topocentric distance in Gm. */
 
-  static double t1GetTopo[] =  {0.,0.,0.};
-  static double t2GetTopo[] = {0.,0.,0.};
   protected void GetTopo(int aIndex, Station aStation, double aTriplet[])
   {
-    
-    
+    GetTopo(aIndex, aStation, aTriplet, DefaultWork());
+  }
+
+
+  /**
+   * GetTopo with a given workspace.
+   *
+   * <p>This does the same as {@link #GetTopo GetTopo}, but uses the given
+   * workspace instead of the one kept for the calling thread.
+   *
+   * @param aIndex
+   *   Determines which of the itsNpos triplets is to be retrieved.
+   * @param aStation
+   *   The time and location of the observatory.  The station clock is also
+   *   the date of the equinox.
+   * @param aTriplet
+   *   The hour angle, declination and topocentric distance.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected void GetTopo(int aIndex, Station aStation, double aTriplet[],
+    CatalogWorkspace aWork)
+  {
     int    i;
 
-    for (i = 0; i < 3; i++) t1GetTopo[i] = itsR[3*aIndex+i];
-    J20002Mean(1, aStation, t1GetTopo, t2GetTopo);
-    Mean2Topo(1,  aStation, t2GetTopo, t1GetTopo);
-    Hmelib.Spher(t1GetTopo, aTriplet);
+    for (i = 0; i < 3; i++) aWork.t1[i] = itsR[3*aIndex+i];
+    J20002Mean(1, aStation, aWork.t1, aWork.t2, aWork);
+    Mean2Topo(1,  aStation, aWork.t2, aWork.t1, aWork);
+    Hmelib.Spher(aWork.t1, aTriplet);
     aTriplet[0] = Hmelib.NormAngle180(aTriplet[0]);
   }
 
 
+  /**
+   * Convert horizontal coordinates from rectangular to spherical.
+   *
+   * <p>This method does not change the state, it merely operates on aNpos
+   * given triplets to generate aNpos returned triplets.  Each triplet is
+   * converted as by {@link #GetHori GetHori}, with the azimuth between
+   * -180&deg; and +180&deg;.
+   *
+   * @param aNpos
+   *   So many triplets are given and to be returned.
+   * @param inTriplets
+   *   Array of 3*aNpos given numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param outTriplets
+   *   Array of 3*aNpos returned numbers, each group of three being the
+   *   azimuth and elevation in radian and the distance in Gm.  This can be
+   *   the same array as inTriplets.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected static final void Hori2Spher(int aNpos,
+    double inTriplets[], double outTriplets[], CatalogWorkspace aWork)
+  {
+    int i;
+
+    for (i = 0; i < aNpos; i++) {
+      aWork.t1[0] = inTriplets[3*i];
+      aWork.t1[1] = inTriplets[3*i+1];
+      aWork.t1[2] = inTriplets[3*i+2];
+      Hmelib.Spher(aWork.t1, aWork.t2);
+      outTriplets[3*i]   = Hmelib.NormAngle180(aWork.t2[0]);
+      outTriplets[3*i+1] = aWork.t2[1];
+      outTriplets[3*i+2] = aWork.t2[2];
+    }
+  }
+
+
   /**
    * Convert azimuth and elevation to HA/Dec.
    *
@@ -776,67 +946,82 @@ public class Catalog
    *   Array of 3*aNpos returned numbers, each group of three forming an xyz
    *   position in Gm. */
 
-  static double matJ2000[] = {0.,0.,0.,0.,0.,0.,0.,0,0.};
   protected final void J20002Mean(int aNpos, Times aEquinox,
     double inTriplets[], double outTriplets[])
   {
-    double t, zeta, z, theta;
-    int    i;
+    J20002Mean(aNpos, aEquinox, inTriplets, outTriplets, DefaultWork());
+  }
 
-    t     = (aEquinox.GetJulEpoch() - 2000.) / 100.;
-    zeta  = .6406161 * t +  8.39e-5 * t * t
-                         +  5e-6    * t * t * t;
-    z     = .6406161 * t + 3.041e-4 * t * t
-                         +  5.1e-6  * t * t * t;
-    theta = .556753  * t - 1.185e-4 * t * t
-                         - 1.16e-5  * t * t * t;
-    zeta  /= Hmelib.DEGPERRAD;
-    z     /= Hmelib.DEGPERRAD;
-    theta /= Hmelib.DEGPERRAD;
 
-//    double matJ2000[] = {
-//      +Math.cos(zeta) * Math.cos(theta) * Math.cos(z)
-//     - Math.sin(zeta)                   * Math.sin(z),
-//      -Math.sin(zeta) * Math.cos(theta) * Math.cos(z)
-//     - Math.cos(zeta)                   * Math.sin(z),
-//                       -Math.sin(theta) * Math.cos(z),
-//      +Math.cos(zeta) * Math.cos(theta) * Math.sin(z)
-//     + Math.sin(zeta)                   * Math.cos(z),
-//      -Math.sin(zeta) * Math.cos(theta) * Math.sin(z)
-//     + Math.cos(zeta)                   * Math.cos(z),
-//                       -Math.sin(theta) * Math.sin(z),
-//      +Math.cos(zeta) * Math.sin(theta),
-//      -Math.sin(zeta) * Math.sin(theta),
-//                       +Math.cos(theta)
-//    };
-    matJ2000[0] = +Math.cos(zeta) * Math.cos(theta) * Math.cos(z)
-				- Math.sin(zeta) * Math.sin(z);
-    
-    matJ2000[1] = -Math.sin(zeta) * Math.cos(theta) * Math.cos(z)
-				- Math.cos(zeta) * Math.sin(z);
-    matJ2000[2] = -Math.sin(theta) * Math.cos(z);
-    
-    matJ2000[3] = +Math.cos(zeta) * Math.cos(theta) * Math.sin(z)
-    + Math.sin(zeta)                   * Math.cos(z);
-    matJ2000[4] = -Math.sin(zeta) * Math.cos(theta) * Math.sin(z)
-    + Math.cos(zeta)                   * Math.cos(z);
+  /**
+   * J20002Mean with a given workspace.
+   *
+   * <p>This does the same as {@link #J20002Mean J20002Mean}, but uses the
+   * given workspace instead of the one kept for the calling thread.
+   *
+   * @param aNpos
+   *   So many triplets of xyz are given and to be returned.
+   * @param aEquinox
+   *   The equinox to which the coordinates refer.
+   * @param inTriplets
+   *   Array of 3*aNpos given numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param outTriplets
+   *   Array of 3*aNpos returned numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param aWork
+   *   The workspace for intermediate results. */
 
-    matJ2000[5] =  -Math.sin(theta) * Math.sin(z);
-    matJ2000[6] = +Math.cos(zeta) * Math.sin(theta);
+  protected final void J20002Mean(int aNpos, Times aEquinox,
+    double inTriplets[], double outTriplets[], CatalogWorkspace aWork)
+  {
+    int i;
 
-    matJ2000[7] =  -Math.sin(zeta) * Math.sin(theta);
-    matJ2000[8] =  +Math.cos(theta);
+    Precession(aEquinox.GetJulEpoch(), aWork.matPrec);
 
     for (i = 0; i < aNpos; i++) {
-      outTriplets[3*i+0] = matJ2000[0] * inTriplets[3*i+0]
-                         + matJ2000[1] * inTriplets[3*i+1]
-                         + matJ2000[2] * inTriplets[3*i+2];
-      outTriplets[3*i+1] = matJ2000[3] * inTriplets[3*i+0]
-                         + matJ2000[4] * inTriplets[3*i+1]
-                         + matJ2000[5] * inTriplets[3*i+2];
-      outTriplets[3*i+2] = matJ2000[6] * inTriplets[3*i+0]
-                         + matJ2000[7] * inTriplets[3*i+1]
-                         + matJ2000[8] * inTriplets[3*i+2];
+      outTriplets[3*i+0] = aWork.matPrec[0] * inTriplets[3*i+0]
+                         + aWork.matPrec[1] * inTriplets[3*i+1]
+                         + aWork.matPrec[2] * inTriplets[3*i+2];
+      outTriplets[3*i+1] = aWork.matPrec[3] * inTriplets[3*i+0]
+                         + aWork.matPrec[4] * inTriplets[3*i+1]
+                         + aWork.matPrec[5] * inTriplets[3*i+2];
+      outTriplets[3*i+2] = aWork.matPrec[6] * inTriplets[3*i+0]
+                         + aWork.matPrec[7] * inTriplets[3*i+1]
+                         + aWork.matPrec[8] * inTriplets[3*i+2];
+    }
+  }
+
+
+  /**
+   * J20002Mean with a given frame.
+   *
+   * <p>This does the same as {@link #J20002Mean J20002Mean}, but uses the
+   * precession matrix of the frame.
+   *
+   * @param aNpos
+   *   So many triplets of xyz are given and to be returned.
+   * @param aFrame
+   *   The frame for the equinox to which the coordinates refer.
+   * @param inTriplets
+   *   Array of 3*aNpos given numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param outTriplets
+   *   Array of 3*aNpos returned numbers, each group of three forming an xyz
+   *   position in Gm.  This can be the same array as inTriplets. */
+
+  protected static final void J20002Mean(int aNpos, CatalogFrame aFrame,
+    double inTriplets[], double outTriplets[])
+  {
+    double mat[] = aFrame.matPrec;
+    double x, y, z;
+    int    i;
+
+    for (i = 0; i < aNpos; i++) {
+      x = inTriplets[3*i+0]; y = inTriplets[3*i+1]; z = inTriplets[3*i+2];
+      outTriplets[3*i+0] = mat[0] * x + mat[1] * y + mat[2] * z;
+      outTriplets[3*i+1] = mat[3] * x + mat[4] * y + mat[5] * z;
+      outTriplets[3*i+2] = mat[6] * x + mat[7] * y + mat[8] * z;
     }
   }
 
@@ -874,31 +1059,98 @@ public class Catalog
    *   Array of 3*aNpos returned numbers, each group of three forming an xyz
    *   position in Gm. */
 
-  static double matMean2Ecl[] = {0.,0.,0.,0.,0.,0.,0.,0};
   protected final void Mean2Ecl(int aNpos, Times aEquinox,
     double inTriplets[], double outTriplets[])
   {
+    Mean2Ecl(aNpos, aEquinox, inTriplets, outTriplets, DefaultWork());
+  }
+
+
+  /**
+   * Mean2Ecl with a given workspace.
+   *
+   * <p>This does the same as {@link #Mean2Ecl Mean2Ecl}, but uses the given
+   * workspace instead of the one kept for the calling thread.
+   *
+   * @param aNpos
+   *   So many triplets of xyz are given and to be returned.
+   * @param aEquinox
+   *   The equinox to which the coordinates refer.
+   * @param inTriplets
+   *   Array of 3*aNpos given numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param outTriplets
+   *   Array of 3*aNpos returned numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected final void Mean2Ecl(int aNpos, Times aEquinox,
+    double inTriplets[], double outTriplets[], CatalogWorkspace aWork)
+  {
+    double mat[] = aWork.matEcl;
     double eps;
     int    i;
 
     eps = Obliquity(aEquinox);
 
-    double matMean2Ecl[] = {
-      1.,     0.,            0.,
-      0.,  Math.cos(eps), Math.sin(eps),
-      0., -Math.sin(eps), Math.cos(eps)
-    };
+    mat[0] = 1.;     mat[1] =  0.;            mat[2] = 0.;
+    mat[3] = 0.;     mat[4] =  Math.cos(eps); mat[5] = Math.sin(eps);
+    mat[6] = 0.;     mat[7] = -Math.sin(eps); mat[8] = Math.cos(eps);
+
+    for (i = 0; i < aNpos; i++) {
+      outTriplets[3*i+0] = mat[0] * inTriplets[3*i+0]
+                         + mat[1] * inTriplets[3*i+1]
+                         + mat[2] * inTriplets[3*i+2];
+      outTriplets[3*i+1] = mat[3] * inTriplets[3*i+0]
+                         + mat[4] * inTriplets[3*i+1]
+                         + mat[5] * inTriplets[3*i+2];
+      outTriplets[3*i+2] = mat[6] * inTriplets[3*i+0]
+                         + mat[7] * inTriplets[3*i+1]
+                         + mat[8] * inTriplets[3*i+2];
+    }
+  }
+
+
+  /**
+   * Convert equinox of date coordinates straight to azimuth and elevation.
+   *
+   * <p>This method does not change the state, it merely operates on aNpos
+   * given triplets to generate aNpos returned triplets.
+   *
+   * <p>This does the same as {@link #Mean2Topo Mean2Topo} followed by
+   * {@link #Topo2Hori Topo2Hori}, but with the two rotations combined into
+   * one matrix, and the station position rotated accordingly, by the frame.
+   * The rotation for local sidereal time is that by Greenwich sidereal time
+   * into the Earth-fixed frame followed by that by the longitude into the
+   * station's meridian.  Each position therefore takes one matrix
+   * multiplication.  The results can differ from the two transforms in the
+   * last bits.
+   *
+   * @param aNpos
+   *   So many triplets of xyz are given and to be returned.
+   * @param aFrame
+   *   The frame for the time and location of the observatory.
+   * @param inTriplets
+   *   Array of 3*aNpos given numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param outTriplets
+   *   Array of 3*aNpos returned numbers, each group of three forming an xyz
+   *   position in Gm.  This can be the same array as inTriplets. */
+
+  protected static final void Mean2Hori(int aNpos, CatalogFrame aFrame,
+    double inTriplets[], double outTriplets[])
+  {
+    double mat[] = aFrame.matHori;
+    double vec[] = aFrame.vecHori;
+    double x, y, z;
+    int    i;
 
     for (i = 0; i < aNpos; i++) {
-      outTriplets[3*i+0] = matMean2Ecl[0] * inTriplets[3*i+0]
-                         + matMean2Ecl[1] * inTriplets[3*i+1]
-                         + matMean2Ecl[2] * inTriplets[3*i+2];
-      outTriplets[3*i+1] = matMean2Ecl[3] * inTriplets[3*i+0]
-                         + matMean2Ecl[4] * inTriplets[3*i+1]
-                         + matMean2Ecl[5] * inTriplets[3*i+2];
-      outTriplets[3*i+2] = matMean2Ecl[6] * inTriplets[3*i+0]
-                         + matMean2Ecl[7] * inTriplets[3*i+1]
-                         + matMean2Ecl[8] * inTriplets[3*i+2];
+      x = inTriplets[3*i+0]; y = inTriplets[3*i+1]; z = inTriplets[3*i+2];
+      outTriplets[3*i+0] = mat[0] * x + mat[1] * y + mat[2] * z - vec[0];
+      outTriplets[3*i+1] = mat[3] * x + mat[4] * y + mat[5] * z - vec[1];
+      outTriplets[3*i+2] = mat[6] * x + mat[7] * y + mat[8] * z - vec[2];
     }
   }
 
@@ -907,68 +1159,82 @@ public class Catalog
    * Convert equinox of date to J2000 coordinates.
    *
    * <p>See also {@link #J20002Mean J20002Mean}. */
-  static double matMean2J2000[] = {0.,0.,0.,0.,0.,0.,0.,0.,0.};
   protected final void Mean2J2000(int aNpos, Times aEquinox,
     double inTriplets[], double outTriplets[])
   {
-    double t, zeta, z, theta;
-    int    i;
+    Mean2J2000(aNpos, aEquinox, inTriplets, outTriplets, DefaultWork());
+  }
 
-    t     = (aEquinox.GetJulEpoch() - 2000.) / 100.;
-    zeta  = .6406161 * t +  8.39e-5 * t * t
-                         +  5e-6    * t * t * t;
-    z     = .6406161 * t + 3.041e-4 * t * t
-                         +  5.1e-6  * t * t * t;
-    theta = .556753  * t - 1.185e-4 * t * t
-                         - 1.16e-5  * t * t * t;
-    zeta  /= Hmelib.DEGPERRAD;
-    z     /= Hmelib.DEGPERRAD;
-    theta /= Hmelib.DEGPERRAD;
 
-//    double matMean2J2000[] = {
-//      +Math.cos(zeta) * Math.cos(theta) * Math.cos(z)
-//     - Math.sin(zeta)                   * Math.sin(z),
-//      -Math.sin(zeta) * Math.cos(theta) * Math.cos(z)
-//     - Math.cos(zeta)                   * Math.sin(z),
-//                       -Math.sin(theta) * Math.cos(z),
-//      +Math.cos(zeta) * Math.cos(theta) * Math.sin(z)
-//     + Math.sin(zeta)                   * Math.cos(z),
-//      -Math.sin(zeta) * Math.cos(theta) * Math.sin(z)
-//     + Math.cos(zeta)                   * Math.cos(z),
-//                       -Math.sin(theta) * Math.sin(z),
-//      +Math.cos(zeta) * Math.sin(theta),
-//      -Math.sin(zeta) * Math.sin(theta),
-//                       +Math.cos(theta)
-//    };
-
-    matMean2J2000[0] = +Math.cos(zeta) * Math.cos(theta) * Math.cos(z)
-				- Math.sin(zeta) * Math.sin(z);
-
-    matMean2J2000[1] = -Math.sin(zeta) * Math.cos(theta) * Math.cos(z)
-				- Math.cos(zeta) * Math.sin(z);
-    matMean2J2000[2] = -Math.sin(theta) * Math.cos(z);
-
-    matMean2J2000[3] = +Math.cos(zeta) * Math.cos(theta) * Math.sin(z)
-				+ Math.sin(zeta) * Math.cos(z);
-    matMean2J2000[4] = -Math.sin(zeta) * Math.cos(theta) * Math.sin(z)
-				+ Math.cos(zeta) * Math.cos(z);
-
-    matMean2J2000[5] = -Math.sin(theta) * Math.sin(z);
-    matMean2J2000[6] = +Math.cos(zeta) * Math.sin(theta);
-
-    matMean2J2000[7] = -Math.sin(zeta) * Math.sin(theta);
-    matMean2J2000[8] = +Math.cos(theta);
-		
+  /**
+   * Mean2J2000 with a given workspace.
+   *
+   * <p>This does the same as {@link #Mean2J2000 Mean2J2000}, but uses the
+   * given workspace instead of the one kept for the calling thread.
+   *
+   * @param aNpos
+   *   So many triplets of xyz are given and to be returned.
+   * @param aEquinox
+   *   The equinox to which the coordinates refer.
+   * @param inTriplets
+   *   Array of 3*aNpos given numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param outTriplets
+   *   Array of 3*aNpos returned numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected final void Mean2J2000(int aNpos, Times aEquinox,
+    double inTriplets[], double outTriplets[], CatalogWorkspace aWork)
+  {
+    int i;
+
+    Precession(aEquinox.GetJulEpoch(), aWork.matPrec);
+
     for (i = 0; i < aNpos; i++) {
-      outTriplets[3*i+0] = matMean2J2000[0] * inTriplets[3*i+0]
-                         + matMean2J2000[3] * inTriplets[3*i+1]
-                         + matMean2J2000[6] * inTriplets[3*i+2];
-      outTriplets[3*i+1] = matMean2J2000[1] * inTriplets[3*i+0]
-                         + matMean2J2000[4] * inTriplets[3*i+1]
-                         + matMean2J2000[7] * inTriplets[3*i+2];
-      outTriplets[3*i+2] = matMean2J2000[2] * inTriplets[3*i+0]
-                         + matMean2J2000[5] * inTriplets[3*i+1]
-                         + matMean2J2000[8] * inTriplets[3*i+2];
+      outTriplets[3*i+0] = aWork.matPrec[0] * inTriplets[3*i+0]
+                         + aWork.matPrec[3] * inTriplets[3*i+1]
+                         + aWork.matPrec[6] * inTriplets[3*i+2];
+      outTriplets[3*i+1] = aWork.matPrec[1] * inTriplets[3*i+0]
+                         + aWork.matPrec[4] * inTriplets[3*i+1]
+                         + aWork.matPrec[7] * inTriplets[3*i+2];
+      outTriplets[3*i+2] = aWork.matPrec[2] * inTriplets[3*i+0]
+                         + aWork.matPrec[5] * inTriplets[3*i+1]
+                         + aWork.matPrec[8] * inTriplets[3*i+2];
+    }
+  }
+
+
+  /**
+   * Mean2J2000 with a given frame.
+   *
+   * <p>This does the same as {@link #Mean2J2000 Mean2J2000}, but uses the
+   * precession matrix of the frame.
+   *
+   * @param aNpos
+   *   So many triplets of xyz are given and to be returned.
+   * @param aFrame
+   *   The frame for the equinox to which the coordinates refer.
+   * @param inTriplets
+   *   Array of 3*aNpos given numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param outTriplets
+   *   Array of 3*aNpos returned numbers, each group of three forming an xyz
+   *   position in Gm.  This can be the same array as inTriplets. */
+
+  protected static final void Mean2J2000(int aNpos, CatalogFrame aFrame,
+    double inTriplets[], double outTriplets[])
+  {
+    double mat[] = aFrame.matPrec;
+    double x, y, z;
+    int    i;
+
+    for (i = 0; i < aNpos; i++) {
+      x = inTriplets[3*i+0]; y = inTriplets[3*i+1]; z = inTriplets[3*i+2];
+      outTriplets[3*i+0] = mat[0] * x + mat[3] * y + mat[6] * z;
+      outTriplets[3*i+1] = mat[1] * x + mat[4] * y + mat[7] * z;
+      outTriplets[3*i+2] = mat[2] * x + mat[5] * y + mat[8] * z;
     }
   }
 
@@ -1021,27 +1287,85 @@ public class Catalog
    * @param outTriplets
    *   Array of 3*aNpos returned numbers, each group of three forming an xyz
    *   position in Gm. */
-static     double vec[] = {0.,0.,0.};
-
   protected final void Mean2Topo(int aNpos, Station aStation,
     double inTriplets[], double outTriplets[])
+  {
+    Mean2Topo(aNpos, aStation, inTriplets, outTriplets, DefaultWork());
+  }
+
+
+  /**
+   * Mean2Topo with a given workspace.
+   *
+   * <p>This does the same as {@link #Mean2Topo Mean2Topo}, but uses the given
+   * workspace instead of the one kept for the calling thread.
+   *
+   * @param aNpos
+   *   So many triplets of xyz are given and to be returned.
+   * @param aStation
+   *   The time and location of the observatory.
+   * @param inTriplets
+   *   Array of 3*aNpos given numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param outTriplets
+   *   Array of 3*aNpos returned numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected final void Mean2Topo(int aNpos, Station aStation,
+    double inTriplets[], double outTriplets[], CatalogWorkspace aWork)
   {
     double theLST;
     //double mat[] = {0.,0.,0.,0.};
     int i;
 
     theLST = aStation.GetLST() * Math.PI / 12.;
-    mat[0] =  Math.cos(theLST); mat[1] =  Math.sin(theLST);
-    mat[2] =  Math.sin(theLST); mat[3] = -Math.cos(theLST);
+    aWork.mat[0] =  Math.cos(theLST); aWork.mat[1] =  Math.sin(theLST);
+    aWork.mat[2] =  Math.sin(theLST); aWork.mat[3] = -Math.cos(theLST);
 
-    aStation.GetX0Z(vec);
+    aStation.GetX0Z(aWork.vec);
 
     for(i = 0; i < aNpos; i++) {
-      outTriplets[3*i]    = inTriplets[3*i]   * mat[0]
-                          + inTriplets[3*i+1] * mat[1] - vec[0];
-      outTriplets[3*i+1]  = inTriplets[3*i]   * mat[2]
-                          + inTriplets[3*i+1] * mat[3];
-      outTriplets[3*i+2]  = inTriplets[3*i+2]          - vec[2];
+      outTriplets[3*i]    = inTriplets[3*i]   * aWork.mat[0]
+                          + inTriplets[3*i+1] * aWork.mat[1] - aWork.vec[0];
+      outTriplets[3*i+1]  = inTriplets[3*i]   * aWork.mat[2]
+                          + inTriplets[3*i+1] * aWork.mat[3];
+      outTriplets[3*i+2]  = inTriplets[3*i+2]          - aWork.vec[2];
+    }
+  }
+
+
+  /**
+   * Mean2Topo with a given frame.
+   *
+   * <p>This does the same as {@link #Mean2Topo Mean2Topo}, but uses the
+   * sidereal time rotation and station position of the frame.
+   *
+   * @param aNpos
+   *   So many triplets of xyz are given and to be returned.
+   * @param aFrame
+   *   The frame for the time and location of the observatory.
+   * @param inTriplets
+   *   Array of 3*aNpos given numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param outTriplets
+   *   Array of 3*aNpos returned numbers, each group of three forming an xyz
+   *   position in Gm.  This can be the same array as inTriplets. */
+
+  protected static final void Mean2Topo(int aNpos, CatalogFrame aFrame,
+    double inTriplets[], double outTriplets[])
+  {
+    double mat[] = aFrame.matLST;
+    double vec[] = aFrame.vec;
+    double x, y;
+    int    i;
+
+    for (i = 0; i < aNpos; i++) {
+      x = inTriplets[3*i]; y = inTriplets[3*i+1];
+      outTriplets[3*i]   = x * mat[0] + y * mat[1] - vec[0];
+      outTriplets[3*i+1] = x * mat[2] + y * mat[3];
+      outTriplets[3*i+2] = inTriplets[3*i+2]      - vec[2];
     }
   }
 
@@ -1101,6 +1425,48 @@ static     double vec[] = {0.,0.,0.};
   }
 
 
+  /**
+   * Calculate the precession matrix.
+   *
+   * <p>This is the matrix from J2000 to the equinox of date, see
+   * {@link #J20002Mean J20002Mean}.
+   *
+   * @param aJulEpoch
+   *   The equinox of date as Julian epoch.
+   * @param aMat
+   *   The 9 returned matrix elements, row by row. */
+
+  protected static final void Precession(double aJulEpoch, double aMat[])
+  {
+    double t, zeta, z, theta;
+
+    t     = (aJulEpoch - 2000.) / 100.;
+    zeta  = .6406161 * t +  8.39e-5 * t * t
+                         +  5e-6    * t * t * t;
+    z     = .6406161 * t + 3.041e-4 * t * t
+                         +  5.1e-6  * t * t * t;
+    theta = .556753  * t - 1.185e-4 * t * t
+                         - 1.16e-5  * t * t * t;
+    zeta  /= Hmelib.DEGPERRAD;
+    z     /= Hmelib.DEGPERRAD;
+    theta /= Hmelib.DEGPERRAD;
+
+    aMat[0] = +Math.cos(zeta) * Math.cos(theta) * Math.cos(z)
+             - Math.sin(zeta)                   * Math.sin(z);
+    aMat[1] = -Math.sin(zeta) * Math.cos(theta) * Math.cos(z)
+             - Math.cos(zeta)                   * Math.sin(z);
+    aMat[2] =                  -Math.sin(theta) * Math.cos(z);
+    aMat[3] = +Math.cos(zeta) * Math.cos(theta) * Math.sin(z)
+             + Math.sin(zeta)                   * Math.cos(z);
+    aMat[4] = -Math.sin(zeta) * Math.cos(theta) * Math.sin(z)
+             + Math.cos(zeta)                   * Math.cos(z);
+    aMat[5] =                  -Math.sin(theta) * Math.sin(z);
+    aMat[6] = +Math.cos(zeta) * Math.sin(theta);
+    aMat[7] = -Math.sin(zeta) * Math.sin(theta);
+    aMat[8] =                  +Math.cos(theta);
+  }
+
+
   /**
    * Set the B1950 rectangular coordinates.
    *
@@ -1238,14 +1604,61 @@ static     double vec[] = {0.,0.,0.};
    *   Three floating point numbers containing the x, y and z coordinates.
    *   These should normally be in Gm. */
 
-  static double t1SetMean[] = {0.,0.,0.};
   protected void SetMean(int aIndex, Times aEquinox, double aTriplet[])
+  {
+    SetMean(aIndex, aEquinox, aTriplet, DefaultWork());
+  }
+
+
+  /**
+   * SetMean with a given workspace.
+   *
+   * <p>This does the same as {@link #SetMean SetMean}, but uses the given
+   * workspace instead of the one kept for the calling thread.
+   *
+   * @param aIndex
+   *   Determines which of the itsNpos triplets is to be set.
+   * @param aEquinox
+   *   The equinox to which the given coordinates refer.
+   * @param aTriplet
+   *   The x, y and z coordinates.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected void SetMean(int aIndex, Times aEquinox, double aTriplet[],
+    CatalogWorkspace aWork)
   {
     
     int    i;
 
-    Mean2J2000(1, aEquinox, aTriplet, t1SetMean);
-    for (i = 0; i < 3; i++) itsR[3*aIndex+i] = t1SetMean[i];
+    Mean2J2000(1, aEquinox, aTriplet, aWork.t1, aWork);
+    for (i = 0; i < 3; i++) itsR[3*aIndex+i] = aWork.t1[i];
+  }
+
+
+  /**
+   * SetMean with a given frame.
+   *
+   * <p>This does the same as {@link #SetMean SetMean}, but uses the
+   * precession matrix of the frame.  The frame can be shared by several
+   * threads, but each thread needs its own workspace.
+   *
+   * @param aIndex
+   *   Determines which of the itsNpos triplets is to be set.
+   * @param aFrame
+   *   The frame for the equinox to which the given coordinates refer.
+   * @param aTriplet
+   *   The x, y and z coordinates.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected void SetMean(int aIndex, CatalogFrame aFrame, double aTriplet[],
+    CatalogWorkspace aWork)
+  {
+    int    i;
+
+    Mean2J2000(1, aFrame, aTriplet, aWork.t1);
+    for (i = 0; i < 3; i++) itsR[3*aIndex+i] = aWork.t1[i];
   }
 
 
@@ -1265,18 +1678,36 @@ static     double vec[] = {0.,0.,0.};
    *   These should normally be in Gm.  Note that the coordinates are
    *   left-handed, i.e. the y axis points to the West point on the horizon. */
 
-  
-  static double t1SetTopo[] = {0.,0.,0.};
-  static double t2SetTopo[] = {0.,0.,0.};
   protected void SetTopo(int aIndex, Station aStation, double aTriplet[])
   {
-    
-    
+    SetTopo(aIndex, aStation, aTriplet, DefaultWork());
+  }
+
+
+  /**
+   * SetTopo with a given workspace.
+   *
+   * <p>This does the same as {@link #SetTopo SetTopo}, but uses the given
+   * workspace instead of the one kept for the calling thread.
+   *
+   * @param aIndex
+   *   Determines which of the itsNpos triplets is to be set.
+   * @param aStation
+   *   The time and location of the observatory.  The station clock is also
+   *   the date of the equinox.
+   * @param aTriplet
+   *   The x, y and z coordinates.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected void SetTopo(int aIndex, Station aStation, double aTriplet[],
+    CatalogWorkspace aWork)
+  {
     int    i;
 
-    Topo2Mean(1, aStation, aTriplet, t1SetTopo);
-    Mean2J2000(1, aStation, t1SetTopo, t2SetTopo);
-    for (i = 0; i < 3; i++) itsR[3*aIndex+i] = t2SetTopo[i];
+    Topo2Mean(1, aStation, aTriplet, aWork.t1);
+    Mean2J2000(1, aStation, aWork.t1, aWork.t2, aWork);
+    for (i = 0; i < 3; i++) itsR[3*aIndex+i] = aWork.t2[i];
   }
 
 
@@ -1320,25 +1751,83 @@ static     double vec[] = {0.,0.,0.};
    * @param outTriplets
    *   Array of 3*aNpos returned numbers, each group of three forming an xyz
    *   position in Gm. */
-  static double mat[] = {0.,0.,0.,0.};
   protected final void Topo2Hori(int aNpos, Station aStation,
     double inTriplets[], double outTriplets[])
   {
+    Topo2Hori(aNpos, aStation, inTriplets, outTriplets, DefaultWork());
+  }
+
+
+  /**
+   * Topo2Hori with a given workspace.
+   *
+   * <p>This does the same as {@link #Topo2Hori Topo2Hori}, but uses the given
+   * workspace instead of the one kept for the calling thread.
+   *
+   * @param aNpos
+   *   So many triplets of xyz are given and to be returned.
+   * @param aStation
+   *   The location of the observatory.
+   * @param inTriplets
+   *   Array of 3*aNpos given numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param outTriplets
+   *   Array of 3*aNpos returned numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected final void Topo2Hori(int aNpos, Station aStation,
+    double inTriplets[], double outTriplets[], CatalogWorkspace aWork)
+  {
     
     double theLat;
     int i;
 
     theLat = aStation.GetLat();
 
-    mat[0] = -Math.sin(theLat); mat[1] =  Math.cos(theLat);
-    mat[2] =  Math.cos(theLat); mat[3] =  Math.sin(theLat);
+    aWork.mat[0] = -Math.sin(theLat); aWork.mat[1] =  Math.cos(theLat);
+    aWork.mat[2] =  Math.cos(theLat); aWork.mat[3] =  Math.sin(theLat);
 
     for(i = 0; i < aNpos; i++) {
-      outTriplets[3*i]   =  inTriplets[3*i]   * mat[0]
-                         +  inTriplets[3*i+2] * mat[1];
+      outTriplets[3*i]   =  inTriplets[3*i]   * aWork.mat[0]
+                         +  inTriplets[3*i+2] * aWork.mat[1];
       outTriplets[3*i+1] = -inTriplets[3*i+1];
-      outTriplets[3*i+2] =  inTriplets[3*i]   * mat[2]
-                         +  inTriplets[3*i+2] * mat[3];
+      outTriplets[3*i+2] =  inTriplets[3*i]   * aWork.mat[2]
+                         +  inTriplets[3*i+2] * aWork.mat[3];
+    }
+  }
+
+
+  /**
+   * Topo2Hori with a given frame.
+   *
+   * <p>This does the same as {@link #Topo2Hori Topo2Hori}, but uses the
+   * latitude rotation of the frame.
+   *
+   * @param aNpos
+   *   So many triplets of xyz are given and to be returned.
+   * @param aFrame
+   *   The frame for the location of the observatory.
+   * @param inTriplets
+   *   Array of 3*aNpos given numbers, each group of three forming an xyz
+   *   position in Gm.
+   * @param outTriplets
+   *   Array of 3*aNpos returned numbers, each group of three forming an xyz
+   *   position in Gm.  This can be the same array as inTriplets. */
+
+  protected static final void Topo2Hori(int aNpos, CatalogFrame aFrame,
+    double inTriplets[], double outTriplets[])
+  {
+    double mat[] = aFrame.matLat;
+    double x, z;
+    int    i;
+
+    for (i = 0; i < aNpos; i++) {
+      x = inTriplets[3*i]; z = inTriplets[3*i+2];
+      outTriplets[3*i]   =  x * mat[0] + z * mat[1];
+      outTriplets[3*i+1] = -inTriplets[3*i+1];
+      outTriplets[3*i+2] =  x * mat[2] + z * mat[3];
     }
   }
 
@@ -0,0 +1,162 @@
+package uk.me.chiandh.Sputnik;
+
+/**
+ * <p>The <code>CatalogFrame</code> class holds the parts of the coordinate
+ * transforms in {@link Catalog Catalog} that depend only on the time and
+ * location of the observatory.</p>
+ *
+ * <p>The transforms from J2000 to horizontal coordinates work out for each
+ * position the precession matrix, the sidereal time and the rotation for
+ * the latitude, even though these are the same for all positions at one
+ * time.  A frame works them out once, and the transforms that are given a
+ * frame only apply them.  For positions of date, such as those of
+ * satellites, it also combines the rotations for sidereal time and latitude
+ * into one matrix straight to horizontal coordinates.  The frame also
+ * keeps Delta T, the Julian epoch, the sidereal time and the position of
+ * the station, and if set from a telescope the direction to the Sun.</p>
+ *
+ * <p>Once set, a frame is only read, and can be shared by several threads.
+ * It must be set again whenever the time or location of the observatory
+ * changes.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class CatalogFrame
+{
+  /* The time as Julian Day minus 2450000 days, Delta T [d] and the
+   * Julian epoch of the equinox of date. */
+
+  double itsJD, itsDeltaT, itsJulEpoch;
+
+  /* Greenwich and local sidereal time [h]. */
+
+  double itsGST, itsLST;
+
+  /* The geodetic latitude and longitude of the station [rad] and its
+   * height, see Station.GetLat, GetLong and GetHeight. */
+
+  double itsLat, itsLong, itsHeight;
+
+  /* The precession matrix from J2000 to the equinox of date. */
+
+  double matPrec[] = {0.,0.,0.,0.,0.,0.,0.,0.,0.};
+
+  /* The rotation for the local sidereal time, see Catalog.Mean2Topo. */
+
+  double matLST[] = {0.,0.,0.,0.};
+
+  /* The rotation for the latitude, see Catalog.Topo2Hori. */
+
+  double matLat[] = {0.,0.,0.,0.};
+
+  /* The position of the station, see Station.GetX0Z. */
+
+  double vec[] = {0.,0.,0.};
+
+  /* The rotation from mean equinox of date to horizontal, and the position
+   * of the station in horizontal coordinates, see Catalog.Mean2Hori. */
+
+  double matHori[] = {0.,0.,0.,0.,0.,0.,0.,0.,0.};
+  double vecHori[] = {0.,0.,0.};
+
+  /* The unit vector from the geocentre to the Sun, see Sun.GetPos. */
+
+  double itsSunHat[] = {Double.NaN,Double.NaN,Double.NaN};
+
+
+  /**
+   * Set the frame for the time and location of an observatory.
+   *
+   * <p>The direction to the Sun is not set.
+   *
+   * @param aStation
+   *   The time and location of the observatory.  The station clock is also
+   *   the date of the equinox. */
+
+  public void Set(Station aStation)
+  {
+    double theLST, theLat;
+
+    itsJD       = aStation.GetJD();
+    itsDeltaT   = aStation.DeltaT();
+    itsJulEpoch = aStation.GetJulEpoch();
+    Catalog.Precession(itsJulEpoch, matPrec);
+
+    itsGST = aStation.GetGST();
+    itsLST = aStation.GetLST();
+    theLST = itsLST * Math.PI / 12.;
+    matLST[0] =  Math.cos(theLST); matLST[1] =  Math.sin(theLST);
+    matLST[2] =  Math.sin(theLST); matLST[3] = -Math.cos(theLST);
+
+    theLat = aStation.GetLat();
+    itsLat = theLat;
+    itsLong   = aStation.GetLong();
+    itsHeight = aStation.GetHeight();
+    matLat[0] = -Math.sin(theLat); matLat[1] =  Math.cos(theLat);
+    matLat[2] =  Math.cos(theLat); matLat[3] =  Math.sin(theLat);
+
+    aStation.GetX0Z(vec);
+
+    /* The latitude rotation applied to the sidereal time rotation. */
+
+    matHori[0] = matLat[0] * matLST[0];
+    matHori[1] = matLat[0] * matLST[1];
+    matHori[2] = matLat[1];
+    matHori[3] = -matLST[2];
+    matHori[4] = -matLST[3];
+    matHori[5] = 0.;
+    matHori[6] = matLat[2] * matLST[0];
+    matHori[7] = matLat[2] * matLST[1];
+    matHori[8] = matLat[3];
+    vecHori[0] = matLat[0] * vec[0] + matLat[1] * vec[2];
+    vecHori[1] = -vec[1];
+    vecHori[2] = matLat[2] * vec[0] + matLat[3] * vec[2];
+
+    itsSunHat[0] = Double.NaN; itsSunHat[1] = Double.NaN;
+    itsSunHat[2] = Double.NaN;
+
+    return;
+  }
+
+
+  /**
+   * Set the frame for the time and location of a telescope.
+   *
+   * <p>This also sets the direction to the Sun, from the Sun of the
+   * telescope, which must have been updated to the same time.
+   *
+   * @param aTelescope
+   *   The time and location of the observatory, also the Sun. */
+
+  public void Set(Telescope aTelescope)
+  {
+    double r;
+
+    Set((Station) aTelescope);
+
+    aTelescope.itsSun.GetPos(itsSunHat);
+    r = Math.sqrt(itsSunHat[0] * itsSunHat[0] + itsSunHat[1] * itsSunHat[1]
+      + itsSunHat[2] * itsSunHat[2]);
+    itsSunHat[0] /= r; itsSunHat[1] /= r; itsSunHat[2] /= r;
+
+    return;
+  }
+
+
+  /**
+   * Return the time of the frame as Julian Day minus 2450000 days. */
+
+  public final double GetJD() {return itsJD;}
+}
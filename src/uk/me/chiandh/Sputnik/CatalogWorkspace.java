@@ -0,0 +1,51 @@
+package uk.me.chiandh.Sputnik;
+
+/**
+ * <p>The <code>CatalogWorkspace</code> class holds the intermediate results
+ * of the coordinate transforms in {@link Catalog Catalog}.</p>
+ *
+ * <p>The transforms avoid allocating arrays on each call by keeping their
+ * intermediate results in a workspace.  Transforms that are not given a
+ * workspace use one kept for the calling thread, so that all transforms can
+ * be used by several threads at the same time.  Passing a workspace saves
+ * looking up that of the thread on each call.  The contents of the
+ * workspace are of no interest to the caller.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class CatalogWorkspace
+{
+  /* Triplets passed from one transform to the next. */
+
+  double t1[] = {0.,0.,0.};
+  double t2[] = {0.,0.,0.};
+  double t3[] = {0.,0.,0.};
+
+  /* The precession matrix. */
+
+  double matPrec[] = {0.,0.,0.,0.,0.,0.,0.,0.,0.};
+
+  /* The rotation for the obliquity of the ecliptic. */
+
+  double matEcl[] = {0.,0.,0.,0.,0.,0.,0.,0.,0.};
+
+  /* The rotation for the sidereal time or the latitude. */
+
+  double mat[] = {0.,0.,0.,0.};
+
+  /* The position of the station. */
+
+  double vec[] = {0.,0.,0.};
+}
@@ -0,0 +1,387 @@
+package uk.me.chiandh.Sputnik;
+
+import java.util.ArrayList;
+import uk.me.chiandh.Lib.SDP4;
+import uk.me.chiandh.Lib.SDP4Workspace;
+
+/**
+ * <p>The <code>EclipseFinder</code> class finds the eclipses of a satellite
+ * by the Earth.</p>
+ *
+ * <p>{@link Satellite#Update(Telescope) Satellite.Update} only tells
+ * whether the satellite is sunlit at one time, treating the Sun as a point
+ * and the shadow as a cylinder.  This class instead finds the times at
+ * which the satellite enters and leaves the penumbra and the umbra of a
+ * spherical Earth, taking into account the size of the disk of the Sun.
+ * As seen from the satellite, let &theta; be the angle between the centres
+ * of the Sun and the Earth, and &rho;<sub>S</sub> and &rho;<sub>E</sub>
+ * their angular radii.  The satellite is in the penumbra when
+ * &theta;&nbsp;-&nbsp;&rho;<sub>E</sub>&nbsp;-&nbsp;&rho;<sub>S</sub> is
+ * negative and in the umbra when
+ * &theta;&nbsp;-&nbsp;&rho;<sub>E</sub>&nbsp;+&nbsp;&rho;<sub>S</sub> is
+ * negative.</p>
+ *
+ * <p>The search works as in {@link PassFinder PassFinder}: Both shadow
+ * functions are evaluated at a fraction of the orbital period, and where
+ * one changes sign the time is found by Brent's method.  Where one has a
+ * minimum above zero that might dip below zero between the steps, the
+ * minimum is found by golden section search.  The Sun is taken from a
+ * {@link SunEphemeris SunEphemeris}, which can be shared by the finders
+ * of many satellites.</p>
+ *
+ * <p>An instance has its own workspace.  It does not change the satellite
+ * and several instances can work on the same satellite in different
+ * threads.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class EclipseFinder
+{
+  /** The radius of the Sun [Gm]. */
+  public static final double SUNRADIUS = 0.6957;
+
+  /** The greatest rate at which the direction to the Sun turns, from the
+   * motion of the Earth round the Sun [rad/d]. */
+  protected static final double SUNRATE = 0.02;
+
+  /* The shadow functions. */
+
+  protected static final int PENUMBRA = 0, UMBRA = 1;
+
+  /* The satellite, its model, its workspace, the Sun and the number of
+   * evaluations. */
+
+  protected Satellite     itsSatellite;
+  protected SDP4          itsSDP4;
+  protected SDP4Workspace itsWork;
+  protected SunEphemeris  itsSun;
+  protected int           itsNcalls;
+
+  /* The coarse step [d]. */
+
+  protected double itsStep;
+
+  /* From the last evaluation: the shadow functions, the greatest rate at
+   * which they can change [rad/d], and the minimum found by Min. */
+
+  protected double itsF[] = new double[2];
+  protected double itsRate, itsMin;
+
+  /* The search for entries, exits and minima, and the shadow functions as
+   * the functions it searches. */
+
+  protected TimeSearch          itsSearch;
+  protected TimeSearch.Function itsShadow[];
+
+  /* Scratch for the position of the Sun. */
+
+  protected double itsSunPos[] = new double[3];
+
+
+  /**
+   * Initialise for a satellite.
+   *
+   * @param aSatellite
+   *   The satellite, which must have read its orbital elements.
+   * @param aSun
+   *   The Sun over the time window to be searched. */
+
+  public void Init(Satellite aSatellite, SunEphemeris aSun)
+  {
+    itsSatellite = aSatellite;
+    itsSDP4   = aSatellite.itsSDP4;
+    itsWork   = new SDP4Workspace();
+    itsSun    = aSun;
+    itsNcalls = 0;
+
+    itsStep = itsSDP4.period / 1440. / (double) PassFinder.NPERIOD;
+    if (!(0. < itsStep) || PassFinder.MAXSTEP < itsStep)
+      itsStep = PassFinder.MAXSTEP;
+
+    itsSearch = new TimeSearch();
+    itsShadow = new TimeSearch.Function[2];
+    itsShadow[PENUMBRA] = new TimeSearch.Function() {
+      public double Value(double aJD) {Eval(aJD); return itsF[PENUMBRA];}
+    };
+    itsShadow[UMBRA] = new TimeSearch.Function() {
+      public double Value(double aJD) {Eval(aJD); return itsF[UMBRA];}
+    };
+
+    return;
+  }
+
+
+  /**
+   * Find the eclipses in a time window.
+   *
+   * @param aStart
+   *   The start of the window, as Julian Day minus 2450000 days.
+   * @param aEnd
+   *   The end of the window, as Julian Day minus 2450000 days.
+   * @return
+   *   The eclipses in order of time. */
+
+  public final ArrayList<SatelliteEclipse> Find(double aStart, double aEnd)
+  {
+    ArrayList<SatelliteEclipse> theEclipses
+      = new ArrayList<SatelliteEclipse>();
+    ArrayList<double[]> theUmbras = new ArrayList<double[]>();
+    double f0[] = new double[2], f1[] = new double[2], f2[] = new double[2];
+    double theStart[] = new double[2];
+    double t0, t1, t2, w0, w1, w2, tm;
+    int    theN, i, k;
+
+    if (aEnd <= aStart) return theEclipses;
+    theN = (int) Math.ceil((aEnd - aStart) / itsStep);
+
+    t0 = Double.NaN; w0 = 0.;
+    t1 = aStart; Eval(t1); w1 = itsRate;
+    for (k = 0; k < 2; k++) {
+      f0[k] = Double.NaN; f1[k] = itsF[k];
+      theStart[k] = (0. > f1[k]) ? aStart : Double.NaN;
+    }
+
+    for (i = 1; i <= theN; i++) {
+
+      t2 = (i == theN) ? aEnd : aStart + (double) i * itsStep;
+      Eval(t2); w2 = itsRate;
+      f2[0] = itsF[0]; f2[1] = itsF[1];
+
+      for (k = 0; k < 2; k++) {
+
+	/* Entry between the steps. */
+
+	if (0. > f2[k]) {
+	  if (!(0. > f1[k])) theStart[k] = Zero(k, t1, f1[k], t2, f2[k]);
+	}
+
+	/* Exit between the steps. */
+
+	else if (0. > f1[k]) {
+	  Add(k, theEclipses, theUmbras, theStart[k],
+	      Zero(k, t1, f1[k], t2, f2[k]));
+	  theStart[k] = Double.NaN;
+	}
+
+	/* Outside at both steps, but a minimum at the earlier step that
+	 * might be close enough to zero to dip below it. */
+
+	else if (f0[k] > f1[k] && f1[k] <= f2[k]
+	      && f1[k] < 1.25 * Math.max(w0, Math.max(w1, w2)) * itsStep) {
+	  tm = Min(k, t0, t2);
+	  if (0. > itsMin) {
+	    Add(k, theEclipses, theUmbras, Zero(k, t0, f0[k], tm, itsMin),
+		Zero(k, tm, itsMin, t2, f2[k]));
+	  }
+	}
+      }
+
+      t0 = t1; w0 = w1; f0[0] = f1[0]; f0[1] = f1[1];
+      t1 = t2; w1 = w2; f1[0] = f2[0]; f1[1] = f2[1];
+    }
+
+    /* Eclipses in progress at the end. */
+
+    for (k = 0; k < 2; k++) {
+      if (!Double.isNaN(theStart[k]))
+	Add(k, theEclipses, theUmbras, theStart[k], aEnd);
+    }
+
+    /* Each umbra lies within a penumbra. */
+
+    for (i = 0; i < theUmbras.size(); i++) Merge(theEclipses, theUmbras.get(i));
+
+    return theEclipses;
+  }
+
+
+  /**
+   * Return the number of evaluations of the SDP4 model so far. */
+
+  public final int GetNcalls() {return itsNcalls;}
+
+
+  /**
+   * Add a time in the penumbra or umbra.
+   *
+   * <p>A penumbra makes a new eclipse, an umbra is kept to be merged into
+   * its eclipse later.
+   *
+   * @param aWhich
+   *   PENUMBRA or UMBRA.
+   * @param aEclipses
+   *   The list of eclipses.
+   * @param aUmbras
+   *   The list of umbra times.
+   * @param aStart
+   *   The entry.
+   * @param aEnd
+   *   The exit. */
+
+  protected final void Add(int aWhich, ArrayList<SatelliteEclipse> aEclipses,
+    ArrayList<double[]> aUmbras, double aStart, double aEnd)
+  {
+    SatelliteEclipse theEclipse;
+
+    if (UMBRA == aWhich) {
+      aUmbras.add(new double[] {aStart, aEnd});
+      return;
+    }
+
+    theEclipse = new SatelliteEclipse();
+    theEclipse.Init();
+    theEclipse.itsSatellite     = itsSatellite;
+    theEclipse.itsPenumbraStart = aStart;
+    theEclipse.itsPenumbraEnd   = aEnd;
+    aEclipses.add(theEclipse);
+
+    return;
+  }
+
+
+  /**
+   * Evaluate the shadow functions at a given time.
+   *
+   * <p>This also sets the fastest rate at which they can change: The
+   * direction to the Earth turns with the speed of the satellite over its
+   * distance, the direction to the Sun turns slowly, and the radius of the
+   * Earth changes with the height.
+   *
+   * @param aJD
+   *   The time, as Julian Day minus 2450000 days. */
+
+  protected final void Eval(double aJD)
+  {
+    double theR[], theV[];
+    double ux, uy, uz, cx, cy, cz, r, u, v, theta, rhoE, rhoS;
+
+    itsSDP4.GetPosVel(aJD, itsWork);
+    itsNcalls++;
+    itsSun.GetPos(aJD, itsSunPos);
+    theR = itsWork.itsR; theV = itsWork.itsV;
+
+    /* From the satellite to the Sun, and its angle from the direction to
+     * the geocentre. */
+
+    ux = itsSunPos[0] - theR[0];
+    uy = itsSunPos[1] - theR[1];
+    uz = itsSunPos[2] - theR[2];
+    cx = theR[1] * uz - theR[2] * uy;
+    cy = theR[2] * ux - theR[0] * uz;
+    cz = theR[0] * uy - theR[1] * ux;
+    theta = Math.atan2(Math.sqrt(cx * cx + cy * cy + cz * cz),
+      -(theR[0] * ux + theR[1] * uy + theR[2] * uz));
+
+    r = Math.sqrt(theR[0] * theR[0] + theR[1] * theR[1] + theR[2] * theR[2]);
+    u = Math.sqrt(ux * ux + uy * uy + uz * uz);
+    rhoE = (Station.A < r) ? Math.asin(Station.A / r) : Math.PI / 2.;
+    rhoS = Math.asin(SUNRADIUS / u);
+    itsF[PENUMBRA] = theta - rhoE - rhoS;
+    itsF[UMBRA]    = theta - rhoE + rhoS;
+
+    /* The speed in Gm/d. */
+
+    v = 0.0864 * Math.sqrt(theV[0] * theV[0] + theV[1] * theV[1]
+      + theV[2] * theV[2]);
+    itsRate = v / r + SUNRATE;
+    if (Station.A < r)
+      itsRate += v * Station.A / (r * Math.sqrt(r * r - Station.A * Station.A));
+
+    return;
+  }
+
+
+  /**
+   * Add an umbra to the eclipse that contains it.
+   *
+   * @param aEclipses
+   *   The eclipses.
+   * @param aUmbra
+   *   The entry into and exit from the umbra. */
+
+  protected final void Merge(ArrayList<SatelliteEclipse> aEclipses,
+    double aUmbra[])
+  {
+    SatelliteEclipse theEclipse;
+    double m;
+    int    i;
+
+    m = 0.5 * (aUmbra[0] + aUmbra[1]);
+    for (i = 0; i < aEclipses.size(); i++) {
+      theEclipse = aEclipses.get(i);
+      if (theEclipse.itsPenumbraStart <= m && m <= theEclipse.itsPenumbraEnd) {
+	if (!(theEclipse.itsUmbraStart <= aUmbra[0]))
+	  theEclipse.itsUmbraStart = aUmbra[0];
+	if (!(theEclipse.itsUmbraEnd >= aUmbra[1]))
+	  theEclipse.itsUmbraEnd = aUmbra[1];
+	return;
+      }
+    }
+
+    return;
+  }
+
+
+  /**
+   * Find the smallest value of a shadow function between two times.
+   *
+   * <p>See {@link TimeSearch#Min TimeSearch.Min}, which assumes a single
+   * minimum between the two times.  It stops early once the value is
+   * negative, since then the satellite enters the shadow.  The minimum is
+   * left in itsMin.
+   *
+   * @param aWhich
+   *   PENUMBRA or UMBRA.
+   * @param a
+   *   The earlier time.
+   * @param b
+   *   The later time.
+   * @return
+   *   The time of the smallest value. */
+
+  protected final double Min(int aWhich, double a, double b)
+  {
+    double theTime;
+
+    theTime = itsSearch.Min(itsShadow[aWhich], a, b, PassFinder.TOLMAX, 0.);
+    itsMin  = itsSearch.GetValue();
+    return theTime;
+  }
+
+
+  /**
+   * Find the zero of a shadow function between two times.
+   *
+   * <p>See {@link TimeSearch#Zero TimeSearch.Zero}.
+   *
+   * @param aWhich
+   *   PENUMBRA or UMBRA.
+   * @param a
+   *   One time.
+   * @param fa
+   *   The shadow function at time a.
+   * @param b
+   *   The other time.
+   * @param fb
+   *   The shadow function at time b, of the opposite sign to fa.
+   * @return
+   *   The time of the zero. */
+
+  protected final double Zero(int aWhich, double a, double fa, double b,
+    double fb)
+  {
+    return itsSearch.Zero(itsShadow[aWhich], a, fa, b, fb, PassFinder.TOL);
+  }
+}
@@ -0,0 +1,298 @@
+package uk.me.chiandh.Sputnik;
+
+import java.util.ArrayList;
+import uk.me.chiandh.Lib.Hmelib;
+
+/**
+ * <p>The <code>FlareFinder</code> class finds the flares of an Iridium
+ * satellite over an observatory.</p>
+ *
+ * <p>Testing for flares at a fixed interval of a few seconds costs a full
+ * update of the satellite and up to three reflections for each step, most
+ * of them while the satellite is below the horizon or in shadow.  This
+ * class instead uses its parent class {@link PassFinder PassFinder} to find
+ * the passes, and searches only the parts of each pass where the
+ * satellite is sunlit.  There it steps through time with steps that depend
+ * on how far the flare angle is from 2&deg; and how fast it can change at
+ * most, judged from the speed, distance and height of the satellite.  The
+ * start and end of a flare are found by bisection, and the peak by golden
+ * section search.</p>
+ *
+ * <p>The flare angle is calculated as in
+ * {@link Satellite#TestFlare Satellite.TestFlare}, but with the satellite,
+ * the observer and the Sun for the equinox of date.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class FlareFinder extends PassFinder
+{
+  /** The largest flare angle that counts as a flare [rad]. */
+  public static final double FLAREANGLE = 2. / Hmelib.DEGPERRAD;
+
+  /** The tilt of the Iridium mirrors [rad]. */
+  protected static final double TILT = -40. / Hmelib.DEGPERRAD;
+
+  /** The rotations of the three Iridium mirrors from forward [rad]. */
+  protected static final double MIRROR[] =
+    {0., 120. / Hmelib.DEGPERRAD, 240. / Hmelib.DEGPERRAD};
+
+  /** The shortest and longest steps of the flare search [d]. */
+  protected static final double FLAREMINSTEP = 0.5 / 86400.,
+    FLAREMAXSTEP = 60. / 86400.;
+
+  /* The satellite, for its reflection routine. */
+
+  protected Satellite itsSatellite;
+
+  /* From the last evaluation of the flare: the flare angle, the greatest
+   * rate at which it can change [rad/d], and the minimum found by
+   * MinAngle. */
+
+  protected double itsAngle, itsAngleRate, itsMinAngle;
+
+  /* The flare angle as a function for the search. */
+
+  protected TimeSearch.Function itsFlareAngle;
+
+
+  /**
+   * Initialise for a satellite and an observatory.
+   *
+   * @param aSatellite
+   *   The satellite, which must have read its orbital elements.
+   * @param aStation
+   *   The location of the observatory.  Its clock is not used. */
+
+  public void Init(Satellite aSatellite, Station aStation)
+  {
+    super.Init(aSatellite, aStation);
+    itsSatellite  = aSatellite;
+    itsFlareAngle = new TimeSearch.Function() {
+      public double Value(double aJD) {EvalFlare(aJD); return itsAngle;}
+    };
+    return;
+  }
+
+
+  /**
+   * Find the flares in a time window.
+   *
+   * @param aStart
+   *   The start of the window, as Julian Day minus 2450000 days.
+   * @param aEnd
+   *   The end of the window, as Julian Day minus 2450000 days.
+   * @return
+   *   The flares in order of time. */
+
+  public final ArrayList<SatelliteFlare> FindFlares(double aStart,
+    double aEnd)
+  {
+    ArrayList<SatelliteFlare> theFlares = new ArrayList<SatelliteFlare>();
+    ArrayList<SatellitePass>  thePasses;
+    SatellitePass thePass;
+    int i;
+
+    thePasses = Find(aStart, aEnd);
+    for (i = 0; i < thePasses.size(); i++) {
+      thePass = thePasses.get(i);
+      if (!Double.isNaN(thePass.itsSunlitStart))
+	Scan(theFlares, thePass.itsSunlitStart, thePass.itsSunlitEnd);
+    }
+
+    return theFlares;
+  }
+
+
+  /**
+   * Find the time when the satellite starts or stops flaring.
+   *
+   * @param a
+   *   A time before the change.
+   * @param b
+   *   A time after the change.
+   * @param aAtA
+   *   Whether it flares at time a. */
+
+  protected final double BisectFlare(double a, double b, boolean aAtA)
+  {
+    double m;
+
+    while (TOL < b - a) {
+      m = 0.5 * (a + b);
+      EvalFlare(m);
+      if ((FLAREANGLE > itsAngle) == aAtA) a = m;
+      else                                 b = m;
+    }
+
+    return 0.5 * (a + b);
+  }
+
+
+  /**
+   * Evaluate the flare angle at a given time.
+   *
+   * <p>This sets the smallest flare angle of the three mirrors, or 180&deg;
+   * if the satellite is in shadow or not above the horizon.  It also sets
+   * the fastest rate at which that angle can change: The direction from
+   * the satellite to the observer turns with the speed of the satellite
+   * relative to the observer over its distance, the mirrors turn with the
+   * orbital motion, and the reflection turns at twice the rate of the
+   * mirror.  For safety the sum is increased by half.
+   *
+   * @param aJD
+   *   The time, as Julian Day minus 2450000 days. */
+
+  protected final void EvalFlare(double aJD)
+  {
+    double mat[]     = itsFrame.matLST;
+    double theStat[] = itsFrame.vec;
+    double theSun[]  = itsCWork.t2;
+    double theTopo[] = itsCWork.t3;
+    double theR[], theV[];
+    double r, d, v, t;
+    int    k;
+
+    Eval(aJD); EvalSun();
+    theR = itsWork.itsR; theV = itsWork.itsV;
+
+    r = Math.sqrt(theR[0] * theR[0] + theR[1] * theR[1] + theR[2] * theR[2]);
+    d = Math.sqrt(itsHori[0] * itsHori[0] + itsHori[1] * itsHori[1]
+      + itsHori[2] * itsHori[2]);
+    v = Math.sqrt(theV[0] * theV[0] + theV[1] * theV[1] + theV[2] * theV[2]);
+    itsAngleRate = 1.5 * 86400. * ((v + 0.5) / (d * 1E6) + 2. * v / (r * 1E6));
+
+    if (!itsSunlit || !(0. < itsEl)) {itsAngle = Math.PI; return;}
+
+    /* The satellite as seen from the station, for the equinox of date.
+     * The rotation for sidereal time is its own inverse, see
+     * Catalog.Mean2Topo. */
+
+    theTopo[0] = theR[0] - (mat[0] * theStat[0] + mat[1] * theStat[1]);
+    theTopo[1] = theR[1] - (mat[2] * theStat[0] + mat[3] * theStat[1]);
+    theTopo[2] = theR[2] - theStat[2];
+    Catalog.J20002Mean(1, itsFrame, itsSunPos, theSun);
+
+    itsAngle = Math.PI;
+    for (k = 0; k < 3; k++) {
+      t = itsSatellite.SAT_REFLECTION(theR[0], theR[1], theR[2],
+	theV[0], theV[1], theV[2], theTopo[0], theTopo[1], theTopo[2],
+	theSun[0], theSun[1], theSun[2], TILT, MIRROR[k]);
+      if (itsAngle > t) itsAngle = t;
+    }
+
+    return;
+  }
+
+
+  /**
+   * Make a flare and add it to a list.
+   *
+   * @param aFlares
+   *   The list to add the flare to.
+   * @param aStart
+   *   The start of the flare.
+   * @param aEnd
+   *   The end of the flare. */
+
+  protected final void MakeFlare(ArrayList<SatelliteFlare> aFlares,
+    double aStart, double aEnd)
+  {
+    SatelliteFlare theFlare;
+
+    theFlare = new SatelliteFlare();
+    theFlare.itsSatellite = itsSatellite;
+    theFlare.itsStart = aStart;
+    theFlare.itsEnd   = aEnd;
+    theFlare.itsPeak  = MinAngle(aStart, aEnd);
+    theFlare.itsAngle = itsMinAngle;
+    GetHori(aStart, theFlare.itsHoriStart);
+    GetHori(theFlare.itsPeak, theFlare.itsHoriPeak);
+    GetHori(aEnd, theFlare.itsHoriEnd);
+    aFlares.add(theFlare);
+
+    return;
+  }
+
+
+  /**
+   * Find the smallest flare angle between two times.
+   *
+   * <p>See {@link TimeSearch#Min TimeSearch.Min}, which assumes a single
+   * minimum between the two times.  The minimum angle is left in
+   * itsMinAngle.
+   *
+   * @param a
+   *   The earlier time.
+   * @param b
+   *   The later time.
+   * @return
+   *   The time of the smallest angle. */
+
+  protected final double MinAngle(double a, double b)
+  {
+    double theTime;
+
+    theTime = itsSearch.Min(itsFlareAngle, a, b, TOL,
+      Double.NEGATIVE_INFINITY);
+    itsMinAngle = itsSearch.GetValue();
+    return theTime;
+  }
+
+
+  /**
+   * Search part of a pass for flares.
+   *
+   * @param aFlares
+   *   The list to add the flares to.
+   * @param a
+   *   The start of the part, when the satellite is up and sunlit.
+   * @param b
+   *   The end of the part. */
+
+  protected final void Scan(ArrayList<SatelliteFlare> aFlares,
+    double a, double b)
+  {
+    double t1, t2, a1, a2, w1, theStep, theStart;
+
+    t1 = a; EvalFlare(t1); a1 = itsAngle; w1 = itsAngleRate;
+    theStart = (FLAREANGLE > a1) ? a : Double.NaN;
+
+    while (t1 < b) {
+
+      /* The angle cannot cross the limit within this step. */
+
+      theStep = Math.abs(a1 - FLAREANGLE) / w1;
+      if (FLAREMINSTEP > theStep) theStep = FLAREMINSTEP;
+      if (FLAREMAXSTEP < theStep) theStep = FLAREMAXSTEP;
+      t2 = t1 + theStep;
+      if (b < t2) t2 = b;
+      EvalFlare(t2); a2 = itsAngle; w1 = itsAngleRate;
+
+      if (FLAREANGLE > a2) {
+	if (!(FLAREANGLE > a1)) theStart = BisectFlare(t1, t2, false);
+      }
+      else if (FLAREANGLE > a1) {
+	MakeFlare(aFlares, theStart, BisectFlare(t1, t2, true));
+	theStart = Double.NaN;
+      }
+
+      t1 = t2; a1 = a2;
+    }
+
+    if (!Double.isNaN(theStart)) MakeFlare(aFlares, theStart, b);
+
+    return;
+  }
+}
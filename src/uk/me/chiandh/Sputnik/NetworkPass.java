@@ -0,0 +1,54 @@
+package uk.me.chiandh.Sputnik;
+
+/**
+ * <p>The <code>NetworkPass</code> class holds one pass of a satellite over
+ * one station of a network, as found by
+ * {@link NetworkPassFinder NetworkPassFinder}.</p>
+ *
+ * <p>The times and maximum elevation are as in the parent class
+ * {@link SatellitePass SatellitePass}.  The sunlit and visible parts are
+ * not determined and remain NaN.  In addition the pass holds the station
+ * and satellite it belongs to, and the azimuths at rise, maximum and
+ * set.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class NetworkPass extends SatellitePass
+{
+  /** The station, as given to the finder, and its index in the network. */
+  public Station itsStation;
+  public int     itsIndex;
+
+  /** The satellite. */
+  public Satellite itsSatellite;
+
+  /** The azimuths at rise, maximum and set [rad], North is zero, East
+   * 90&deg;. */
+  public double itsAzAOS, itsAzTCA, itsAzLOS;
+
+
+  /**
+   * Initialise the pass.
+   *
+   * <p>See {@link SatellitePass#Init SatellitePass.Init}. */
+
+  public void Init()
+  {
+    super.Init();
+    itsStation = null; itsIndex = 0; itsSatellite = null;
+    itsAzAOS = 0.; itsAzTCA = 0.; itsAzLOS = 0.;
+    return;
+  }
+}
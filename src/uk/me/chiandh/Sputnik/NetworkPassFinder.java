@@ -0,0 +1,552 @@
+package uk.me.chiandh.Sputnik;
+
+import java.util.ArrayList;
+import uk.me.chiandh.Lib.Hmelib;
+import uk.me.chiandh.Lib.SDP4;
+import uk.me.chiandh.Lib.SDP4Workspace;
+
+/**
+ * <p>The <code>NetworkPassFinder</code> class finds the passes of
+ * satellites over a network of observatories.</p>
+ *
+ * <p>{@link PassFinder PassFinder} works for one station, and a network of
+ * stations would evaluate the SDP4 model of each satellite once for each
+ * station.  This class evaluates the model of a satellite once per time
+ * step and shares the results among all stations:</p>
+ *
+ * <ul>
+ *   <li>The satellite is evaluated at steps over which it moves no more
+ *   than 1/32 of a revolution about the geocentre.  Each position and
+ *   velocity is rotated by the Greenwich sidereal time into a frame fixed
+ *   to the Earth.</li>
+ *   <li>Each station has its position in that frame and the matrix to its
+ *   east, north and up directions worked out once, when the network is
+ *   set.  The elevation over a station then takes one difference of
+ *   vectors and one product of matrix and vector.</li>
+ *   <li>Between the steps the position is interpolated with the cubic
+ *   polynomial that matches position and velocity at both ends.  The rise
+ *   and set are found on this by Brent's method and the maximum by golden
+ *   section search, see {@link TimeSearch TimeSearch}, without further
+ *   evaluations of the model.  As in
+ *   PassFinder, a maximum below the horizon at a step is searched only if
+ *   the satellite is near enough to rise between the steps.</li>
+ * </ul>
+ *
+ * <p>The cost of the model thus does not grow with the number of
+ * stations.  The rise and set are within about a second of those from
+ * PassFinder.  Whether the satellite is sunlit or visible is not
+ * determined.</p>
+ *
+ * <p>An instance has its own workspace and does not change the satellites
+ * or the stations.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class NetworkPassFinder
+{
+  /** The largest angle the satellite moves about the geocentre in one
+   * step [rad]. */
+  protected static final double STEPANGLE = 2. * Math.PI / 32.;
+
+  /* The stations as given, their number, their positions in the frame
+   * fixed to the Earth [Gm], the lengths of those, and their matrices to
+   * east, north and up, row by row. */
+
+  protected Station itsStations[];
+  protected int     itsNstat;
+  protected double  itsPos[], itsDist[], itsENU[];
+
+  /* The clock for the sidereal time, the model's workspace and the number
+   * of evaluations. */
+
+  protected Times         itsTime;
+  protected SDP4Workspace itsWork;
+  protected int           itsNcalls;
+
+  /* The steps of the current satellite: their number, the times, the
+   * positions [Gm] and velocities [Gm/d] in the frame fixed to the Earth,
+   * and the greatest rate at which the geocentric angle from the horizon
+   * of any station can change [rad/d]. */
+
+  protected int    itsNstep;
+  protected double itsT[], itsR[], itsV[], itsRate[];
+
+  /* The interpolated position and the last segment used. */
+
+  protected double itsRI[] = new double[3];
+  protected int    itsSeg;
+
+  /* From the last evaluation: the elevation, the azimuth and the maximum
+   * found by Max. */
+
+  protected double itsEl, itsAz, itsMaxEl;
+
+  /* The search for rise, set and maximum, and the elevation over each
+   * station as the function it searches. */
+
+  protected TimeSearch          itsSearch;
+  protected TimeSearch.Function itsElevation[];
+
+
+  /**
+   * Initialise for a network of observatories.
+   *
+   * @param aStations
+   *   The locations of the observatories.  Their clocks are not used. */
+
+  public void Init(ArrayList<Station> aStations)
+  {
+    double theX0Z[] = new double[3];
+    double theLong, theLat;
+    int i;
+
+    itsNstat    = aStations.size();
+    itsStations = new Station[itsNstat];
+    itsPos  = new double[3 * itsNstat];
+    itsDist = new double[itsNstat];
+    itsENU  = new double[9 * itsNstat];
+
+    for (i = 0; i < itsNstat; i++) {
+      itsStations[i] = aStations.get(i);
+      theLong = itsStations[i].GetLong();
+      theLat  = itsStations[i].GetLat();
+
+      /* The geocentric position in the meridian of the station, turned to
+       * its longitude. */
+
+      itsStations[i].GetX0Z(theX0Z);
+      itsPos[3*i]   = theX0Z[0] * Math.cos(theLong);
+      itsPos[3*i+1] = theX0Z[0] * Math.sin(theLong);
+      itsPos[3*i+2] = theX0Z[2];
+      itsDist[i] = Math.sqrt(theX0Z[0] * theX0Z[0] + theX0Z[2] * theX0Z[2]);
+
+      /* East, north and up for the geodetic latitude. */
+
+      itsENU[9*i]   = -Math.sin(theLong);
+      itsENU[9*i+1] =  Math.cos(theLong);
+      itsENU[9*i+2] =  0.;
+      itsENU[9*i+3] = -Math.sin(theLat) * Math.cos(theLong);
+      itsENU[9*i+4] = -Math.sin(theLat) * Math.sin(theLong);
+      itsENU[9*i+5] =  Math.cos(theLat);
+      itsENU[9*i+6] =  Math.cos(theLat) * Math.cos(theLong);
+      itsENU[9*i+7] =  Math.cos(theLat) * Math.sin(theLong);
+      itsENU[9*i+8] =  Math.sin(theLat);
+    }
+
+    itsTime = new Times(); itsTime.Init();
+    itsWork = new SDP4Workspace();
+    itsNcalls = 0;
+
+    itsNstep = 0;
+    itsT = new double[64];     itsRate = new double[64];
+    itsR = new double[3 * 64]; itsV    = new double[3 * 64];
+
+    itsSearch    = new TimeSearch();
+    itsElevation = new TimeSearch.Function[itsNstat];
+    for (i = 0; i < itsNstat; i++) {
+      final int theStation = i;
+      itsElevation[i] = new TimeSearch.Function() {
+	public double Value(double aJD) {Eval(theStation, aJD); return itsEl;}
+      };
+    }
+
+    return;
+  }
+
+
+  /**
+   * Find the passes of a satellite over all stations in a time window.
+   *
+   * @param aSatellite
+   *   The satellite, which must have read its orbital elements.
+   * @param aStart
+   *   The start of the window, as Julian Day minus 2450000 days.
+   * @param aEnd
+   *   The end of the window, as Julian Day minus 2450000 days.
+   * @return
+   *   The passes, in the order of the stations and for each station in
+   *   order of time. */
+
+  public final ArrayList<NetworkPass> Find(Satellite aSatellite,
+    double aStart, double aEnd)
+  {
+    ArrayList<NetworkPass> thePasses = new ArrayList<NetworkPass>();
+    double t0, t1, t2, e0, e1, e2, m1, m2, w;
+    double theAOS, theTCA, theMax;
+    int    i, k;
+
+    if (aEnd <= aStart) return thePasses;
+    Sample(aSatellite.itsSDP4, aStart, aEnd);
+
+    for (i = 0; i < itsNstat; i++) {
+
+      itsSeg = 0;
+      t0 = Double.NaN; e0 = Double.NaN;
+      t1 = itsT[0]; Eval(i, 0); e1 = itsEl; m1 = Margin(i, 0);
+      theAOS = (0. < e1) ? aStart : Double.NaN;
+
+      for (k = 1; k < itsNstep; k++) {
+
+	t2 = itsT[k]; Eval(i, k); e2 = itsEl; m2 = Margin(i, k);
+
+	/* Rise between the steps. */
+
+	if (0. < e2) {
+	  if (!(0. < e1)) theAOS = Zero(i, t1, e1, t2, e2);
+	}
+
+	/* Set between the steps. */
+
+	else if (0. < e1) {
+	  theTCA = Max(i, theAOS, t2);
+	  MakePass(thePasses, aSatellite, i, theAOS, theTCA, itsMaxEl,
+		   Zero(i, t1, e1, t2, e2));
+	  theAOS = Double.NaN;
+	}
+
+	/* Below the horizon at both steps, but a maximum at the earlier step
+	 * that might be close enough to the horizon to peak above it. */
+
+	else if (e0 < e1 && e1 >= e2) {
+	  w = Math.max(itsRate[k-2], Math.max(itsRate[k-1], itsRate[k]));
+	  if (m1 < 1.25 * w * Math.max(t1 - t0, t2 - t1) + PassFinder.SLACK) {
+	    theTCA = Max(i, t0, t2);
+	    theMax = itsMaxEl;
+	    if (0. < theMax) {
+	      MakePass(thePasses, aSatellite, i,
+		       Zero(i, t0, e0, theTCA, theMax), theTCA, theMax,
+		       Zero(i, theTCA, theMax, t2, e2));
+	    }
+	  }
+	}
+
+	t0 = t1; e0 = e1;
+	t1 = t2; e1 = e2; m1 = m2;
+      }
+
+      /* A pass in progress at the end. */
+
+      if (!Double.isNaN(theAOS)) {
+	theTCA = Max(i, theAOS, aEnd);
+	MakePass(thePasses, aSatellite, i, theAOS, theTCA, itsMaxEl, aEnd);
+      }
+    }
+
+    return thePasses;
+  }
+
+
+  /**
+   * Return the number of evaluations of the SDP4 model so far. */
+
+  public final int GetNcalls() {return itsNcalls;}
+
+
+  /**
+   * Evaluate the elevation and azimuth over a station at a step.
+   *
+   * @param aStation
+   *   The index of the station.
+   * @param aStep
+   *   The index of the step. */
+
+  protected final void Eval(int aStation, int aStep)
+  {
+    itsRI[0] = itsR[3*aStep];
+    itsRI[1] = itsR[3*aStep+1];
+    itsRI[2] = itsR[3*aStep+2];
+    Hori(aStation);
+    return;
+  }
+
+
+  /**
+   * Evaluate the elevation and azimuth over a station at a given time.
+   *
+   * <p>The position is interpolated between the steps either side of the
+   * time.
+   *
+   * @param aStation
+   *   The index of the station.
+   * @param aJD
+   *   The time, as Julian Day minus 2450000 days. */
+
+  protected final void Eval(int aStation, double aJD)
+  {
+    double h, s, h00, h10, h01, h11;
+    int    a, b, k;
+
+    /* Find the segment, starting from the last one. */
+
+    while (0 < itsSeg && aJD < itsT[itsSeg]) itsSeg--;
+    while (itsSeg < itsNstep - 2 && aJD > itsT[itsSeg+1]) itsSeg++;
+    a = itsSeg; b = itsSeg + 1;
+
+    h = itsT[b] - itsT[a];
+    s = (aJD - itsT[a]) / h;
+    h00 = (2. * s - 3.) * s * s + 1.;
+    h10 = ((s - 2.) * s + 1.) * s * h;
+    h01 = (3. - 2. * s) * s * s;
+    h11 = (s - 1.) * s * s * h;
+    for (k = 0; k < 3; k++) {
+      itsRI[k] = h00 * itsR[3*a+k] + h10 * itsV[3*a+k]
+	       + h01 * itsR[3*b+k] + h11 * itsV[3*b+k];
+    }
+
+    Hori(aStation);
+    return;
+  }
+
+
+  /**
+   * Calculate the elevation and azimuth of the position in itsRI.
+   *
+   * @param aStation
+   *   The index of the station. */
+
+  protected final void Hori(int aStation)
+  {
+    double mat[] = itsENU;
+    double x, y, z, e, n, u;
+    int    i3, i9;
+
+    i3 = 3 * aStation; i9 = 9 * aStation;
+    x = itsRI[0] - itsPos[i3];
+    y = itsRI[1] - itsPos[i3+1];
+    z = itsRI[2] - itsPos[i3+2];
+    e = mat[i9]   * x + mat[i9+1] * y + mat[i9+2] * z;
+    n = mat[i9+3] * x + mat[i9+4] * y + mat[i9+5] * z;
+    u = mat[i9+6] * x + mat[i9+7] * y + mat[i9+8] * z;
+
+    itsEl = Math.atan2(u, Math.sqrt(e * e + n * n));
+    itsAz = Hmelib.NormAngle180(Math.atan2(e, n));
+
+    return;
+  }
+
+
+  /**
+   * Make a pass and add it to a list.
+   *
+   * @param aPasses
+   *   The list to add the pass to.
+   * @param aSatellite
+   *   The satellite.
+   * @param aStation
+   *   The index of the station.
+   * @param aAOS
+   *   The rise.
+   * @param aTCA
+   *   The time of maximum elevation.
+   * @param aMaxEl
+   *   The maximum elevation.
+   * @param aLOS
+   *   The set. */
+
+  protected final void MakePass(ArrayList<NetworkPass> aPasses,
+    Satellite aSatellite, int aStation, double aAOS, double aTCA,
+    double aMaxEl, double aLOS)
+  {
+    NetworkPass thePass;
+
+    thePass = new NetworkPass();
+    thePass.Init();
+    thePass.itsStation   = itsStations[aStation];
+    thePass.itsIndex     = aStation;
+    thePass.itsSatellite = aSatellite;
+    thePass.itsAOS = aAOS; thePass.itsTCA = aTCA; thePass.itsLOS = aLOS;
+    thePass.itsMaxEl = aMaxEl;
+    Eval(aStation, aAOS); thePass.itsAzAOS = itsAz;
+    Eval(aStation, aTCA); thePass.itsAzTCA = itsAz;
+    Eval(aStation, aLOS); thePass.itsAzLOS = itsAz;
+    aPasses.add(thePass);
+
+    return;
+  }
+
+
+  /**
+   * Return how far a station is beyond the horizon of the satellite.
+   *
+   * <p>This is the geocentric angle between the station and the satellite
+   * at a step, minus the largest such angle at which the satellite can be
+   * seen on a spherical Earth, as in PassFinder.
+   *
+   * @param aStation
+   *   The index of the station.
+   * @param aStep
+   *   The index of the step. */
+
+  protected final double Margin(int aStation, int aStep)
+  {
+    double x, y, z, r, psi;
+    int    i3;
+
+    i3 = 3 * aStation;
+    x = itsR[3*aStep]; y = itsR[3*aStep+1]; z = itsR[3*aStep+2];
+    r = Math.sqrt(x * x + y * y + z * z);
+    if (Station.A >= r) return Double.POSITIVE_INFINITY;
+
+    psi = (x * itsPos[i3] + y * itsPos[i3+1] + z * itsPos[i3+2])
+      / (r * itsDist[aStation]);
+    psi = Math.acos(Math.max(-1., Math.min(1., psi)));
+
+    return psi - Math.acos(Station.A / r);
+  }
+
+
+  /**
+   * Find the maximum elevation between two times.
+   *
+   * <p>See {@link TimeSearch#Max TimeSearch.Max}, which assumes a single
+   * maximum between the two times.  The maximum elevation is left in
+   * itsMaxEl.
+   *
+   * @param aStation
+   *   The index of the station.
+   * @param a
+   *   The earlier time.
+   * @param b
+   *   The later time.
+   * @return
+   *   The time of maximum elevation. */
+
+  protected final double Max(int aStation, double a, double b)
+  {
+    double theTime;
+
+    theTime  = itsSearch.Max(itsElevation[aStation], a, b,
+      PassFinder.TOLMAX);
+    itsMaxEl = itsSearch.GetValue();
+    return theTime;
+  }
+
+
+  /**
+   * Evaluate a satellite at steps through a time window.
+   *
+   * <p>The steps are limited by the angle the satellite moves about the
+   * geocentre, and by the longest step of PassFinder.  The first step is
+   * at the start and the last at the end of the window.
+   *
+   * @param aSDP4
+   *   The model of the satellite.
+   * @param aStart
+   *   The start of the window.
+   * @param aEnd
+   *   The end of the window. */
+
+  protected final void Sample(SDP4 aSDP4, double aStart, double aEnd)
+  {
+    double theR[] = itsWork.itsR;
+    double theV[] = itsWork.itsV;
+    double t, c, s, g, r, v, theStep;
+    int    k, k3;
+
+    itsNstep = 0;
+    t = aStart;
+
+    for (;;) {
+
+      if (itsT.length == itsNstep) Grow();
+      k = itsNstep; k3 = 3 * k;
+
+      aSDP4.GetPosVel(t, itsWork);
+      itsNcalls++;
+
+      /* Turn by the sidereal time into the frame fixed to the Earth, and
+       * take the rotation of the frame from the velocity in Gm/d. */
+
+      itsTime.SetJD(t);
+      g = itsTime.GetGST() * Math.PI / 12.;
+      c = Math.cos(g); s = Math.sin(g);
+      itsT[k] = t;
+      itsR[k3]   =  c * theR[0] + s * theR[1];
+      itsR[k3+1] = -s * theR[0] + c * theR[1];
+      itsR[k3+2] =  theR[2];
+      itsV[k3]   =  0.0864 * ( c * theV[0] + s * theV[1])
+	+ PassFinder.EARTHROT * itsR[k3+1];
+      itsV[k3+1] =  0.0864 * (-s * theV[0] + c * theV[1])
+	- PassFinder.EARTHROT * itsR[k3];
+      itsV[k3+2] =  0.0864 * theV[2];
+
+      r = Math.sqrt(theR[0] * theR[0] + theR[1] * theR[1]
+	+ theR[2] * theR[2]);
+      v = 0.0864 * Math.sqrt(theV[0] * theV[0] + theV[1] * theV[1]
+	+ theV[2] * theV[2]);
+      itsRate[k] = v / r + PassFinder.EARTHROT;
+      if (Station.A < r)
+	itsRate[k] += v * Station.A
+	  / (r * Math.sqrt(r * r - Station.A * Station.A));
+      itsNstep++;
+
+      if (aEnd <= t) break;
+      theStep = (0. < v) ? STEPANGLE * r / v : PassFinder.MAXSTEP;
+      if (PassFinder.MAXSTEP < theStep) theStep = PassFinder.MAXSTEP;
+      t += theStep;
+      if (aEnd < t) t = aEnd;
+    }
+
+    return;
+  }
+
+
+  /**
+   * Double the room for steps. */
+
+  protected final void Grow()
+  {
+    double theT[], theR[], theV[], theRate[];
+
+    theT = new double[2 * itsT.length];
+    theRate = new double[2 * itsT.length];
+    theR = new double[6 * itsT.length];
+    theV = new double[6 * itsT.length];
+    System.arraycopy(itsT, 0, theT, 0, itsNstep);
+    System.arraycopy(itsRate, 0, theRate, 0, itsNstep);
+    System.arraycopy(itsR, 0, theR, 0, 3 * itsNstep);
+    System.arraycopy(itsV, 0, theV, 0, 3 * itsNstep);
+    itsT = theT; itsRate = theRate; itsR = theR; itsV = theV;
+
+    return;
+  }
+
+
+  /**
+   * Find the rise or set between two times.
+   *
+   * <p>See {@link TimeSearch#Zero TimeSearch.Zero}, here on the
+   * interpolated elevation.
+   *
+   * @param aStation
+   *   The index of the station.
+   * @param a
+   *   One time.
+   * @param fa
+   *   The elevation at time a.
+   * @param b
+   *   The other time.
+   * @param fb
+   *   The elevation at time b, of the opposite sign to fa.
+   * @return
+   *   The time of the rise or set. */
+
+  protected final double Zero(int aStation, double a, double fa, double b,
+    double fb)
+  {
+    return itsSearch.Zero(itsElevation[aStation], a, fa, b, fb,
+      PassFinder.TOL);
+  }
+}
@@ -0,0 +1,667 @@
+package uk.me.chiandh.Sputnik;
+
+import java.util.ArrayList;
+import uk.me.chiandh.Lib.SDP4;
+import uk.me.chiandh.Lib.SDP4Workspace;
+
+/**
+ * <p>The <code>PassFinder</code> class finds the passes of a satellite over
+ * an observatory.</p>
+ *
+ * <p>Stepping through time at a fixed interval and testing each step is
+ * slow if the interval is short, and misses short passes if it is long.
+ * This class instead steps through time at a fraction of the orbital
+ * period and only brackets the events:</p>
+ *
+ * <ul>
+ *   <li>Where the elevation changes sign between two steps, the rise or
+ *   set is found by Brent's method, see {@link TimeSearch
+ *   TimeSearch}.</li>
+ *   <li>Where the elevation has a maximum below the horizon at a step, a
+ *   short pass may peak between the steps.  The maximum is then found by
+ *   golden section search, and if it is above the horizon so are the rise
+ *   and set.  The search is skipped if the satellite is too far below the
+ *   horizon to rise within one step, judged from the geocentric angle
+ *   between station and satellite and the satellite's angular speed.</li>
+ *   <li>In the same way, where the elevation has a minimum above the
+ *   horizon at a step, the satellite may set and rise again between the
+ *   steps.  The minimum is then searched for until it is found below the
+ *   horizon, which splits the pass in two.</li>
+ *   <li>The steps at the start and end of the window have no neighbour
+ *   outside it, so an extreme value there is searched for between the
+ *   step and its neighbour inside the window.</li>
+ *   <li>The time of maximum elevation of each pass is found by golden
+ *   section search.</li>
+ *   <li>Within each pass the satellite is tested for being sunlit and the
+ *   sky for being dark at a quarter of the coarse step, and the changes
+ *   are found by bisection.</li>
+ * </ul>
+ *
+ * <p>For a satellite in low orbit a day of passes costs some 500
+ * evaluations of the SDP4 model, compared to 1440 for a search at one
+ * minute intervals.  Whether the satellite is sunlit is determined as in
+ * {@link Satellite#Update(Telescope) Satellite.Update}, and the Sun is
+ * interpolated as in {@link Satellite#GetHoriSeries
+ * Satellite.GetHoriSeries}.</p>
+ *
+ * <p>An instance keeps its own copy of the station and its own
+ * workspaces.  It does not change the satellite and several instances can
+ * work on the same satellite in different threads.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class PassFinder
+{
+  /** The number of coarse steps per orbital period. */
+  protected static final int NPERIOD = 16;
+
+  /** The longest coarse step [d]. */
+  protected static final double MAXSTEP = 1. / 48.;
+
+  /** The number of steps per coarse step to test for sunlit and dark. */
+  protected static final int NSUB = 4;
+
+  /** The accuracy of the times of rise, set, sunlit and dark [d]. */
+  protected static final double TOL = 1E-6;
+
+  /** The accuracy of the time of maximum elevation [d]. */
+  protected static final double TOLMAX = 1E-5;
+
+  /** The rotation rate of the Earth [rad/d]. */
+  protected static final double EARTHROT = 2. * Math.PI * 1.00273790935;
+
+  /** The allowance for the station being off the sphere [rad]. */
+  protected static final double SLACK = 0.01;
+
+  /* The functions that Bisect can use. */
+
+  protected static final int SUNLIT = 0, VISIBLE = 1;
+
+  /* The satellite model, its workspace and the number of evaluations. */
+
+  protected SDP4          itsSDP4;
+  protected SDP4Workspace itsWork;
+  protected int           itsNcalls;
+
+  /* The station, with its clock at the last evaluation, and the frame. */
+
+  protected Station          itsStation;
+  protected CatalogFrame     itsFrame;
+  protected CatalogWorkspace itsCWork;
+
+  /* The coarse step [d]. */
+
+  protected double itsStep;
+
+  /* The Sun at the interpolation nodes either side of the last time, see
+   * Satellite.GetHoriSeries. */
+
+  protected Times  itsTime;
+  protected Sun    itsSun;
+  protected double itsNode;
+  protected double itsSun0[] = new double[3];
+  protected double itsSun1[] = new double[3];
+
+  /* The interpolated J2000 position of the Sun from the last evaluation of
+   * the Sun. */
+
+  protected double itsSunPos[] = new double[3];
+
+  /* From the last evaluation: the rectangular horizontal position, the
+   * elevation, the geocentric angle from the horizon, the greatest rate at
+   * which that can change, and the maximum found by Max and minimum found
+   * by Min. */
+
+  protected double itsHori[] = new double[3];
+  protected double itsEl, itsMargin, itsRate, itsMaxEl, itsMinEl;
+
+  /* From the last evaluation of the Sun: whether the satellite is sunlit
+   * and whether the sky is dark. */
+
+  protected boolean itsSunlit, itsDark;
+
+  /* The search for rise, set and maximum, and the elevation as the
+   * function it searches. */
+
+  protected TimeSearch          itsSearch;
+  protected TimeSearch.Function itsElevation;
+
+
+  /**
+   * Initialise for a satellite and an observatory.
+   *
+   * @param aSatellite
+   *   The satellite, which must have read its orbital elements.
+   * @param aStation
+   *   The location of the observatory.  Its clock is not used. */
+
+  public void Init(Satellite aSatellite, Station aStation)
+  {
+    itsSDP4   = aSatellite.itsSDP4;
+    itsWork   = new SDP4Workspace();
+    itsNcalls = 0;
+
+    itsStation = new Station(); itsStation.Init(); itsStation.Copy(aStation);
+    itsFrame   = new CatalogFrame();
+    itsCWork   = new CatalogWorkspace();
+
+    itsStep = itsSDP4.period / 1440. / (double) NPERIOD;
+    if (!(0. < itsStep) || MAXSTEP < itsStep) itsStep = MAXSTEP;
+
+    itsTime = new Times(); itsTime.Init();
+    itsSun  = new Sun();   itsSun.Init();
+    itsNode = Double.NaN;
+
+    itsSearch    = new TimeSearch();
+    itsElevation = new TimeSearch.Function() {
+      public double Value(double aJD) {Eval(aJD); return itsEl;}
+    };
+
+    return;
+  }
+
+
+  /**
+   * Find the passes in a time window.
+   *
+   * @param aStart
+   *   The start of the window, as Julian Day minus 2450000 days.
+   * @param aEnd
+   *   The end of the window, as Julian Day minus 2450000 days.
+   * @return
+   *   The passes in order of time. */
+
+  public final ArrayList<SatellitePass> Find(double aStart, double aEnd)
+  {
+    ArrayList<SatellitePass> thePasses = new ArrayList<SatellitePass>();
+    double t0, t1, t2, e0, e1, e2, m1, m2, w0, w1, w2;
+    double theAOS, theTCA, theNear;
+    int    theN, k;
+
+    if (aEnd <= aStart) return thePasses;
+    theN = (int) Math.ceil((aEnd - aStart) / itsStep);
+
+    t0 = Double.NaN; e0 = Double.NaN; w0 = 0.;
+    t1 = aStart; Eval(t1); e1 = itsEl; m1 = itsMargin; w1 = itsRate;
+    theAOS = (0. < e1) ? aStart : Double.NaN;
+
+    for (k = 1; k <= theN; k++) {
+
+      t2 = (k == theN) ? aEnd : aStart + (double) k * itsStep;
+      Eval(t2); e2 = itsEl; m2 = itsMargin; w2 = itsRate;
+      theNear = 1.25 * Math.max(w0, Math.max(w1, w2)) * itsStep + SLACK;
+
+      /* Rise between the steps. */
+
+      if (0. < e2 && !(0. < e1)) {
+	theAOS = Zero(t1, e1, t2, e2);
+      }
+
+      /* Set between the steps. */
+
+      else if (0. < e1 && !(0. < e2)) {
+	theTCA = Max(theAOS, t2);
+	MakePass(thePasses, theAOS, theTCA, itsMaxEl, Zero(t1, e1, t2, e2));
+	theAOS = Double.NaN;
+      }
+
+      /* Above the horizon at both steps, but a minimum at the earlier step,
+       * or at the start or end of the window, that might be close enough
+       * to the horizon to dip below it. */
+
+      else if (0. < e2) {
+	if (e0 > e1 && e1 <= e2 && -m1 < theNear)
+	  theAOS = Dip(thePasses, theAOS, t0, e0, t2, e2);
+	else if (1 == k && e1 <= e2 && -m1 < theNear)
+	  theAOS = Dip(thePasses, theAOS, t1, e1, t2, e2);
+	else if (theN == k && e1 > e2 && -m2 < theNear)
+	  theAOS = Dip(thePasses, theAOS, t1, e1, t2, e2);
+      }
+
+      /* Below the horizon at both steps, but a maximum at the earlier step,
+       * or at the start or end of the window, that might be close enough
+       * to the horizon to peak above it. */
+
+      else {
+	if (e0 < e1 && e1 >= e2 && m1 < theNear)
+	  Peak(thePasses, t0, e0, t2, e2);
+	else if (1 == k && e1 >= e2 && m1 < theNear)
+	  Peak(thePasses, t1, e1, t2, e2);
+	else if (theN == k && e1 < e2 && m2 < theNear)
+	  Peak(thePasses, t1, e1, t2, e2);
+      }
+
+      t0 = t1; e0 = e1; w0 = w1;
+      t1 = t2; e1 = e2; w1 = w2; m1 = m2;
+    }
+
+    /* A pass in progress at the end. */
+
+    if (!Double.isNaN(theAOS)) {
+      theTCA = Max(theAOS, aEnd);
+      MakePass(thePasses, theAOS, theTCA, itsMaxEl, aEnd);
+    }
+
+    return thePasses;
+  }
+
+
+  /**
+   * Calculate the horizontal coordinates at a given time.
+   *
+   * @param aJD
+   *   The time, as Julian Day minus 2450000 days.
+   * @param aTriplet
+   *   The azimuth in radian (North is zero, East 90&deg;, etc.), the
+   *   elevation in radian and the topocentric distance in Gm. */
+
+  public final void GetHori(double aJD, double aTriplet[])
+  {
+    Eval(aJD);
+    Catalog.Hori2Spher(1, itsHori, aTriplet, itsCWork);
+    return;
+  }
+
+
+  /**
+   * Return whether the satellite is visible at a given time.
+   *
+   * <p>This means that the satellite is above the horizon, and as for the
+   * visible part of a pass that it is sunlit while the sky is dark.
+   *
+   * @param aJD
+   *   The time, as Julian Day minus 2450000 days. */
+
+  public final boolean IsVisible(double aJD)
+  {
+    Eval(aJD); EvalSun();
+    return 0. < itsEl && itsSunlit && itsDark;
+  }
+
+
+  /**
+   * Return the number of evaluations of the SDP4 model so far. */
+
+  public final int GetNcalls() {return itsNcalls;}
+
+
+  /**
+   * Find the time when a property changes.
+   *
+   * @param aWhich
+   *   SUNLIT to test whether the satellite is sunlit, VISIBLE to test
+   *   whether it is also dark.
+   * @param a
+   *   A time before the change.
+   * @param b
+   *   A time after the change.
+   * @param aAtA
+   *   The property at time a. */
+
+  protected final double Bisect(int aWhich, double a, double b, boolean aAtA)
+  {
+    double m;
+    boolean theTest;
+
+    while (TOL < b - a) {
+      m = 0.5 * (a + b);
+      Eval(m); EvalSun();
+      theTest = (SUNLIT == aWhich) ? itsSunlit : (itsSunlit && itsDark);
+      if (theTest == aAtA) a = m;
+      else                 b = m;
+    }
+
+    return 0.5 * (a + b);
+  }
+
+
+  /**
+   * Evaluate the satellite at a given time.
+   *
+   * <p>This sets the frame and the elevation.  It also sets the angle by
+   * which the satellite is below the horizon, as the geocentric angle
+   * between the station and the satellite minus the largest such angle
+   * at which the satellite can be seen on a spherical Earth.  This is
+   * positive when the satellite is below the horizon.  Finally it sets the
+   * fastest rate at which that angle can change, from the speeds of the
+   * satellite and of the Earth's rotation.
+   *
+   * @param aJD
+   *   The time, as Julian Day minus 2450000 days. */
+
+  protected final void Eval(double aJD)
+  {
+    double theStat[] = itsFrame.vecHori;
+    double theR[], theV[];
+    double x, y, z, r, s, v, psi;
+
+    itsStation.SetJD(aJD);
+    itsFrame.Set(itsStation);
+    itsSDP4.GetPosVel(aJD, itsWork);
+    itsNcalls++;
+
+    theR = itsWork.itsR; theV = itsWork.itsV;
+    Catalog.Mean2Hori(1, itsFrame, theR, itsHori);
+    itsEl = Math.asin(itsHori[2] / Math.sqrt(itsHori[0] * itsHori[0]
+      + itsHori[1] * itsHori[1] + itsHori[2] * itsHori[2]));
+
+    /* The geocentric satellite in the horizontal frame, and its angle from
+     * the station. */
+
+    x = itsHori[0] + theStat[0];
+    y = itsHori[1] + theStat[1];
+    z = itsHori[2] + theStat[2];
+    r = Math.sqrt(x * x + y * y + z * z);
+    s = Math.sqrt(theStat[0] * theStat[0] + theStat[1] * theStat[1]
+      + theStat[2] * theStat[2]);
+    psi = (x * theStat[0] + y * theStat[1] + z * theStat[2]) / (r * s);
+    psi = Math.acos(Math.max(-1., Math.min(1., psi)));
+
+    if (Station.A >= r) {
+      itsMargin = Double.POSITIVE_INFINITY;
+      itsRate   = 0.;
+      return;
+    }
+    itsMargin = psi - Math.acos(Station.A / r);
+
+    /* The speed in Gm/d, which limits the motion across the sky and the
+     * change of the horizon distance with height. */
+
+    v = 0.0864 * Math.sqrt(theV[0] * theV[0] + theV[1] * theV[1]
+      + theV[2] * theV[2]);
+    itsRate = v / r + EARTHROT
+      + v * Station.A / (r * Math.sqrt(r * r - Station.A * Station.A));
+
+    return;
+  }
+
+
+  /**
+   * Evaluate the Sun at the time of the last evaluation.
+   *
+   * <p>This sets whether the satellite is sunlit and whether the sky is
+   * dark, i.e. the Sun is at least 6&deg; below the horizon. */
+
+  protected final void EvalSun()
+  {
+    double theSunPos[] = itsSunPos;
+    double theSunHori[] = itsCWork.t2;
+    double theR[] = itsWork.itsR;
+    double theJD, theNodeNow, f, r, r_para;
+    int    k;
+
+    /* Interpolate the Sun, see Satellite.GetHoriSeries. */
+
+    theJD = itsFrame.GetJD();
+    theNodeNow = Satellite.SUNSTEP * Math.floor(theJD / Satellite.SUNSTEP);
+    if (theNodeNow != itsNode) {
+      if (theNodeNow == itsNode + Satellite.SUNSTEP) {
+	for (k = 0; k < 3; k++) itsSun0[k] = itsSun1[k];
+      }
+      else {
+	itsTime.SetJD(theNodeNow);
+	itsSun.Update(itsTime);
+	itsSun.GetPos(itsSun0);
+      }
+      itsTime.SetJD(theNodeNow + Satellite.SUNSTEP);
+      itsSun.Update(itsTime);
+      itsSun.GetPos(itsSun1);
+      itsNode = theNodeNow;
+    }
+    f = (theJD - itsNode) / Satellite.SUNSTEP;
+    for (k = 0; k < 3; k++) {
+      theSunPos[k] = itsSun0[k] + f * (itsSun1[k] - itsSun0[k]);
+    }
+
+    /* Is the sky dark? */
+
+    Catalog.J20002Mean(1, itsFrame, theSunPos, theSunHori);
+    Catalog.Mean2Hori(1, itsFrame, theSunHori, theSunHori);
+    r = Math.sqrt(theSunHori[0] * theSunHori[0]
+      + theSunHori[1] * theSunHori[1] + theSunHori[2] * theSunHori[2]);
+    itsDark = NamedObject.RISECIVIL > Math.asin(theSunHori[2] / r);
+
+    /* Is it sunlit?  See Satellite.Update. */
+
+    r = Math.sqrt(theSunPos[0] * theSunPos[0] + theSunPos[1] * theSunPos[1]
+      + theSunPos[2] * theSunPos[2]);
+    r_para = (theR[0] * theSunPos[0] + theR[1] * theSunPos[1]
+	    + theR[2] * theSunPos[2]) / r;
+    if (0. <= r_para) {
+      itsSunlit = true;
+    }
+    else {
+      r = Math.sqrt(theR[0] * theR[0] + theR[1] * theR[1]
+		  + theR[2] * theR[2]);
+      itsSunlit = Station.A < Math.sqrt(r * r - r_para * r_para);
+    }
+
+    return;
+  }
+
+
+  /**
+   * Make a pass and add it to a list.
+   *
+   * <p>This tests the pass at a quarter of the coarse step for being
+   * sunlit and dark, and finds the first and last times of each.
+   *
+   * @param aPasses
+   *   The list to add the pass to.
+   * @param aAOS
+   *   The rise.
+   * @param aTCA
+   *   The time of maximum elevation.
+   * @param aMaxEl
+   *   The maximum elevation.
+   * @param aLOS
+   *   The set. */
+
+  protected final void MakePass(ArrayList<SatellitePass> aPasses,
+    double aAOS, double aTCA, double aMaxEl, double aLOS)
+  {
+    SatellitePass thePass;
+    double  t1, t2, theStep;
+    boolean s1, s2, v1, v2;
+    int     theN, k;
+
+    thePass = new SatellitePass();
+    thePass.Init();
+    thePass.itsAOS = aAOS; thePass.itsTCA = aTCA; thePass.itsLOS = aLOS;
+    thePass.itsMaxEl = aMaxEl;
+
+    theN = (int) Math.ceil((double) NSUB * (aLOS - aAOS) / itsStep);
+    if (1 > theN) theN = 1;
+    theStep = (aLOS - aAOS) / (double) theN;
+
+    t1 = aAOS; Eval(t1); EvalSun();
+    s1 = itsSunlit; v1 = itsSunlit && itsDark;
+    if (s1) thePass.itsSunlitStart = aAOS;
+    if (v1) thePass.itsVisStart    = aAOS;
+
+    for (k = 1; k <= theN; k++) {
+      t2 = (k == theN) ? aLOS : aAOS + (double) k * theStep;
+      Eval(t2); EvalSun();
+      s2 = itsSunlit; v2 = itsSunlit && itsDark;
+      if (s1 != s2) {
+	if (s2) {
+	  if (Double.isNaN(thePass.itsSunlitStart))
+	    thePass.itsSunlitStart = Bisect(SUNLIT, t1, t2, s1);
+	}
+	else {
+	  thePass.itsSunlitEnd = Bisect(SUNLIT, t1, t2, s1);
+	}
+      }
+      if (v1 != v2) {
+	if (v2) {
+	  if (Double.isNaN(thePass.itsVisStart))
+	    thePass.itsVisStart = Bisect(VISIBLE, t1, t2, v1);
+	}
+	else {
+	  thePass.itsVisEnd = Bisect(VISIBLE, t1, t2, v1);
+	}
+      }
+      t1 = t2; s1 = s2; v1 = v2;
+    }
+    if (s1) thePass.itsSunlitEnd = aLOS;
+    if (v1) thePass.itsVisEnd    = aLOS;
+
+    aPasses.add(thePass);
+
+    return;
+  }
+
+
+  /**
+   * Search for a short pass between two times below the horizon.
+   *
+   * <p>If the maximum elevation between the times is above the horizon,
+   * the pass is added to the list.
+   *
+   * @param aPasses
+   *   The list to add the pass to.
+   * @param a
+   *   The earlier time.
+   * @param fa
+   *   The elevation at time a.
+   * @param b
+   *   The later time.
+   * @param fb
+   *   The elevation at time b. */
+
+  protected final void Peak(ArrayList<SatellitePass> aPasses,
+    double a, double fa, double b, double fb)
+  {
+    double theTCA, theMax;
+
+    theTCA = Max(a, b);
+    theMax = itsMaxEl;
+    if (0. < theMax) {
+      MakePass(aPasses, Zero(a, fa, theTCA, theMax), theTCA, theMax,
+	       Zero(theTCA, theMax, b, fb));
+    }
+
+    return;
+  }
+
+
+  /**
+   * Search for a short dip below the horizon between two times above it.
+   *
+   * <p>If the elevation goes below the horizon between the times, the
+   * pass in progress ends at the set and is added to the list, and a new
+   * pass begins at the rise.
+   *
+   * @param aPasses
+   *   The list to add the pass to.
+   * @param aAOS
+   *   The rise of the pass in progress.
+   * @param a
+   *   The earlier time.
+   * @param fa
+   *   The elevation at time a.
+   * @param b
+   *   The later time.
+   * @param fb
+   *   The elevation at time b.
+   * @return
+   *   The rise of the pass in progress at time b. */
+
+  protected final double Dip(ArrayList<SatellitePass> aPasses, double aAOS,
+    double a, double fa, double b, double fb)
+  {
+    double theTime, theMin, theLOS, theTCA;
+
+    theTime = Min(a, b);
+    theMin  = itsMinEl;
+    if (!(0. > theMin)) return aAOS;
+
+    theLOS = Zero(a, fa, theTime, theMin);
+    theTCA = Max(aAOS, theLOS);
+    MakePass(aPasses, aAOS, theTCA, itsMaxEl, theLOS);
+
+    return Zero(theTime, theMin, b, fb);
+  }
+
+
+  /**
+   * Find the minimum elevation between two times, or a time when it is
+   * below the horizon.
+   *
+   * <p>See {@link TimeSearch#Min TimeSearch.Min}, which assumes a single
+   * minimum between the two times and here stops early once the
+   * elevation is negative.  The elevation found is left in itsMinEl.
+   *
+   * @param a
+   *   The earlier time.
+   * @param b
+   *   The later time.
+   * @return
+   *   The time of the minimum, or of the negative elevation. */
+
+  protected final double Min(double a, double b)
+  {
+    double theTime;
+
+    theTime  = itsSearch.Min(itsElevation, a, b, TOLMAX, 0.);
+    itsMinEl = itsSearch.GetValue();
+    return theTime;
+  }
+
+
+  /**
+   * Find the maximum elevation between two times.
+   *
+   * <p>See {@link TimeSearch#Max TimeSearch.Max}, which assumes a single
+   * maximum between the two times.  The maximum elevation is left in
+   * itsMaxEl.
+   *
+   * @param a
+   *   The earlier time.
+   * @param b
+   *   The later time.
+   * @return
+   *   The time of maximum elevation. */
+
+  protected final double Max(double a, double b)
+  {
+    double theTime;
+
+    theTime  = itsSearch.Max(itsElevation, a, b, TOLMAX);
+    itsMaxEl = itsSearch.GetValue();
+    return theTime;
+  }
+
+
+  /**
+   * Find the time when the elevation is zero.
+   *
+   * <p>See {@link TimeSearch#Zero TimeSearch.Zero}.  The elevations at the
+   * two times must be on either side of the horizon.
+   *
+   * @param a
+   *   One time.
+   * @param fa
+   *   The elevation at time a.
+   * @param b
+   *   The other time.
+   * @param fb
+   *   The elevation at time b. */
+
+  protected final double Zero(double a, double fa, double b, double fb)
+  {
+    return itsSearch.Zero(itsElevation, a, fa, b, fb, TOL);
+  }
+}
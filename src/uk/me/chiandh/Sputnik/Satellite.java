@@ -2,9 +2,18 @@
 package uk.me.chiandh.Sputnik;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import uk.me.chiandh.Lib.SDP4;
+import uk.me.chiandh.Lib.SDP4Batch;
+import uk.me.chiandh.Lib.SDP4Binary;
+import uk.me.chiandh.Lib.SDP4Cache;
 import uk.me.chiandh.Lib.SDP4Exception;
+import uk.me.chiandh.Lib.SDP4Workspace;
 import uk.me.chiandh.Lib.Hmelib;
 import uk.me.chiandh.Sputnik.SatellitePosition;
 
@@ -81,6 +90,12 @@ public class Satellite extends NamedObject
 
   protected double itsV[];
 
+  /**
+   * The geocentric position for the equinox of date from the last Update,
+   * or null before the first Update. */
+
+  protected double itsRDate[];
+
   /**
    * Whether the satellite is sunlit. */
 
@@ -91,6 +106,213 @@ public class Satellite extends NamedObject
 
   protected SDP4 itsSDP4;
 
+  /**
+   * The interpolation of the ephemeris, or null if Update is to evaluate
+   * the SDP4 model every time. */
+
+  protected SDP4Cache itsCache;
+
+  /* The prefilter, see Prefilter: the latitude, longitude and height for
+   * which it was set, whether the satellite never rises there, the largest
+   * geocentric angle from the station at which it can be above the
+   * horizon, its greatest angular speed relative to the station [rad/d],
+   * and the time and half-width of the interval in which it stays below
+   * the horizon. */
+
+  protected double  itsFilterLat, itsFilterLong, itsFilterHeight;
+  protected boolean itsNeverUp;
+  protected double  itsFilterPsi, itsFilterRate;
+  protected double  itsHoldJD, itsHold;
+
+
+  /** The classes of {@link #Prefilter Prefilter}. */
+  public static final int NEVERUP = 0, NOTYET = 1, CANDIDATE = 2;
+
+  /** The allowance of the prefilter for the station being off the sphere
+   * and the horizon being that of the geodetic vertical, and for the drift
+   * of the orbit from its mean elements [rad]. */
+  protected static final double FILTERSLACK = 0.02;
+
+  /** The factor by which the prefilter raises the angular speed from the
+   * mean elements. */
+  protected static final double FILTERRATE = 1.2;
+
+  /** The lowest perigee height of an orbit that the prefilter classifies
+   * [Gm].  Lower orbits decay too fast for their mean elements to bound
+   * the motion, and are always candidates. */
+  protected static final double FILTERPERIGEE = 1E-4;
+
+
+  /**
+   * The interval between Sun positions used by GetHoriSeries.
+   *
+   * <p>In one hour the Sun moves by 0.04&deg;, so that linear interpolation
+   * between positions this far apart is good to 10&nbsp;m or so. */
+
+  protected static final double SUNSTEP = 1. / 24.;
+
+
+  /**
+   * GetHori for a satellite with a given frame.
+   *
+   * <p>This does the same as {@link Catalog#GetHori Catalog.GetHori}, but
+   * takes the position for the equinox of date from the last Update,
+   * instead of the stored J2000 position.  That position is converted
+   * straight to horizontal coordinates with one matrix of the frame, see
+   * {@link Catalog#Mean2Hori Catalog.Mean2Hori}, and the transform to J2000
+   * and back is skipped.  The frame must be for the time of the last Update.
+   * The results can differ from those of the J2000 path in the last bits.
+   *
+   * @param aIndex
+   *   Must be zero.
+   * @param aFrame
+   *   The frame for the time and location of the observatory.
+   * @param aTriplet
+   *   The azimuth, elevation and topocentric distance.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  protected void GetHori(int aIndex, CatalogFrame aFrame, double aTriplet[],
+    CatalogWorkspace aWork)
+  {
+    if (null == itsRDate) {
+      super.GetHori(aIndex, aFrame, aTriplet, aWork);
+      return;
+    }
+    Mean2Hori(1, aFrame, itsRDate, aWork.t2);
+    Hmelib.Spher(aWork.t2, aTriplet);
+    aTriplet[0] = Hmelib.NormAngle180(aTriplet[0]);
+  }
+
+
+  /**
+   * Calculate horizontal coordinates for a series of times.
+   *
+   * <p>This calculates for the given times the satellite's azimuth,
+   * elevation and topocentric distance, and whether it is sunlit.  The
+   * results are the same as from calling
+   * {@link #Update Update} and {@link Catalog#GetHori GetHori} for each
+   * time, but neither this object nor the given station is changed, and
+   * much of the cost of the individual calls is avoided:
+   *
+   * <ul>
+   *   <li>The SDP4 model is initialised only once, when the TLE is
+   *   read.</li>
+   *   <li>The SDP4 model yields mean coordinates of date, and the
+   *   transform to J2000 and back for each time is skipped.</li>
+   *   <li>The Sun is not calculated for each time, but at intervals of
+   *   {@link #SUNSTEP SUNSTEP} and interpolated linearly.</li>
+   * </ul>
+   *
+   * <p>The sunlit status is determined as in Update.  Owing to the
+   * interpolation of the solar position it can in rare cases differ from
+   * Update when the satellite is within metres of the shadow boundary.
+   *
+   * @param aStation
+   *   The location of the observatory.  Its clock is not used.
+   * @param aStart
+   *   The first time, as Julian Day minus 2450000 days.
+   * @param aStep
+   *   The time step in days.
+   * @param aCount
+   *   The number of times.
+   * @param aHori
+   *   The 3 aCount returned numbers, each group of three being the azimuth
+   *   in radian (North is zero, East 90&deg;, etc.), the elevation in radian
+   *   and the topocentric distance in Gm.
+   * @param aSunlit
+   *   The aCount returned sunlit flags, 1 if the satellite is sunlit and 0
+   *   if not. */
+
+  public final void GetHoriSeries(Station aStation, double aStart,
+    double aStep, int aCount, double aHori[], int aSunlit[])
+  {
+    SDP4Workspace theWork;
+    Station theStation;
+    Times   theTime;
+    Sun     theSun;
+    double  t1[] = new double[3];
+    double  t2[] = new double[3];
+    double  theSun0[] = new double[3];
+    double  theSun1[] = new double[3];
+    double  theSunPos[] = new double[3];
+    double  theJD, theNode, theNodeNow, f, r, r_para, r_perp;
+    int     i, k;
+
+    theWork = new SDP4Workspace();
+    theStation = new Station(); theStation.Init(); theStation.Copy(aStation);
+    theTime = new Times(); theTime.Init();
+    theSun  = new Sun();   theSun.Init();
+    theNode = Double.NaN;
+
+    for (i = 0; i < aCount; i++) {
+
+      theJD = aStart + (double) i * aStep;
+
+      /* Make sure the Sun is known at the interpolation nodes either side
+       * of this time.  When time moves on by one node, re-use the later
+       * one. */
+
+      theNodeNow = SUNSTEP * Math.floor(theJD / SUNSTEP);
+      if (theNodeNow != theNode) {
+	if (theNodeNow == theNode + SUNSTEP) {
+	  for (k = 0; k < 3; k++) theSun0[k] = theSun1[k];
+	}
+	else {
+	  theTime.SetJD(theNodeNow);
+	  theSun.Update(theTime);
+	  theSun.GetPos(theSun0);
+	}
+	theTime.SetJD(theNodeNow + SUNSTEP);
+	theSun.Update(theTime);
+	theSun.GetPos(theSun1);
+	theNode = theNodeNow;
+      }
+      f = (theJD - theNode) / SUNSTEP;
+      for (k = 0; k < 3; k++) {
+	theSunPos[k] = theSun0[k] + f * (theSun1[k] - theSun0[k]);
+      }
+
+      /* Mean coordinates of date from the SDP4 model, then convert via
+       * topocentric HA/Dec to horizontal. */
+
+      itsSDP4.GetPosVel(theJD, theWork);
+      theStation.SetJD(theJD);
+      Mean2Topo(1, theStation, theWork.itsR, t1);
+      Topo2Hori(1, theStation, t1, t2);
+      Hmelib.Spher(t2, t1);
+      aHori[3*i]   = Hmelib.NormAngle180(t1[0]);
+      aHori[3*i+1] = t1[1];
+      aHori[3*i+2] = t1[2];
+
+      /* Is it sunlit?  See Update. */
+
+      r = Math.sqrt(theSunPos[0] * theSunPos[0] + theSunPos[1] * theSunPos[1]
+        + theSunPos[2] * theSunPos[2]);
+      theSunPos[0] /= r; theSunPos[1] /= r; theSunPos[2] /= r;
+      r = Math.sqrt(theWork.itsR[0] * theWork.itsR[0]
+                  + theWork.itsR[1] * theWork.itsR[1]
+		  + theWork.itsR[2] * theWork.itsR[2]);
+      r_para = theWork.itsR[0] * theSunPos[0]
+             + theWork.itsR[1] * theSunPos[1]
+             + theWork.itsR[2] * theSunPos[2];
+      if (0. <= r_para) {
+	aSunlit[i] = 1;
+      }
+      else {
+	r_perp = Math.sqrt(r * r - r_para * r_para);
+	if (Station.A < r_perp) {
+	  aSunlit[i] = 1;
+	}
+	else {
+	  aSunlit[i] = 0;
+	}
+      }
+    }
+
+    return;
+  }
+
 
   /**
    * Initialise the Satellite object.
@@ -112,11 +334,61 @@ public class Satellite extends NamedObject
 
     itsSDP4 = new SDP4();
     itsSDP4.Init();
+    itsCache = null;
+    itsRDate = null;
+    itsFilterLat = Double.NaN;
   }
 
-static double theSpherShowAllSats[] = {0.,0.,0.};
 public static final ArrayList<SatellitePosition> showAllSats(InputStream is,
 			Telescope aTelescope, ArrayList<SatellitePosition> satellitePositions) {
+	return showAllSats(is, aTelescope, satellitePositions, 1, false);
+}
+
+public static final ArrayList<SatellitePosition> showAllSats(InputStream is,
+			Telescope aTelescope, ArrayList<SatellitePosition> satellitePositions,
+			int aNthreads) {
+	return showAllSats(is, aTelescope, satellitePositions, aNthreads, false);
+}
+
+  /**
+   * Load or update the positions of all satellites.
+   *
+   * <p>With an input stream this reads all satellites from it and appends
+   * their positions for the time of the telescope to the list.  Without an
+   * input stream it updates the positions already in the list to the time of
+   * the telescope.
+   *
+   * <p>The update can be shared among several threads.  The list is then
+   * split into as many contiguous parts, and each part is updated with its
+   * own workspace on the pool of one thread per processor that is shared
+   * with {@link SDP4Batch#GetPool SDP4Batch}.  Each satellite is
+   * calculated in the same way as by a single thread, so that the results
+   * do not depend on the number of parts.  The call returns when
+   * all parts have finished, even if the calling thread is interrupted.
+   * No two entries of the list may refer to the same satellite.
+   *
+   * <p>If only satellites above the horizon are of interest, the update can
+   * skip those that are known to be below it, see
+   * {@link #Prefilter Prefilter}.  Their display string is then only the
+   * name, and the other fields keep their last position, which is below
+   * the horizon.  A full catalogue then costs little more than the
+   * satellites that can be up.
+   *
+   * @param is
+   *   The TLE file to read, or null to update the list.
+   * @param aTelescope
+   *   The time and location of the observatory, also the Sun.
+   * @param satellitePositions
+   *   The list of satellite positions.
+   * @param aNthreads
+   *   The number of parts to split the update into.
+   * @param aUpOnly
+   *   Whether the update may skip satellites below the horizon. */
+
+public static final ArrayList<SatellitePosition> showAllSats(InputStream is,
+			final Telescope aTelescope,
+			final ArrayList<SatellitePosition> satellitePositions,
+			int aNthreads, final boolean aUpOnly) {
 		//ArrayList<SatellitePosition>  = new ArrayList<SatellitePosition>();
 	
 
@@ -133,26 +405,9 @@ public static final ArrayList<SatellitePosition> showAllSats(InputStream is,
     		Satellite sat = new Satellite();
     		sat.Init();
     		try {sat.itsSDP4.NoradNext(theFile);}
-    		catch(Exception e) {break;}
-    		sat.itsName = sat.itsSDP4.itsName;
-    		sat.Update(aTelescope);
-    		sat.GetHori(0, aTelescope, theSpherShowAllSats);
-    		
-    		String theOutput = sat.itsName 
-    		+ Hmelib.Wfndm(4, 0, theSpherShowAllSats[0] * Hmelib.DEGPERRAD)
-    		+ Hmelib.Wfndm(5, 0, theSpherShowAllSats[1] * Hmelib.DEGPERRAD)
-    		+ Hmelib.Wfndm(8, 0, theSpherShowAllSats[2] * 1E6);
-
-
-    		SatellitePosition satPosn = 
-    			new SatellitePosition(sat.itsName, theOutput, 
-    					theSpherShowAllSats[0] * Hmelib.DEGPERRAD, 
-    					theSpherShowAllSats[0],
-    					theSpherShowAllSats[1] * Hmelib.DEGPERRAD, 
-    					theSpherShowAllSats[1],
-    					theSpherShowAllSats[2] * 1E6,
-    					sat);
-    		satellitePositions.add(satPosn);
+    		catch(SDP4Exception e) {continue;}
+    		catch(IOException e) {break;}
+    		addSat(sat, aTelescope, satellitePositions);
     		
 
     	}
@@ -164,29 +419,31 @@ public static final ArrayList<SatellitePosition> showAllSats(InputStream is,
     	}
 
     }
+    else if (1 >= aNthreads || satellitePositions.size() < 2 * aNthreads) {
+    	CatalogFrame theFrame = new CatalogFrame();
+    	theFrame.Set(aTelescope);
+    	updateSats(theFrame, satellitePositions, 0,
+    			satellitePositions.size(), aUpOnly);
+    }
     else{
-    	//iterate through the arraylist, get name and update
-			for (SatellitePosition satPosn : satellitePositions) {
-				synchronized (satPosn) {
-					satPosn.sat.Update(aTelescope);
-					satPosn.sat.GetHori(0, aTelescope, theSpherShowAllSats);
-					String theOutput = satPosn.sat.itsName
-							+ Hmelib.Wfndm(4, 0, theSpherShowAllSats[0]
-									* Hmelib.DEGPERRAD)
-							+ Hmelib.Wfndm(5, 0, theSpherShowAllSats[1]
-									* Hmelib.DEGPERRAD)
-							+ Hmelib.Wfndm(8, 0, theSpherShowAllSats[2] * 1E6);
-					satPosn.displayString.replace(0, satPosn.displayString
-							.length(), theOutput);
-					satPosn.azimuth = theSpherShowAllSats[0] * Hmelib.DEGPERRAD;
-					satPosn.azRadians = theSpherShowAllSats[0];
-					satPosn.elevation = theSpherShowAllSats[1]
-							* Hmelib.DEGPERRAD;
-					satPosn.elRadians = theSpherShowAllSats[1];
-					satPosn.range = theSpherShowAllSats[2] * 1E6;
-				}
+    	//split the arraylist into one part per thread and wait for all
+    	final CatalogFrame theFrame = new CatalogFrame();
+    	theFrame.Set(aTelescope);
+    	ExecutorService thePool = SDP4Batch.GetPool();
+    	Future<?> theJobs[] = new Future<?>[aNthreads];
+    	int theN = satellitePositions.size();
+
+    	for (int i = 0; i < aNthreads; i++) {
+    		final int theFrom = (int) ((long) theN * i / aNthreads);
+    		final int theTo = (int) ((long) theN * (i + 1) / aNthreads);
+    		theJobs[i] = thePool.submit(new Runnable() {
+    			public void run() {
+    				updateSats(theFrame, satellitePositions, theFrom, theTo,
+    						aUpOnly);
+    			}
+    		});
     	}
-    	
+    	SDP4Batch.WaitAll(theJobs);
     }
 	
 	
@@ -195,6 +452,342 @@ public static final ArrayList<SatellitePosition> showAllSats(InputStream is,
 
 }
 
+  /**
+   * Load the positions of all satellites from a TLE file or its binary copy.
+   *
+   * <p>If the binary copy is current, the satellites are set up from it
+   * without parsing the TLE file.  Otherwise the TLE file is read as by
+   * showAllSats and the binary copy written from the satellites read.  The
+   * binary copy is only an aid; if it cannot be read or written, the TLE
+   * file is read each time.
+   *
+   * @param aText
+   *   The TLE file.
+   * @param aBinary
+   *   The binary copy of the TLE file, see
+   *   {@link uk.me.chiandh.Lib.SDP4Binary SDP4Binary}.
+   * @param aTelescope
+   *   The time and location of the observatory, also the Sun.
+   * @param satellitePositions
+   *   The list to which the satellite positions are appended. */
+
+  public static final ArrayList<SatellitePosition> loadAllSats(File aText,
+    File aBinary, Telescope aTelescope,
+    ArrayList<SatellitePosition> satellitePositions)
+    throws IOException
+  {
+    ArrayList<SDP4> theSDP4s;
+    ByteBuffer theBuffer;
+    Satellite  theSat;
+    long theModified, theLength;
+    int  theStart, theN, i;
+
+    theStart = satellitePositions.size();
+
+    if (SDP4Binary.IsCurrent(aText, aBinary)) {
+      try {
+	theBuffer = SDP4Binary.Map(aBinary);
+	theN = SDP4Binary.GetCount(theBuffer);
+	for (i = 0; i < theN; i++) {
+	  theSat = new Satellite();
+	  theSat.Init();
+	  SDP4Binary.Read(theBuffer, i, theSat.itsSDP4);
+	  addSat(theSat, aTelescope, satellitePositions);
+	}
+	return satellitePositions;
+      }
+      catch (Exception e) {
+	while (satellitePositions.size() > theStart)
+	  satellitePositions.remove(satellitePositions.size() - 1);
+      }
+    }
+
+    /* Read the TLE file, noting its time and length beforehand, then write
+     * the binary copy. */
+
+    theModified = aText.lastModified();
+    theLength   = aText.length();
+    showAllSats(new FileInputStream(aText), aTelescope, satellitePositions);
+
+    theSDP4s = new ArrayList<SDP4>();
+    for (i = theStart; i < satellitePositions.size(); i++)
+      theSDP4s.add(satellitePositions.get(i).sat.itsSDP4);
+    try {SDP4Binary.Write(aBinary, theModified, theLength, theSDP4s);}
+    catch (IOException e) {aBinary.delete();}
+
+    return satellitePositions;
+  }
+
+
+  /**
+   * Add a satellite just read to the list of satellite positions.
+   *
+   * @param aSat
+   *   The satellite, which has read its TLE.
+   * @param aTelescope
+   *   The time and location of the observatory, also the Sun.
+   * @param satellitePositions
+   *   The list of satellite positions. */
+
+  private static void addSat(Satellite aSat, Telescope aTelescope,
+    ArrayList<SatellitePosition> satellitePositions)
+  {
+    double theSpher[] = new double[3];
+    String theOutput;
+    SatellitePosition satPosn;
+
+    aSat.itsName = aSat.itsSDP4.itsName;
+    aSat.Update(aTelescope);
+    aSat.GetHori(0, aTelescope, theSpher);
+
+    theOutput = aSat.itsName
+      + Hmelib.Wfndm(4, 0, theSpher[0] * Hmelib.DEGPERRAD)
+      + Hmelib.Wfndm(5, 0, theSpher[1] * Hmelib.DEGPERRAD)
+      + Hmelib.Wfndm(8, 0, theSpher[2] * 1E6);
+
+    satPosn = new SatellitePosition(aSat.itsName, theOutput,
+      theSpher[0] * Hmelib.DEGPERRAD, theSpher[0],
+      theSpher[1] * Hmelib.DEGPERRAD, theSpher[1],
+      theSpher[2] * 1E6, aSat);
+    satellitePositions.add(satPosn);
+
+    return;
+  }
+
+
+  /**
+   * The number of satellites that updateSats converts in one pass. */
+
+  private static final int BLOCK = 256;
+
+
+  /**
+   * Update a part of the list of satellite positions.
+   *
+   * <p>This does for showAllSats the update of the list entries from
+   * aFrom to aTo - 1, using a workspace of its own.  The frame is shared
+   * with the other threads.
+   *
+   * <p>The entries are done in blocks.  For each block the satellites are
+   * first updated and their positions for the equinox of date packed into
+   * one array.  The packed positions are then converted to horizontal
+   * coordinates in two passes, see {@link Catalog#Mean2Hori
+   * Catalog.Mean2Hori} and {@link Catalog#Hori2Spher Catalog.Hori2Spher},
+   * before the entries are filled in.  The results are the same as from
+   * {@link #GetHori(int, CatalogFrame, double[], CatalogWorkspace) GetHori}
+   * for each satellite.
+   *
+   * <p>If only satellites above the horizon are wanted, those that
+   * {@link #Prefilter Prefilter} finds cannot be up are left out of the
+   * block.  Their display string is cut back to the name, so that a list
+   * of the entries shows no stale position for them.  The numbers keep the
+   * last position calculated, which is below the horizon.  An entry is not
+   * left out while its last elevation is not negative, so that a satellite
+   * that has set is updated once more, and a change of station or time
+   * does not leave a stale position above the horizon.
+   *
+   * @param aFrame
+   *   The frame for the time and location of the observatory, set from the
+   *   telescope.
+   * @param satellitePositions
+   *   The list of satellite positions.
+   * @param aFrom
+   *   The first entry to update.
+   * @param aTo
+   *   The entry after the last one to update.
+   * @param aUpOnly
+   *   Whether satellites below the horizon may be skipped. */
+
+  private static void updateSats(CatalogFrame aFrame,
+    ArrayList<SatellitePosition> satellitePositions, int aFrom, int aTo,
+    boolean aUpOnly)
+  {
+    CatalogWorkspace theWork = new CatalogWorkspace();
+    double theBlock[] = new double[3 * BLOCK];
+    double theSpher[] = new double[3];
+    int    theIndex[] = new int[BLOCK];
+    SatellitePosition satPosn;
+    String theOutput;
+    int i, j, k, n;
+
+    for (i = aFrom; i < aTo; i += BLOCK) {
+      k = Math.min(i + BLOCK, aTo);
+      n = 0;
+
+      for (j = i; j < k; j++) {
+	satPosn = satellitePositions.get(j);
+	synchronized (satPosn) {
+	  if (aUpOnly && CANDIDATE != satPosn.sat.Prefilter(aFrame)
+	    && 0. > satPosn.elRadians) {
+	    satPosn.displayString.setLength(satPosn.sat.itsName.length());
+	    continue;
+	  }
+	  satPosn.sat.Update(aFrame, theWork);
+	  if (aUpOnly) satPosn.sat.SetHold(aFrame);
+	  theBlock[3*n]   = satPosn.sat.itsRDate[0];
+	  theBlock[3*n+1] = satPosn.sat.itsRDate[1];
+	  theBlock[3*n+2] = satPosn.sat.itsRDate[2];
+	}
+	theIndex[n] = j; n++;
+      }
+
+      Mean2Hori(n, aFrame, theBlock, theBlock);
+      Hori2Spher(n, theBlock, theBlock, theWork);
+
+      for (j = 0; j < n; j++) {
+	satPosn = satellitePositions.get(theIndex[j]);
+	theSpher[0] = theBlock[3*j];
+	theSpher[1] = theBlock[3*j+1];
+	theSpher[2] = theBlock[3*j+2];
+	theOutput = satPosn.sat.itsName
+	  + Hmelib.Wfndm(4, 0, theSpher[0] * Hmelib.DEGPERRAD)
+	  + Hmelib.Wfndm(5, 0, theSpher[1] * Hmelib.DEGPERRAD)
+	  + Hmelib.Wfndm(8, 0, theSpher[2] * 1E6);
+	synchronized (satPosn) {
+	  satPosn.displayString.replace(0, satPosn.displayString.length(),
+	    theOutput);
+	  satPosn.azimuth   = theSpher[0] * Hmelib.DEGPERRAD;
+	  satPosn.azRadians = theSpher[0];
+	  satPosn.elevation = theSpher[1] * Hmelib.DEGPERRAD;
+	  satPosn.elRadians = theSpher[1];
+	  satPosn.range     = theSpher[2] * 1E6;
+	}
+      }
+    }
+
+    return;
+  }
+
+
+  /**
+   * Find the eclipses of all satellites in a list.
+   *
+   * <p>The Sun is calculated once for the window and shared, see
+   * {@link SunEphemeris SunEphemeris}, and each satellite is searched by
+   * an {@link EclipseFinder EclipseFinder}.  The search can be shared among
+   * several threads, which use the same pool as showAllSats.  The list is
+   * then split into as many contiguous parts, and the results do not
+   * depend on the number of threads.
+   *
+   * <p>If the calling thread is interrupted, the search is abandoned.  Jobs
+   * still queued or running are cancelled, the interrupt status is set
+   * again, and the list returned is empty rather than holding the eclipses
+   * of only some of the satellites.
+   *
+   * @param satellitePositions
+   *   The list of satellite positions.
+   * @param aStart
+   *   The start of the window, as Julian Day minus 2450000 days.
+   * @param aEnd
+   *   The end of the window, as Julian Day minus 2450000 days.
+   * @param aNthreads
+   *   The number of threads to use.
+   * @return
+   *   The eclipses, in the order of the list and for each satellite in
+   *   order of time. */
+
+  public static final ArrayList<SatelliteEclipse> findAllEclipses(
+    final ArrayList<SatellitePosition> satellitePositions,
+    final double aStart, final double aEnd, int aNthreads)
+  {
+    final SunEphemeris theSun = new SunEphemeris();
+    ArrayList<SatelliteEclipse> theEclipses;
+    ArrayList<SatelliteEclipse> thePart;
+    ExecutorService thePool;
+    ArrayList<Future<ArrayList<SatelliteEclipse>>> theJobs;
+    int theN, i, j;
+
+    theSun.Init(aStart, aEnd);
+    theN = satellitePositions.size();
+    theEclipses = new ArrayList<SatelliteEclipse>();
+
+    if (1 >= aNthreads || theN < 2 * aNthreads) {
+      thePart = findEclipses(theSun, satellitePositions, 0, theN,
+	aStart, aEnd);
+      if (null != thePart) theEclipses.addAll(thePart);
+      return theEclipses;
+    }
+
+    thePool = SDP4Batch.GetPool();
+    theJobs = new ArrayList<Future<ArrayList<SatelliteEclipse>>>();
+    for (i = 0; i < aNthreads; i++) {
+      final int theFrom = (int) ((long) theN * i / aNthreads);
+      final int theTo = (int) ((long) theN * (i + 1) / aNthreads);
+      theJobs.add(thePool.submit(
+	new Callable<ArrayList<SatelliteEclipse>>() {
+	  public ArrayList<SatelliteEclipse> call() {
+	    return findEclipses(theSun, satellitePositions, theFrom, theTo,
+	      aStart, aEnd);
+	  }
+	}));
+    }
+
+    for (i = 0; i < aNthreads; i++) {
+      try {
+	thePart = theJobs.get(i).get();
+      }
+      catch (InterruptedException e) {
+	for (j = 0; j < aNthreads; j++) theJobs.get(j).cancel(true);
+	Thread.currentThread().interrupt();
+	theEclipses.clear();
+	break;
+      }
+      catch (ExecutionException e) {
+	for (j = 0; j < aNthreads; j++) theJobs.get(j).cancel(true);
+	throw new RuntimeException(e.getCause());
+      }
+      if (null == thePart) {
+	theEclipses.clear();
+	break;
+      }
+      theEclipses.addAll(thePart);
+    }
+
+    return theEclipses;
+  }
+
+
+  /**
+   * Find the eclipses of a part of the list of satellites.
+   *
+   * <p>This does for findAllEclipses the entries from aFrom to aTo - 1.
+   * It stops between satellites if its thread is interrupted, which is
+   * how a job cancelled by findAllEclipses frees its pool thread.
+   *
+   * @param aSun
+   *   The Sun for the window, shared with the other threads.
+   * @param satellitePositions
+   *   The list of satellite positions.
+   * @param aFrom
+   *   The first entry to search.
+   * @param aTo
+   *   The entry after the last one to search.
+   * @param aStart
+   *   The start of the window.
+   * @param aEnd
+   *   The end of the window.
+   * @return
+   *   The eclipses, or null if interrupted. */
+
+  private static ArrayList<SatelliteEclipse> findEclipses(SunEphemeris aSun,
+    ArrayList<SatellitePosition> satellitePositions, int aFrom, int aTo,
+    double aStart, double aEnd)
+  {
+    ArrayList<SatelliteEclipse> theEclipses
+      = new ArrayList<SatelliteEclipse>();
+    EclipseFinder theFinder = new EclipseFinder();
+    int i;
+
+    for (i = aFrom; i < aTo; i++) {
+      if (Thread.currentThread().isInterrupted()) return null;
+      theFinder.Init(satellitePositions.get(i).sat, aSun);
+      theEclipses.addAll(theFinder.Find(aStart, aEnd));
+    }
+
+    return theEclipses;
+  }
+
+
   /**
 Display all satellites from a given file.
 
@@ -278,13 +871,16 @@ method.</p>
     for (;;) {
 
       /* Read next satellite from file.
-       * NoradNext needs to raise an exception if a partial or no further entry
-       * is found.  Also if an entry is invalid.  When we encounter an
-       * exception we catch and ignore it, but break the loop. */
+       * NoradNext raises an SDP4 exception if an entry is invalid, which
+       * we skip, and an IOException at the end of the file or if reading
+       * fails, which ends the loop. */
 
       try {itsSDP4.NoradNext(theFile);}
-      catch(Exception e) {break;}
+      catch(SDP4Exception e) {continue;}
+      catch(IOException e) {break;}
       itsName = itsSDP4.itsName;
+      if (null != itsCache) itsCache.Reset();
+      itsFilterLat = Double.NaN;
 
       /* Update(aStation, aSun); */
 
@@ -577,6 +1173,32 @@ NamedObject and only adds the eclipse state.</p>
   }
 
 
+  /**
+   * Switch interpolation of the ephemeris on or off.
+   *
+   * <p>With interpolation, {@link #Update Update} does not evaluate the
+   * SDP4 model for every time, but interpolates between evaluations.  See
+   * {@link uk.me.chiandh.Lib.SDP4Cache SDP4Cache}.  This suits the display
+   * of many satellites, particularly when time runs fast or is scrubbed
+   * back and forth.  The orbital elements must have been read already.
+   *
+   * @param aMaxError
+   *   The position error bound in Gm, as checked in the middle of each
+   *   segment, or zero to switch interpolation off. */
+
+  public final void SetCache(double aMaxError)
+  {
+    if (0. < aMaxError) {
+      itsCache = new SDP4Cache();
+      itsCache.Init(itsSDP4, aMaxError);
+    }
+    else {
+      itsCache = null;
+    }
+    return;
+  }
+
+
   /**
    * Set the Satellite for the given time.
    *
@@ -598,38 +1220,136 @@ NamedObject and only adds the eclipse state.</p>
    * @param aTelescope
    *   Primarily the time for which to calculate the ephemeris.
    *   Also the position of the Sun. */
-static double theSunPos[] = {0.,0.,0.};
   public final void Update(Telescope aTelescope)
   {
-    
-    double r, r_para, r_perp;
+    Update(aTelescope, DefaultWork());
+  }
 
-    /* Tell the SPD4 instance we own to calculate position and velocity.
+
+  /**
+   * Set the Satellite for the given time with a given workspace.
+   *
+   * <p>This does the same as {@link #Update(Telescope) Update}, but uses the
+   * given workspace for the coordinate transforms.  Several threads can
+   * thus update different satellites at the same time, provided each has
+   * its own workspace.
+   *
+   * @param aTelescope
+   *   Primarily the time for which to calculate the ephemeris.
+   *   Also the position of the Sun.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  public final void Update(Telescope aTelescope, CatalogWorkspace aWork)
+  {
+    double theSunPos[] = aWork.t3;
+    double theR[], theV[];
+    double r;
+
+    /* Tell the SPD4 instance we own to calculate position and velocity,
+     * or interpolate them if so requested.
      * Then use its position to set this instance's position.
      * There it is mean EOD, here it is J2000.
      * Also extract/transform the velocity. */
 
-    itsSDP4.GetPosVel(aTelescope.GetJD());
-    SetMean(0, aTelescope, itsSDP4.itsR);
-    Mean2J2000(1, aTelescope, itsSDP4.itsV, itsV);
+    if (null == itsCache) {
+      itsSDP4.GetPosVel(aTelescope.GetJD());
+      theR = itsSDP4.itsR; theV = itsSDP4.itsV;
+    }
+    else {
+      itsCache.GetPosVel(aTelescope.GetJD());
+      theR = itsCache.itsR; theV = itsCache.itsV;
+    }
+    SetMean(0, aTelescope, theR, aWork);
+    Mean2J2000(1, aTelescope, theV, itsV, aWork);
+    SetRDate(theR);
 
     /* Is it sunlit?
-     * Calculate the unit vector pointing from the geocentre to the Sun.
-     * Calculate the satellite vector components parallel and perpendicular:
-     * r_para = scalar product of itsR with theSunRHat
-     * r_perp = sqrt(itsR^2 - r_para^2)
-     */
+     * Calculate the unit vector pointing from the geocentre to the Sun. */
 
     aTelescope.itsSun.GetPos(theSunPos);
     r = Math.sqrt(theSunPos[0] * theSunPos[0] + theSunPos[1] * theSunPos[1]
       + theSunPos[2] * theSunPos[2]);
     theSunPos[0] /= r; theSunPos[1] /= r; theSunPos[2] /= r;
-    r = Math.sqrt(itsSDP4.itsR[0] * itsSDP4.itsR[0]
-                + itsSDP4.itsR[1] * itsSDP4.itsR[1]
-		+ itsSDP4.itsR[2] * itsSDP4.itsR[2]);
-    r_para = itsSDP4.itsR[0] * theSunPos[0]
-           + itsSDP4.itsR[1] * theSunPos[1]
-           + itsSDP4.itsR[2] * theSunPos[2];
+    SetSunlit(theR, theSunPos);
+
+    return;
+  }
+
+
+  /**
+   * Set the Satellite for the time of a frame.
+   *
+   * <p>This does the same as {@link #Update(Telescope) Update}, but takes
+   * the time, the precession and the direction to the Sun from the frame
+   * instead of working them out for each satellite.  The frame can be
+   * shared by several threads, but each thread needs its own workspace.
+   *
+   * @param aFrame
+   *   The frame, which must have been set from a telescope.
+   * @param aWork
+   *   The workspace for intermediate results. */
+
+  public final void Update(CatalogFrame aFrame, CatalogWorkspace aWork)
+  {
+    double theR[], theV[];
+
+    if (null == itsCache) {
+      itsSDP4.GetPosVel(aFrame.GetJD());
+      theR = itsSDP4.itsR; theV = itsSDP4.itsV;
+    }
+    else {
+      itsCache.GetPosVel(aFrame.GetJD());
+      theR = itsCache.itsR; theV = itsCache.itsV;
+    }
+    SetMean(0, aFrame, theR, aWork);
+    Mean2J2000(1, aFrame, theV, itsV);
+    SetRDate(theR);
+    SetSunlit(theR, aFrame.itsSunHat);
+
+    return;
+  }
+
+
+  /**
+   * Keep the position for the equinox of date.
+   *
+   * @param aR
+   *   The geocentric position of the satellite for the equinox of date. */
+
+  private final void SetRDate(double aR[])
+  {
+    if (null == itsRDate) itsRDate = new double[3];
+    itsRDate[0] = aR[0]; itsRDate[1] = aR[1]; itsRDate[2] = aR[2];
+    return;
+  }
+
+
+  /**
+   * Set whether the satellite is sunlit.
+   *
+   * <p>See {@link #Update(Telescope) Update}.
+   *
+   * @param aR
+   *   The geocentric position of the satellite.
+   * @param aSunHat
+   *   The unit vector from the geocentre to the Sun. */
+
+  private final void SetSunlit(double aR[], double aSunHat[])
+  {
+    double r, r_para, r_perp;
+
+    /* Calculate the satellite vector components parallel and perpendicular:
+     * r_para = scalar product of itsR with theSunRHat
+     * r_perp = sqrt(itsR^2 - r_para^2)
+     */
+
+    r = Math.sqrt(aR[0] * aR[0]
+                + aR[1] * aR[1]
+		+ aR[2] * aR[2]);
+    r_para = aR[0] * aSunHat[0]
+           + aR[1] * aSunHat[1]
+           + aR[2] * aSunHat[2];
     if (0. <= r_para) {
       itsIsSunlit = 1;
     }
@@ -647,6 +1367,120 @@ static double theSunPos[] = {0.,0.,0.};
   }
 
 
+  /**
+   * Classify the satellite by whether it can be above the horizon.
+   *
+   * <p>This is a cheap test before an update, which returns</p>
+   *
+   * <ul>
+   *   <li>NEVERUP if the satellite can never rise at the latitude of the
+   *   frame.  Its ground track stays within the latitude of the
+   *   inclination, and its horizon at apogee reaches some way beyond that.
+   *   If the station is further still, the satellite is never up.</li>
+   *   <li>NOTYET if the satellite cannot have risen since the last update
+   *   in which it was below the horizon, nor been up until then.  Its
+   *   geocentric angle from the station was too large to change by enough
+   *   at the greatest speed it can have, which is its angular speed at
+   *   perigee plus the rotation of the Earth.</li>
+   *   <li>CANDIDATE otherwise.  The satellite must be updated and
+   *   {@link #SetHold SetHold} called.</li>
+   * </ul>
+   *
+   * <p>The test uses the perigee, apogee, inclination and period of the
+   * orbit.  It is redone, and the interval from SetHold forgotten, when
+   * the latitude, longitude or height of the frame changes, since that
+   * interval depends on the position of the station.  An orbit with a
+   * perigee below 100&nbsp;km is always a candidate.
+   *
+   * @param aFrame
+   *   The frame for the time and location of the observatory. */
+
+  public final int Prefilter(CatalogFrame aFrame)
+  {
+    double theIncl, rp, ra, e, n;
+
+    if (aFrame.itsLat != itsFilterLat || aFrame.itsLong != itsFilterLong
+      || aFrame.itsHeight != itsFilterHeight) {
+      itsFilterLat    = aFrame.itsLat;
+      itsFilterLong   = aFrame.itsLong;
+      itsFilterHeight = aFrame.itsHeight;
+      itsHold = -1.;
+      rp = Station.A + 1E-6 * itsSDP4.perigee;
+      ra = Station.A + 1E-6 * itsSDP4.apogee;
+      if (Station.A + FILTERPERIGEE > rp || rp > ra
+	|| !(0. < itsSDP4.period)) {
+	itsNeverUp    = false;
+	itsFilterPsi  = Math.PI;
+	itsFilterRate = 1.;
+      }
+      else {
+	theIncl = itsSDP4.inclination / Hmelib.DEGPERRAD;
+	if (Math.PI / 2. < theIncl) theIncl = Math.PI - theIncl;
+	itsFilterPsi = Math.acos(Station.A / ra) + FILTERSLACK;
+	itsNeverUp   = Math.abs(itsFilterLat) - theIncl > itsFilterPsi;
+	e = (ra - rp) / (ra + rp);
+	n = 2. * Math.PI * 1440. / itsSDP4.period;
+	itsFilterRate = FILTERRATE * (n * (1. + e) * (1. + e)
+	  / Math.pow(1. - e * e, 1.5) + PassFinder.EARTHROT);
+      }
+    }
+
+    if (itsNeverUp) return NEVERUP;
+    if (Math.abs(aFrame.itsJD - itsHoldJD) < itsHold) return NOTYET;
+    return CANDIDATE;
+  }
+
+
+  /**
+   * Return the time until which the satellite stays below the horizon.
+   *
+   * <p>This is positive infinity if {@link #Prefilter Prefilter} last
+   * returned NEVERUP.  Otherwise it is the end of the interval from the last
+   * {@link #SetHold SetHold}, which may be in the past. */
+
+  public final double GetNotBefore()
+  {
+    if (itsNeverUp) return Double.POSITIVE_INFINITY;
+    return itsHoldJD + itsHold;
+  }
+
+
+  /**
+   * Set the interval in which the satellite stays below the horizon.
+   *
+   * <p>This is to be called after {@link #Prefilter Prefilter} and
+   * {@link #Update(CatalogFrame, CatalogWorkspace) Update} with the same
+   * frame.  The interval is centred on the time of the frame, and is empty
+   * if the satellite is near enough the station to be above the horizon.
+   *
+   * @param aFrame
+   *   The frame for the time and location of the observatory. */
+
+  public final void SetHold(CatalogFrame aFrame)
+  {
+    double mat[]     = aFrame.matLST;
+    double theStat[] = aFrame.vec;
+    double x, y, z, r, s, psi;
+
+    /* The station for the equinox of date, and its geocentric angle from
+     * the satellite. */
+
+    x = mat[0] * theStat[0] + mat[1] * theStat[1];
+    y = mat[2] * theStat[0] + mat[3] * theStat[1];
+    z = theStat[2];
+    r = Math.sqrt(itsRDate[0] * itsRDate[0] + itsRDate[1] * itsRDate[1]
+      + itsRDate[2] * itsRDate[2]);
+    s = Math.sqrt(x * x + y * y + z * z);
+    psi = (x * itsRDate[0] + y * itsRDate[1] + z * itsRDate[2]) / (r * s);
+    psi = Math.acos(Math.max(-1., Math.min(1., psi)));
+
+    itsHoldJD = aFrame.itsJD;
+    itsHold   = (psi - itsFilterPsi) / itsFilterRate;
+
+    return;
+  }
+
+
   /**
    * Read orbital elements of a satellite from file.
    *
@@ -670,6 +1504,31 @@ static double theSunPos[] = {0.,0.,0.};
   {
     itsSDP4.NoradByName(aFileName, aName);
     itsName = itsSDP4.itsName;
+    if (null != itsCache) itsCache.Reset();
+    itsFilterLat = Double.NaN;
+    return;
+  }
+
+
+  /**
+   * Read orbital elements of a satellite from file by catalogue number.
+   *
+   * <p>Given a file name and the NORAD catalogue number of a satellite, read
+   * the orbital elements of the first satellite with that number from the
+   * NORAD TLE format file.
+   *
+   * @param aFileName
+   *   The name of the file with the NORAD TLE format orbit data.
+   * @param aNumber
+   *   The NORAD catalogue number of the satellite. */
+
+  protected final void ReadByNumber(String aFileName, int aNumber)
+    throws SDP4Exception, IOException
+  {
+    itsSDP4.NoradByNumber(aFileName, aNumber);
+    itsName = itsSDP4.itsName;
+    if (null != itsCache) itsCache.Reset();
+    itsFilterLat = Double.NaN;
     return;
   }
 
@@ -693,6 +1552,8 @@ static double theSunPos[] = {0.,0.,0.};
   {
     itsSDP4.NoradNext(aFile);
     itsName = itsSDP4.itsName;
+    if (null != itsCache) itsCache.Reset();
+    itsFilterLat = Double.NaN;
     return;
   }
 
@@ -0,0 +1,543 @@
+package uk.me.chiandh.Sputnik;
+
+import java.io.*;
+import java.util.ArrayList;
+import uk.me.chiandh.Lib.Hmelib;
+import uk.me.chiandh.Lib.SDP4;
+import uk.me.chiandh.Lib.SDP4Batch;
+import uk.me.chiandh.Lib.SDP4Catalog;
+import uk.me.chiandh.Lib.SDP4Workspace;
+
+/**
+ * <p>The <code>SatelliteBench</code> class times the satellite calculations
+ * and prints reference positions to check their accuracy.</p>
+ *
+ * <p>It uses the same 18 satellites in the file <code>test.tle</code> and
+ * the same times as {@link uk.me.chiandh.Lib.SDP4#driver2 SDP4.driver2}.
+ * First the position of each satellite at these times is printed, which
+ * must remain the same after any change to the calculations.  Next the
+ * passes found by {@link PassFinder PassFinder} for these satellites and
+ * for a 12-hour orbit are checked against a scan in small steps, see
+ * {@link #CheckPasses CheckPasses}.  Then these operations are
+ * timed:</p>
+ *
+ * <ul>
+ *   <li>reading a TLE from text,</li>
+ *   <li>GetPosVel for near-earth satellites (SGP4),</li>
+ *   <li>GetPosVel for deep-space satellites without resonance (SDP4),</li>
+ *   <li>GetPosVel for 12-hour resonant satellites,</li>
+ *   <li>GetPosVel for 24-hour resonant satellites,</li>
+ *   <li>one update of all satellites in the file through
+ *   {@link Satellite#showAllSats Satellite.showAllSats}, first in full,
+ *   then skipping the satellites that cannot be above the horizon,</li>
+ *   <li>one update of a large {@link uk.me.chiandh.Lib.SDP4Batch SDP4Batch}
+ *   made of the satellites in the file, first with one thread, then with
+ *   one thread per processor,</li>
+ *   <li>one update of an {@link uk.me.chiandh.Lib.SDP4Catalog SDP4Catalog}
+ *   of the same satellites.</li>
+ * </ul>
+ *
+ * <p>Each operation is first run for a while to let the virtual machine
+ * compile it, then timed in several rounds.  The mean and best time per
+ * operation of the rounds are printed.</p>
+ *
+ * <p>To run, give the TLE file as the only argument, or run in the
+ * directory that contains <code>test.tle</code>.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class SatelliteBench
+{
+  /** The satellites used by SDP4.driver2. */
+
+  protected static final String NAMES[] = {
+    "Cosmos 2388 casing", "STS-110", "Jason 1 DPAF",
+    "Cosmos 1149 deb Q", "Cosmos 1149 deb P", "GPS B2A-11 PAM-D deb F",
+    "GPS 2-18 PAM-D deb D", "GPS 2-26 PAM-D deb D", "Cos 2382 aux motor",
+    "Intelsat 904 Ariane 44", "CRRES deb W (canister)", "NSS-7 Ariane 44L r",
+    "SL-06 R/B (2)", "Cosmos 2388", "NSS-7", "Intelsat 903",
+    "Ekran 21 Breeze-M r", "MAP"};
+
+  /** The time used by SDP4.driver2 [JD - 2450000 d]. */
+  protected static final double EPOCH = 2384.5;
+
+  /** The time steps used by SDP4.driver2 [min]. */
+  protected static final double TSINCE[] = {0., 360., 720., 1080., 1440.};
+
+  /** The time to run each operation before timing it [s]. */
+  protected static final double WARMUP = 2.;
+
+  /** The time for each round of timing [s]. */
+  protected static final double ROUND = 1.;
+
+  /** The number of rounds of timing. */
+  protected static final int NROUNDS = 5;
+
+  /** The least number of satellites in the batch. */
+  protected static final int NBATCH = 8192;
+
+  /** The time searched for passes [d] and the step of the scan they are
+   * checked against [d]. */
+  protected static final double CHECKDAYS = 2., CHECKSTEP = 10. / 86400.;
+
+  /** A 12-hour orbit of low eccentricity, which stays near the horizon
+   * long enough for a short pass or a short dip below the horizon to
+   * fall between the coarse steps of PassFinder. */
+  protected static final String CHECKTLE = "12-h check orbit\n"
+    + "1 30225U 98067A   24216.43810969  .00001011  00000-0  90487-4 0  9992\n"
+    + "2 30225 130.3944 283.1769 0405275  11.6061 283.9007  2.02364966  1000"
+    + "\n";
+
+  /** Earth radius [km], to derive the eccentricity. */
+  protected static final double XKMPER = 6378.135;
+
+  /** The sum of all results, kept so that no operation is optimised
+   * away. */
+  protected static double itsSink;
+
+  /** Kinds of satellite, named as in the output. */
+  protected static final String KINDS[] = {
+    "near-earth", "deep-space", "12-h resonant", "24-h resonant"};
+
+
+  /**
+   * One operation to be timed. */
+
+  protected static abstract class Operation
+  {
+    /** The name to print. */
+    String itsName;
+
+    /** Run the operation the given number of times, return any number that
+     * depends on the results. */
+    abstract double Run(int aN) throws Exception;
+  }
+
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args
+   *   The name of the TLE file, by default test.tle. */
+
+  public static void main(String args[])
+    throws Exception
+  {
+    final String     theFileName;
+    final byte       theText[];
+    final SDP4       theSats[][];
+    final Telescope  theTelescope;
+    final ArrayList<SatellitePosition> theList;
+    ArrayList<Operation> theOps;
+    SDP4Workspace    theWork;
+    SDP4             theSat;
+    Satellite        theCheckSat;
+    int theNsats[], theCounts[], theKind, i, j, k;
+
+    theFileName = (0 < args.length) ? args[0] : "test.tle";
+
+    /* Read the satellites and sort them by kind. */
+
+    theSats  = new SDP4[KINDS.length][NAMES.length];
+    theNsats = new int[KINDS.length];
+    theWork  = new SDP4Workspace();
+
+    System.out.println(
+      "\nSatellite                kind           TSINCE"
+      + "        X              Y              Z");
+    System.out.println(
+      "                                          min"
+      + "         km             km             km\n");
+
+    for (i = 0; i < NAMES.length; i++) {
+      theSat = new SDP4();
+      theSat.Init();
+      theSat.NoradByName(theFileName, NAMES[i]);
+      theKind = Kind(theSat);
+      theSats[theKind][theNsats[theKind]++] = theSat;
+
+      for (j = 0; j < TSINCE.length; j++) {
+	theSat.GetPosVel(EPOCH + TSINCE[j] / 1440., theWork);
+	System.out.println(
+	  (theSat.itsName + "                        ").substring(0, 24)
+	  + (KINDS[theKind] + "               ").substring(0, 14)
+	  + Hmelib.Wfndm(7, 0, TSINCE[j])
+	  + Hmelib.Wfndm(15, 6, 1E6 * theWork.itsR[0])
+	  + Hmelib.Wfndm(15, 6, 1E6 * theWork.itsR[1])
+	  + Hmelib.Wfndm(15, 6, 1E6 * theWork.itsR[2]));
+      }
+    }
+
+    /* The file in memory for reading, and the list of all satellites in it
+     * for updating. */
+
+    theText = ReadFile(theFileName);
+    theTelescope = new Telescope();
+    theTelescope.Init();
+    theTelescope.SetJD(EPOCH);
+    theList = new ArrayList<SatellitePosition>();
+    Satellite.showAllSats(new ByteArrayInputStream(theText), theTelescope,
+			  theList);
+
+    /* Check the passes of these satellites, and of the 12-hour orbit,
+     * starting a little after its epoch. */
+
+    theCounts = new int[3];
+    for (i = 0; i < theList.size(); i++)
+      CheckPasses(theList.get(i).sat, theTelescope, EPOCH, theCounts);
+    theCheckSat = new Satellite();
+    theCheckSat.Init();
+    theCheckSat.itsSDP4.NoradNext(new BufferedReader(
+      new StringReader(CHECKTLE)));
+    CheckPasses(theCheckSat, theTelescope,
+      theCheckSat.itsSDP4.itsEpochJD + 0.1, theCounts);
+    System.out.println("\nPasses in " + Hmelib.Wfndm(1, 0, CHECKDAYS)
+      + " d: " + theCounts[0] + " found, " + theCounts[1] + " in scan at "
+      + Hmelib.Wfndm(1, 0, CHECKSTEP * 86400.) + " s, " + theCounts[2]
+      + " not matched");
+
+    /* The operations. */
+
+    theOps = new ArrayList<Operation>();
+
+    theOps.add(new Operation() {
+      {itsName = "read TLE";}
+      double Run(int aN) throws Exception {
+	BufferedReader theFile = null;
+	SDP4   theSat = new SDP4();
+	double theSum = 0.;
+	int    i;
+	theSat.Init();
+	for (i = 0; i < aN; i++) {
+	  if (0 == i % theList.size()) {
+	    theFile = new BufferedReader(new InputStreamReader(
+	      new ByteArrayInputStream(theText)));
+	  }
+	  theSat.NoradNext(theFile);
+	  theSum += theSat.itsEpochJD;
+	}
+	return theSum;
+      }
+    });
+
+    for (k = 0; k < KINDS.length; k++) {
+      if (0 == theNsats[k]) continue;
+      final SDP4 theKindSats[] = theSats[k];
+      final int  theN = theNsats[k];
+      final String theOpName = "GetPosVel " + KINDS[k];
+      theOps.add(new Operation() {
+	{itsName = theOpName;}
+	double Run(int aN) {
+	  SDP4Workspace theWork = new SDP4Workspace();
+	  double theSum = 0.;
+	  int    i;
+	  for (i = 0; i < aN; i++) {
+	    theKindSats[i % theN].GetPosVel(
+	      EPOCH + TSINCE[(i / theN) % TSINCE.length] / 1440., theWork);
+	    theSum += theWork.itsR[0];
+	  }
+	  return theSum;
+	}
+      });
+    }
+
+    theOps.add(new Operation() {
+      {itsName = "showAllSats " + theList.size() + " sats";}
+      double Run(int aN) {
+	double theSum = 0.;
+	int    i;
+	for (i = 0; i < aN; i++) {
+	  theTelescope.SetJD(EPOCH + (i % 2) / 86400.);
+	  Satellite.showAllSats(null, theTelescope, theList);
+	  theSum += theList.get(0).range;
+	}
+	return theSum;
+      }
+    });
+
+    theOps.add(new Operation() {
+      {itsName = "showAllSats " + theList.size() + " sats up only";}
+      double Run(int aN) {
+	double theSum = 0.;
+	int    i;
+	for (i = 0; i < aN; i++) {
+	  theTelescope.SetJD(EPOCH + (i % 2) / 86400.);
+	  Satellite.showAllSats(null, theTelescope, theList, 1, true);
+	  theSum += theList.get(0).range;
+	}
+	return theSum;
+      }
+    });
+
+    /* The batch, with the satellites repeated as often as needed. */
+
+    final SDP4Batch theBatch = new SDP4Batch();
+    final double theR[], theV[];
+    theBatch.Init(NBATCH);
+    while (theBatch.GetN() < NBATCH) {
+      for (i = 0; i < theList.size(); i++)
+	theBatch.Add(theList.get(i).sat.itsSDP4);
+    }
+    theR = new double[3 * theBatch.GetN()];
+    theV = new double[3 * theBatch.GetN()];
+
+    for (k = 0; k < 2; k++) {
+      final int theNthreads = (0 == k) ? 1
+	: Runtime.getRuntime().availableProcessors();
+      theOps.add(new Operation() {
+	{itsName = "SDP4Batch " + theBatch.GetN() + " sats "
+	   + theNthreads + " thr";}
+	double Run(int aN) {
+	  double theSum = 0.;
+	  int    i;
+	  theBatch.SetThreads(theNthreads);
+	  for (i = 0; i < aN; i++) {
+	    theBatch.GetPosVel(EPOCH + (i % 2) / 86400., theR, theV);
+	    theSum += theR[0];
+	  }
+	  return theSum;
+	}
+      });
+    }
+
+    /* The same satellites in a catalogue outside the heap. */
+
+    final SDP4Catalog theCatalog = new SDP4Catalog();
+    final SDP4Workspace theCatWork = new SDP4Workspace();
+    ArrayList<SDP4> theSDP4s = new ArrayList<SDP4>();
+    while (theSDP4s.size() < NBATCH) {
+      for (i = 0; i < theList.size(); i++)
+	theSDP4s.add(theList.get(i).sat.itsSDP4);
+    }
+    theCatalog.Init(theSDP4s);
+
+    theOps.add(new Operation() {
+      {itsName = "SDP4Catalog " + theCatalog.GetN() + " sats";}
+      double Run(int aN) {
+	double theSum = 0.;
+	int    i;
+	for (i = 0; i < aN; i++) {
+	  theCatalog.GetPosVel(EPOCH + (i % 2) / 86400., theR, theV,
+			       theCatWork);
+	  theSum += theR[0];
+	}
+	return theSum;
+      }
+    });
+
+    /* Time them. */
+
+    System.out.println(
+      "\nOperation                         mean ns/op    best ns/op\n");
+    for (i = 0; i < theOps.size(); i++) Time(theOps.get(i));
+
+    return;
+  }
+
+
+  /**
+   * Check the passes found by PassFinder against a scan in small steps.
+   *
+   * <p>The satellite is searched for passes over CHECKDAYS, and its
+   * elevation is scanned over the same time at CHECKSTEP.  A pass matches
+   * one from the scan if both rise and set agree to within one step.
+   * Passes that do not match are printed, and there should be none.
+   * Passes found that are too short to be seen in the scan are not
+   * counted.
+   *
+   * @param aSat
+   *   The satellite.
+   * @param aStation
+   *   The observatory.
+   * @param aStart
+   *   The start of the search.
+   * @param aCounts
+   *   The numbers of passes found, passes in the scan and passes not
+   *   matched, to be added to. */
+
+  protected static void CheckPasses(Satellite aSat, Station aStation,
+    double aStart, int aCounts[])
+  {
+    ArrayList<SatellitePass> thePasses;
+    ArrayList<double[]> theScans;
+    PassFinder theFinder, theScanner;
+    SatellitePass thePass;
+    double  theHori[] = new double[3];
+    double  theEnd, theJD, theAOS, theScan[];
+    boolean isUp, wasUp, isMatched;
+    int     theN, j, k;
+
+    theEnd = aStart + CHECKDAYS;
+    theN   = (int) Math.ceil(CHECKDAYS / CHECKSTEP);
+
+    theFinder = new PassFinder();
+    theFinder.Init(aSat, aStation);
+    thePasses = theFinder.Find(aStart, theEnd);
+    aCounts[0] += thePasses.size();
+
+    /* The scan, with each pass from the first step above the horizon to
+     * the first step below it or the end. */
+
+    theScanner = new PassFinder();
+    theScanner.Init(aSat, aStation);
+    theScans = new ArrayList<double[]>();
+    wasUp = false; theAOS = aStart;
+    for (k = 0; k <= theN; k++) {
+      theJD = (k == theN) ? theEnd : aStart + (double) k * CHECKSTEP;
+      theScanner.GetHori(theJD, theHori);
+      isUp = 0. < theHori[1];
+      if (isUp && !wasUp) theAOS = theJD;
+      if (wasUp && !isUp || isUp && k == theN)
+	theScans.add(new double[] {theAOS, theJD});
+      wasUp = isUp;
+    }
+    aCounts[1] += theScans.size();
+
+    for (j = 0; j < theScans.size(); j++) {
+      theScan = theScans.get(j);
+      isMatched = false;
+      for (k = 0; k < thePasses.size(); k++) {
+	thePass = thePasses.get(k);
+	if (CHECKSTEP >= Math.abs(thePass.itsAOS - theScan[0])
+	 && CHECKSTEP >= Math.abs(thePass.itsLOS - theScan[1]))
+	  isMatched = true;
+      }
+      if (!isMatched) {
+	aCounts[2]++;
+	System.out.println("Pass not found: " + aSat.itsSDP4.itsName
+	  + Hmelib.Wfndm(14, 6, theScan[0])
+	  + Hmelib.Wfndm(14, 6, theScan[1]));
+      }
+    }
+
+    for (k = 0; k < thePasses.size(); k++) {
+      thePass = thePasses.get(k);
+      if (2. * CHECKSTEP > thePass.itsLOS - thePass.itsAOS) continue;
+      isMatched = false;
+      for (j = 0; j < theScans.size(); j++) {
+	theScan = theScans.get(j);
+	if (CHECKSTEP >= Math.abs(thePass.itsAOS - theScan[0])
+	 && CHECKSTEP >= Math.abs(thePass.itsLOS - theScan[1]))
+	  isMatched = true;
+      }
+      if (!isMatched) {
+	aCounts[2]++;
+	System.out.println("Pass not in scan: " + aSat.itsSDP4.itsName
+	  + Hmelib.Wfndm(14, 6, thePass.itsAOS)
+	  + Hmelib.Wfndm(14, 6, thePass.itsLOS));
+      }
+    }
+
+    return;
+  }
+
+
+  /**
+   * Return the kind of a satellite.
+   *
+   * <p>The limits are those with which the SDP4 model decides on
+   * resonance.
+   *
+   * @param aSat
+   *   The satellite.
+   * @return
+   *   The index into KINDS. */
+
+  protected static int Kind(SDP4 aSat)
+  {
+    double theEcc;
+
+    if (225. > aSat.period) return 0;
+
+    theEcc = (aSat.apogee - aSat.perigee)
+           / (aSat.apogee + aSat.perigee + 2. * XKMPER);
+    if (1200. <= aSat.period && 1800. >= aSat.period) return 3;
+    if (680.  <= aSat.period && 760.  >= aSat.period && 0.5 <= theEcc)
+      return 2;
+    return 1;
+  }
+
+
+  /**
+   * Read a file into memory.
+   *
+   * @param aFileName
+   *   The name of the file. */
+
+  protected static byte[] ReadFile(String aFileName)
+    throws IOException
+  {
+    ByteArrayOutputStream theBytes = new ByteArrayOutputStream();
+    InputStream theFile = new FileInputStream(aFileName);
+    byte theBuffer[] = new byte[65536];
+    int  theN;
+
+    try {
+      while (0 < (theN = theFile.read(theBuffer)))
+	theBytes.write(theBuffer, 0, theN);
+    }
+    finally {theFile.close();}
+
+    return theBytes.toByteArray();
+  }
+
+
+  /**
+   * Time one operation and print the result.
+   *
+   * <p>The number of operations per round is found during the warm-up as
+   * the number that takes about one round's time.
+   *
+   * @param aOp
+   *   The operation. */
+
+  protected static void Time(Operation aOp)
+    throws Exception
+  {
+    double theSink, theTime, theMean, theBest;
+    long   theStart, theWarmEnd;
+    int    theN, i;
+
+    /* Warm up, doubling the count until one call takes a round. */
+
+    theSink = 0.; theN = 1;
+    theWarmEnd = System.nanoTime() + (long) (WARMUP * 1E9);
+    for (;;) {
+      theStart = System.nanoTime();
+      theSink += aOp.Run(theN);
+      theTime  = (System.nanoTime() - theStart) / 1E9;
+      if (theTime < ROUND / 2.) {theN *= 2; continue;}
+      if (System.nanoTime() > theWarmEnd) break;
+    }
+
+    /* Time the rounds. */
+
+    theMean = 0.; theBest = Double.MAX_VALUE;
+    for (i = 0; i < NROUNDS; i++) {
+      theStart = System.nanoTime();
+      theSink += aOp.Run(theN);
+      theTime  = (double) (System.nanoTime() - theStart) / theN;
+      theMean += theTime / NROUNDS;
+      if (theTime < theBest) theBest = theTime;
+    }
+
+    System.out.println((aOp.itsName + "                                ")
+      .substring(0, 32)
+      + Hmelib.Wfndm(13, 0, theMean) + Hmelib.Wfndm(14, 0, theBest));
+    itsSink += theSink;
+
+    return;
+  }
+}
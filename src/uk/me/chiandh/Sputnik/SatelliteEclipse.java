@@ -0,0 +1,61 @@
+package uk.me.chiandh.Sputnik;
+
+/**
+ * <p>The <code>SatelliteEclipse</code> class holds the times of one eclipse
+ * of a satellite by the Earth, as found by
+ * {@link EclipseFinder EclipseFinder}.</p>
+ *
+ * <p>All times are given as Julian Day minus 2450000 days.  The satellite
+ * enters the penumbra when the Earth starts to cover the disk of the Sun,
+ * and the umbra when the Earth covers all of it.  It leaves the umbra and
+ * the penumbra in the reverse order.  Where the eclipse is only partial
+ * the umbra times are NaN.  Where the satellite passes more than once
+ * through the umbra within one penumbra, the umbra times are the first
+ * entry and the last exit.  An eclipse in progress at the start or end of
+ * the search window begins or ends with the window.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class SatelliteEclipse
+{
+  /** The satellite that is eclipsed. */
+  public Satellite itsSatellite;
+
+  /** The entry into and exit from the penumbra. */
+  public double itsPenumbraStart, itsPenumbraEnd;
+
+  /** The entry into and exit from the umbra. */
+  public double itsUmbraStart, itsUmbraEnd;
+
+
+  /**
+   * Initialise the eclipse.
+   *
+   * <p>The umbra times are set to NaN. */
+
+  public void Init()
+  {
+    itsSatellite = null;
+    itsPenumbraStart = 0.; itsPenumbraEnd = 0.;
+    itsUmbraStart = Double.NaN; itsUmbraEnd = Double.NaN;
+    return;
+  }
+
+
+  /**
+   * Return whether the eclipse is total at some time. */
+
+  public final boolean IsTotal() {return !Double.isNaN(itsUmbraStart);}
+}
@@ -0,0 +1,51 @@
+package uk.me.chiandh.Sputnik;
+
+/**
+ * <p>The <code>SatelliteFlare</code> class holds one flare of an Iridium
+ * satellite, as found by {@link FlareFinder FlareFinder}.</p>
+ *
+ * <p>All times are given as Julian Day minus 2450000 days.  The flare
+ * starts when the smallest angle between the Sun and the reflection of the
+ * observer in one of the satellite's mirrors falls below 2&deg;, and ends
+ * when it rises above that again.  The peak is when that angle is
+ * smallest.  A flare in progress at the start or end of the search window,
+ * or at the start or end of the satellite being sunlit and up, begins or
+ * ends there.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class SatelliteFlare
+{
+  /** The satellite that flares. */
+  public Satellite itsSatellite;
+
+  /** The start, peak and end of the flare. */
+  public double itsStart, itsPeak, itsEnd;
+
+  /** The angle at the peak [rad]. */
+  public double itsAngle;
+
+  /** The azimuth, elevation and distance at start, peak and end, see
+   * {@link PassFinder#GetHori PassFinder.GetHori}. */
+  public double itsHoriStart[] = new double[3];
+  public double itsHoriPeak[]  = new double[3];
+  public double itsHoriEnd[]   = new double[3];
+
+
+  /**
+   * Return the duration of the flare [d]. */
+
+  public final double GetDuration() {return itsEnd - itsStart;}
+}
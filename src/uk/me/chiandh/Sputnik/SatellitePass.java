@@ -0,0 +1,67 @@
+package uk.me.chiandh.Sputnik;
+
+/**
+ * <p>The <code>SatellitePass</code> class holds the times of one pass of
+ * a satellite over an observatory, as found by
+ * {@link PassFinder PassFinder}.</p>
+ *
+ * <p>All times are given as Julian Day minus 2450000 days.  The pass runs
+ * from the rise (AOS, acquisition of signal) over the time of closest
+ * approach (TCA), here taken as the time of maximum elevation, to the set
+ * (LOS, loss of signal).  A pass in progress at the start or end of the
+ * search window begins or ends with the window.  Within the pass the
+ * satellite may be sunlit for part of the time, and it may be visible,
+ * which means sunlit while the Sun is at least 6&deg; below the horizon.
+ * Where this happens more than once in a pass, the start is the first
+ * and the end the last such time.  Where it does not happen at all, start
+ * and end are NaN.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class SatellitePass
+{
+  /** The rise, maximum and set of the satellite. */
+  public double itsAOS, itsTCA, itsLOS;
+
+  /** The maximum elevation [rad]. */
+  public double itsMaxEl;
+
+  /** The first and last time the satellite is up and sunlit. */
+  public double itsSunlitStart, itsSunlitEnd;
+
+  /** The first and last time the satellite is up, sunlit and the sky
+   * dark. */
+  public double itsVisStart, itsVisEnd;
+
+
+  /**
+   * Initialise the pass.
+   *
+   * <p>The sunlit and visible parts are set to NaN. */
+
+  public void Init()
+  {
+    itsAOS = 0.; itsTCA = 0.; itsLOS = 0.; itsMaxEl = 0.;
+    itsSunlitStart = Double.NaN; itsSunlitEnd = Double.NaN;
+    itsVisStart    = Double.NaN; itsVisEnd    = Double.NaN;
+    return;
+  }
+
+
+  /**
+   * Return whether the satellite is visible at some time in the pass. */
+
+  public final boolean IsVisible() {return !Double.isNaN(itsVisStart);}
+}
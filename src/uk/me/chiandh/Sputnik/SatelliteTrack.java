@@ -9,25 +9,26 @@ public class SatelliteTrack {
 	public long startTime = 0;
 	public long endTime = 0;
 	private long increment = 0;
-	private static double theSpherShowAllSats[] = {0.,0.,0.};
 	
 	
 	
 	public SatelliteTrack(Satellite sat, Telescope station, long startTime)
 	{
+		double theHori[] = new double[300];
+		int theSunlit[] = new int[100];
+		
 		this.increment  = (long) (sat.itsSDP4.period * 60000) / 100;
 		
 		endTime = startTime + (long) (sat.itsSDP4.period * 60000);
 		station.SetUTanyTime(startTime);
 		
+		sat.GetHoriSeries(station, station.GetJD(),
+				(double) increment / 86400000., 100, theHori, theSunlit);
 		
 		for (int i = 0; i < 100; i++)
 		{
-			station.SetUTanyTime(startTime + increment * i);
-    		sat.Update(station);
-    		sat.GetHori(0, station, theSpherShowAllSats);
-    		position[i] = new SatellitePosition("", "", 0, theSpherShowAllSats[0],
-    				theSpherShowAllSats[1], theSpherShowAllSats[1] * Hmelib.DEGPERRAD, 0, sat);
+    		position[i] = new SatellitePosition("", "", 0, theHori[3*i],
+    				theHori[3*i+1], theHori[3*i+1] * Hmelib.DEGPERRAD, 0, sat);
     		
 		}
 	}
@@ -0,0 +1,111 @@
+package uk.me.chiandh.Sputnik;
+
+/**
+ * <p>The <code>SunEphemeris</code> class holds the positions of the Sun
+ * over a time window, for the equinox of date.</p>
+ *
+ * <p>Satellite positions from the SDP4 model refer to the equinox of date,
+ * while {@link Sun#GetPos Sun.GetPos} refers to J2000.  This class
+ * calculates the Sun at intervals of {@link Satellite#SUNSTEP
+ * Satellite.SUNSTEP}, precesses each position to the equinox of its own
+ * date, and interpolates linearly between them, as
+ * {@link Satellite#GetHoriSeries Satellite.GetHoriSeries} does.</p>
+ *
+ * <p>Once made, an instance is only read, and can be shared by several
+ * threads working on different satellites over the same window.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class SunEphemeris
+{
+  /* The time of the first node, the number of nodes, and the geocentric
+   * positions of the Sun at the nodes for the equinox of date [Gm]. */
+
+  protected double itsStart;
+  protected int    itsN;
+  protected double itsPos[];
+
+
+  /**
+   * Calculate the Sun for a time window.
+   *
+   * <p>The nodes cover the window from the node at or before its start to
+   * the node at or after its end.
+   *
+   * @param aStart
+   *   The start of the window, as Julian Day minus 2450000 days.
+   * @param aEnd
+   *   The end of the window, as Julian Day minus 2450000 days. */
+
+  public void Init(double aStart, double aEnd)
+  {
+    Times  theTime = new Times();
+    Sun    theSun  = new Sun();
+    double theMat[] = new double[9];
+    double thePos[] = new double[3];
+    int    i;
+
+    theTime.Init(); theSun.Init();
+
+    itsStart = Satellite.SUNSTEP * Math.floor(aStart / Satellite.SUNSTEP);
+    itsN = 2 + (int) Math.ceil((aEnd - itsStart) / Satellite.SUNSTEP);
+    if (2 > itsN) itsN = 2;
+    itsPos = new double[3 * itsN];
+
+    for (i = 0; i < itsN; i++) {
+      theTime.SetJD(itsStart + (double) i * Satellite.SUNSTEP);
+      theSun.Update(theTime);
+      theSun.GetPos(thePos);
+      Catalog.Precession(theTime.GetJulEpoch(), theMat);
+      itsPos[3*i]   = theMat[0] * thePos[0] + theMat[1] * thePos[1]
+	+ theMat[2] * thePos[2];
+      itsPos[3*i+1] = theMat[3] * thePos[0] + theMat[4] * thePos[1]
+	+ theMat[5] * thePos[2];
+      itsPos[3*i+2] = theMat[6] * thePos[0] + theMat[7] * thePos[1]
+	+ theMat[8] * thePos[2];
+    }
+
+    return;
+  }
+
+
+  /**
+   * Return the position of the Sun at a given time.
+   *
+   * <p>Outside the window the first or last interval is extrapolated.
+   *
+   * @param aJD
+   *   The time, as Julian Day minus 2450000 days.
+   * @param aTriplet
+   *   The geocentric position of the Sun for the equinox of date [Gm]. */
+
+  public final void GetPos(double aJD, double aTriplet[])
+  {
+    double f;
+    int    i;
+
+    f = (aJD - itsStart) / Satellite.SUNSTEP;
+    i = (int) Math.floor(f);
+    if (0 > i)        i = 0;
+    if (itsN - 2 < i) i = itsN - 2;
+    f -= (double) i;
+
+    aTriplet[0] = itsPos[3*i]   + f * (itsPos[3*i+3] - itsPos[3*i]);
+    aTriplet[1] = itsPos[3*i+1] + f * (itsPos[3*i+4] - itsPos[3*i+1]);
+    aTriplet[2] = itsPos[3*i+2] + f * (itsPos[3*i+5] - itsPos[3*i+2]);
+
+    return;
+  }
+}
@@ -2,6 +2,11 @@
 package uk.me.chiandh.Sputnik;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.TreeMap;
 import uk.me.chiandh.Lib.Hmelib;
 import uk.me.chiandh.Lib.HmelibException;
 import uk.me.chiandh.Lib.SDP4Exception;
@@ -388,8 +393,10 @@ l = asin(x<sub>3</sub>/cos(b)) + CM
   /**
 Serve the <code>satellite/pass</code> command.
 
-<p>The search step is given in seconds, 60&nbsp;s is probably short
-enough in most cases.  The output format is:</p>
+<p>The passes are found with {@link PassFinder PassFinder}, so that even
+short passes are not missed.  The satellite is listed at the given interval
+in seconds while it is visible, 60&nbsp;s is probably short enough in most
+cases.  The output format is:</p>
 
 <pre>
 Observatory: Edinburgh
@@ -431,10 +438,17 @@ Twilight passes of satellite ISS (ZARYA)
     double    theTime[] = new double[3];
     Telescope theScope  = new Telescope();
     Satellite theSatellite;
+    PassFinder theFinder;
+    SatellitePass thePass;
+    ArrayList<SatellitePass> thePasses;
     String    theString, theFile, theName;
     double    theStart, theStep, theEnd, theJD;
-    int       theNstep, inPass, wasInPass;
+    double    theHori[]   = new double[3];
+    double    theYMD[]    = new double[3];
+    double    theHMS[]    = new double[3];
+    long      k, k1, k2;
     int       i;
+    boolean   wasVisible;
 
     /* Initialise the Telescope for the time loop.  Then copy its state
      * - in particular the station - from this. */
@@ -461,7 +475,6 @@ Twilight passes of satellite ISS (ZARYA)
     theStart = GetJD();
     theEnd   = theScope.GetJD();
     theStep /= 86400.;
-    theNstep = (int) Math.ceil((theEnd - theStart) / theStep);
 
     if (theEnd <= theStart)
       throw new TelescopeInvIntervException("end before start");
@@ -480,40 +493,48 @@ Twilight passes of satellite ISS (ZARYA)
       + "                         deg    deg      km\n"
       + "---------------------  ------  -----  --------\n";
 
-    /* Loop through time */
-
-    wasInPass = 0; inPass = 0;
-    for (i = 0; i < theNstep ; i++) {
-
-      /* Calculate time for next step. */
-
-      theJD = theStart + (double) i * theStep;
-      theScope.SetJD(theJD);
-
-      /* Let the satellite update itself to the new time, decide whether
-       * it is in pass, and write a line. */
-
-      theString = theSatellite.ShowPass(theScope);
-      if (null == theString) {
-	inPass = 0;
-      }
-      else {
-	inPass = 1;
-	theOutput = theOutput + theString;
+    /* Find the passes, then write a line for each step while the satellite
+     * is visible.  The condition and output are as in Satellite.ShowPass,
+     * and the steps are those from the start time with the given
+     * interval.  Between the first and last visible time of a pass the
+     * satellite may pass through the Earth's shadow, so each step is
+     * tested again, and a blank line follows each visible stretch. */
+
+    theFinder = new PassFinder();
+    theFinder.Init(theSatellite, theScope);
+    thePasses = theFinder.Find(theStart, theEnd);
+
+    for (i = 0; i < thePasses.size(); i++) {
+
+      thePass = thePasses.get(i);
+      if (!thePass.IsVisible()) continue;
+
+      k1 = (long) Math.ceil((thePass.itsVisStart - theStart) / theStep);
+      k2 = (long) Math.floor((thePass.itsVisEnd  - theStart) / theStep);
+      if (k1 > k2) continue;
+
+      wasVisible = false;
+      for (k = k1; k <= k2; k++) {
+	theJD = theStart + (double) k * theStep;
+	if (!theFinder.IsVisible(theJD)) {
+	  if (wasVisible) theOutput = theOutput + "\n";
+	  wasVisible = false;
+	  continue;
+	}
+	wasVisible = true;
+	theFinder.GetHori(theJD, theHori);
+	theScope.SetJD(theJD);
+	theScope.GetDate(theYMD); theScope.GetUThms(theHMS);
+	theOutput = theOutput
+	  + Hmelib.WTime3(theYMD[0], theYMD[1], theYMD[2],
+			  theHMS[0], theHMS[1], theHMS[2])
+	  + Hmelib.Wfndm( 8, 1, theHori[0] * Hmelib.DEGPERRAD)
+	  + Hmelib.Wfndm( 7, 1, theHori[1] * Hmelib.DEGPERRAD)
+	  + Hmelib.Wfndm(10, 1, theHori[2] * 1E6) + "\n";
       }
-
-      /* If we have changed from in pass to not in pass, write a blank
-       * line. */
-
-      if (0 != wasInPass && 0 == inPass) {theOutput = theOutput + "\n";}
-
-      wasInPass = inPass;
+      if (wasVisible) theOutput = theOutput + "\n";
     }
 
-    /* If at the end we are in pass, write an extra blank line. */
-
-    if (0 != inPass) {theOutput = theOutput + "\n";}
-
     return theOutput;
   }
 
@@ -521,9 +542,10 @@ Twilight passes of satellite ISS (ZARYA)
   /**
 Serve the <code>iridium/flare</code> command.
 
-<p>The search step is given in seconds, because when set to a single
-minute flares will be missed.  An interval of 5&nbsp;s is probably short
-enough.  The output format is:</p>
+<p>The flares are found with {@link FlareFinder FlareFinder}, and the
+satellites are listed at the given interval in seconds while they flare.
+When set to a single minute short flares will not be listed.  An interval
+of 5&nbsp;s is probably short enough.  The output format is:</p>
 
 <pre>
 Observatory: Edinburgh
@@ -576,11 +598,16 @@ Iridium flares from file: /home/hme/lib/sats/iridium.txt
     Telescope      theScope  = new Telescope();
     Satellite[]    theSatellite;
     BufferedReader theFile;
+    FlareFinder    theFinder;
+    SatelliteFlare theFlare;
+    ArrayList<SatelliteFlare> theFlares;
+    TreeMap<Long, String> theLines;
+    Iterator<String> theIter;
     String         theString, theFileName;
     double         theStart, theStep, theEnd, theJD;
     int            theNstep, theNsat;
-    int            inFlare[], wasInFlare[];
-    int            i, j;
+    int            inFlare, wasInFlare;
+    int            i, j, k, j1, j2;
 
     /* Initialise the Telescope for the time loop.  Then copy its state
      * - in particular the station - from this. */
@@ -624,14 +651,11 @@ Iridium flares from file: /home/hme/lib/sats/iridium.txt
      * Read each Satellite TLE from file using NoradNext. */
 
     theSatellite = new Satellite[theNsat];
-    wasInFlare   = new int[theNsat];
-    inFlare      = new int[theNsat];
     theFile = new BufferedReader(new FileReader(theFileName));
     for (i = 0; i < theNsat ; i++) {
       theSatellite[i] = new Satellite();
       theSatellite[i].Init();
       theSatellite[i].ReadNext(theFile);
-      wasInFlare[i] = 0; inFlare[i] = 0;
     }
     theFile.close();
 
@@ -644,40 +668,48 @@ Iridium flares from file: /home/hme/lib/sats/iridium.txt
       + "---------------------  --------  -------  ------  ---"
       + "  ----------------------\n";
 
-    /* Loop through time */
-
-    for (j = 0; j < theNstep ; j++) {
-
-      /* Calculate time for next step. */
-
-      theJD = theStart + (double) j * theStep;
-      theScope.SetJD(theJD);
-
-      /* Let each satellite update itself to the new time, decide whether
-       * it is in flare, and write a line. */
-
-      for (i = 0; i < theNsat ; i++) {
-
-        theString = theSatellite[i].ShowFlare(theScope);
-	if (null == theString) {
-	  inFlare[i] = 0;
-	}
-	else {
-	  inFlare[i] = 1;
-	  theOutput = theOutput + theString;
-	}
-
-	/* If we have changed from in flare to not in flare, write a blank
-	 * line. */
-
-	if (0 != wasInFlare[i] && 0 == inFlare[i]) {
-          theOutput = theOutput + "\n";
+    /* Find the flares of each satellite.  Around each flare step through
+     * time as before and let the satellite decide whether it is in flare
+     * and write a line.  Step on until it is out of flare, and then note
+     * a blank line.  The lines are kept by step and satellite, so that
+     * they can be written in the order in which stepping through all time
+     * would have written them. */
+
+    theLines = new TreeMap<Long, String>();
+    for (i = 0; i < theNsat; i++) {
+
+      theFinder = new FlareFinder();
+      theFinder.Init(theSatellite[i], theScope);
+      theFlares = theFinder.FindFlares(theStart, theEnd);
+      wasInFlare = 0; j = 0;
+
+      for (k = 0; k < theFlares.size(); k++) {
+	theFlare = theFlares.get(k);
+	j1 = (int) Math.floor((theFlare.itsStart - theStart) / theStep) - 1;
+	j2 = (int) Math.ceil((theFlare.itsEnd - theStart) / theStep) + 1;
+	if (j < j1) {j = j1; wasInFlare = 0;}
+	for (; j < theNstep && (j <= j2 || 0 != wasInFlare); j++) {
+	  theJD = theStart + (double) j * theStep;
+	  theScope.SetJD(theJD);
+	  theString = theSatellite[i].ShowFlare(theScope);
+	  if (null == theString) {
+	    inFlare = 0;
+	  }
+	  else {
+	    inFlare = 1;
+	    theLines.put((long) j * theNsat + i, theString);
+	  }
+	  if (0 != wasInFlare && 0 == inFlare) {
+	    theLines.put((long) j * theNsat + i, "\n");
+	  }
+	  wasInFlare = inFlare;
 	}
-
-	wasInFlare[i] = inFlare[i];
       }
     }
 
+    theIter = theLines.values().iterator();
+    while (theIter.hasNext()) theOutput = theOutput + theIter.next();
+
     /* At the end write an extra blank line. */
 
     theOutput = theOutput + "\n";
@@ -1204,7 +1236,8 @@ Serve various <code>whatever/show</code> commands.
    * <code>./data/stations.dat</code> to read the observatory
    * "Royal Observatory Edinburgh" from and the file
    * <code>./data/iridium.txt</code> to read the satellites from.
-   * It writes the result to the file <code>./iriday.html</code></p>
+   * It writes the result to the file <code>./iriday.html</code>  The
+   * flares are found with {@link FlareFinder FlareFinder}.</p>
    *
    * <p>This also writes an equivalent WML file (for WAP phones) to
    * <code>./iriday.wml</code>.</p>
@@ -1219,17 +1252,18 @@ Serve various <code>whatever/show</code> commands.
     BufferedReader theFile;
     PrintStream theXhtml, theWml;
     Telescope   theScope;
+    Times       theClock;
     Satellite[] theSatellite;
-    double    theStart, theStep, theEnd, theJD;
+    FlareFinder theFinder;
+    SatelliteFlare theFlare;
+    ArrayList<SatelliteFlare> theFlares;
+    double    theStart, theEnd;
     double    theDate[]    = new double[3];
-    double    startPos[][], startTime[][];
-    double    peakPos[][],  peakTime[][];
-    double    endPos[][],   endTime[][];
-    double    peakAngle[];
-    double    theAngle;
-    int       inPass[], wasInPass[];
-    int       theNstep, theNsat;
-    int       i, j;
+    double    startTime[]  = new double[3];
+    double    peakTime[]   = new double[3];
+    double    endTime[]    = new double[3];
+    int       theNsat;
+    int       i;
 
     /* Read the station from file. */
 
@@ -1252,8 +1286,6 @@ Serve various <code>whatever/show</code> commands.
 
     theStart = GetJD();
     theEnd   = theStart + 1.;
-    theStep  = 1. / 86400.;
-    theNstep = (int) Math.ceil((theEnd - theStart) / theStep);
 
     /* Open the TLE file, count the lines, close and reopen. */
 
@@ -1270,15 +1302,6 @@ Serve various <code>whatever/show</code> commands.
      * Read each Satellite TLE from file using NoradNext. */
 
     theSatellite = new Satellite[theNsat];
-    peakAngle    = new double[theNsat];
-    inPass       = new int[theNsat];
-    wasInPass    = new int[theNsat];
-    startTime = new double[theNsat][3];
-    peakTime  = new double[theNsat][3];
-    endTime   = new double[theNsat][3];
-    startPos  = new double[theNsat][3];
-    peakPos   = new double[theNsat][3];
-    endPos    = new double[theNsat][3];
     theFile = new BufferedReader(new FileReader("data/iridium.txt"));
     for (i = 0; i < theNsat ; i++) {
       theSatellite[i] = new Satellite();
@@ -1327,123 +1350,80 @@ Serve various <code>whatever/show</code> commands.
       + "<th scope=\"col\" colspan=\"3\">end</th></tr>\n");
     theWml.print("<p>\nUT A h angle\n</p>\n");
 
-    /* Loop through time. */
-
-    for (j = 0; j < theNstep; j++) {
-
-      /* Calculate JD. */
-
-      theJD = theStart + (double) j * theStep;
-      theScope.SetJD(theJD);
-
-      /* Loop through the satellites. */
-
-      for (i = 0; i < theNsat; i++) {
-
-        /* Update the satellite, check it is up, sunlit and flaring. */
-
-	theAngle = theSatellite[i].TestFlare(theScope);
-	if (2. >= theAngle) {inPass[i] = 1;} else {inPass[i] = 0;}
-
-	/* If a flare is starting. */
-
-	if      (0 == wasInPass[i] && 0 != inPass[i]) {
-
-	  /* Set the start time and position. */
+    /* Find the flares of each satellite, and sort them by their end, as
+     * they were listed when found by stepping through time. */
 
-	  theSatellite[i].GetHori(0, theScope, startPos[i]);
-	  theScope.GetUThms(startTime[i]);
-
-	  /* Set candiate end time and position */
-
-	  theScope.GetUThms(endTime[i]);
-	  endPos[i][0] = startPos[i][0];
-	  endPos[i][1] = startPos[i][1];
-	  endPos[i][2] = startPos[i][2];
-
-	  /* Set candiate peak time, position and angle */
-
-	  theScope.GetUThms(peakTime[i]);
-	  peakPos[i][0] = startPos[i][0];
-	  peakPos[i][1] = startPos[i][1];
-	  peakPos[i][2] = startPos[i][2];
-	  peakAngle[i]  = theAngle;
-
-	}
-
-	/* Else if a flare has ended. */
-
-	else if (0 != wasInPass[i] && 0 == inPass[i]) {
-
-	  /* Write XHTML table row. */
-
-	  theXhtml.print("<tr><td>"
-	    + theSatellite[i].GetName() + "</td><td>");
-	  theXhtml.print(Hmelib.WTime6(startTime[i][0],
-				       startTime[i][1], startTime[i][2]));
-	  theXhtml.print("</td><td align=\"right\">");
-	  theXhtml.print(Hmelib.Wfndm(5, 1, startPos[i][0] * Hmelib.DEGPERRAD));
-	  theXhtml.print("&deg;</td><td align=\"right\">");
-	  theXhtml.print(Hmelib.Wfndm(4, 1, startPos[i][1] * Hmelib.DEGPERRAD));
-	  theXhtml.print("&deg;</td>");
-
-	  theXhtml.print("<td>");
-	  theXhtml.print(Hmelib.WTime6(peakTime[i][0],
-				       peakTime[i][1], peakTime[i][2]));
-	  theXhtml.print("</td><td align=\"right\">");
-	  theXhtml.print(Hmelib.Wfndm(5, 1, peakPos[i][0] * Hmelib.DEGPERRAD));
-	  theXhtml.print("&deg;</td><td align=\"right\">");
-	  theXhtml.print(Hmelib.Wfndm(4, 1, peakPos[i][1] * Hmelib.DEGPERRAD));
-	  theXhtml.print("&deg;</td><td align=\"right\">");
-	  theXhtml.print(Hmelib.Wfndm(3, 1, peakAngle[i]));
-	  theXhtml.print("&deg;</td>");
-
-	  theXhtml.print("<td>");
-	  theXhtml.print(Hmelib.WTime6(endTime[i][0],
-				       endTime[i][1], endTime[i][2]));
-	  theXhtml.print("</td><td align=\"right\">");
-	  theXhtml.print(Hmelib.Wfndm(5, 1, endPos[i][0] * Hmelib.DEGPERRAD));
-	  theXhtml.print("&deg;</td><td align=\"right\">");
-	  theXhtml.print(Hmelib.Wfndm(4, 1, endPos[i][1] * Hmelib.DEGPERRAD));
-	  theXhtml.print("&deg;</td></tr>\n");
-
-	  /* Write WML table row. */
-
-	  theWml.print("<p>\n");
-	  theWml.print(Hmelib.WTime6(peakTime[i][0],
-				     peakTime[i][1], peakTime[i][2]));
-	  theWml.print(" ");
-	  theWml.print(Hmelib.Wfndm(3, 0, peakPos[i][0] * Hmelib.DEGPERRAD));
-	  theWml.print(" ");
-	  theWml.print(Hmelib.Wfndm(2, 0, peakPos[i][1] * Hmelib.DEGPERRAD));
-	  theWml.print(" ");
-	  theWml.print(Hmelib.Wfndm(3, 1, peakAngle[i]));
-	  theWml.print("\n</p>\n");
-
-	}
+    theFlares = new ArrayList<SatelliteFlare>();
+    for (i = 0; i < theNsat; i++) {
+      theFinder = new FlareFinder();
+      theFinder.Init(theSatellite[i], theScope);
+      theFlares.addAll(theFinder.FindFlares(theStart, theEnd));
+    }
+    Collections.sort(theFlares, new Comparator<SatelliteFlare>() {
+      public int compare(SatelliteFlare a, SatelliteFlare b) {
+	return Double.compare(a.itsEnd, b.itsEnd);
+      }
+    });
 
-	/* Else if in flare. */
+    /* Write a table row for each flare. */
 
-	else if (0 != inPass[i]) {
+    theClock = new Times();
+    theClock.Init();
+    for (i = 0; i < theFlares.size(); i++) {
 
-	  /* Update candiate end time and position. */
+      theFlare = theFlares.get(i);
+      theClock.SetJD(theFlare.itsStart); theClock.GetUThms(startTime);
+      theClock.SetJD(theFlare.itsPeak);  theClock.GetUThms(peakTime);
+      theClock.SetJD(theFlare.itsEnd);   theClock.GetUThms(endTime);
 
-	  theSatellite[i].GetHori(0, theScope, endPos[i]);
-	  theScope.GetUThms(endTime[i]);
+      /* Write XHTML table row. */
 
-	  /* If brighter than peak so far, update candidate peak. */
+      theXhtml.print("<tr><td>"
+	+ theFlare.itsSatellite.GetName() + "</td><td>");
+      theXhtml.print(Hmelib.WTime6(startTime[0], startTime[1], startTime[2]));
+      theXhtml.print("</td><td align=\"right\">");
+      theXhtml.print(Hmelib.Wfndm(5, 1,
+	theFlare.itsHoriStart[0] * Hmelib.DEGPERRAD));
+      theXhtml.print("&deg;</td><td align=\"right\">");
+      theXhtml.print(Hmelib.Wfndm(4, 1,
+	theFlare.itsHoriStart[1] * Hmelib.DEGPERRAD));
+      theXhtml.print("&deg;</td>");
 
-	  if (peakAngle[i] > theAngle) {
-	    theScope.GetUThms(peakTime[i]);
-	    peakPos[i][0] = endPos[i][0];
-	    peakPos[i][1] = endPos[i][1];
-	    peakPos[i][2] = endPos[i][2];
-	    peakAngle[i]  = theAngle;
-	  }
-	}
+      theXhtml.print("<td>");
+      theXhtml.print(Hmelib.WTime6(peakTime[0], peakTime[1], peakTime[2]));
+      theXhtml.print("</td><td align=\"right\">");
+      theXhtml.print(Hmelib.Wfndm(5, 1,
+	theFlare.itsHoriPeak[0] * Hmelib.DEGPERRAD));
+      theXhtml.print("&deg;</td><td align=\"right\">");
+      theXhtml.print(Hmelib.Wfndm(4, 1,
+	theFlare.itsHoriPeak[1] * Hmelib.DEGPERRAD));
+      theXhtml.print("&deg;</td><td align=\"right\">");
+      theXhtml.print(Hmelib.Wfndm(3, 1, theFlare.itsAngle * Hmelib.DEGPERRAD));
+      theXhtml.print("&deg;</td>");
 
-	wasInPass[i] = inPass[i];
-      }
+      theXhtml.print("<td>");
+      theXhtml.print(Hmelib.WTime6(endTime[0], endTime[1], endTime[2]));
+      theXhtml.print("</td><td align=\"right\">");
+      theXhtml.print(Hmelib.Wfndm(5, 1,
+	theFlare.itsHoriEnd[0] * Hmelib.DEGPERRAD));
+      theXhtml.print("&deg;</td><td align=\"right\">");
+      theXhtml.print(Hmelib.Wfndm(4, 1,
+	theFlare.itsHoriEnd[1] * Hmelib.DEGPERRAD));
+      theXhtml.print("&deg;</td></tr>\n");
+
+      /* Write WML table row. */
+
+      theWml.print("<p>\n");
+      theWml.print(Hmelib.WTime6(peakTime[0], peakTime[1], peakTime[2]));
+      theWml.print(" ");
+      theWml.print(Hmelib.Wfndm(3, 0,
+	theFlare.itsHoriPeak[0] * Hmelib.DEGPERRAD));
+      theWml.print(" ");
+      theWml.print(Hmelib.Wfndm(2, 0,
+	theFlare.itsHoriPeak[1] * Hmelib.DEGPERRAD));
+      theWml.print(" ");
+      theWml.print(Hmelib.Wfndm(3, 1, theFlare.itsAngle * Hmelib.DEGPERRAD));
+      theWml.print("\n</p>\n");
     }
 
     /* Table end and blurb. */
@@ -1499,6 +1479,9 @@ Serve various <code>whatever/show</code> commands.
     double    peakPos[]    = new double[3];
     double    lastTime[]   = new double[3];
     double    lastPos[]    = new double[3];
+    double    theHori[];
+    int       theSunlit[];
+    Times     theClock;
     int       theNstep, inPass, wasInPass;
     int       i;
 
@@ -1526,11 +1509,20 @@ Serve various <code>whatever/show</code> commands.
     theStep  = 1. / 1440.;
     theNstep = (int) Math.ceil((theEnd - theStart) / theStep);
 
-    /* Read the satellite from file. */
+    /* Read the satellite from file and calculate its horizontal coordinates
+     * and sunlit status for all steps.  The clock for the time stamps is
+     * kept separate from the Telescope, so that the Sun is calculated only
+     * when the satellite is sunlit and up. */
 
     theSatellite = new Satellite();
     theSatellite.Init();
     theSatellite.ReadByName("data/stations.txt", "ISS (ZARYA)");
+    theHori   = new double[3*theNstep];
+    theSunlit = new int[theNstep];
+    theSatellite.GetHoriSeries(theScope, theStart, theStep, theNstep,
+      theHori, theSunlit);
+    theClock = new Times();
+    theClock.Init();
 
     /* Open the output files. */
 
@@ -1578,15 +1570,17 @@ Serve various <code>whatever/show</code> commands.
       /* Calculate time for next step. */
 
       theJD = theStart + (double) i * theStep;
-      theScope.SetJD(theJD);
+      theClock.SetJD(theJD);
 
-      /* Update the satellite, check it is up, sunlit and it is dark. */
+      /* Check the satellite is up, sunlit and it is dark. */
 
-      theSatellite.Update(theScope);
       inPass = 0;
-      if (0 != theSatellite.itsIsSunlit) {
-	theSatellite.GetHori(0, theScope, theSatPos);
+      if (0 != theSunlit[i]) {
+	theSatPos[0] = theHori[3*i];
+	theSatPos[1] = theHori[3*i+1];
+	theSatPos[2] = theHori[3*i+2];
 	if (0. < theSatPos[1]) {
+	  theScope.SetJD(theJD);
 	  theScope.itsSun.GetHori(0, theScope, theSun);
 	  if (NamedObject.RISECIVIL > theSun[1]) {
 	    inPass = 1;
@@ -1600,7 +1594,7 @@ Serve various <code>whatever/show</code> commands.
 
 	/* Reset the peak tracker. */
 
-	theScope.GetUThms(peakTime);
+	theClock.GetUThms(peakTime);
 	peakPos[0] = theSatPos[0];
 	peakPos[1] = theSatPos[1];
 	peakPos[2] = theSatPos[2];
@@ -1653,13 +1647,13 @@ Serve various <code>whatever/show</code> commands.
 
 	/* Update peak tracker. */
 
-	theScope.GetUThms(peakTime);
+	theClock.GetUThms(peakTime);
 	peakPos[0] = theSatPos[0];
 	peakPos[1] = theSatPos[1];
 	peakPos[2] = theSatPos[2];
       }
 
-      theScope.GetUThms(lastTime);
+      theClock.GetUThms(lastTime);
       lastPos[0] = theSatPos[0];
       lastPos[1] = theSatPos[1];
       lastPos[2] = theSatPos[2];
@@ -0,0 +1,229 @@
+package uk.me.chiandh.Sputnik;
+
+/**
+ * <p>The <code>TimeSearch</code> class finds zeros and extrema of a
+ * function of time, for the finders of passes, flares and eclipses.</p>
+ *
+ * <p>A zero is found by Brent's method (the zeroin routine of Forsythe,
+ * Malcolm and Moler), which combines bisection with secant steps and
+ * inverse quadratic interpolation.  A minimum or maximum is found by
+ * golden section search.  The function is given as a
+ * {@link TimeSearch.Function Function}, which a finder implements on its
+ * own evaluation of the satellite.</p>
+ *
+ * <p>An instance keeps the value at the last extremum found, and so
+ * belongs to one finder and one thread.</p>
+ *
+ * <p>This programme is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public Licence as
+ * published by the Free Software Foundation; either version 2 of
+ * the Licence, or (at your option) any later version.</p>
+ *
+ * <p>This programme is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public Licence for more details.</p>
+ *
+ * <p>You should have received a copy of the GNU General Public Licence
+ * along with this programme; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.</p> */
+
+public class TimeSearch
+{
+  /**
+   * A function of time to search. */
+
+  public interface Function
+  {
+    /**
+     * Return the value of the function at a given time.
+     *
+     * @param aJD
+     *   The time, as Julian Day minus 2450000 days. */
+
+    double Value(double aJD);
+  }
+
+  /* The value at the extremum found last. */
+
+  protected double itsValue;
+
+
+  /**
+   * Return the value at the minimum or maximum found last. */
+
+  public final double GetValue() {return itsValue;}
+
+
+  /**
+   * Find the maximum of a function between two times.
+   *
+   * <p>This is a golden section search, which assumes a single maximum
+   * between the two times.  The maximum is left for
+   * {@link #GetValue GetValue}.
+   *
+   * @param aF
+   *   The function.
+   * @param a
+   *   The earlier time.
+   * @param b
+   *   The later time.
+   * @param aTol
+   *   The accuracy of the time.
+   * @return
+   *   The time of the maximum. */
+
+  public final double Max(Function aF, double a, double b, double aTol)
+  {
+    final double g = 0.5 * (Math.sqrt(5.) - 1.);
+    double c, d, fc, fd;
+
+    c = b - g * (b - a); fc = aF.Value(c);
+    d = a + g * (b - a); fd = aF.Value(d);
+
+    while (aTol < b - a) {
+      if (fc > fd) {
+	b = d; d = c; fd = fc;
+	c = b - g * (b - a); fc = aF.Value(c);
+      }
+      else {
+	a = c; c = d; fc = fd;
+	d = a + g * (b - a); fd = aF.Value(d);
+      }
+    }
+
+    if (fc > fd) {itsValue = fc; return c;}
+    else         {itsValue = fd; return d;}
+  }
+
+
+  /**
+   * Find the minimum of a function between two times.
+   *
+   * <p>This is a golden section search, which assumes a single minimum
+   * between the two times.  It stops early once a value is below a
+   * limit, for a caller who only needs to know that the function goes
+   * below it.  The minimum, or the value found below the limit, is left
+   * for {@link #GetValue GetValue}.
+   *
+   * @param aF
+   *   The function.
+   * @param a
+   *   The earlier time.
+   * @param b
+   *   The later time.
+   * @param aTol
+   *   The accuracy of the time.
+   * @param aLimit
+   *   The value below which to stop, or negative infinity to find the
+   *   minimum in full.
+   * @return
+   *   The time of the minimum. */
+
+  public final double Min(Function aF, double a, double b, double aTol,
+    double aLimit)
+  {
+    final double g = 0.5 * (Math.sqrt(5.) - 1.);
+    double c, d, fc, fd;
+
+    c = b - g * (b - a); fc = aF.Value(c);
+    d = a + g * (b - a); fd = aF.Value(d);
+
+    while (aTol < b - a && aLimit <= fc && aLimit <= fd) {
+      if (fc < fd) {
+	b = d; d = c; fd = fc;
+	c = b - g * (b - a); fc = aF.Value(c);
+      }
+      else {
+	a = c; c = d; fc = fd;
+	d = a + g * (b - a); fd = aF.Value(d);
+      }
+    }
+
+    if (fc < fd) {itsValue = fc; return c;}
+    else         {itsValue = fd; return d;}
+  }
+
+
+  /**
+   * Find the zero of a function between two times.
+   *
+   * <p>This is Brent's method.  The values at the two times must be of
+   * opposite sign.
+   *
+   * @param aF
+   *   The function.
+   * @param a
+   *   One time.
+   * @param fa
+   *   The value at time a.
+   * @param b
+   *   The other time.
+   * @param fb
+   *   The value at time b.
+   * @param aTol
+   *   The accuracy of the time.
+   * @return
+   *   The time of the zero. */
+
+  public final double Zero(Function aF, double a, double fa, double b,
+    double fb, double aTol)
+  {
+    double c, fc, d, e, tol1, xm, p, q, r, s;
+
+    c = a; fc = fa; d = b - a; e = d;
+
+    for (;;) {
+
+      /* Keep b the best estimate, and the zero between b and c. */
+
+      if (Math.abs(fc) < Math.abs(fb)) {
+	a = b; b = c; c = a;
+	fa = fb; fb = fc; fc = fa;
+      }
+      tol1 = 2. * 1E-16 * Math.abs(b) + 0.5 * aTol;
+      xm   = 0.5 * (c - b);
+      if (Math.abs(xm) <= tol1 || 0. == fb) return b;
+
+      /* Interpolate if the last step was large enough and helped, else
+       * bisect. */
+
+      if (Math.abs(e) >= tol1 && Math.abs(fa) > Math.abs(fb)) {
+	s = fb / fa;
+	if (a == c) {
+	  p = 2. * xm * s;
+	  q = 1. - s;
+	}
+	else {
+	  q = fa / fc;
+	  r = fb / fc;
+	  p = s * (2. * xm * q * (q - r) - (b - a) * (r - 1.));
+	  q = (q - 1.) * (r - 1.) * (s - 1.);
+	}
+	if (0. < p) q = -q;
+	else        p = -p;
+	if (2. * p < Math.min(3. * xm * q - Math.abs(tol1 * q),
+			      Math.abs(e * q))) {
+	  e = d; d = p / q;
+	}
+	else {
+	  d = xm; e = d;
+	}
+      }
+      else {
+	d = xm; e = d;
+      }
+
+      a = b; fa = fb;
+      if (Math.abs(d) > tol1) b += d;
+      else                    b += (0. < xm) ? tol1 : -tol1;
+      fb = aF.Value(b);
+
+      /* If the zero is no longer between b and c, start again from a. */
+
+      if ((0. < fb) == (0. < fc)) {
+	c = a; fc = fa; d = b - a; e = d;
+      }
+    }
+  }
+}